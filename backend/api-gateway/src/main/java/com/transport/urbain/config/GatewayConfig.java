@@ -1,10 +1,14 @@
 package com.transport.urbain.config;
 
+import com.transport.urbain.filter.BusAffinityFilter;
 import com.transport.urbain.filter.JwtAuthenticationFilter;
+import com.transport.urbain.loadbalancer.GeolocationLoadBalancerConfig;
 import org.springframework.cloud.gateway.route.RouteLocator;
 import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
 import org.springframework.context.annotation.Bean;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClient;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 
 /**
  * Gateway routing configuration.
@@ -30,20 +34,27 @@ import org.springframework.context.annotation.Configuration;
  *     <li>Subscription Service - subscription management</li>
  *     <li>Notification Service - notifications and alerts</li>
  * </ul>
+ * <p>
+ * GPS ingestion requests are pinned to one geolocation service instance per bus
+ * ({@link BusAffinityFilter}), because each instance keeps per-bus ingestion state.
  *
  */
 @Configuration
+@LoadBalancerClient(name = "geolocation-service", configuration = GeolocationLoadBalancerConfig.class)
 public class GatewayConfig {
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final BusAffinityFilter busAffinityFilter;
 
     /**
-     * Constructor to inject JWT authentication filter.
+     * Constructor to inject the gateway filters.
      *
      * @param jwtAuthenticationFilter the JWT filter for securing routes
+     * @param busAffinityFilter the filter pinning GPS ingestion to one instance per bus
      */
-    public GatewayConfig(JwtAuthenticationFilter jwtAuthenticationFilter) {
+    public GatewayConfig(JwtAuthenticationFilter jwtAuthenticationFilter, BusAffinityFilter busAffinityFilter) {
         this.jwtAuthenticationFilter = jwtAuthenticationFilter;
+        this.busAffinityFilter = busAffinityFilter;
     }
 
     /**
@@ -101,6 +112,20 @@ public class GatewayConfig {
                         )
                         .uri("lb://schedule-service"))
 
+                // Geolocation Service GPS ingestion (one instance per bus)
+                .route("geolocation-service-ingest", r -> r
+                        .method(HttpMethod.POST)
+                        .and()
+                        .path("/api/positions", "/api/positions/driver", "/api/positions/batch")
+                        .filters(f -> f
+                                .filter(jwtAuthenticationFilter.apply(new JwtAuthenticationFilter.Config()))
+                                .filter(busAffinityFilter.apply(new BusAffinityFilter.Config()))
+                                .circuitBreaker(config -> config
+                                        .setName("geolocationServiceCircuitBreaker")
+                                        .setFallbackUri("forward:/fallback/geolocation-service"))
+                        )
+                        .uri("lb://geolocation-service"))
+
                 // Geolocation Service Routes
                 .route("geolocation-service", r -> r
                         .path("/api/geolocation/**", "/api/tracking/**", "/api/positions/**", 
@@ -0,0 +1,117 @@
+package com.transport.urbain.filter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.transport.urbain.loadbalancer.BusAffinityLoadBalancer;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Bus affinity filter for GPS ingestion routes.
+ * <p>
+ * Geolocation service instances keep per-bus state built from the points they ingest
+ * (duplicate guard, trip statistics, stop and ETA tracking, stationary suppression), so
+ * every point of a given bus must reach the same instance. This filter reads the busId
+ * from the JSON request body and forwards it in the {@value #BUS_ID_HEADER} header,
+ * which {@link BusAffinityLoadBalancer} hashes to pick the instance.
+ * <p>
+ * Supported bodies:
+ * <ul>
+ *     <li>a single position object: its {@code busId}</li>
+ *     <li>a batch (JSON array): the first {@code busId} found in its points; the geolocation
+ *     service only accepts single-bus batches when running with several instances</li>
+ * </ul>
+ * Requests without a readable busId are forwarded unchanged and load-balanced round-robin.
+ */
+@Component
+public class BusAffinityFilter extends AbstractGatewayFilterFactory<BusAffinityFilter.Config> {
+
+    /** Header carrying the routing key from this filter to the load balancer */
+    public static final String BUS_ID_HEADER = "X-Bus-Id";
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Constructor to inject the JSON mapper used to read request bodies.
+     *
+     * @param objectMapper the application object mapper
+     */
+    public BusAffinityFilter(ObjectMapper objectMapper) {
+        super(Config.class);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Applies bus affinity to gateway requests.
+     * <p>
+     * The body is cached so it can still be forwarded downstream after being read.
+     * A client-supplied {@value #BUS_ID_HEADER} header is always replaced.
+     *
+     * @param config filter configuration (currently unused, reserved for future use)
+     * @return GatewayFilter that adds the bus routing key
+     */
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> ServerWebExchangeUtils.cacheRequestBodyAndRequest(exchange, cachedRequest -> {
+            DataBuffer body = exchange.getAttribute(ServerWebExchangeUtils.CACHED_REQUEST_BODY_ATTR);
+            String busId = body != null ? extractBusId(body.toString(StandardCharsets.UTF_8)) : null;
+
+            ServerHttpRequest routedRequest = cachedRequest.mutate()
+                    .headers(headers -> {
+                        headers.remove(BUS_ID_HEADER);
+                        if (busId != null) {
+                            headers.set(BUS_ID_HEADER, busId);
+                        }
+                    })
+                    .build();
+            return chain.filter(exchange.mutate().request(routedRequest).build());
+        });
+    }
+
+    /**
+     * Extracts the routing busId from a position or batch body.
+     *
+     * @param body the JSON request body
+     * @return the busId, or null if the body has none
+     */
+    String extractBusId(String body) {
+        try {
+            JsonNode root = objectMapper.readTree(body);
+            if (root == null || !root.isArray()) {
+                return busId(root);
+            }
+            for (JsonNode position : root) {
+                String busId = busId(position);
+                if (busId != null) {
+                    return busId;
+                }
+            }
+            return null;
+        } catch (IOException e) {
+            // Malformed body: let the geolocation service reject it
+            return null;
+        }
+    }
+
+    private static String busId(JsonNode position) {
+        JsonNode busId = position != null ? position.path("busId") : null;
+        if (busId == null || !(busId.isIntegralNumber() || busId.isTextual()) || busId.asText().isBlank()) {
+            return null;
+        }
+        return busId.asText();
+    }
+
+    /**
+     * Configuration class for the bus affinity filter.
+     */
+    public static class Config {
+        // Configuration properties if needed
+    }
+}
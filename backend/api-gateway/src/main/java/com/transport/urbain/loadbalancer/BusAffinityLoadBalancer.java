@@ -0,0 +1,114 @@
+package com.transport.urbain.loadbalancer;
+
+import com.transport.urbain.filter.BusAffinityFilter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load balancer pinning each bus to one geolocation service instance.
+ * <p>
+ * Requests carrying the {@value BusAffinityFilter#BUS_ID_HEADER} header are routed by
+ * rendezvous hashing: every instance gets a score derived from the busId and its instance id,
+ * and the highest score wins. All gateway replicas therefore agree on the owner of a bus,
+ * and adding or removing an instance only moves the buses that it gains or loses.
+ * <p>
+ * Requests without the header (reads, live subscriptions) are spread round-robin.
+ */
+public class BusAffinityLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider;
+    private final String serviceId;
+    private final AtomicInteger position = new AtomicInteger(ThreadLocalRandom.current().nextInt(1000));
+
+    /**
+     * Creates the load balancer for one service.
+     *
+     * @param serviceInstanceListSupplierProvider provider of the service instances
+     * @param serviceId the load-balanced service id
+     */
+    public BusAffinityLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+                                   String serviceId) {
+        this.serviceInstanceListSupplierProvider = serviceInstanceListSupplierProvider;
+        this.serviceId = serviceId;
+    }
+
+    /**
+     * Chooses the instance for a request.
+     *
+     * @param request the load balancer request
+     * @return the chosen instance, or an empty response if none is available
+     */
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = serviceInstanceListSupplierProvider
+                .getIfAvailable(NoopServiceInstanceListSupplier::new);
+        String busId = busId(request);
+        return supplier.get(request).next().map(instances -> choose(instances, busId));
+    }
+
+    Response<ServiceInstance> choose(List<ServiceInstance> instances, String busId) {
+        if (instances.isEmpty()) {
+            return new EmptyResponse();
+        }
+        if (busId == null) {
+            int index = (position.incrementAndGet() & Integer.MAX_VALUE) % instances.size();
+            return new DefaultResponse(instances.get(index));
+        }
+        ServiceInstance owner = null;
+        long bestScore = Long.MIN_VALUE;
+        for (ServiceInstance instance : instances) {
+            long score = score(busId, instanceKey(instance));
+            if (owner == null || score > bestScore) {
+                owner = instance;
+                bestScore = score;
+            }
+        }
+        return new DefaultResponse(owner);
+    }
+
+    private static String busId(Request request) {
+        if (request != null && request.getContext() instanceof RequestDataContext context
+                && context.getClientRequest() != null && context.getClientRequest().getHeaders() != null) {
+            return context.getClientRequest().getHeaders().getFirst(BusAffinityFilter.BUS_ID_HEADER);
+        }
+        return null;
+    }
+
+    private static String instanceKey(ServiceInstance instance) {
+        return instance.getInstanceId() != null
+                ? instance.getInstanceId()
+                : instance.getHost() + ":" + instance.getPort();
+    }
+
+    /**
+     * Rendezvous score of a (bus, instance) pair. String hash codes are specified by the JDK,
+     * so every gateway replica computes the same scores.
+     */
+    static long score(String busId, String instanceKey) {
+        long z = ((long) instanceKey.hashCode() << 32) ^ (busId.hashCode() & 0xffffffffL);
+        // SplitMix64 finalizer
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * @return the load-balanced service id
+     */
+    public String getServiceId() {
+        return serviceId;
+    }
+}
@@ -0,0 +1,33 @@
+package com.transport.urbain.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * Load balancer configuration for the geolocation service.
+ * <p>
+ * Referenced from {@code @LoadBalancerClient} only: it is deliberately not a
+ * {@code @Configuration} class, so that the bus affinity load balancer does not
+ * replace round-robin for the other services.
+ */
+public class GeolocationLoadBalancerConfig {
+
+    /**
+     * Creates the bus affinity load balancer for the geolocation service.
+     *
+     * @param environment the load balancer child context environment
+     * @param loadBalancerClientFactory factory providing the service instances
+     * @return the bus affinity load balancer
+     */
+    @Bean
+    public ReactorLoadBalancer<ServiceInstance> busAffinityLoadBalancer(Environment environment,
+                                                                        LoadBalancerClientFactory loadBalancerClientFactory) {
+        String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        return new BusAffinityLoadBalancer(
+                loadBalancerClientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class), serviceId);
+    }
+}
@@ -0,0 +1,84 @@
+package com.transport.urbain.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.mock.web.server.MockServerWebExchange.from;
+
+/**
+ * Unit tests for {@link BusAffinityFilter}.
+ * <p>
+ * Tests verify busId extraction from position and batch bodies
+ * and the routing header forwarded to the load balancer.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Bus Affinity Filter Tests")
+class BusAffinityFilterTest {
+
+    @Mock
+    private GatewayFilterChain filterChain;
+
+    private BusAffinityFilter busAffinityFilter;
+
+    @BeforeEach
+    void setUp() {
+        busAffinityFilter = new BusAffinityFilter(new ObjectMapper());
+    }
+
+    @Test
+    @DisplayName("Should extract the busId of a single position")
+    void testExtractFromPosition() {
+        assertEquals("12", busAffinityFilter.extractBusId("{\"busId\":12,\"latitude\":33.5,\"longitude\":-7.6}"));
+    }
+
+    @Test
+    @DisplayName("Should extract the busId of the first point of a batch")
+    void testExtractFromBatch() {
+        assertEquals("7", busAffinityFilter.extractBusId("[{\"busId\":7},{\"busId\":7}]"));
+        assertEquals("7", busAffinityFilter.extractBusId("[null,{\"latitude\":33.5},{\"busId\":7}]"));
+    }
+
+    @Test
+    @DisplayName("Should ignore bodies without a busId")
+    void testExtractWithoutBusId() {
+        assertNull(busAffinityFilter.extractBusId("{\"latitude\":33.5}"));
+        assertNull(busAffinityFilter.extractBusId("[]"));
+        assertNull(busAffinityFilter.extractBusId("not json"));
+    }
+
+    @Test
+    @DisplayName("Should forward the busId header and the body downstream")
+    void testForwardsBusIdHeader() {
+        var exchange = from(MockServerHttpRequest.post("/api/positions/driver")
+                .header(BusAffinityFilter.BUS_ID_HEADER, "999")
+                .body("{\"busId\":12,\"latitude\":33.5,\"longitude\":-7.6}"));
+        when(filterChain.filter(any(ServerWebExchange.class))).thenReturn(Mono.empty());
+
+        Mono<Void> result = busAffinityFilter.apply(new BusAffinityFilter.Config())
+                .filter(exchange, filterChain);
+
+        StepVerifier.create(result)
+                .verifyComplete();
+
+        ArgumentCaptor<ServerWebExchange> forwarded = ArgumentCaptor.forClass(ServerWebExchange.class);
+        verify(filterChain).filter(forwarded.capture());
+        assertEquals(List.of("12"),
+                forwarded.getValue().getRequest().getHeaders().get(BusAffinityFilter.BUS_ID_HEADER));
+    }
+}
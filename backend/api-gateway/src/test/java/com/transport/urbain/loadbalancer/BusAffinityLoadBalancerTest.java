@@ -0,0 +1,136 @@
+package com.transport.urbain.loadbalancer;
+
+import com.transport.urbain.filter.BusAffinityFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.RequestData;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.LinkedMultiValueMap;
+import reactor.core.publisher.Flux;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link BusAffinityLoadBalancer}.
+ * <p>
+ * Tests verify that a bus always reaches the same instance, that scaling out
+ * only moves the buses taken over by the new instance, and that requests
+ * without a bus are spread round-robin.
+ */
+@DisplayName("Bus Affinity Load Balancer Tests")
+class BusAffinityLoadBalancerTest {
+
+    private BusAffinityLoadBalancer loadBalancer;
+    private List<ServiceInstance> instances;
+
+    @BeforeEach
+    void setUp() {
+        loadBalancer = new BusAffinityLoadBalancer(null, "geolocation-service");
+        instances = new ArrayList<>(List.of(instance("geo-1"), instance("geo-2"), instance("geo-3")));
+    }
+
+    @Test
+    @DisplayName("Should route every request of a bus to the same instance")
+    void testSameBusSameInstance() {
+        for (int busId = 1; busId <= 200; busId++) {
+            ServiceInstance first = loadBalancer.choose(instances, String.valueOf(busId)).getServer();
+            List<ServiceInstance> reordered = new ArrayList<>(instances);
+            Collections.reverse(reordered);
+            ServiceInstance again = loadBalancer.choose(reordered, String.valueOf(busId)).getServer();
+            assertEquals(first.getInstanceId(), again.getInstanceId(), "bus " + busId + " changed instance");
+        }
+    }
+
+    @Test
+    @DisplayName("Should spread buses over all instances")
+    void testBusesSpreadOverInstances() {
+        Set<String> owners = new HashSet<>();
+        for (int busId = 1; busId <= 200; busId++) {
+            owners.add(loadBalancer.choose(instances, String.valueOf(busId)).getServer().getInstanceId());
+        }
+        assertEquals(3, owners.size());
+    }
+
+    @Test
+    @DisplayName("Should only move buses taken over by a new instance")
+    void testScaleOutMovesOnlyNewOwnerBuses() {
+        Map<Integer, String> before = new HashMap<>();
+        for (int busId = 1; busId <= 200; busId++) {
+            before.put(busId, loadBalancer.choose(instances, String.valueOf(busId)).getServer().getInstanceId());
+        }
+
+        instances.add(instance("geo-4"));
+
+        for (int busId = 1; busId <= 200; busId++) {
+            String after = loadBalancer.choose(instances, String.valueOf(busId)).getServer().getInstanceId();
+            assertTrue(after.equals(before.get(busId)) || after.equals("geo-4"),
+                    "bus " + busId + " moved between existing instances");
+        }
+    }
+
+    @Test
+    @DisplayName("Should round-robin requests without a bus")
+    void testRoundRobinWithoutBus() {
+        Set<String> chosen = new HashSet<>();
+        for (int i = 0; i < instances.size(); i++) {
+            chosen.add(loadBalancer.choose(instances, null).getServer().getInstanceId());
+        }
+        assertEquals(3, chosen.size());
+    }
+
+    @Test
+    @DisplayName("Should return an empty response when no instance is available")
+    void testNoInstance() {
+        Response<ServiceInstance> response = loadBalancer.choose(List.of(), "12");
+        assertFalse(response.hasServer());
+    }
+
+    @Test
+    @DisplayName("Should read the bus from the request header")
+    @SuppressWarnings("unchecked")
+    void testBusIdFromRequestHeader() {
+        ServiceInstanceListSupplier supplier = mock(ServiceInstanceListSupplier.class);
+        when(supplier.get(any())).thenReturn(Flux.just(instances));
+        ObjectProvider<ServiceInstanceListSupplier> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable(any())).thenReturn(supplier);
+        BusAffinityLoadBalancer balancer = new BusAffinityLoadBalancer(provider, "geolocation-service");
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(BusAffinityFilter.BUS_ID_HEADER, "42");
+        RequestData requestData = new RequestData(HttpMethod.POST, URI.create("http://geolocation-service/api/positions/driver"),
+                headers, new LinkedMultiValueMap<>(), Map.of());
+
+        Set<String> chosen = new HashSet<>();
+        for (int i = 0; i < 5; i++) {
+            chosen.add(balancer.choose(new DefaultRequest<>(new RequestDataContext(requestData)))
+                    .block().getServer().getInstanceId());
+        }
+
+        assertEquals(Set.of(balancer.choose(instances, "42").getServer().getInstanceId()), chosen);
+    }
+
+    private static ServiceInstance instance(String instanceId) {
+        return new DefaultServiceInstance(instanceId, "geolocation-service", instanceId, 8082, false);
+    }
+}
@@ -0,0 +1,29 @@
+package com.geolocation_service.geolocation_service.config;
+
+import com.geolocation_service.geolocation_service.controller.BinaryPositionWebSocketHandler;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+/**
+ * Raw WebSocket endpoint serving compact binary position frames,
+ * as an opt-in alternative to the STOMP/JSON endpoint configured in {@link WebSocketConfig}
+ */
+@Configuration
+@EnableWebSocket
+public class BinaryWebSocketConfig implements WebSocketConfigurer {
+
+    private final BinaryPositionWebSocketHandler binaryPositionWebSocketHandler;
+
+    public BinaryWebSocketConfig(BinaryPositionWebSocketHandler binaryPositionWebSocketHandler) {
+        this.binaryPositionWebSocketHandler = binaryPositionWebSocketHandler;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        // Plain WebSocket (no SockJS fallback): binary frames require a native WebSocket client
+        registry.addHandler(binaryPositionWebSocketHandler, "/ws-binary")
+                .setAllowedOriginPatterns("*");
+    }
+}
@@ -0,0 +1,51 @@
+package com.geolocation_service.geolocation_service.config;
+
+import com.geolocation_service.geolocation_service.model.BusSummary;
+import com.geolocation_service.geolocation_service.service.BusSummaryService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.stereotype.Component;
+
+/**
+ * Prépare la projection bus_summary au démarrage : index des filtres de recherche
+ * (ligne, ligne + direction, direction) puis reconstruction depuis la collection bus,
+ * pour reprendre les bus écrits avant la projection ou directement en base.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "geolocation.bus-summary.rebuild-on-startup", havingValue = "true", matchIfMissing = true)
+public class BusSummaryInitializer implements ApplicationRunner {
+
+    static final String LIGNE_DIRECTION_INDEX = "ligneId_directionId";
+    static final String DIRECTION_INDEX = "directionId";
+
+    private final MongoTemplate mongoTemplate;
+    private final BusSummaryService busSummaryService;
+
+    public BusSummaryInitializer(MongoTemplate mongoTemplate, BusSummaryService busSummaryService) {
+        this.mongoTemplate = mongoTemplate;
+        this.busSummaryService = busSummaryService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            IndexOperations indexOps = mongoTemplate.indexOps(BusSummary.class);
+            indexOps.ensureIndex(new Index()
+                    .on("ligneId", Sort.Direction.ASC)
+                    .on("directionId", Sort.Direction.ASC)
+                    .named(LIGNE_DIRECTION_INDEX));
+            indexOps.ensureIndex(new Index().on("directionId", Sort.Direction.ASC).named(DIRECTION_INDEX));
+            busSummaryService.rebuild();
+        } catch (Exception e) {
+            // Les résumés existants restent servis, maintenus par les écritures suivantes
+            log.error("Unable to rebuild bus summaries: {}", e.getMessage(), e);
+        }
+    }
+}
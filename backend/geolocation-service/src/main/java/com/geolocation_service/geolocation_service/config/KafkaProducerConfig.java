@@ -15,6 +15,11 @@ import java.util.Map;
 
 /**
  * Configuration class for Kafka Producer in Geolocation Service.
+ * <p>
+ * Tuned for the position stream: records are batched ({@code linger.ms}, {@code batch.size})
+ * and compressed per batch, and the idempotent producer keeps per-partition (per-bus) order
+ * across retries. {@code max.block.ms} bounds how long a send may wait for metadata or
+ * buffer space, so a Kafka outage cannot stall callers indefinitely.
  */
 @Configuration
 public class KafkaProducerConfig {
@@ -22,6 +27,24 @@ public class KafkaProducerConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    @Value("${geolocation.events.producer.linger-ms:20}")
+    private int lingerMs;
+
+    @Value("${geolocation.events.producer.batch-size:65536}")
+    private int batchSize;
+
+    @Value("${geolocation.events.producer.compression-type:lz4}")
+    private String compressionType;
+
+    @Value("${geolocation.events.producer.buffer-memory:33554432}")
+    private long bufferMemory;
+
+    @Value("${geolocation.events.producer.max-block-ms:2000}")
+    private long maxBlockMs;
+
+    @Value("${geolocation.events.producer.delivery-timeout-ms:30000}")
+    private int deliveryTimeoutMs;
+
     @Bean
     public ProducerFactory<String, Object> producerFactory() {
         Map<String, Object> configProps = new HashMap<>();
@@ -29,6 +52,14 @@ public class KafkaProducerConfig {
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
         configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
         configProps.put(JsonSerializer.ADD_TYPE_INFO_HEADERS, false);
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        configProps.put(ProducerConfig.BUFFER_MEMORY_CONFIG, bufferMemory);
+        configProps.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, maxBlockMs);
+        configProps.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, deliveryTimeoutMs);
+        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
         return new DefaultKafkaProducerFactory<>(configProps);
     }
 
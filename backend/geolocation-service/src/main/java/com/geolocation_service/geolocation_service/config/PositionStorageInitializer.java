@@ -0,0 +1,129 @@
+package com.geolocation_service.geolocation_service.config;
+
+import com.geolocation_service.geolocation_service.model.PositionBus;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.timeseries.Granularity;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Prépare le stockage de la collection position_bus au démarrage.
+ * <p>
+ * L'initialisation a lieu à la création du bean, avec les autres singletons : avant le
+ * démarrage du serveur web, des listeners Kafka et du broker WebSocket (phases du cycle de vie).
+ * Aucune position ne peut donc créer implicitement position_bus en collection classique avant
+ * qu'elle n'ait été créée en time-series.
+ * <p>
+ * Une nouvelle collection est créée en collection time-series MongoDB
+ * (timeField {@code timestamp}, metaField {@code busId}) : les points d'un même
+ * bus sont regroupés en buckets compressés, ce qui garde les scans par bus et
+ * par intervalle de temps stables quand l'historique grossit.
+ * <p>
+ * La rétention ({@code geolocation.positions.storage.retention-days}) est appliquée
+ * via {@code expireAfterSeconds} sur une collection time-series, ou via un index TTL
+ * sur une collection classique existante (qui ne peut pas être convertie en place).
+ * L'index composé (busId, timestamp) est garanti dans les deux cas.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "geolocation.positions.storage.init-enabled", havingValue = "true", matchIfMissing = true)
+public class PositionStorageInitializer implements InitializingBean {
+
+    static final String BUS_TIMESTAMP_INDEX = "busId_timestamp";
+    static final String TTL_INDEX = "timestamp_ttl";
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean timeSeriesEnabled;
+    private final long retentionDays;
+
+    public PositionStorageInitializer(MongoTemplate mongoTemplate,
+                                      @Value("${geolocation.positions.storage.time-series:true}") boolean timeSeriesEnabled,
+                                      @Value("${geolocation.positions.storage.retention-days:0}") long retentionDays) {
+        this.mongoTemplate = mongoTemplate;
+        this.timeSeriesEnabled = timeSeriesEnabled;
+        this.retentionDays = retentionDays;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        try {
+            initialize();
+        } catch (Exception e) {
+            // Le service reste utilisable avec la collection telle qu'elle existe
+            log.error("Unable to initialize position_bus storage layout: {}", e.getMessage(), e);
+        }
+    }
+
+    void initialize() {
+        String collection = mongoTemplate.getCollectionName(PositionBus.class);
+
+        if (!mongoTemplate.collectionExists(collection)) {
+            createCollection(collection);
+        }
+
+        boolean timeSeries = isTimeSeries(collection);
+        if (timeSeries) {
+            applyTimeSeriesRetention(collection);
+        } else if (timeSeriesEnabled) {
+            log.warn("Collection {} already exists as a regular collection; keeping it and relying on indexes/TTL", collection);
+        }
+
+        IndexOperations indexOps = mongoTemplate.indexOps(collection);
+        indexOps.ensureIndex(new Index()
+                .on("busId", Sort.Direction.ASC)
+                .on("timestamp", Sort.Direction.DESC)
+                .named(BUS_TIMESTAMP_INDEX));
+
+        if (!timeSeries && retentionDays > 0) {
+            indexOps.ensureIndex(new Index()
+                    .on("timestamp", Sort.Direction.ASC)
+                    .expire(Duration.ofDays(retentionDays))
+                    .named(TTL_INDEX));
+        }
+
+        log.info("Position storage ready: collection={}, timeSeries={}, retentionDays={}",
+                collection, timeSeries, retentionDays > 0 ? retentionDays : "unlimited");
+    }
+
+    private void createCollection(String collection) {
+        if (!timeSeriesEnabled) {
+            mongoTemplate.createCollection(collection);
+            return;
+        }
+
+        CollectionOptions.TimeSeriesOptions options = CollectionOptions.TimeSeriesOptions.timeSeries("timestamp")
+                .metaField("busId")
+                .granularity(Granularity.SECONDS);
+        if (retentionDays > 0) {
+            options = options.expireAfter(Duration.ofDays(retentionDays));
+        }
+        mongoTemplate.createCollection(collection, CollectionOptions.empty().timeSeries(options));
+        log.info("Created time-series collection {} (metaField=busId)", collection);
+    }
+
+    private boolean isTimeSeries(String collection) {
+        Document info = mongoTemplate.getDb()
+                .listCollections()
+                .filter(new Document("name", collection))
+                .first();
+        return info != null && "timeseries".equals(info.getString("type"));
+    }
+
+    /**
+     * Aligne expireAfterSeconds sur la configuration courante (rollover modifiable sans migration)
+     */
+    private void applyTimeSeriesRetention(String collection) {
+        Object expireAfter = retentionDays > 0 ? Duration.ofDays(retentionDays).toSeconds() : "off";
+        mongoTemplate.executeCommand(new Document("collMod", collection).append("expireAfterSeconds", expireAfter));
+    }
+}
@@ -1,19 +1,27 @@
 package com.geolocation_service.geolocation_service.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+
 /**
  * Configuration pour RestTemplate
  * Permet de faire des appels HTTP vers d'autres services (ex: schedule-service)
+ * avec des timeouts bornés, pour qu'un service lent ne bloque pas les threads web.
  */
 @Configuration
 public class RestTemplateConfig {
 
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(@Value("${schedule.service.connect-timeout-ms:2000}") long connectTimeoutMs,
+                                     @Value("${schedule.service.read-timeout-ms:5000}") long readTimeoutMs) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(Duration.ofMillis(connectTimeoutMs));
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+        return new RestTemplate(requestFactory);
     }
 }
-
@@ -0,0 +1,27 @@
+package com.geolocation_service.geolocation_service.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Scheduler running the {@code @Scheduled} jobs (picked up by its {@code taskScheduler} name,
+ * ahead of the STOMP broker's heartbeat scheduler).
+ * <p>
+ * Spring's default scheduler has a single thread: a long compaction or schedule refresh would
+ * delay the leader lease renewal and the 200 ms Redis flush. Every job is a fixed-delay job
+ * holding at most one thread, so with at least as many threads as jobs, a slow job never
+ * starves another one.
+ */
+@Configuration
+public class SchedulingConfig {
+
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(@Value("${spring.task.scheduling.pool.size:20}") int poolSize) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix("scheduling-");
+        return scheduler;
+    }
+}
@@ -1,5 +1,6 @@
 package com.geolocation_service.geolocation_service.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
@@ -7,16 +8,62 @@ import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 
 /**
- * WebSocket configuration for real-time bus tracking
+ * WebSocket configuration for real-time bus tracking.
+ * <p>
+ * By default topics are served by the in-memory simple broker, which only reaches the
+ * sessions of this instance. With {@code geolocation.websocket.broker.relay.enabled}, topic
+ * subscriptions and messages are relayed to an external STOMP broker (RabbitMQ, ActiveMQ...):
+ * a position published by any instance reaches the subscribers of every instance, and the
+ * broker, not this JVM, does the per-subscriber fan-out.
  */
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final boolean relayEnabled;
+    private final String relayHost;
+    private final int relayPort;
+    private final String clientLogin;
+    private final String clientPasscode;
+    private final String systemLogin;
+    private final String systemPasscode;
+    private final String virtualHost;
+
+    public WebSocketConfig(@Value("${geolocation.websocket.broker.relay.enabled:false}") boolean relayEnabled,
+                           @Value("${geolocation.websocket.broker.relay.host:localhost}") String relayHost,
+                           @Value("${geolocation.websocket.broker.relay.port:61613}") int relayPort,
+                           @Value("${geolocation.websocket.broker.relay.client-login:guest}") String clientLogin,
+                           @Value("${geolocation.websocket.broker.relay.client-passcode:guest}") String clientPasscode,
+                           @Value("${geolocation.websocket.broker.relay.system-login:guest}") String systemLogin,
+                           @Value("${geolocation.websocket.broker.relay.system-passcode:guest}") String systemPasscode,
+                           @Value("${geolocation.websocket.broker.relay.virtual-host:}") String virtualHost) {
+        this.relayEnabled = relayEnabled;
+        this.relayHost = relayHost;
+        this.relayPort = relayPort;
+        this.clientLogin = clientLogin;
+        this.clientPasscode = clientPasscode;
+        this.systemLogin = systemLogin;
+        this.systemPasscode = systemPasscode;
+        this.virtualHost = virtualHost;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        // Enable a simple in-memory broker to send messages to clients on destinations prefixed with "/topic"
-        config.enableSimpleBroker("/topic");
+        if (relayEnabled) {
+            // Relay "/topic" and per-session "/queue" destinations to the external broker shared by all instances
+            config.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(clientLogin)
+                    .setClientPasscode(clientPasscode)
+                    .setSystemLogin(systemLogin)
+                    .setSystemPasscode(systemPasscode)
+                    .setVirtualHost(virtualHost.isBlank() ? null : virtualHost);
+        } else {
+            // Enable a simple in-memory broker to send messages to clients on destinations prefixed with "/topic"
+            // (shared) or "/queue" (per-session, addressed through "/user")
+            config.enableSimpleBroker("/topic", "/queue");
+        }
 
         // Designate the "/app" prefix for messages that are bound for @MessageMapping-annotated methods
         config.setApplicationDestinationPrefixes("/app");
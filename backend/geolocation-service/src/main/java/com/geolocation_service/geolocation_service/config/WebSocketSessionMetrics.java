@@ -0,0 +1,52 @@
+package com.geolocation_service.geolocation_service.config;
+
+import com.geolocation_service.geolocation_service.controller.BinaryPositionWebSocketHandler;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Exposes the number of tracking WebSocket sessions held by this instance as
+ * {@code geolocation.websocket.sessions}, tagged by transport ({@code stomp} or {@code binary}),
+ * so the load can be balanced across instances.
+ */
+@Component
+public class WebSocketSessionMetrics {
+
+    private final Set<String> stompSessions = ConcurrentHashMap.newKeySet();
+
+    public WebSocketSessionMetrics(MeterRegistry meterRegistry,
+                                   BinaryPositionWebSocketHandler binaryPositionWebSocketHandler) {
+        meterRegistry.gauge("geolocation.websocket.sessions", Tags.of("transport", "stomp"),
+                stompSessions, Set::size);
+        meterRegistry.gauge("geolocation.websocket.sessions", Tags.of("transport", "binary"),
+                binaryPositionWebSocketHandler, BinaryPositionWebSocketHandler::getSessionCount);
+    }
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders());
+        if (sessionId != null) {
+            stompSessions.add(sessionId);
+        }
+    }
+
+    /**
+     * May be published several times for the same session: removal is idempotent
+     */
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        stompSessions.remove(event.getSessionId());
+    }
+
+    public int getStompSessionCount() {
+        return stompSessions.size();
+    }
+}
@@ -0,0 +1,94 @@
+package com.geolocation_service.geolocation_service.controller;
+
+import com.geolocation_service.geolocation_service.model.PositionBus;
+import com.geolocation_service.geolocation_service.service.PositionBusService;
+import com.geolocation_service.geolocation_service.util.PositionFrameCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.SubProtocolCapable;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.BinaryWebSocketHandler;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Endpoint WebSocket binaire ({@code /ws-binary}) pour les clients mobiles / à bande passante limitée.
+ * <p>
+ * À la connexion, le client reçoit une trame d'état complet, puis une trame par tick
+ * contenant uniquement les positions modifiées (voir {@link PositionFrameCodec}).
+ * Le canal est en émission seule : les messages reçus du client sont ignorés.
+ */
+@Component
+@Slf4j
+public class BinaryPositionWebSocketHandler extends BinaryWebSocketHandler implements SubProtocolCapable {
+
+    private static final int SEND_TIME_LIMIT_MS = 5_000;
+    private static final int SEND_BUFFER_LIMIT_BYTES = 256 * 1024;
+
+    private final PositionBusService positionBusService;
+    private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+
+    public BinaryPositionWebSocketHandler(PositionBusService positionBusService) {
+        this.positionBusService = positionBusService;
+    }
+
+    @Override
+    public List<String> getSubProtocols() {
+        return List.of(PositionFrameCodec.SUB_PROTOCOL);
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws IOException {
+        // Un client lent ne doit pas bloquer la diffusion aux autres
+        WebSocketSession concurrentSession =
+                new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT_MS, SEND_BUFFER_LIMIT_BYTES);
+        sessions.put(session.getId(), concurrentSession);
+
+        byte[] snapshot = PositionFrameCodec.encode(positionBusService.getAllActiveBusPositions(), true);
+        concurrentSession.sendMessage(new BinaryMessage(snapshot));
+        log.debug("Binary tracking session {} opened ({} sessions)", session.getId(), sessions.size());
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        sessions.remove(session.getId());
+        log.debug("Binary tracking session {} closed: {}", session.getId(), status);
+    }
+
+    /**
+     * Envoie les positions modifiées du tick à toutes les sessions binaires (une seule sérialisation)
+     */
+    public void broadcast(List<PositionBus> changes) {
+        if (changes.isEmpty() || sessions.isEmpty()) {
+            return;
+        }
+        byte[] frame = PositionFrameCodec.encode(changes, false);
+        for (WebSocketSession session : sessions.values()) {
+            try {
+                session.sendMessage(new BinaryMessage(frame));
+            } catch (Exception e) {
+                log.debug("Dropping binary tracking session {}: {}", session.getId(), e.getMessage());
+                sessions.remove(session.getId());
+                closeQuietly(session);
+            }
+        }
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    private void closeQuietly(WebSocketSession session) {
+        try {
+            session.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException ignored) {
+            // session déjà fermée
+        }
+    }
+}
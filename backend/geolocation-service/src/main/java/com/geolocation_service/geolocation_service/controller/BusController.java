@@ -4,7 +4,9 @@ import com.geolocation_service.geolocation_service.dto.BusDTO;
 import com.geolocation_service.geolocation_service.dto.DirectionDTO;
 import com.geolocation_service.geolocation_service.dto.LigneBusDTO;
 import com.geolocation_service.geolocation_service.model.Bus;
+import com.geolocation_service.geolocation_service.model.BusSummary;
 import com.geolocation_service.geolocation_service.service.BusService;
+import com.geolocation_service.geolocation_service.service.BusSummaryService;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -15,37 +17,35 @@ import java.util.stream.Collectors;
 public class BusController {
 
     private final BusService busService;
+    private final BusSummaryService busSummaryService;
 
-    public BusController(BusService busService) {
+    public BusController(BusService busService, BusSummaryService busSummaryService) {
         this.busService = busService;
+        this.busSummaryService = busSummaryService;
     }
 
+    // Reads are served by the bus_summary projection: one query, no @DBRef resolution
+
     @GetMapping
     public List<BusDTO> getAllBuses() {
-        return busService.getAllBuses().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return toDTOs(busSummaryService.search(null, null));
     }
 
     @GetMapping("/{id}")
     public BusDTO getBusById(@PathVariable String id) {
-        Bus bus = busService.getBusById(id)
+        BusSummary bus = busSummaryService.getSummary(id)
                 .orElseThrow(() -> new RuntimeException("Bus non trouvé"));
         return convertToDTO(bus);
     }
 
     @GetMapping("/ligne/{ligneId}")
     public List<BusDTO> getBusesByLigne(@PathVariable String ligneId) {
-        return busService.getBusesByLigne(ligneId).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return toDTOs(busSummaryService.search(ligneId, null));
     }
 
     @GetMapping("/direction/{directionId}")
     public List<BusDTO> getBusesByDirection(@PathVariable String directionId) {
-        return busService.getBusesByDirection(directionId).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return toDTOs(busSummaryService.search(null, directionId));
     }
 
     @GetMapping("/search")
@@ -53,20 +53,7 @@ public class BusController {
             @RequestParam(required = false) String ligneId,
             @RequestParam(required = false) String directionId
     ) {
-        List<Bus> buses;
-        if (ligneId != null && directionId != null) {
-            buses = busService.getBusesByLigneAndDirection(ligneId, directionId);
-        } else if (ligneId != null) {
-            buses = busService.getBusesByLigne(ligneId);
-        } else if (directionId != null) {
-            buses = busService.getBusesByDirection(directionId);
-        } else {
-            buses = busService.getAllBuses();
-        }
-
-        return buses.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return toDTOs(busSummaryService.search(ligneId, directionId));
     }
 
     @PostMapping
@@ -84,7 +71,13 @@ public class BusController {
         busService.deleteBus(id);
     }
 
-    private BusDTO convertToDTO(Bus bus) {
+    private List<BusDTO> toDTOs(List<BusSummary> buses) {
+        return buses.stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    private BusDTO convertToDTO(BusSummary bus) {
         BusDTO dto = new BusDTO();
         dto.setIdBus(bus.getIdBus());
         dto.setImmatriculation(bus.getImmatriculation());
@@ -94,21 +87,21 @@ public class BusController {
         dto.setAnnee(bus.getAnnee());
         dto.setStatut(bus.getStatut());
 
-        if (bus.getLigneActuelle() != null) {
+        if (bus.getLigneId() != null) {
             LigneBusDTO ligneDTO = new LigneBusDTO();
-            ligneDTO.setIdLigne(bus.getLigneActuelle().getIdLigne());
-            ligneDTO.setNumeroLigne(bus.getLigneActuelle().getNumeroLigne());
-            ligneDTO.setNomLigne(bus.getLigneActuelle().getNomLigne());
-            ligneDTO.setCouleur(bus.getLigneActuelle().getCouleur());
+            ligneDTO.setIdLigne(bus.getLigneId());
+            ligneDTO.setNumeroLigne(bus.getNumeroLigne());
+            ligneDTO.setNomLigne(bus.getNomLigne());
+            ligneDTO.setCouleur(bus.getCouleurLigne());
             dto.setLigneActuelle(ligneDTO);
         }
 
-        if (bus.getDirectionActuelle() != null) {
+        if (bus.getDirectionId() != null) {
             DirectionDTO directionDTO = new DirectionDTO();
-            directionDTO.setIdDirection(bus.getDirectionActuelle().getIdDirection());
-            directionDTO.setNomDirection(bus.getDirectionActuelle().getNomDirection());
-            directionDTO.setPointDepart(bus.getDirectionActuelle().getPointDepart());
-            directionDTO.setPointArrivee(bus.getDirectionActuelle().getPointArrivee());
+            directionDTO.setIdDirection(bus.getDirectionId());
+            directionDTO.setNomDirection(bus.getNomDirection());
+            directionDTO.setPointDepart(bus.getPointDepart());
+            directionDTO.setPointArrivee(bus.getPointArrivee());
             dto.setDirectionActuelle(directionDTO);
         }
 
@@ -1,13 +1,25 @@
 package com.geolocation_service.geolocation_service.controller;
 
+import com.geolocation_service.geolocation_service.dto.LivePositionDTO;
+import com.geolocation_service.geolocation_service.dto.ViewportRequest;
 import com.geolocation_service.geolocation_service.model.PositionBus;
+import com.geolocation_service.geolocation_service.service.LeaderElection;
 import com.geolocation_service.geolocation_service.service.PositionBusService;
-import lombok.RequiredArgsConstructor;
+import com.geolocation_service.geolocation_service.service.PositionDeltaTracker;
+import com.geolocation_service.geolocation_service.service.SsePositionHub;
+import com.geolocation_service.geolocation_service.service.ViewportSubscriptionRegistry;
+import com.geolocation_service.geolocation_service.service.ViewportSubscriptionRegistry.Viewport;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.messaging.handler.annotation.SendTo;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Controller;
@@ -16,62 +28,158 @@ import org.springframework.web.bind.annotation.CrossOrigin;
 import java.util.List;
 
 /**
- * WebSocket controller for real-time bus location updates
+ * WebSocket controller for real-time bus location updates.
+ * <p>
+ * Topics only carry deltas: {@code /topic/buses/all} receives the positions that
+ * changed since the previous tick and {@code /topic/bus/{busId}} the bus' own
+ * change. Clients get the full picture once by subscribing to
+ * {@code /app/buses/snapshot} (or {@code /app/bus/{busId}}) and merge deltas by busId.
+ * The same deltas are pushed as binary frames to {@code /ws-binary} clients.
+ * <p>
+ * Map clients may instead send their viewport to {@code /app/viewport} (on subscribe and on
+ * every pan): they get the buses currently in view on {@code /user/queue/viewport/snapshot},
+ * then, once per tick, only the changes inside their viewport on {@code /user/queue/viewport}.
+ * Read-only clients can use the Server-Sent Events stream instead ({@code /api/tracking/stream}),
+ * fed from the same tick.
+ * <p>
+ * When several instances share one STOMP broker (relay mode, see {@code WebSocketConfig}),
+ * only the elected leader publishes to the topics; binary clients are always served by the
+ * instance they are connected to.
  */
 @Controller
-@RequiredArgsConstructor
 @Slf4j
 @EnableScheduling
 @CrossOrigin(origins = "*")
 public class BusLocationWebSocketController {
 
     private final PositionBusService positionBusService;
+    private final PositionDeltaTracker positionDeltaTracker;
     private final SimpMessagingTemplate messagingTemplate;
+    private final BinaryPositionWebSocketHandler binaryPositionWebSocketHandler;
+    private final LeaderElection leaderElection;
+    private final ViewportSubscriptionRegistry viewportSubscriptions;
+    private final SsePositionHub ssePositionHub;
+    private final boolean leaderOnly;
+
+    public BusLocationWebSocketController(PositionBusService positionBusService,
+                                          PositionDeltaTracker positionDeltaTracker,
+                                          SimpMessagingTemplate messagingTemplate,
+                                          BinaryPositionWebSocketHandler binaryPositionWebSocketHandler,
+                                          LeaderElection leaderElection,
+                                          ViewportSubscriptionRegistry viewportSubscriptions,
+                                          SsePositionHub ssePositionHub,
+                                          @Value("${geolocation.broadcast.leader-only:${geolocation.websocket.broker.relay.enabled:false}}") boolean leaderOnly) {
+        this.positionBusService = positionBusService;
+        this.positionDeltaTracker = positionDeltaTracker;
+        this.messagingTemplate = messagingTemplate;
+        this.binaryPositionWebSocketHandler = binaryPositionWebSocketHandler;
+        this.leaderElection = leaderElection;
+        this.viewportSubscriptions = viewportSubscriptions;
+        this.ssePositionHub = ssePositionHub;
+        this.leaderOnly = leaderOnly;
+    }
 
     /**
-     * Handle subscription to specific bus location updates
+     * Handle request for specific bus location updates
      */
     @MessageMapping("/bus/{busId}")
     @SendTo("/topic/bus/{busId}")
-    public PositionBus getBusLocation(@DestinationVariable Long busId) {
-        log.info("Client subscribed to bus location updates for bus: {}", busId);
-        return positionBusService.getLatestPosition(busId);
+    public LivePositionDTO getBusLocation(@DestinationVariable Long busId) {
+        log.debug("Client requested bus location for bus: {}", busId);
+        return toLivePosition(positionBusService.getLatestPosition(busId));
     }
 
     /**
-     * Broadcast all active bus locations every 5 seconds
+     * Initial state of a single bus, sent only to the subscribing client
      */
-    @Scheduled(fixedRate = 5000)
-    public void broadcastAllBusLocations() {
-        try {
-            List<PositionBus> activeLocations = positionBusService.getAllActiveBusPositions();
+    @SubscribeMapping("/bus/{busId}")
+    public LivePositionDTO getBusSnapshot(@DestinationVariable Long busId) {
+        return toLivePosition(positionBusService.getLatestPosition(busId));
+    }
 
-            if (!activeLocations.isEmpty()) {
-                log.debug("Broadcasting {} active bus locations", activeLocations.size());
-                messagingTemplate.convertAndSend("/topic/buses/all", activeLocations);
-            }
-        } catch (Exception e) {
-            log.error("Error broadcasting bus locations: {}", e.getMessage());
+    /**
+     * Compact snapshot of all active buses, sent only to the subscribing client
+     */
+    @SubscribeMapping("/buses/snapshot")
+    public List<LivePositionDTO> getAllBusesSnapshot() {
+        return positionBusService.getAllActiveBusPositions().stream()
+                .map(LivePositionDTO::from)
+                .toList();
+    }
+
+    /**
+     * Register or move the client's viewport and send it the buses currently in view
+     */
+    @MessageMapping("/viewport")
+    @SendToUser(destinations = "/queue/viewport/snapshot", broadcast = false)
+    public List<LivePositionDTO> updateViewport(@Payload ViewportRequest request, SimpMessageHeaderAccessor headers) {
+        String rejection = ViewportSubscriptionRegistry.validate(request);
+        if (rejection != null) {
+            log.warn("Invalid viewport from session {}: {}", headers.getSessionId(), rejection);
+            return List.of();
         }
+        Viewport viewport = Viewport.of(request);
+        viewportSubscriptions.register(headers.getSessionId(), viewport);
+        return positionBusService.getAllActiveBusPositions().stream()
+                .filter(viewport::accepts)
+                .map(LivePositionDTO::from)
+                .toList();
     }
 
     /**
-     * Broadcast location updates for specific buses every 5 seconds
+     * Stop viewport updates for the client (it may still use the topics)
      */
-    @Scheduled(fixedRate = 5000)
-    public void broadcastIndividualBusLocations() {
+    @MessageMapping("/viewport/clear")
+    public void clearViewport(SimpMessageHeaderAccessor headers) {
+        viewportSubscriptions.remove(headers.getSessionId());
+    }
+
+    /**
+     * Broadcast the positions that changed since the previous tick
+     */
+    @Scheduled(fixedRateString = "${geolocation.broadcast.interval-ms:5000}")
+    public void broadcastChangedBusLocations() {
         try {
-            // Get all unique bus IDs with active positions
-            List<Long> activeBusIds = positionBusService.getActiveBusIds();
+            List<PositionBus> changes = positionDeltaTracker.collectChanges();
+            if (changes.isEmpty()) {
+                return;
+            }
 
-            for (Long busId : activeBusIds) {
-                PositionBus position = positionBusService.getLatestPosition(busId);
-                if (position != null) {
-                    messagingTemplate.convertAndSend("/topic/bus/" + busId, position);
+            // Changes are still drained on followers so a new leader starts from a fresh delta
+            if (!leaderOnly || leaderElection.isLeader()) {
+                List<LivePositionDTO> deltas = changes.stream()
+                        .map(LivePositionDTO::from)
+                        .toList();
+                log.debug("Broadcasting {} changed bus locations", deltas.size());
+                messagingTemplate.convertAndSend("/topic/buses/all", deltas);
+
+                for (LivePositionDTO delta : deltas) {
+                    messagingTemplate.convertAndSend("/topic/bus/" + delta.getBusId(), delta);
                 }
             }
+
+            binaryPositionWebSocketHandler.broadcast(changes);
+
+            // Viewport sessions are local to this instance: always served here, leader or not
+            viewportSubscriptions.route(changes).forEach((sessionId, inView) -> sendToSession(sessionId,
+                    "/queue/viewport", inView.stream().map(LivePositionDTO::from).toList()));
+
+            // Same for Server-Sent Events readers of /api/tracking/stream
+            ssePositionHub.publish(changes);
         } catch (Exception e) {
-            log.error("Error broadcasting individual bus locations: {}", e.getMessage());
+            log.error("Error broadcasting bus locations: {}", e.getMessage());
         }
     }
+
+    private void sendToSession(String sessionId, String destination, Object payload) {
+        // Anonymous sessions: the user destination is resolved from the session id
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setSessionId(sessionId);
+        headers.setLeaveMutable(true);
+        messagingTemplate.convertAndSendToUser(sessionId, destination, payload, headers.getMessageHeaders());
+    }
+
+    private LivePositionDTO toLivePosition(PositionBus position) {
+        return position != null ? LivePositionDTO.from(position) : null;
+    }
 }
@@ -0,0 +1,43 @@
+package com.geolocation_service.geolocation_service.controller;
+
+import com.geolocation_service.geolocation_service.dto.StopEtaDTO;
+import com.geolocation_service.geolocation_service.service.EtaService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Contrôleur REST des prochains passages aux arrêts
+ * <p>
+ * Les ETA sont recalculées à l'ingestion des positions ; cet endpoint ne fait
+ * que lire le tableau de l'arrêt et peut être interrogé fréquemment par les
+ * afficheurs et applications voyageurs.
+ */
+@RestController
+@RequestMapping("/api/eta")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class EtaController {
+
+    private static final int MAX_LIMIT = 50;
+
+    private final EtaService etaService;
+
+    /**
+     * Prochains passages estimés à un arrêt
+     *
+     * @param stopId identifiant de l'arrêt (schedule-service)
+     * @param limit  nombre de passages retournés (5 par défaut, 50 au plus)
+     * @return passages triés par heure d'arrivée estimée
+     */
+    @GetMapping("/stop/{stopId}")
+    public ResponseEntity<List<StopEtaDTO>> getStopArrivals(@PathVariable Long stopId,
+                                                            @RequestParam(defaultValue = "5") int limit) {
+        if (limit <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(etaService.getArrivals(stopId, Math.min(limit, MAX_LIMIT)));
+    }
+}
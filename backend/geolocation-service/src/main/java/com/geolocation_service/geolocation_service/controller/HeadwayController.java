@@ -0,0 +1,33 @@
+package com.geolocation_service.geolocation_service.controller;
+
+import com.geolocation_service.geolocation_service.dto.LineHeadwayDTO;
+import com.geolocation_service.geolocation_service.service.HeadwayService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Contrôleur REST des intervalles entre bus d'une ligne
+ * <p>
+ * Les intervalles sont recalculés périodiquement sur l'état temps réel ; cet endpoint
+ * ne fait que lire le dernier calcul.
+ */
+@RestController
+@RequestMapping("/api/lines")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class HeadwayController {
+
+    private final HeadwayService headwayService;
+
+    /**
+     * Intervalles des bus actifs d'une ligne
+     *
+     * @param id identifiant de la ligne (schedule-service)
+     * @return bus du plus avancé au dernier, avec leur intervalle et leur situation
+     */
+    @GetMapping("/{id}/headways")
+    public ResponseEntity<LineHeadwayDTO> getLineHeadways(@PathVariable Long id) {
+        return ResponseEntity.ok(headwayService.getLineHeadways(id));
+    }
+}
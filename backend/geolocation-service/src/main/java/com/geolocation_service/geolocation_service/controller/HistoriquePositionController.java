@@ -1,9 +1,15 @@
 package com.geolocation_service.geolocation_service.controller;
 
+import com.geolocation_service.geolocation_service.dto.DailyDistanceDTO;
+import com.geolocation_service.geolocation_service.dto.RouteTripCountDTO;
+import com.geolocation_service.geolocation_service.dto.TrackPointDTO;
 import com.geolocation_service.geolocation_service.model.HistoriquePosition;
 import com.geolocation_service.geolocation_service.service.HistoriquePositionService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -26,6 +32,47 @@ public class HistoriquePositionController {
         return historiqueService.getHistoriqueByBus(busId);
     }
 
+    /**
+     * Trajets compactés d'un bus (résumés sans trace), par date de début
+     */
+    @GetMapping("/bus/{busId}/trajets")
+    public List<HistoriquePosition> getTrajets(
+            @PathVariable Long busId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return historiqueService.getTrajets(busId, from, to);
+    }
+
+    /**
+     * Trace simplifiée d'un trajet compacté
+     */
+    @GetMapping("/{idHistorique}/trace")
+    public ResponseEntity<List<TrackPointDTO>> getTrace(@PathVariable String idHistorique) {
+        return historiqueService.getTrace(idHistorique)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Kilomètres parcourus par la flotte, par jour
+     */
+    @GetMapping("/rapports/distance-journaliere")
+    public List<DailyDistanceDTO> getDistanceJournaliere(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return historiqueService.getDistanceJournaliere(from, to);
+    }
+
+    /**
+     * Nombre de trajets par ligne
+     */
+    @GetMapping("/rapports/trajets-par-ligne")
+    public List<RouteTripCountDTO> getTrajetsParLigne(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return historiqueService.getTrajetsParLigne(from, to);
+    }
+
     @PostMapping
     public HistoriquePosition saveHistorique(@RequestBody HistoriquePosition historique) {
         return historiqueService.saveHistorique(historique);
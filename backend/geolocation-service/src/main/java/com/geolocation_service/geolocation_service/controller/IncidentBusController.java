@@ -1,19 +1,33 @@
 package com.geolocation_service.geolocation_service.controller;
 
+import com.geolocation_service.geolocation_service.dto.IncidentHeatmapDTO;
+import com.geolocation_service.geolocation_service.dto.ViewportRequest;
 import com.geolocation_service.geolocation_service.model.IncidentBus;
 import com.geolocation_service.geolocation_service.service.IncidentBusService;
+import com.geolocation_service.geolocation_service.service.IncidentHeatmap;
+import com.geolocation_service.geolocation_service.service.ViewportSubscriptionRegistry;
+import com.geolocation_service.geolocation_service.service.ViewportSubscriptionRegistry.Viewport;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/incidents")
+@Slf4j
 public class IncidentBusController {
 
+    private static final int DEFAULT_PERIOD_DAYS = 30;
+
     private final IncidentBusService incidentService;
+    private final IncidentHeatmap incidentHeatmap;
 
-    public IncidentBusController(IncidentBusService incidentService) {
+    public IncidentBusController(IncidentBusService incidentService, IncidentHeatmap incidentHeatmap) {
         this.incidentService = incidentService;
+        this.incidentHeatmap = incidentHeatmap;
     }
 
     @GetMapping
@@ -35,4 +49,45 @@ public class IncidentBusController {
     public IncidentBus createIncident(@RequestBody IncidentBus incident) {
         return incidentService.saveIncident(incident);
     }
+
+    @PutMapping("/{id}/resolve")
+    public IncidentBus resolveIncident(@PathVariable String id) {
+        return incidentService.resolveIncident(id);
+    }
+
+    /**
+     * Incident counts per grid cell at the given zoom, over whole days (last 30 days by default).
+     * Served from the in-memory aggregation; above the configured zoom threshold a bbox is
+     * required, and only the busiest cells are returned past the cell cap.
+     *
+     * @param bbox displayed area {@code minLon,minLat,maxLon,maxLat}
+     */
+    @GetMapping("/heatmap")
+    public ResponseEntity<IncidentHeatmapDTO> getHeatmap(
+            @RequestParam(defaultValue = "10") int zoom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) List<Double> bbox
+    ) {
+        Viewport area = null;
+        if (bbox != null) {
+            ViewportRequest request = bbox.size() == 4
+                    ? new ViewportRequest(bbox.get(1), bbox.get(0), bbox.get(3), bbox.get(2), null)
+                    : null;
+            String rejection = ViewportSubscriptionRegistry.validate(request);
+            if (rejection != null) {
+                log.warn("Invalid heatmap area: {}", rejection);
+                return ResponseEntity.badRequest().build();
+            }
+            area = Viewport.of(request);
+        }
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_PERIOD_DAYS - 1);
+        String rejection = incidentHeatmap.validate(zoom, start, end, area);
+        if (rejection != null) {
+            log.warn("Invalid heatmap request: {}", rejection);
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(incidentHeatmap.heatmap(zoom, start, end, area));
+    }
 }
@@ -4,13 +4,14 @@ import com.geolocation_service.geolocation_service.dto.*;
 import com.geolocation_service.geolocation_service.model.PositionBus;
 import com.geolocation_service.geolocation_service.service.PositionBusService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.time.LocalDateTime;
+import java.time.Duration;
 import java.util.List;
-import java.util.UUID;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @RestController
@@ -20,21 +21,47 @@ import java.util.stream.Collectors;
 public class PositionBusController {
 
     private final PositionBusService positionBusService;
-
-    public PositionBusController(PositionBusService positionBusService) {
+    private final int maxBatchSize;
+    private final int maxPointsByBus;
+    private final Duration recentWindow;
+    private final int maxRecentPoints;
+    private final boolean singleBusBatches;
+
+    public PositionBusController(PositionBusService positionBusService,
+                                 @Value("${geolocation.ingest.batch.max-size:1000}") int maxBatchSize,
+                                 @Value("${geolocation.positions.by-bus.max-points:1000}") int maxPointsByBus,
+                                 @Value("${geolocation.positions.all.window-minutes:10}") long recentWindowMinutes,
+                                 @Value("${geolocation.positions.all.max-points:1000}") int maxRecentPoints,
+                                 @Value("${geolocation.ingest.batch.single-bus:false}") boolean singleBusBatches) {
         this.positionBusService = positionBusService;
+        this.maxBatchSize = maxBatchSize;
+        this.maxPointsByBus = maxPointsByBus;
+        this.recentWindow = Duration.ofMinutes(recentWindowMinutes);
+        this.maxRecentPoints = maxRecentPoints;
+        this.singleBusBatches = singleBusBatches;
     }
 
+    /**
+     * Positions des {@code geolocation.positions.all.window-minutes} dernières minutes, au plus
+     * {@code geolocation.positions.all.max-points} (les plus récentes), de la plus ancienne à la plus récente
+     */
     @GetMapping
     public List<PositionBusDTO> getAllPositions() {
-        return positionBusService.getAllPositions().stream()
+        return positionBusService.getRecentPositions(recentWindow, maxRecentPoints).stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Dernières positions d'un bus, au plus {@code geolocation.positions.by-bus.max-points},
+     * de la plus ancienne à la plus récente
+     *
+     * @deprecated l'historique complet se lit en flux par {@code GET /api/positions/bus/{busId}/replay}
+     */
+    @Deprecated
     @GetMapping("/bus/{busId}")
     public List<PositionBusDTO> getPositionsByBus(@PathVariable Long busId) {
-        return positionBusService.getPositionsByBusId(busId).stream()
+        return positionBusService.getPositionsByBusId(busId, maxPointsByBus).stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
@@ -50,6 +77,10 @@ public class PositionBusController {
 
         try {
             PositionBus saved = positionBusService.addPosition(positionBus);
+            if (saved == null) {
+                // Doublon, point trop ancien ou bus à l'arrêt : rien à renvoyer
+                return ResponseEntity.ok().build();
+            }
             return ResponseEntity.status(HttpStatus.CREATED).body(saved);
         } catch (Exception e) {
             log.error("Error saving position: {}", e.getMessage(), e);
@@ -62,30 +93,26 @@ public class PositionBusController {
      * Crée une nouvelle position GPS avec seulement le busId et les coordonnées
      * 
      * @param request Données GPS depuis l'application conducteur
-     * @return Position créée
+     * @return Position créée (201), ou 200 sans corps pour un point déjà reçu ou trop ancien
      */
     @PostMapping("/driver")
     public ResponseEntity<PositionBus> createPositionFromDriver(@RequestBody CreatePositionRequest request) {
-        log.info("Receiving GPS position from driver for bus {}: ({}, {}), speed: {} km/h", 
+        log.debug("Receiving GPS position from driver for bus {}: ({}, {}), speed: {} km/h", 
                 request.getBusId(), request.getLatitude(), request.getLongitude(), request.getVitesse());
+
+        String rejection = positionBusService.validate(request);
+        if (rejection != null) {
+            log.warn("Invalid position from driver for bus {}: {}", request.getBusId(), rejection);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
         
         try {
-            // Créer une nouvelle position avec le nouveau système (busId direct)
-            PositionBus position = new PositionBus();
-            position.setIdPosition(UUID.randomUUID().toString());
-            position.setBusId(request.getBusId());
-            position.setLatitude(request.getLatitude());
-            position.setLongitude(request.getLongitude());
-            position.setAltitude(request.getAltitude() != null ? request.getAltitude() : 0.0);
-            position.setPrecision(request.getPrecision() != null ? request.getPrecision() : 10.0);
-            position.setVitesse(request.getVitesse());
-            position.setDirection(request.getDirection());
-            position.setTimestamp(LocalDateTime.now());
-            
-            // Sauvegarder la position
-            PositionBus savedPosition = positionBusService.addPosition(position);
-            
-            log.info("Position saved successfully with ID: {}", savedPosition.getIdPosition());
+            // Créer une nouvelle position avec le nouveau système (busId direct) et la sauvegarder
+            PositionBus savedPosition = positionBusService.addPosition(positionBusService.buildPosition(request));
+            if (savedPosition == null) {
+                // Renvoi d'un point déjà reçu, point trop ancien ou bus à l'arrêt : l'application ne doit pas réessayer
+                return ResponseEntity.ok().build();
+            }
             return ResponseEntity.status(HttpStatus.CREATED).body(savedPosition);
             
         } catch (Exception e) {
@@ -94,6 +121,44 @@ public class PositionBusController {
         }
     }
 
+    /**
+     * Ingestion groupée de positions GPS (plusieurs bus, ou points bufferisés d'un même bus)
+     * <p>
+     * Les points sont validés en une passe puis insérés en bulk non ordonné.
+     * La réponse détaille les points rejetés par leur index dans le tableau envoyé.
+     * Avec {@code geolocation.ingest.batch.single-bus} (plusieurs instances), la passerelle
+     * route le lot d'après le bus de son premier point : un lot mêlant plusieurs bus est refusé en bloc.
+     *
+     * @param requests Positions à enregistrer
+     * @return Bilan de l'ingestion (201 si au moins un point est accepté, 400 sinon)
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<BatchPositionResponse> createPositionsBatch(@RequestBody List<CreatePositionRequest> requests) {
+        if (requests.size() > maxBatchSize) {
+            log.warn("Rejecting position batch of {} points (max {})", requests.size(), maxBatchSize);
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        if (singleBusBatches && requests.stream()
+                .map(request -> request != null ? request.getBusId() : null)
+                .filter(Objects::nonNull)
+                .distinct()
+                .count() > 1) {
+            log.warn("Rejecting position batch mixing several buses (single-bus batches only)");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+
+        try {
+            BatchPositionResponse response = positionBusService.addPositions(requests);
+            HttpStatus status = response.getAccepted() > 0 || requests.isEmpty()
+                    ? HttpStatus.CREATED
+                    : HttpStatus.BAD_REQUEST;
+            return ResponseEntity.status(status).body(response);
+        } catch (Exception e) {
+            log.error("Error saving position batch: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     @SuppressWarnings("deprecation")
     private PositionBusDTO convertToDTO(PositionBus position) {
         PositionBusDTO dto = new PositionBusDTO();
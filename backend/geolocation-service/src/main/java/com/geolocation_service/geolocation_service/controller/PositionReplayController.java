@@ -0,0 +1,98 @@
+package com.geolocation_service.geolocation_service.controller;
+
+import com.geolocation_service.geolocation_service.service.PositionReplayService;
+import com.geolocation_service.geolocation_service.service.PositionReplayService.Format;
+import com.geolocation_service.geolocation_service.service.PositionReplayService.ReplayRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Contrôleur REST du rejeu de l'historique de positions
+ * <p>
+ * Contrairement à {@code GET /api/positions/bus/{busId}}, limité aux dernières positions, la
+ * réponse est écrite au fil de la lecture en base et n'est jamais chargée entièrement en mémoire.
+ */
+@RestController
+@RequestMapping("/api/positions")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class PositionReplayController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final PositionReplayService replayService;
+
+    /**
+     * Rejeu des positions d'un bus sur une fenêtre de temps
+     *
+     * @param from          début de la fenêtre (une heure avant {@code to} par défaut)
+     * @param to            fin de la fenêtre (maintenant par défaut)
+     * @param cursor        horodatage du dernier point reçu, pour reprendre un rejeu interrompu
+     *                      (en SSE, l'en-tête {@code Last-Event-ID} joue le même rôle)
+     * @param sampleSeconds au plus un point toutes les N secondes (0 : tous les points)
+     * @param speed         cadence du rejeu (10 = dix fois le temps réel, 0 : sans attente)
+     * @param format        {@code ndjson} (par défaut) ou {@code sse}
+     * @param limit         nombre maximal de points émis
+     */
+    @GetMapping("/bus/{busId}/replay")
+    public ResponseEntity<StreamingResponseBody> replay(
+            @PathVariable Long busId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime cursor,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            @RequestParam(defaultValue = "0") long sampleSeconds,
+            @RequestParam(defaultValue = "0") double speed,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) Integer limit) {
+        Format replayFormat;
+        try {
+            replayFormat = Format.valueOf(format.toUpperCase());
+            if (cursor == null && lastEventId != null && !lastEventId.isBlank()) {
+                cursor = LocalDateTime.parse(lastEventId.trim());
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        ReplayRequest request = new ReplayRequest(busId, from != null ? from : end.minusHours(1), end, cursor,
+                sampleSeconds, speed, limit != null ? limit : replayService.getMaxPoints());
+        String rejection = replayService.validate(request);
+        if (rejection != null) {
+            log.warn("Invalid replay request for bus {}: {}", busId, rejection);
+            return ResponseEntity.badRequest().build();
+        }
+
+        boolean paced = request.speed() > 0;
+        if (paced && !replayService.tryStartPaced()) {
+            log.warn("Rejecting paced replay of bus {}: too many paced replays in progress", busId);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+
+        StreamingResponseBody body = output -> {
+            try {
+                int emitted = replayService.replay(request, replayFormat, output);
+                log.debug("Replayed {} positions of bus {}", emitted, busId);
+            } finally {
+                if (paced) {
+                    replayService.endPaced();
+                }
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(replayFormat == Format.SSE ? MediaType.TEXT_EVENT_STREAM : NDJSON)
+                .header("Cache-Control", "no-cache")
+                .body(body);
+    }
+}
@@ -1,13 +1,25 @@
 package com.geolocation_service.geolocation_service.controller;
 
 import com.geolocation_service.geolocation_service.dto.EnrichedPositionDTO;
+import com.geolocation_service.geolocation_service.dto.ViewportRequest;
+import com.geolocation_service.geolocation_service.model.PositionBus;
+import com.geolocation_service.geolocation_service.service.SsePositionHub;
 import com.geolocation_service.geolocation_service.service.TrackingService;
+import com.geolocation_service.geolocation_service.service.ViewportSubscriptionRegistry;
+import com.geolocation_service.geolocation_service.service.ViewportSubscriptionRegistry.Viewport;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.ZoneId;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Contrôleur REST pour le tracking des bus avec informations enrichies
@@ -23,6 +35,7 @@ import java.util.List;
 public class TrackingController {
 
     private final TrackingService trackingService;
+    private final SsePositionHub ssePositionHub;
 
     /**
      * Récupère toutes les positions de bus enrichies avec les informations
@@ -51,36 +64,90 @@ public class TrackingController {
 
     /**
      * Récupère la position enrichie d'un bus spécifique
+     * <p>
+     * Seule la dernière position du bus est lue (registre en mémoire, sinon MongoDB),
+     * puis enrichie via le cache des informations de bus. La réponse porte un ETag
+     * dérivé de l'horodatage de la position : un client qui interroge en boucle avec
+     * If-None-Match reçoit 304 tant que le bus n'a pas émis de nouvelle position.
      *
      * @param busId ID du bus
      * @return Position enrichie du bus
      */
     @GetMapping("/positions-enriched/{busId}")
-    public ResponseEntity<EnrichedPositionDTO> getEnrichedPositionByBusId(@PathVariable Long busId) {
-        log.info("GET /api/tracking/positions-enriched/{} - Fetching position for bus", busId);
-        
+    public ResponseEntity<EnrichedPositionDTO> getEnrichedPositionByBusId(@PathVariable Long busId,
+                                                                          WebRequest webRequest) {
+        log.debug("GET /api/tracking/positions-enriched/{} - Fetching position for bus", busId);
+
         try {
-            List<EnrichedPositionDTO> allPositions = trackingService.getEnrichedPositions();
-            
-            EnrichedPositionDTO busPosition = allPositions.stream()
-                    .filter(pos -> pos.getBusId().equals(busId))
-                    .findFirst()
-                    .orElse(null);
-            
-            if (busPosition != null) {
-                log.info("Found position for bus {}", busId);
-                return ResponseEntity.ok(busPosition);
-            } else {
+            PositionBus latest = trackingService.getLatestPosition(busId);
+            if (latest == null || latest.getTimestamp() == null) {
                 log.warn("No position found for bus {}", busId);
                 return ResponseEntity.notFound().build();
             }
-            
+
+            String eTag = positionETag(busId, latest);
+            if (webRequest.checkNotModified(eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(eTag)
+                        .build();
+            }
+
+            return ResponseEntity.ok()
+                    .eTag(eTag)
+                    .cacheControl(CacheControl.noCache())
+                    .body(trackingService.enrich(latest));
+
         } catch (Exception e) {
             log.error("Error fetching position for bus {}: {}", busId, e.getMessage(), e);
             return ResponseEntity.internalServerError().build();
         }
     }
 
+    /**
+     * Flux Server-Sent Events des positions temps réel, pour les écrans d'arrêt et widgets
+     * qui ne font que lire : un événement {@code snapshot} avec les bus actifs correspondants,
+     * puis un événement {@code positions} par tick avec les bus modifiés.
+     *
+     * @param lines lignes à suivre, séparées par des virgules (optionnel)
+     * @param bbox  zone affichée {@code minLon,minLat,maxLon,maxLat} (optionnelle)
+     * @return le flux, 400 si un filtre est invalide, 503 si l'instance a atteint son nombre maximal de flux
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamPositions(@RequestParam(required = false) List<Long> lines,
+                                                      @RequestParam(required = false) List<Double> bbox) {
+        Viewport area = null;
+        if (bbox != null) {
+            ViewportRequest request = bbox.size() == 4
+                    ? new ViewportRequest(bbox.get(1), bbox.get(0), bbox.get(3), bbox.get(2), lines)
+                    : null;
+            String rejection = ViewportSubscriptionRegistry.validate(request);
+            if (rejection != null) {
+                log.warn("Invalid SSE stream filter: {}", rejection);
+                return ResponseEntity.badRequest().build();
+            }
+            area = Viewport.of(request);
+        } else if (lines != null && lines.contains(null)) {
+            log.warn("Invalid SSE stream filter: ligne invalide");
+            return ResponseEntity.badRequest().build();
+        }
+
+        SseEmitter emitter = ssePositionHub.subscribe(lines != null ? Set.copyOf(lines) : Set.of(), area);
+        if (emitter == null) {
+            log.warn("SSE stream refused: connection limit reached");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                // Pas de mise en tampon par un reverse proxy nginx
+                .header("X-Accel-Buffering", "no")
+                .body(emitter);
+    }
+
+    private String positionETag(Long busId, PositionBus position) {
+        long epochMillis = position.getTimestamp().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return "\"" + busId + "-" + epochMillis + "\"";
+    }
+
     /**
      * Endpoint de santé pour vérifier que le service de tracking fonctionne
      *
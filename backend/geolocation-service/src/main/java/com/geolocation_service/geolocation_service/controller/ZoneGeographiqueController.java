@@ -1,13 +1,17 @@
 package com.geolocation_service.geolocation_service.controller;
 
+import com.geolocation_service.geolocation_service.model.PositionBus;
 import com.geolocation_service.geolocation_service.model.ZoneGeographique;
 import com.geolocation_service.geolocation_service.service.ZoneGeographiqueService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/zones")
+@Slf4j
 public class ZoneGeographiqueController {
 
     private final ZoneGeographiqueService zoneService;
@@ -26,8 +30,21 @@ public class ZoneGeographiqueController {
         return zoneService.getZoneByNom(nom);
     }
 
+    /**
+     * Bus actifs actuellement dans la zone, lus depuis l'index de géorepérage
+     */
+    @GetMapping("/{idZone}/buses")
+    public List<PositionBus> getBusesInZone(@PathVariable String idZone) {
+        return zoneService.getBusesInZone(idZone);
+    }
+
     @PostMapping
-    public ZoneGeographique createZone(@RequestBody ZoneGeographique zone) {
-        return zoneService.createZone(zone);
+    public ResponseEntity<ZoneGeographique> createZone(@RequestBody ZoneGeographique zone) {
+        String rejection = zoneService.validate(zone);
+        if (rejection != null) {
+            log.warn("Invalid zone {}: {}", zone != null ? zone.getNom() : null, rejection);
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(zoneService.createZone(zone));
     }
 }
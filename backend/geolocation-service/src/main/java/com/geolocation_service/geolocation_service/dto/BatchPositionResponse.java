@@ -0,0 +1,41 @@
+package com.geolocation_service.geolocation_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Résultat d'un envoi groupé de positions GPS : nombre de points acceptés, nombre de points
+ * d'un bus à l'arrêt reçus sans être enregistrés, et détail des points rejetés (index dans le
+ * lot d'origine et motif)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchPositionResponse {
+
+    private int received;
+    private int accepted;
+    private int suppressed;
+
+    @Builder.Default
+    private List<RejectedPosition> rejected = new ArrayList<>();
+
+    /**
+     * Point rejeté, repéré par sa position dans le tableau envoyé
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RejectedPosition {
+        private int index;
+        private Long busId;
+        private String reason;
+    }
+}
@@ -5,6 +5,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
+
 /**
  * DTO pour créer une nouvelle position GPS depuis l'application conducteur
  */
@@ -21,5 +23,11 @@ public class CreatePositionRequest {
     private Double precision;
     private Double vitesse;
     private Double direction;
+
+    /**
+     * Horodatage GPS de l'appareil (optionnel). Permet de transmettre en lot
+     * des points bufferisés hors connexion ; à défaut, l'heure de réception est utilisée.
+     */
+    private LocalDateTime timestamp;
 }
 
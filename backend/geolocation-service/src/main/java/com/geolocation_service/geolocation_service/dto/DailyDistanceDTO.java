@@ -0,0 +1,23 @@
+package com.geolocation_service.geolocation_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Distance parcourue par la flotte sur une journée, cumulée depuis les résumés de trajet
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyDistanceDTO {
+
+    /**
+     * Jour de départ des trajets (yyyy-MM-dd)
+     */
+    private String jour;
+    private double distanceKm;
+    private long trajets;
+}
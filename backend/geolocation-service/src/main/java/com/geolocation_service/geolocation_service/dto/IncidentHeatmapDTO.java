@@ -0,0 +1,56 @@
+package com.geolocation_service.geolocation_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Carte de chaleur des incidents : nombre d'incidents signalés par cellule de la grille au
+ * niveau de zoom demandé, sur une période en jours entiers (cellules vides omises)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IncidentHeatmapDTO {
+
+    private int zoom;
+    private LocalDate from;
+    private LocalDate to;
+    private double cellHeightDegrees;
+    private double cellWidthDegrees;
+
+    @Builder.Default
+    private List<Cell> cells = new ArrayList<>();
+
+    /**
+     * Vrai si seules les cellules les plus chargées ont été renvoyées
+     */
+    private boolean truncated;
+
+    /**
+     * Cellule de la grille, repérée par {@code zoom/ligne/colonne} et son centre
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Cell {
+        private String cellId;
+        private double latitude;
+        private double longitude;
+        private int count;
+        /**
+         * Incidents non résolus
+         */
+        private int open;
+        private Map<String, Integer> byType;
+        private Map<String, Integer> byGravite;
+    }
+}
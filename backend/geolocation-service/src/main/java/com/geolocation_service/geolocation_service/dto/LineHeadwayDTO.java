@@ -0,0 +1,73 @@
+package com.geolocation_service.geolocation_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Intervalles entre les bus actifs d'une ligne, du plus avancé au dernier
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LineHeadwayDTO {
+
+    private Long routeId;
+    private String routeName;
+    /**
+     * Intervalle planifié (fréquence de l'horaire en cours), null hors horaire à fréquence
+     */
+    private Long scheduledHeadwaySeconds;
+    private LocalDateTime computedAt;
+    @Builder.Default
+    private List<BusHeadwayDTO> buses = new ArrayList<>();
+
+    /**
+     * Situation d'un bus par rapport à l'intervalle planifié
+     */
+    public enum Status {
+        NORMAL,
+        /**
+         * Intervalle inférieur à {@code bunching-fraction} de l'intervalle planifié
+         */
+        BUNCHED,
+        /**
+         * Intervalle supérieur à {@code gap-fraction} de l'intervalle planifié
+         */
+        GAPPED,
+        /**
+         * Pas de bus devant ou pas d'intervalle planifié
+         */
+        UNKNOWN
+    }
+
+    /**
+     * Intervalle d'un bus avec le bus qui le précède sur la ligne
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BusHeadwayDTO {
+        private Long busId;
+        private Long leaderBusId;
+        private double routeOffsetMeters;
+        private Double gapMeters;
+        /**
+         * Temps de parcours planifié jusqu'à la position actuelle du bus précédent
+         */
+        private Long headwaySeconds;
+        /**
+         * Rapport entre l'intervalle et l'intervalle planifié
+         */
+        private Double ratio;
+        private Status status;
+        private LocalDateTime observedAt;
+    }
+}
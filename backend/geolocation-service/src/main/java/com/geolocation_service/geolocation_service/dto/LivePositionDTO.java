@@ -0,0 +1,38 @@
+package com.geolocation_service.geolocation_service.dto;
+
+import com.geolocation_service.geolocation_service.model.PositionBus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Position compacte diffusée aux clients temps réel (WebSocket).
+ * Ne contient que les champs utiles à l'affichage, sans les références bus/zone.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LivePositionDTO {
+
+    private Long busId;
+    private double latitude;
+    private double longitude;
+    private double vitesse;
+    private double direction;
+    private LocalDateTime timestamp;
+
+    public static LivePositionDTO from(PositionBus position) {
+        return LivePositionDTO.builder()
+                .busId(position.getBusId())
+                .latitude(position.getLatitude())
+                .longitude(position.getLongitude())
+                .vitesse(position.getVitesse())
+                .direction(position.getDirection())
+                .timestamp(position.getTimestamp())
+                .build();
+    }
+}
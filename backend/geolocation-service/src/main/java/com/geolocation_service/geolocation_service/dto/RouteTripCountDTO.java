@@ -0,0 +1,20 @@
+package com.geolocation_service.geolocation_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Nombre de trajets effectués sur une ligne, cumulé depuis les résumés de trajet
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RouteTripCountDTO {
+
+    private Long routeId;
+    private long trajets;
+    private double distanceKm;
+}
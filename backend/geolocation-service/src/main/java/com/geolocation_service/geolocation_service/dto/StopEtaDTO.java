@@ -0,0 +1,34 @@
+package com.geolocation_service.geolocation_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Prochain passage estimé d'un bus à un arrêt
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StopEtaDTO {
+
+    private Long busId;
+    private Long routeId;
+    private String routeName;
+    private Long stopId;
+    private String stopName;
+    private LocalDateTime estimatedArrival;
+    private long secondsAway;
+    /**
+     * Nombre d'arrêts restant avant celui-ci (1 = prochain arrêt du bus)
+     */
+    private int stopsAway;
+    /**
+     * Horodatage de la position ayant servi au calcul
+     */
+    private LocalDateTime computedAt;
+}
@@ -0,0 +1,23 @@
+package com.geolocation_service.geolocation_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Point d'une trace historique (forme compacte décodée)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrackPointDTO {
+
+    private double latitude;
+    private double longitude;
+    private double vitesse;
+    private LocalDateTime timestamp;
+}
@@ -0,0 +1,28 @@
+package com.geolocation_service.geolocation_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Zone affichée par un client de la carte temps réel, envoyée à l'abonnement et à chaque déplacement
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ViewportRequest {
+
+    private Double minLatitude;
+    private Double minLongitude;
+    private Double maxLatitude;
+    private Double maxLongitude;
+
+    /**
+     * Lignes à suivre (optionnel) : seuls les bus recalés sur ces lignes sont envoyés
+     */
+    private List<Long> routeIds;
+}
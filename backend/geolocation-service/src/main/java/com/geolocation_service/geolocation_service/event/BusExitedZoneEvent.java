@@ -0,0 +1,24 @@
+package com.geolocation_service.geolocation_service.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Event published when a bus leaves a geographic zone.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BusExitedZoneEvent {
+    private String busId;
+    private String zoneId;
+    private String zoneName;
+    private Double latitude;
+    private Double longitude;
+    private LocalDateTime exitedAt;
+}
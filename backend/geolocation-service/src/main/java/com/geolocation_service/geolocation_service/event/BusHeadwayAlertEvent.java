@@ -0,0 +1,31 @@
+package com.geolocation_service.geolocation_service.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Event published when the gap between a bus and the bus ahead of it on its line
+ * collapses (bunching) or balloons past the configured fraction of the scheduled headway.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BusHeadwayAlertEvent {
+    private String busId;
+    private String leaderBusId;
+    private Long routeId;
+    private String routeName;
+    /**
+     * BUNCHED or GAPPED
+     */
+    private String status;
+    private Long headwaySeconds;
+    private Long scheduledHeadwaySeconds;
+    private Double gapMeters;
+    private LocalDateTime detectedAt;
+}
@@ -0,0 +1,41 @@
+package com.geolocation_service.geolocation_service.event.consumer;
+
+import com.geolocation_service.geolocation_service.service.BusMetadataCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Invalide le cache des informations de bus quand le schedule-service modifie un bus.
+ * <p>
+ * Chaque instance utilise son propre groupe de consommateurs : l'invalidation doit
+ * atteindre tous les caches locaux, pas une seule instance.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BusChangedEventConsumer {
+
+    private final BusMetadataCache busMetadataCache;
+
+    @KafkaListener(
+        topics = "bus-changed-events",
+        groupId = "geolocation-bus-metadata-${random.uuid}",
+        containerFactory = "kafkaListenerContainerFactory",
+        properties = "auto.offset.reset=latest"
+    )
+    public void handleBusChanged(@Payload Map<String, Object> event) {
+        Object busId = event.get("busId");
+        if (busId instanceof Number number) {
+            log.debug("Bus {} changed ({}), invalidating metadata", busId, event.get("changeType"));
+            busMetadataCache.invalidate(number.longValue());
+        } else {
+            log.warn("Bus changed event without busId, clearing bus metadata cache: {}", event);
+            busMetadataCache.invalidateAll();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.geolocation_service.geolocation_service.event.consumer;
+
+import com.geolocation_service.geolocation_service.service.StopNetworkService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Recharge le réseau d'arrêts quand le schedule-service modifie une ligne.
+ * <p>
+ * Comme pour {@link BusChangedEventConsumer}, chaque instance a son propre groupe :
+ * toutes les instances doivent recharger leur index local.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RouteChangedEventConsumer {
+
+    private final StopNetworkService stopNetworkService;
+
+    @KafkaListener(
+        topics = "route-changed-events",
+        groupId = "geolocation-stop-network-${random.uuid}",
+        containerFactory = "kafkaListenerContainerFactory",
+        properties = "auto.offset.reset=latest"
+    )
+    public void handleRouteChanged(@Payload Map<String, Object> event) {
+        log.debug("Route {} changed ({}), reloading stop network", event.get("routeId"), event.get("changeType"));
+        stopNetworkService.refresh();
+    }
+}
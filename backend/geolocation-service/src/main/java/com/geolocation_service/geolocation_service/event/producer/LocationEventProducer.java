@@ -2,32 +2,81 @@ package com.geolocation_service.geolocation_service.event.producer;
 
 import com.geolocation_service.geolocation_service.event.BusArrivedAtStopEvent;
 import com.geolocation_service.geolocation_service.event.BusDepartedFromStopEvent;
+import com.geolocation_service.geolocation_service.event.BusEnteredZoneEvent;
+import com.geolocation_service.geolocation_service.event.BusExitedZoneEvent;
+import com.geolocation_service.geolocation_service.event.BusHeadwayAlertEvent;
 import com.geolocation_service.geolocation_service.event.BusLocationUpdatedEvent;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Event producer for publishing location-related events to Kafka.
+ * <p>
+ * Stop, zone and headway events are raised on the ingestion path. They are handed to a
+ * single publisher thread through a bounded queue ({@code geolocation.events.domain.queue-capacity}),
+ * so a slow or unreachable broker (up to {@code max.block.ms} per send) never blocks the
+ * request thread: when the queue is full the event is dropped and counted
+ * ({@code geolocation.events.domain.*}).
  */
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class LocationEventProducer {
 
     private static final String LOCATION_UPDATED_TOPIC = "bus-location-updated-events";
     private static final String BUS_ARRIVED_TOPIC = "bus-arrived-events";
     private static final String BUS_DEPARTED_TOPIC = "bus-departed-events";
+    private static final String BUS_ENTERED_ZONE_TOPIC = "bus-zone-entered-events";
+    private static final String BUS_EXITED_ZONE_TOPIC = "bus-zone-exited-events";
+    private static final String BUS_HEADWAY_ALERT_TOPIC = "bus-headway-alerts";
 
     private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final long shutdownTimeoutMs;
+    private final ThreadPoolExecutor publisher;
+
+    private final Counter dropped;
+    private final Counter sent;
+    private final Counter failed;
+
+    public LocationEventProducer(KafkaTemplate<String, Object> kafkaTemplate,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${geolocation.events.domain.queue-capacity:1000}") int queueCapacity,
+                                 @Value("${geolocation.events.domain.shutdown-timeout-ms:5000}") long shutdownTimeoutMs) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+        this.dropped = meterRegistry.counter("geolocation.events.domain.dropped");
+        this.sent = meterRegistry.counter("geolocation.events.domain.sent");
+        this.failed = meterRegistry.counter("geolocation.events.domain.failed");
+
+        BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.publisher = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, queue, runnable -> {
+            Thread thread = new Thread(runnable, "domain-event-publisher");
+            thread.setDaemon(true);
+            return thread;
+        }, (runnable, executor) -> dropped.increment());
+        meterRegistry.gauge("geolocation.events.domain.queue.size", queue, BlockingQueue::size);
+    }
 
     /**
      * Publishes a bus location updated event to Kafka.
+     * <p>
+     * Keyed by busId so that all positions of a bus land on the same partition, in order.
+     * High-volume path: callers handle completion instead of logging each send.
      */
-    public void publishLocationUpdated(BusLocationUpdatedEvent event) {
-        log.info("Publishing bus location updated event for bus: {}", event.getBusId());
-        kafkaTemplate.send(LOCATION_UPDATED_TOPIC, event.getBusId(), event);
+    public CompletableFuture<SendResult<String, Object>> publishLocationUpdated(BusLocationUpdatedEvent event) {
+        log.trace("Publishing bus location updated event for bus: {}", event.getBusId());
+        return kafkaTemplate.send(LOCATION_UPDATED_TOPIC, event.getBusId(), event);
     }
 
     /**
@@ -35,7 +84,7 @@ public class LocationEventProducer {
      */
     public void publishBusArrived(BusArrivedAtStopEvent event) {
         log.info("Publishing bus arrived event: bus {} at stop {}", event.getBusId(), event.getStopName());
-        kafkaTemplate.send(BUS_ARRIVED_TOPIC, event.getBusId(), event);
+        publishAsync(BUS_ARRIVED_TOPIC, event.getBusId(), event);
     }
 
     /**
@@ -43,6 +92,73 @@ public class LocationEventProducer {
      */
     public void publishBusDeparted(BusDepartedFromStopEvent event) {
         log.info("Publishing bus departed event: bus {} from stop {}", event.getBusId(), event.getStopName());
-        kafkaTemplate.send(BUS_DEPARTED_TOPIC, event.getBusId(), event);
+        publishAsync(BUS_DEPARTED_TOPIC, event.getBusId(), event);
+    }
+
+    /**
+     * Publishes a bus entered zone event to Kafka.
+     */
+    public void publishBusEnteredZone(BusEnteredZoneEvent event) {
+        log.info("Publishing bus entered zone event: bus {} into zone {}", event.getBusId(), event.getZoneName());
+        publishAsync(BUS_ENTERED_ZONE_TOPIC, event.getBusId(), event);
+    }
+
+    /**
+     * Publishes a bus exited zone event to Kafka.
+     */
+    public void publishBusExitedZone(BusExitedZoneEvent event) {
+        log.info("Publishing bus exited zone event: bus {} from zone {}", event.getBusId(), event.getZoneName());
+        publishAsync(BUS_EXITED_ZONE_TOPIC, event.getBusId(), event);
+    }
+
+    /**
+     * Publishes a headway alert (bunching or gap) to Kafka.
+     */
+    public void publishHeadwayAlert(BusHeadwayAlertEvent event) {
+        log.info("Publishing headway alert: bus {} {} on route {}", event.getBusId(), event.getStatus(), event.getRouteId());
+        publishAsync(BUS_HEADWAY_ALERT_TOPIC, event.getBusId(), event);
+    }
+
+    /**
+     * Queues an event for the publisher thread; the rejection handler drops and counts it
+     * when the queue is full or the producer is shutting down.
+     */
+    private void publishAsync(String topic, String key, Object event) {
+        publisher.execute(() -> {
+            try {
+                kafkaTemplate.send(topic, key, event).whenComplete((result, ex) -> {
+                    if (ex == null) {
+                        sent.increment();
+                    } else {
+                        onFailure(topic, key, ex);
+                    }
+                });
+            } catch (Exception e) {
+                // Synchronous failure (metadata unavailable, producer buffer full beyond max.block.ms)
+                onFailure(topic, key, e);
+            }
+        });
+    }
+
+    private void onFailure(String topic, String key, Throwable ex) {
+        failed.increment();
+        log.warn("Unable to publish event for bus {} on {}: {}", key, topic, ex.getMessage());
+    }
+
+    /**
+     * Lets the publisher thread flush queued events before the Kafka producer is closed.
+     */
+    @PreDestroy
+    public void shutdown() {
+        publisher.shutdown();
+        try {
+            if (!publisher.awaitTermination(shutdownTimeoutMs, TimeUnit.MILLISECONDS)) {
+                log.warn("{} domain events not published at shutdown", publisher.getQueue().size());
+                publisher.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            publisher.shutdownNow();
+        }
     }
 }
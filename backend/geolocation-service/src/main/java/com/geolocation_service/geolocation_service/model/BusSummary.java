@@ -0,0 +1,42 @@
+package com.geolocation_service.geolocation_service.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Projection de lecture d'un bus (un document par bus), avec le nom de sa ligne et de sa
+ * direction recopiés : les listes et recherches de bus se font en une seule requête, sans
+ * résoudre les {@code @DBRef} de {@link Bus} ni charger ses positions, incidents et historiques.
+ * <p>
+ * Maintenue à chaque écriture d'un bus, d'une ligne ou d'une direction, et reconstruite au démarrage.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Document(collection = "bus_summary")
+public class BusSummary {
+
+    @Id
+    private String idBus;
+
+    private String immatriculation;
+    private String modele;
+    private String marque;
+    private int capacite;
+    private int annee;
+    private String statut;
+
+    // Ligne actuelle
+    private String ligneId;
+    private String numeroLigne;
+    private String nomLigne;
+    private String couleurLigne;
+
+    // Direction actuelle
+    private String directionId;
+    private String nomDirection;
+    private String pointDepart;
+    private String pointArrivee;
+}
@@ -22,6 +22,26 @@ public class HistoriquePosition {
     private int dureeTrajet;
     private int nombreArrets;
 
+    /**
+     * Référence au bus dans schedule-service (trajets résumés à l'ingestion)
+     */
+    private Long busId;
+
+    /**
+     * Ligne sur laquelle le bus a été recalé pendant le trajet, null si inconnue
+     */
+    private Long routeId;
+
+    /**
+     * Trace compacte du trajet ({@link TrajetCompresse}), null pour les anciens historiques
+     */
+    private String trajetCompresseId;
+
+    /**
+     * Positions brutes du trajet supprimées après compaction : seule la trace compacte subsiste
+     */
+    private boolean positionsBrutesSupprimees;
+
     @DBRef
     private Bus bus;
 }
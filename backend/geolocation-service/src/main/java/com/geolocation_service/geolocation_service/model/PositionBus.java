@@ -35,6 +35,17 @@ public class PositionBus {
      */
     private Long busId;
 
+    /**
+     * Ligne sur le tracé de laquelle la position a été recalée à l'ingestion
+     * (null si aucun tracé n'est assez proche)
+     */
+    private Long matchedRouteId;
+
+    /**
+     * Abscisse curviligne du point recalé sur le tracé de {@code matchedRouteId}, en mètres
+     */
+    private Double routeOffsetMeters;
+
     /**
      * Référence au bus dans MongoDB (ancien système)
      * @deprecated Utilisez busId à la place
@@ -43,6 +54,15 @@ public class PositionBus {
     @DBRef
     private Bus bus;
 
+    /**
+     * Zone géographique contenant le point à l'ingestion (la plus petite si plusieurs se chevauchent)
+     */
+    private String zoneId;
+
+    /**
+     * @deprecated Utilisez zoneId à la place
+     */
+    @Deprecated
     @DBRef
     private ZoneGeographique zone;
 }
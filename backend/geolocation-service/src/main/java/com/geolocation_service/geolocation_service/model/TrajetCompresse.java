@@ -0,0 +1,44 @@
+package com.geolocation_service.geolocation_service.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Trace simplifiée d'un trajet terminé, encodée en polyligne delta
+ * ({@link com.geolocation_service.geolocation_service.util.PolylineCodec}).
+ * Référencée par {@link HistoriquePosition#getTrajetCompresseId()}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Document(collection = "trajet_compresse")
+public class TrajetCompresse {
+
+    @Id
+    private String id;
+
+    private Long busId;
+    private LocalDateTime dateDebut;
+    private LocalDateTime dateFin;
+
+    /**
+     * Nombre de positions brutes du trajet
+     */
+    private int nombrePointsOriginaux;
+
+    /**
+     * Nombre de points conservés après simplification
+     */
+    private int nombrePoints;
+
+    /**
+     * Écart maximal toléré entre la trace simplifiée et les positions brutes, en mètres
+     */
+    private double toleranceMetres;
+
+    private String polyline;
+}
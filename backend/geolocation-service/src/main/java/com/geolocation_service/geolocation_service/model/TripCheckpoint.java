@@ -0,0 +1,45 @@
+package com.geolocation_service.geolocation_service.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Sauvegarde périodique de l'accumulateur de trajet d'un bus (un document par bus).
+ * Au redémarrage, l'accumulateur est rechargé puis complété avec les positions
+ * reçues après {@code lastTimestamp}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Document(collection = "trip_checkpoint")
+public class TripCheckpoint {
+
+    @Id
+    private Long busId;
+
+    private LocalDateTime tripStart;
+    private Long tripRouteId;
+    /**
+     * Trajet déjà terminé (bus inactif) et historisé
+     */
+    private boolean tripClosed;
+    /**
+     * Trajet reconstruit depuis une fenêtre d'historique, commencé avant elle : jamais historisé
+     */
+    private boolean tripPartial;
+    private double distanceKm;
+    private int stopCount;
+    private boolean stopped;
+
+    // Dernière position prise en compte
+    private double lastLatitude;
+    private double lastLongitude;
+    private double lastVitesse;
+    private LocalDateTime lastTimestamp;
+    private Long lastRouteId;
+    private Double lastRouteOffset;
+}
@@ -4,6 +4,8 @@ import lombok.*;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.util.List;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -16,4 +18,10 @@ public class ZoneGeographique {
     private String nom;
     private String description;
     private boolean actif;
+
+    /**
+     * Sommets du polygone de la zone, chacun au format [longitude, latitude] (ordre GeoJSON).
+     * Le dernier sommet peut répéter le premier.
+     */
+    private List<List<Double>> polygone;
 }
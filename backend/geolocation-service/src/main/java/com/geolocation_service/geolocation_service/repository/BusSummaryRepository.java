@@ -0,0 +1,14 @@
+package com.geolocation_service.geolocation_service.repository;
+
+import com.geolocation_service.geolocation_service.model.BusSummary;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface BusSummaryRepository extends MongoRepository<BusSummary, String> {
+    List<BusSummary> findByLigneId(String ligneId);
+    List<BusSummary> findByDirectionId(String directionId);
+    List<BusSummary> findByLigneIdAndDirectionId(String ligneId, String directionId);
+}
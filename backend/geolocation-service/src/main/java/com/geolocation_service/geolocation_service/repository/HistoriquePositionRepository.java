@@ -3,9 +3,14 @@ package com.geolocation_service.geolocation_service.repository;
 import com.geolocation_service.geolocation_service.model.HistoriquePosition;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface HistoriquePositionRepository extends MongoRepository<HistoriquePosition, String> {
-    List<HistoriquePosition> findByBusIdBus(String busId);
+    // Le soulignement lève l'ambiguïté avec le champ busId
+    List<HistoriquePosition> findByBus_IdBus(String busId);
+
+    List<HistoriquePosition> findByBusIdAndDateDebutBetweenOrderByDateDebutAsc(Long busId, LocalDateTime from, LocalDateTime to);
 }
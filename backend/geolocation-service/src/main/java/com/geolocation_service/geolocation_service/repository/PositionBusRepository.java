@@ -1,10 +1,13 @@
 package com.geolocation_service.geolocation_service.repository;
 
 import com.geolocation_service.geolocation_service.model.PositionBus;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.repository.Aggregation;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,6 +23,16 @@ public interface PositionBusRepository extends MongoRepository<PositionBus, Stri
      */
     List<PositionBus> findByBusIdOrderByTimestampDesc(Long busId);
 
+    /**
+     * Trouver les dernières positions d'un bus, au plus {@code limit}, de la plus récente à la plus ancienne
+     */
+    List<PositionBus> findByBusIdOrderByTimestampDesc(Long busId, Limit limit);
+
+    /**
+     * Trouver les positions reçues après un instant, au plus {@code limit}, de la plus récente à la plus ancienne
+     */
+    List<PositionBus> findByTimestampAfterOrderByTimestampDesc(LocalDateTime after, Limit limit);
+
     /**
      * Trouver les positions d'un bus dans un intervalle de temps (nouveau système)
      */
@@ -30,4 +43,24 @@ public interface PositionBusRepository extends MongoRepository<PositionBus, Stri
      * Trouver la dernière position d'un bus (nouveau système) - première seulement
      */
     Optional<PositionBus> findFirstByBusIdOrderByTimestampDesc(Long busId);
+
+    /**
+     * Trouver la dernière position d'un bus antérieure à un instant
+     */
+    Optional<PositionBus> findFirstByBusIdAndTimestampBeforeOrderByTimestampDesc(Long busId, LocalDateTime before);
+
+    /**
+     * Horodatage de la dernière position de chaque bus d'une liste, en une seule requête
+     * (seuls busId et timestamp sont renseignés).
+     * Le tri (busId, timestamp décroissant) suivi de {@code $first} permet à Mongo de lire
+     * seulement le dernier point de chaque bus via l'index busId/timestamp, au lieu de
+     * parcourir tout l'historique comme le ferait {@code $max}.
+     */
+    @Aggregation(pipeline = {
+            "{ $match: { busId: { $in: ?0 } } }",
+            "{ $sort: { busId: 1, timestamp: -1 } }",
+            "{ $group: { _id: '$busId', timestamp: { $first: '$timestamp' } } }",
+            "{ $project: { _id: 0, busId: '$_id', timestamp: 1 } }"
+    })
+    List<PositionBus> findLastTimestampByBusIdIn(Collection<Long> busIds);
 }
\ No newline at end of file
@@ -0,0 +1,9 @@
+package com.geolocation_service.geolocation_service.repository;
+
+import com.geolocation_service.geolocation_service.model.TrajetCompresse;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TrajetCompresseRepository extends MongoRepository<TrajetCompresse, String> {
+}
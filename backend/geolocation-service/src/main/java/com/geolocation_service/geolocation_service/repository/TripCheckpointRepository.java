@@ -0,0 +1,16 @@
+package com.geolocation_service.geolocation_service.repository;
+
+import com.geolocation_service.geolocation_service.model.TripCheckpoint;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TripCheckpointRepository extends MongoRepository<TripCheckpoint, Long> {
+    /**
+     * Checkpoints des trajets encore susceptibles d'être en cours, ou terminés sans avoir été résumés
+     */
+    List<TripCheckpoint> findByLastTimestampAfterOrTripClosedFalse(LocalDateTime since);
+}
@@ -0,0 +1,206 @@
+package com.geolocation_service.geolocation_service.service;
+
+import com.geolocation_service.geolocation_service.dto.EnrichedPositionDTO.BusInfoDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache local des informations de bus provenant du schedule-service.
+ * <p>
+ * Les bus absents du cache (ou expirés après {@code geolocation.bus-metadata.ttl-seconds})
+ * sont récupérés en un seul appel à {@code POST /api/buses/lookup} : enrichir toute la
+ * flotte coûte donc au plus une requête HTTP. Les bus inconnus du schedule-service sont
+ * mémorisés avec des informations par défaut pour ne pas être redemandés à chaque appel ;
+ * en cas d'erreur d'appel, rien n'est mis en cache.
+ * <p>
+ * Les entrées sont invalidées à la réception d'un événement {@code bus-changed-events}.
+ * La taille est bornée par {@code geolocation.bus-metadata.max-size}.
+ */
+@Component
+@Slf4j
+public class BusMetadataCache {
+
+    private final RestTemplate restTemplate;
+    private final String scheduleServiceUrl;
+    private final long ttlNanos;
+    private final int maxSize;
+    private final Map<Long, CachedBusInfo> entries = new ConcurrentHashMap<>();
+
+    public BusMetadataCache(RestTemplate restTemplate,
+                            @Value("${schedule.service.url:http://schedule-service:8082}") String scheduleServiceUrl,
+                            @Value("${geolocation.bus-metadata.ttl-seconds:300}") long ttlSeconds,
+                            @Value("${geolocation.bus-metadata.max-size:5000}") int maxSize) {
+        this.restTemplate = restTemplate;
+        this.scheduleServiceUrl = scheduleServiceUrl;
+        this.ttlNanos = Duration.ofSeconds(ttlSeconds).toNanos();
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Informations d'un bus (par défaut si le bus est inconnu ou le schedule-service indisponible)
+     */
+    public BusInfoDTO get(Long busId) {
+        return getAll(List.of(busId)).get(busId);
+    }
+
+    /**
+     * Informations des bus demandés, avec au plus un appel au schedule-service pour les absents
+     *
+     * @return une entrée par busId non null demandé
+     */
+    public Map<Long, BusInfoDTO> getAll(Collection<Long> busIds) {
+        long now = System.nanoTime();
+        Map<Long, BusInfoDTO> result = new HashMap<>();
+        Set<Long> missing = new LinkedHashSet<>();
+
+        for (Long busId : busIds) {
+            if (busId == null || result.containsKey(busId)) {
+                continue;
+            }
+            CachedBusInfo cached = entries.get(busId);
+            if (cached != null && cached.isFresh(now)) {
+                result.put(busId, cached.info());
+            } else {
+                missing.add(busId);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            result.putAll(fetchAndCache(missing, now));
+        }
+        return result;
+    }
+
+    public void invalidate(Long busId) {
+        if (entries.remove(busId) != null) {
+            log.debug("Bus metadata invalidated for bus {}", busId);
+        }
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private Map<Long, BusInfoDTO> fetchAndCache(Set<Long> busIds, long now) {
+        Map<Long, BusInfoDTO> fetched = new HashMap<>();
+        BusResponse[] responses;
+        try {
+            log.debug("Fetching {} buses from schedule-service", busIds.size());
+            responses = restTemplate.postForObject(scheduleServiceUrl + "/api/buses/lookup",
+                    new ArrayList<>(busIds), BusResponse[].class);
+        } catch (Exception e) {
+            log.error("Error fetching {} buses from schedule-service: {}", busIds.size(), e.getMessage());
+            busIds.forEach(busId -> fetched.put(busId, createDefaultBusInfo(busId)));
+            return fetched;
+        }
+
+        if (responses != null) {
+            for (BusResponse response : responses) {
+                if (response != null && busIds.contains(response.getId())) {
+                    fetched.put(response.getId(), toBusInfo(response));
+                }
+            }
+        }
+        for (Long busId : busIds) {
+            if (!fetched.containsKey(busId)) {
+                log.warn("Bus {} not found in schedule-service", busId);
+                fetched.put(busId, createDefaultBusInfo(busId));
+            }
+        }
+
+        makeRoomFor(fetched.size(), now);
+        long expiresAt = now + ttlNanos;
+        fetched.forEach((busId, info) -> entries.put(busId, new CachedBusInfo(info, expiresAt)));
+        return fetched;
+    }
+
+    /**
+     * Retire les entrées expirées puis, si nécessaire, des entrées quelconques.
+     * Pas de LRU : la borne n'est qu'un garde-fou, la flotte y tient largement.
+     */
+    private void makeRoomFor(int incoming, long now) {
+        if (entries.size() + incoming <= maxSize) {
+            return;
+        }
+        entries.values().removeIf(cached -> !cached.isFresh(now));
+        Iterator<Long> it = entries.keySet().iterator();
+        while (entries.size() + incoming > maxSize && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    private BusInfoDTO toBusInfo(BusResponse busResponse) {
+        return BusInfoDTO.builder()
+                .id(busResponse.getId())
+                .busNumber(busResponse.getBusNumber())
+                .licensePlate(busResponse.getLicensePlate())
+                .manufacturer(busResponse.getManufacturer())
+                .model(busResponse.getModel())
+                .year(busResponse.getYear())
+                .capacity(busResponse.getCapacity())
+                .status(busResponse.getStatus())
+                .seatingCapacity(busResponse.getSeatingCapacity())
+                .standingCapacity(busResponse.getStandingCapacity())
+                .hasWifi(busResponse.getHasWifi())
+                .hasAirConditioning(busResponse.getHasAirConditioning())
+                .hasGPS(busResponse.getHasGPS())
+                .notes(busResponse.getNotes())
+                .build();
+    }
+
+    /**
+     * Crée un BusInfo par défaut quand le bus n'est pas trouvé dans schedule-service
+     */
+    private BusInfoDTO createDefaultBusInfo(Long busId) {
+        return BusInfoDTO.builder()
+                .id(busId)
+                .busNumber("BUS-" + busId)
+                .status("UNKNOWN")
+                .build();
+    }
+
+    private record CachedBusInfo(BusInfoDTO info, long expiresAtNanos) {
+        boolean isFresh(long now) {
+            return now - expiresAtNanos < 0;
+        }
+    }
+
+    /**
+     * Classe interne pour mapper la réponse du schedule-service
+     */
+    @lombok.Data
+    static class BusResponse {
+        private Long id;
+        private String busNumber;
+        private String licensePlate;
+        private String manufacturer;
+        private String model;
+        private Integer year;
+        private Integer capacity;
+        private String status;
+        private Integer seatingCapacity;
+        private Integer standingCapacity;
+        private Boolean hasWifi;
+        private Boolean hasAirConditioning;
+        private Boolean hasGPS;
+        private String notes;
+    }
+}
@@ -14,6 +14,9 @@ public class BusService {
     @Autowired
     private BusRepository busRepository;
 
+    @Autowired
+    private BusSummaryService busSummaryService;
+
     public List<Bus> getAllBuses() {
         return busRepository.findAll();
     }
@@ -35,7 +38,9 @@ public class BusService {
     }
 
     public Bus createBus(Bus bus) {
-        return busRepository.save(bus);
+        Bus saved = busRepository.save(bus);
+        busSummaryService.refresh(saved);
+        return saved;
     }
 
     public Bus updateBus(String idBus, Bus busDetails) {
@@ -49,12 +54,15 @@ public class BusService {
                     bus.setStatut(busDetails.getStatut());
                     bus.setLigneActuelle(busDetails.getLigneActuelle());
                     bus.setDirectionActuelle(busDetails.getDirectionActuelle());
-                    return busRepository.save(bus);
+                    Bus saved = busRepository.save(bus);
+                    busSummaryService.refresh(saved);
+                    return saved;
                 })
                 .orElseThrow(() -> new RuntimeException("Bus non trouvé avec id: " + idBus));
     }
 
     public void deleteBus(String idBus) {
         busRepository.deleteById(idBus);
+        busSummaryService.remove(idBus);
     }
 }
\ No newline at end of file
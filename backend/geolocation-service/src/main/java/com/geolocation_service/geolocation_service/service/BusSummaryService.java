@@ -0,0 +1,190 @@
+package com.geolocation_service.geolocation_service.service;
+
+import com.geolocation_service.geolocation_service.model.Bus;
+import com.geolocation_service.geolocation_service.model.BusSummary;
+import com.geolocation_service.geolocation_service.model.Direction;
+import com.geolocation_service.geolocation_service.model.LigneBus;
+import com.geolocation_service.geolocation_service.repository.BusSummaryRepository;
+import com.geolocation_service.geolocation_service.repository.DirectionRepository;
+import com.geolocation_service.geolocation_service.repository.LigneBusRepository;
+import com.mongodb.DBRef;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Maintient la projection {@link BusSummary} et sert les lectures de bus.
+ * <p>
+ * Chaque écriture d'un bus réécrit son résumé ; le renommage ou la suppression d'une ligne ou
+ * d'une direction est répercuté en une mise à jour groupée sur les résumés qui la référencent.
+ * Les listes et recherches lisent uniquement la collection bus_summary, en une requête.
+ */
+@Service
+@Slf4j
+public class BusSummaryService {
+
+    private final BusSummaryRepository busSummaryRepository;
+    private final LigneBusRepository ligneBusRepository;
+    private final DirectionRepository directionRepository;
+    private final MongoTemplate mongoTemplate;
+
+    public BusSummaryService(BusSummaryRepository busSummaryRepository,
+                             LigneBusRepository ligneBusRepository,
+                             DirectionRepository directionRepository,
+                             MongoTemplate mongoTemplate) {
+        this.busSummaryRepository = busSummaryRepository;
+        this.ligneBusRepository = ligneBusRepository;
+        this.directionRepository = directionRepository;
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public Optional<BusSummary> getSummary(String idBus) {
+        return busSummaryRepository.findById(idBus);
+    }
+
+    /**
+     * Bus filtrés par ligne et/ou direction (tous si aucun filtre)
+     */
+    public List<BusSummary> search(String ligneId, String directionId) {
+        if (ligneId != null && directionId != null) {
+            return busSummaryRepository.findByLigneIdAndDirectionId(ligneId, directionId);
+        } else if (ligneId != null) {
+            return busSummaryRepository.findByLigneId(ligneId);
+        } else if (directionId != null) {
+            return busSummaryRepository.findByDirectionId(directionId);
+        }
+        return busSummaryRepository.findAll();
+    }
+
+    /**
+     * Réécrit le résumé d'un bus enregistré. La ligne et la direction sont relues par leur
+     * identifiant : le bus reçu peut ne porter qu'une référence sans nom.
+     */
+    public void refresh(Bus bus) {
+        LigneBus ligne = bus.getLigneActuelle() != null && bus.getLigneActuelle().getIdLigne() != null
+                ? ligneBusRepository.findById(bus.getLigneActuelle().getIdLigne()).orElse(null)
+                : null;
+        Direction direction = bus.getDirectionActuelle() != null && bus.getDirectionActuelle().getIdDirection() != null
+                ? directionRepository.findById(bus.getDirectionActuelle().getIdDirection()).orElse(null)
+                : null;
+        busSummaryRepository.save(toSummary(bus.getIdBus(), bus.getImmatriculation(), bus.getModele(), bus.getMarque(),
+                bus.getCapacite(), bus.getAnnee(), bus.getStatut(), ligne, direction));
+    }
+
+    public void remove(String idBus) {
+        busSummaryRepository.deleteById(idBus);
+    }
+
+    public void onLigneUpdated(LigneBus ligne) {
+        mongoTemplate.updateMulti(Query.query(Criteria.where("ligneId").is(ligne.getIdLigne())),
+                new Update()
+                        .set("numeroLigne", ligne.getNumeroLigne())
+                        .set("nomLigne", ligne.getNomLigne())
+                        .set("couleurLigne", ligne.getCouleur()),
+                BusSummary.class);
+    }
+
+    /**
+     * Une référence vers une ligne supprimée ne se résout plus : les bus n'ont plus de ligne
+     */
+    public void onLigneDeleted(String idLigne) {
+        mongoTemplate.updateMulti(Query.query(Criteria.where("ligneId").is(idLigne)),
+                new Update().unset("ligneId").unset("numeroLigne").unset("nomLigne").unset("couleurLigne"),
+                BusSummary.class);
+    }
+
+    public void onDirectionUpdated(Direction direction) {
+        mongoTemplate.updateMulti(Query.query(Criteria.where("directionId").is(direction.getIdDirection())),
+                new Update()
+                        .set("nomDirection", direction.getNomDirection())
+                        .set("pointDepart", direction.getPointDepart())
+                        .set("pointArrivee", direction.getPointArrivee()),
+                BusSummary.class);
+    }
+
+    public void onDirectionDeleted(String idDirection) {
+        mongoTemplate.updateMulti(Query.query(Criteria.where("directionId").is(idDirection)),
+                new Update().unset("directionId").unset("nomDirection").unset("pointDepart").unset("pointArrivee"),
+                BusSummary.class);
+    }
+
+    /**
+     * Reconstruit toute la projection depuis la collection bus, sans résoudre de référence :
+     * les bus sont lus bruts sans leurs listes, les lignes et directions en une requête chacune.
+     *
+     * @return nombre de résumés écrits
+     */
+    public int rebuild() {
+        Map<String, LigneBus> lignes = new HashMap<>();
+        ligneBusRepository.findAll().forEach(ligne -> lignes.put(ligne.getIdLigne(), ligne));
+        Query directionQuery = new Query();
+        directionQuery.fields().exclude("ligne");
+        Map<String, Direction> directions = new HashMap<>();
+        mongoTemplate.find(directionQuery, Direction.class)
+                .forEach(direction -> directions.put(direction.getIdDirection(), direction));
+
+        Query busQuery = new Query();
+        busQuery.fields().exclude("positions", "incidents", "historiques");
+        List<BusSummary> summaries = new ArrayList<>();
+        Set<String> ids = new HashSet<>();
+        for (Document bus : mongoTemplate.find(busQuery, Document.class, mongoTemplate.getCollectionName(Bus.class))) {
+            String idBus = String.valueOf(bus.get("_id"));
+            ids.add(idBus);
+            summaries.add(toSummary(idBus, bus.getString("immatriculation"), bus.getString("modele"),
+                    bus.getString("marque"), intValue(bus.get("capacite")), intValue(bus.get("annee")),
+                    bus.getString("statut"),
+                    lignes.get(referencedId(bus.get("ligneActuelle"))),
+                    directions.get(referencedId(bus.get("directionActuelle")))));
+        }
+        busSummaryRepository.saveAll(summaries);
+        // Résumés de bus supprimés hors de ce service
+        mongoTemplate.remove(Query.query(Criteria.where("_id").nin(ids)), BusSummary.class);
+        log.info("Bus summaries rebuilt: {} buses", summaries.size());
+        return summaries.size();
+    }
+
+    private static BusSummary toSummary(String idBus, String immatriculation, String modele, String marque,
+                                        int capacite, int annee, String statut, LigneBus ligne, Direction direction) {
+        BusSummary.BusSummaryBuilder summary = BusSummary.builder()
+                .idBus(idBus)
+                .immatriculation(immatriculation)
+                .modele(modele)
+                .marque(marque)
+                .capacite(capacite)
+                .annee(annee)
+                .statut(statut);
+        if (ligne != null) {
+            summary.ligneId(ligne.getIdLigne())
+                    .numeroLigne(ligne.getNumeroLigne())
+                    .nomLigne(ligne.getNomLigne())
+                    .couleurLigne(ligne.getCouleur());
+        }
+        if (direction != null) {
+            summary.directionId(direction.getIdDirection())
+                    .nomDirection(direction.getNomDirection())
+                    .pointDepart(direction.getPointDepart())
+                    .pointArrivee(direction.getPointArrivee());
+        }
+        return summary.build();
+    }
+
+    private static String referencedId(Object reference) {
+        return reference instanceof DBRef dbRef ? String.valueOf(dbRef.getId()) : null;
+    }
+
+    private static int intValue(Object value) {
+        return value instanceof Number number ? number.intValue() : 0;
+    }
+}
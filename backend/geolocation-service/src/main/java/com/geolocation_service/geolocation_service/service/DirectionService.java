@@ -11,9 +11,11 @@ import java.util.Optional;
 public class DirectionService {
 
     private final DirectionRepository directionRepository;
+    private final BusSummaryService busSummaryService;
 
-    public DirectionService(DirectionRepository directionRepository) {
+    public DirectionService(DirectionRepository directionRepository, BusSummaryService busSummaryService) {
         this.directionRepository = directionRepository;
+        this.busSummaryService = busSummaryService;
     }
 
     public List<Direction> getAllDirections() {
@@ -39,12 +41,15 @@ public class DirectionService {
                     direction.setPointDepart(directionDetails.getPointDepart());
                     direction.setPointArrivee(directionDetails.getPointArrivee());
                     direction.setLigne(directionDetails.getLigne());
-                    return directionRepository.save(direction);
+                    Direction saved = directionRepository.save(direction);
+                    busSummaryService.onDirectionUpdated(saved);
+                    return saved;
                 })
                 .orElseThrow(() -> new RuntimeException("Direction non trouvée avec id: " + idDirection));
     }
 
     public void deleteDirection(String idDirection) {
         directionRepository.deleteById(idDirection);
+        busSummaryService.onDirectionDeleted(idDirection);
     }
 }
\ No newline at end of file
@@ -0,0 +1,356 @@
+package com.geolocation_service.geolocation_service.service;
+
+import com.geolocation_service.geolocation_service.dto.StopEtaDTO;
+import com.geolocation_service.geolocation_service.model.PositionBus;
+import com.geolocation_service.geolocation_service.util.GeoUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Estimation des heures d'arrivée aux prochains arrêts.
+ * <p>
+ * À chaque position, le bus est situé sur sa ligne à partir de sa dernière arrivée
+ * détectée ({@link StopEventDetector}) et projeté sur le segment vers l'arrêt suivant.
+ * Si la position recalée est déjà au-delà de cet arrêt (passé sans ralentir ni s'arrêter,
+ * donc sans arrivée détectée), la projection part du segment qui contient la position.
+ * Les ETA des arrêts en aval sont alors recalculées et rangées dans un tableau par
+ * arrêt : la lecture ({@link #getArrivals(Long, int)}) ne fait aucun calcul de trajet.
+ * <p>
+ * Le temps de parcours d'un segment (arrivée à un arrêt → arrivée au suivant) est appris
+ * à partir des passages observés, en moyenne mobile exponentielle par segment et par
+ * tranche horaire. À défaut d'historique, le temps planifié ({@code timeFromOrigin}) puis
+ * la distance à {@code geolocation.eta.default-speed-kmh} sont utilisés.
+ */
+@Service
+@Slf4j
+@Order(StopEventDetector.INGEST_ORDER + 10)
+public class EtaService implements PositionIngestListener {
+
+    private final StopNetworkService stopNetworkService;
+    private final StopEventDetector stopEventDetector;
+    private final double ewmaAlpha;
+    private final int bucketMinutes;
+    private final int horizonStops;
+    private final double defaultSpeedMetersPerSecond;
+    private final Duration maxSegmentTime;
+    private final Duration staleAfter;
+
+    private final Map<SegmentKey, SegmentStats> segmentStats = new ConcurrentHashMap<>();
+    private final Map<Long, Map<Long, Arrival>> arrivalsByStop = new ConcurrentHashMap<>();
+    private final Map<Long, BusProgress> progressByBus = new ConcurrentHashMap<>();
+
+    public EtaService(StopNetworkService stopNetworkService,
+                      StopEventDetector stopEventDetector,
+                      @Value("${geolocation.eta.ewma-alpha:0.3}") double ewmaAlpha,
+                      @Value("${geolocation.eta.bucket-minutes:60}") int bucketMinutes,
+                      @Value("${geolocation.eta.horizon-stops:15}") int horizonStops,
+                      @Value("${geolocation.eta.default-speed-kmh:20}") double defaultSpeedKmh,
+                      @Value("${geolocation.eta.max-segment-minutes:30}") long maxSegmentMinutes,
+                      @Value("${geolocation.eta.stale-after-seconds:300}") long staleAfterSeconds) {
+        this.stopNetworkService = stopNetworkService;
+        this.stopEventDetector = stopEventDetector;
+        this.ewmaAlpha = ewmaAlpha;
+        this.bucketMinutes = bucketMinutes;
+        this.horizonStops = horizonStops;
+        this.defaultSpeedMetersPerSecond = defaultSpeedKmh / 3.6;
+        this.maxSegmentTime = Duration.ofMinutes(maxSegmentMinutes);
+        this.staleAfter = Duration.ofSeconds(staleAfterSeconds);
+    }
+
+    @Override
+    public void onPosition(PositionBus position) {
+        if (position.getBusId() == null || position.getTimestamp() == null) {
+            return;
+        }
+        StopEventDetector.StopArrival arrival = stopEventDetector.lastArrival(position.getBusId());
+        if (arrival == null) {
+            return;
+        }
+        StopIndex.RouteLine line = stopNetworkService.getStopIndex().route(arrival.routeId());
+        int fromIndex = line != null ? line.indexOf(arrival.stopId()) : -1;
+
+        BusProgress progress = progressByBus.computeIfAbsent(position.getBusId(), busId -> new BusProgress());
+        synchronized (progress) {
+            if (progress.lastTimestamp != null && !position.getTimestamp().isAfter(progress.lastTimestamp)) {
+                return;
+            }
+            progress.lastTimestamp = position.getTimestamp();
+
+            if (progress.lastArrival != null && !progress.lastArrival.equals(arrival)) {
+                learn(line, progress.lastArrival, arrival);
+            }
+            progress.lastArrival = arrival;
+
+            if (fromIndex < 0 || line.nextIndex(fromIndex) < 0) {
+                // Ligne inconnue ou terminus : plus de prochain arrêt
+                replaceArrivals(position.getBusId(), progress, Map.of());
+                progress.distanceToNextMeters = -1;
+                return;
+            }
+            project(position, line, currentSegment(position, line, fromIndex), progress);
+        }
+    }
+
+    /**
+     * Début du segment où se trouve le bus : les arrêts dont l'abscisse recalée est déjà dépassée
+     * sont sautés, le dernier arrêt d'une ligne non circulaire excepté
+     */
+    private int currentSegment(PositionBus position, StopIndex.RouteLine line, int fromIndex) {
+        if (position.getRouteOffsetMeters() == null || !line.routeId().equals(position.getMatchedRouteId())) {
+            return fromIndex;
+        }
+        RouteShapeIndex shapes = stopNetworkService.getStopIndex().shapes();
+        int index = fromIndex;
+        while (index + 1 < line.stops().size() && line.nextIndex(index + 1) >= 0
+                && position.getRouteOffsetMeters() > shapes.vertexOffset(line.routeId(), index + 1)) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Enregistre le temps d'un segment quand deux arrivées consécutives sur la ligne sont observées
+     */
+    private void learn(StopIndex.RouteLine line, StopEventDetector.StopArrival previous,
+                       StopEventDetector.StopArrival current) {
+        if (line == null || !line.routeId().equals(previous.routeId())) {
+            return;
+        }
+        int previousIndex = line.indexOf(previous.stopId());
+        if (previousIndex < 0 || line.nextIndex(previousIndex) != line.indexOf(current.stopId())) {
+            return;
+        }
+        Duration observed = Duration.between(previous.arrivedAt(), current.arrivedAt());
+        if (observed.isNegative() || observed.isZero() || observed.compareTo(maxSegmentTime) > 0) {
+            return;
+        }
+        SegmentKey key = new SegmentKey(line.routeId(), previous.stopId(), current.stopId(), bucket(previous.arrivedAt()));
+        segmentStats.computeIfAbsent(key, k -> new SegmentStats()).add(observed.toMillis() / 1000.0, ewmaAlpha);
+    }
+
+    private void project(PositionBus position, StopIndex.RouteLine line, int fromIndex, BusProgress progress) {
+        List<StopIndex.LineStop> stops = line.stops();
+        int nextIndex = line.nextIndex(fromIndex);
+        StopIndex.LineStop from = stops.get(fromIndex);
+        StopIndex.LineStop next = stops.get(nextIndex);
+
+        double fraction = progressOnSegment(position, line, fromIndex, from, next);
+        LocalDateTime observedAt = position.getTimestamp();
+        double seconds = (1 - fraction) * segmentSeconds(line, fromIndex, nextIndex, observedAt);
+
+        Map<Long, Arrival> arrivals = new HashMap<>();
+        int current = nextIndex;
+        for (int stopsAway = 1; stopsAway <= horizonStops && current >= 0 && current != fromIndex; stopsAway++) {
+            StopIndex.LineStop stop = stops.get(current);
+            LocalDateTime eta = observedAt.plusNanos((long) (seconds * 1_000_000_000L));
+            arrivals.putIfAbsent(stop.stopId(), new Arrival(position.getBusId(), line.routeId(), line.routeName(),
+                    stop.stopId(), stop.stopName(), eta, stopsAway, observedAt));
+            int following = line.nextIndex(current);
+            if (following >= 0) {
+                seconds += segmentSeconds(line, current, following, eta);
+            }
+            current = following;
+        }
+
+        replaceArrivals(position.getBusId(), progress, arrivals);
+        progress.distanceToNextMeters = GeoUtils.approxDistanceMeters(position.getLatitude(), position.getLongitude(),
+                next.latitude(), next.longitude());
+    }
+
+    /**
+     * Avancement du bus sur le segment (0 à l'arrêt de départ, 1 à l'arrêt suivant) : écart
+     * d'abscisses si la position est recalée sur le tracé de la ligne, sinon projection géométrique
+     */
+    private double progressOnSegment(PositionBus position, StopIndex.RouteLine line, int fromIndex,
+                                     StopIndex.LineStop from, StopIndex.LineStop next) {
+        if (position.getRouteOffsetMeters() != null && line.routeId().equals(position.getMatchedRouteId())) {
+            RouteShapeIndex shapes = stopNetworkService.getStopIndex().shapes();
+            // fromIndex + 1 désigne aussi le retour à l'origine d'une ligne circulaire
+            double start = shapes.vertexOffset(line.routeId(), fromIndex);
+            double end = shapes.vertexOffset(line.routeId(), fromIndex + 1);
+            if (end > start) {
+                return Math.max(0, Math.min(1, (position.getRouteOffsetMeters() - start) / (end - start)));
+            }
+        }
+        return GeoUtils.segmentFraction(position.getLatitude(), position.getLongitude(),
+                from.latitude(), from.longitude(), next.latitude(), next.longitude());
+    }
+
+    /**
+     * Temps de parcours estimé d'un segment : appris, sinon planifié, sinon déduit de la distance
+     */
+    double segmentSeconds(StopIndex.RouteLine line, int fromIndex, int toIndex, LocalDateTime at) {
+        StopIndex.LineStop from = line.stops().get(fromIndex);
+        StopIndex.LineStop to = line.stops().get(toIndex);
+        SegmentStats stats = segmentStats.get(new SegmentKey(line.routeId(), from.stopId(), to.stopId(), bucket(at)));
+        if (stats != null) {
+            return stats.seconds();
+        }
+        if (toIndex > fromIndex && from.timeFromOriginSeconds() >= 0 && to.timeFromOriginSeconds() > from.timeFromOriginSeconds()) {
+            return to.timeFromOriginSeconds() - from.timeFromOriginSeconds();
+        }
+        double meters = toIndex > fromIndex && from.distanceFromOriginMeters() >= 0
+                && to.distanceFromOriginMeters() > from.distanceFromOriginMeters()
+                ? to.distanceFromOriginMeters() - from.distanceFromOriginMeters()
+                : GeoUtils.distanceMeters(from.latitude(), from.longitude(), to.latitude(), to.longitude());
+        return meters / defaultSpeedMetersPerSecond;
+    }
+
+    private int bucket(LocalDateTime time) {
+        return (time.getHour() * 60 + time.getMinute()) / bucketMinutes;
+    }
+
+    private void replaceArrivals(Long busId, BusProgress progress, Map<Long, Arrival> arrivals) {
+        // Mises à jour atomiques par arrêt : un tableau vide n'est jamais retiré pendant qu'un bus s'y ajoute
+        for (Long stopId : progress.stopIds) {
+            if (!arrivals.containsKey(stopId)) {
+                arrivalsByStop.computeIfPresent(stopId, (id, board) -> {
+                    board.remove(busId);
+                    return board.isEmpty() ? null : board;
+                });
+            }
+        }
+        arrivals.forEach((stopId, arrival) -> arrivalsByStop.compute(stopId, (id, board) -> {
+            Map<Long, Arrival> updated = board != null ? board : new ConcurrentHashMap<>();
+            updated.put(busId, arrival);
+            return updated;
+        }));
+        progress.stopIds = new HashSet<>(arrivals.keySet());
+        progress.nextArrival = arrivals.values().stream()
+                .min(Comparator.comparingInt(Arrival::stopsAway))
+                .orElse(null);
+    }
+
+    /**
+     * Prochains passages à un arrêt, du plus proche au plus lointain
+     *
+     * @param limit nombre maximal de passages
+     */
+    public List<StopEtaDTO> getArrivals(Long stopId, int limit) {
+        Map<Long, Arrival> board = arrivalsByStop.get(stopId);
+        if (board == null || board.isEmpty()) {
+            return List.of();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime staleBefore = now.minus(staleAfter);
+        return board.values().stream()
+                .filter(arrival -> arrival.observedAt().isAfter(staleBefore))
+                .sorted(Comparator.comparing(Arrival::eta))
+                .limit(limit)
+                .map(arrival -> arrival.toDto(now))
+                .toList();
+    }
+
+    /**
+     * Prochain arrêt d'un bus et estimation associée
+     */
+    public Optional<StopEtaDTO> getNextStop(Long busId) {
+        BusProgress progress = progressByBus.get(busId);
+        if (progress == null) {
+            return Optional.empty();
+        }
+        synchronized (progress) {
+            return Optional.ofNullable(progress.nextArrival).map(arrival -> arrival.toDto(LocalDateTime.now()));
+        }
+    }
+
+    /**
+     * Distance à vol d'oiseau jusqu'au prochain arrêt, en mètres (négative si inconnue)
+     */
+    public double getDistanceToNextStopMeters(Long busId) {
+        BusProgress progress = progressByBus.get(busId);
+        if (progress == null) {
+            return -1;
+        }
+        synchronized (progress) {
+            return progress.distanceToNextMeters;
+        }
+    }
+
+    /**
+     * Retire les bus qui n'émettent plus des tableaux d'arrêts
+     */
+    @Scheduled(fixedDelayString = "${geolocation.live.eviction-interval-ms:30000}")
+    public int evictStale() {
+        LocalDateTime staleBefore = LocalDateTime.now().minus(staleAfter);
+        int evicted = 0;
+        for (Map.Entry<Long, BusProgress> entry : progressByBus.entrySet()) {
+            BusProgress progress = entry.getValue();
+            synchronized (progress) {
+                if (progress.lastTimestamp == null || progress.lastTimestamp.isAfter(staleBefore)) {
+                    continue;
+                }
+                replaceArrivals(entry.getKey(), progress, Map.of());
+                progressByBus.remove(entry.getKey(), progress);
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            log.debug("Evicted ETA state of {} idle buses", evicted);
+        }
+        return evicted;
+    }
+
+    private record SegmentKey(Long routeId, Long fromStopId, Long toStopId, int bucket) {
+    }
+
+    private record Arrival(Long busId, Long routeId, String routeName, Long stopId, String stopName,
+                           LocalDateTime eta, int stopsAway, LocalDateTime observedAt) {
+
+        StopEtaDTO toDto(LocalDateTime now) {
+            return StopEtaDTO.builder()
+                    .busId(busId)
+                    .routeId(routeId)
+                    .routeName(routeName)
+                    .stopId(stopId)
+                    .stopName(stopName)
+                    .estimatedArrival(eta)
+                    .secondsAway(Math.max(0, Duration.between(now, eta).toSeconds()))
+                    .stopsAway(stopsAway)
+                    .computedAt(observedAt)
+                    .build();
+        }
+    }
+
+    /**
+     * Moyenne mobile exponentielle du temps de parcours d'un segment
+     */
+    private static final class SegmentStats {
+        private double seconds;
+        private int samples;
+
+        synchronized void add(double sample, double alpha) {
+            seconds = samples == 0 ? sample : alpha * sample + (1 - alpha) * seconds;
+            samples++;
+        }
+
+        synchronized double seconds() {
+            return seconds;
+        }
+    }
+
+    /**
+     * Avancement d'un bus sur sa ligne (accès sous verrou de l'instance)
+     */
+    private static final class BusProgress {
+        private LocalDateTime lastTimestamp;
+        private StopEventDetector.StopArrival lastArrival;
+        private Set<Long> stopIds = Set.of();
+        private Arrival nextArrival;
+        private double distanceToNextMeters = -1;
+    }
+}
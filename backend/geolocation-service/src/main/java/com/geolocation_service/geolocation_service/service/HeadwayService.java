@@ -0,0 +1,370 @@
+package com.geolocation_service.geolocation_service.service;
+
+import com.geolocation_service.geolocation_service.dto.LineHeadwayDTO;
+import com.geolocation_service.geolocation_service.dto.LineHeadwayDTO.BusHeadwayDTO;
+import com.geolocation_service.geolocation_service.dto.LineHeadwayDTO.Status;
+import com.geolocation_service.geolocation_service.event.BusHeadwayAlertEvent;
+import com.geolocation_service.geolocation_service.event.producer.LocationEventProducer;
+import com.geolocation_service.geolocation_service.model.PositionBus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Intervalles entre bus successifs d'une même ligne et détection des trains de bus.
+ * <p>
+ * À chaque tick ({@code geolocation.headways.interval-ms}), les positions actives du
+ * {@link LatestPositionRegistry} sont regroupées par ligne recalée ({@code matchedRouteId}, une
+ * ligne du schedule-service étant parcourue dans un seul sens) et triées par abscisse sur le
+ * tracé. L'intervalle d'un bus est le temps de parcours planifié ({@code timeFromOrigin} des
+ * arrêts, interpolé) entre sa position et celle du bus qui le précède ; sur une ligne circulaire,
+ * le premier bus suit le dernier. Le calcul ne fait aucune requête : O(bus actifs) par tick.
+ * <p>
+ * L'intervalle planifié est la fréquence de l'horaire en cours de la ligne, chargée depuis le
+ * schedule-service ({@code GET /api/schedules/active}) toutes les
+ * {@code schedule-refresh-interval-ms}. Un bus dont l'intervalle tombe sous
+ * {@code bunching-fraction} ou dépasse {@code gap-fraction} de l'intervalle planifié déclenche
+ * une alerte Kafka, une seule fois par entrée dans cet état, publiée par le leader uniquement.
+ */
+@Service
+@Slf4j
+public class HeadwayService {
+
+    private static final int SCHEDULE_PAGE_SIZE = 500;
+    private static final int MAX_SCHEDULE_PAGES = 100;
+
+    private final LatestPositionRegistry latestPositionRegistry;
+    private final StopNetworkService stopNetworkService;
+    private final LocationEventProducer locationEventProducer;
+    private final LeaderElection leaderElection;
+    private final RestTemplate restTemplate;
+    private final String scheduleServiceUrl;
+    private final boolean enabled;
+    private final double bunchingFraction;
+    private final double gapFraction;
+    private final double defaultSpeedMetersPerSecond;
+
+    private volatile Map<Long, List<ScheduleWindow>> scheduleWindows = Map.of();
+    private volatile Map<Long, LineHeadwayDTO> headwaysByRoute = Map.of();
+    private Map<Long, Status> alertStates = new HashMap<>();
+    private StopIndex clockIndex;
+    private Map<Long, RouteClock> clocks = Map.of();
+
+    public HeadwayService(LatestPositionRegistry latestPositionRegistry,
+                          StopNetworkService stopNetworkService,
+                          LocationEventProducer locationEventProducer,
+                          LeaderElection leaderElection,
+                          RestTemplate restTemplate,
+                          @Value("${schedule.service.url:http://schedule-service:8082}") String scheduleServiceUrl,
+                          @Value("${geolocation.headways.enabled:true}") boolean enabled,
+                          @Value("${geolocation.headways.bunching-fraction:0.25}") double bunchingFraction,
+                          @Value("${geolocation.headways.gap-fraction:2.0}") double gapFraction,
+                          @Value("${geolocation.eta.default-speed-kmh:20}") double defaultSpeedKmh) {
+        this.latestPositionRegistry = latestPositionRegistry;
+        this.stopNetworkService = stopNetworkService;
+        this.locationEventProducer = locationEventProducer;
+        this.leaderElection = leaderElection;
+        this.restTemplate = restTemplate;
+        this.scheduleServiceUrl = scheduleServiceUrl;
+        this.enabled = enabled;
+        this.bunchingFraction = bunchingFraction;
+        this.gapFraction = gapFraction;
+        this.defaultSpeedMetersPerSecond = defaultSpeedKmh / 3.6;
+    }
+
+    /**
+     * Intervalles de la ligne au dernier tick (liste vide si aucun bus actif n'y est recalé)
+     */
+    public LineHeadwayDTO getLineHeadways(Long routeId) {
+        LineHeadwayDTO headways = headwaysByRoute.get(routeId);
+        return headways != null ? headways : LineHeadwayDTO.builder().routeId(routeId).build();
+    }
+
+    @Scheduled(fixedDelayString = "${geolocation.headways.schedule-refresh-interval-ms:600000}")
+    public void refreshSchedules() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            List<ScheduleDetail> schedules = new ArrayList<>();
+            for (int page = 0; page < MAX_SCHEDULE_PAGES; page++) {
+                SchedulePage result = restTemplate.getForObject(scheduleServiceUrl + "/api/schedules/active?page="
+                        + page + "&size=" + SCHEDULE_PAGE_SIZE, SchedulePage.class);
+                if (result == null || result.getContent() == null) {
+                    break;
+                }
+                schedules.addAll(result.getContent());
+                if (result.getContent().size() < SCHEDULE_PAGE_SIZE) {
+                    break;
+                }
+            }
+            scheduleWindows = buildWindows(schedules);
+            log.info("Scheduled frequencies loaded: {} schedules on {} routes", schedules.size(), scheduleWindows.size());
+        } catch (Exception e) {
+            log.error("Unable to load schedules from schedule-service: {}", e.getMessage());
+        }
+    }
+
+    static Map<Long, List<ScheduleWindow>> buildWindows(List<ScheduleDetail> schedules) {
+        Map<Long, List<ScheduleWindow>> windows = new HashMap<>();
+        for (ScheduleDetail schedule : schedules) {
+            if (schedule.getRouteId() == null || Boolean.FALSE.equals(schedule.getIsActive())
+                    || schedule.getFrequency() == null || schedule.getFrequency() <= 0
+                    || schedule.getDepartureTime() == null || schedule.getArrivalTime() == null) {
+                continue;
+            }
+            windows.computeIfAbsent(schedule.getRouteId(), id -> new ArrayList<>()).add(new ScheduleWindow(
+                    schedule.getDaysOfWeek() != null ? Set.copyOf(schedule.getDaysOfWeek()) : Set.of(),
+                    schedule.getValidFrom(), schedule.getValidUntil(),
+                    schedule.getDepartureTime(), schedule.getArrivalTime(), schedule.getFrequency()));
+        }
+        return windows;
+    }
+
+    void setScheduleWindows(Map<Long, List<ScheduleWindow>> scheduleWindows) {
+        this.scheduleWindows = scheduleWindows;
+    }
+
+    /**
+     * Intervalle planifié de la ligne à l'instant donné (plus petite fréquence des horaires en cours)
+     *
+     * @return null si aucun horaire à fréquence n'est en cours
+     */
+    public Long scheduledHeadwaySeconds(Long routeId, LocalDateTime at) {
+        Integer minutes = null;
+        for (ScheduleWindow window : scheduleWindows.getOrDefault(routeId, List.of())) {
+            if (window.appliesAt(at) && (minutes == null || window.frequencyMinutes() < minutes)) {
+                minutes = window.frequencyMinutes();
+            }
+        }
+        return minutes != null ? minutes * 60L : null;
+    }
+
+    @Scheduled(fixedDelayString = "${geolocation.headways.interval-ms:10000}")
+    public void scheduledComputation() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            computeHeadways(LocalDateTime.now());
+        } catch (Exception e) {
+            log.error("Headway computation failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Recalcule les intervalles de toutes les lignes et émet les alertes des bus entrés en
+     * train de bus ou en trou de service
+     */
+    public synchronized Map<Long, LineHeadwayDTO> computeHeadways(LocalDateTime now) {
+        Map<Long, List<PositionBus>> busesByRoute = new HashMap<>();
+        for (PositionBus position : latestPositionRegistry.getActivePositions()) {
+            if (position.getMatchedRouteId() != null && position.getRouteOffsetMeters() != null) {
+                busesByRoute.computeIfAbsent(position.getMatchedRouteId(), id -> new ArrayList<>()).add(position);
+            }
+        }
+
+        StopIndex index = stopNetworkService.getStopIndex();
+        if (index != clockIndex) {
+            clocks = new HashMap<>();
+            clockIndex = index;
+        }
+
+        Map<Long, LineHeadwayDTO> computed = new HashMap<>(busesByRoute.size() * 2);
+        Map<Long, Status> states = new HashMap<>();
+        List<BusHeadwayAlertEvent> alerts = new ArrayList<>();
+        busesByRoute.forEach((routeId, buses) -> {
+            StopIndex.RouteLine line = index.route(routeId);
+            RouteClock clock = clocks.computeIfAbsent(routeId, id -> RouteClock.of(index, line, defaultSpeedMetersPerSecond));
+            LineHeadwayDTO headways = lineHeadways(routeId, line, clock, buses, now);
+            computed.put(routeId, headways);
+            for (BusHeadwayDTO bus : headways.getBuses()) {
+                states.put(bus.getBusId(), bus.getStatus());
+                if ((bus.getStatus() == Status.BUNCHED || bus.getStatus() == Status.GAPPED)
+                        && alertStates.get(bus.getBusId()) != bus.getStatus()) {
+                    alerts.add(alert(headways, bus, now));
+                }
+            }
+        });
+        headwaysByRoute = computed;
+        alertStates = states;
+
+        if (!alerts.isEmpty() && leaderElection.isLeader()) {
+            alerts.forEach(locationEventProducer::publishHeadwayAlert);
+        }
+        return computed;
+    }
+
+    private LineHeadwayDTO lineHeadways(Long routeId, StopIndex.RouteLine line, RouteClock clock,
+                                        List<PositionBus> buses, LocalDateTime now) {
+        buses.sort(Comparator.comparingDouble(PositionBus::getRouteOffsetMeters).reversed());
+        boolean circular = line != null && line.circular() && clock.lengthMeters() > 0;
+        Long scheduled = scheduledHeadwaySeconds(routeId, now);
+
+        List<BusHeadwayDTO> result = new ArrayList<>(buses.size());
+        for (int i = 0; i < buses.size(); i++) {
+            PositionBus bus = buses.get(i);
+            PositionBus leader = i > 0 ? buses.get(i - 1) : circular && buses.size() > 1 ? buses.get(buses.size() - 1) : null;
+
+            BusHeadwayDTO.BusHeadwayDTOBuilder headway = BusHeadwayDTO.builder()
+                    .busId(bus.getBusId())
+                    .routeOffsetMeters(bus.getRouteOffsetMeters())
+                    .observedAt(bus.getTimestamp())
+                    .status(Status.UNKNOWN);
+            if (leader != null) {
+                double gap = leader.getRouteOffsetMeters() - bus.getRouteOffsetMeters();
+                if (gap < 0) {
+                    gap += clock.lengthMeters();
+                }
+                long seconds = Math.round(clock.runningSeconds(bus.getRouteOffsetMeters(), leader.getRouteOffsetMeters()));
+                headway.leaderBusId(leader.getBusId()).gapMeters(gap).headwaySeconds(seconds);
+                if (scheduled != null) {
+                    double ratio = seconds / (double) scheduled;
+                    headway.ratio(ratio).status(ratio < bunchingFraction ? Status.BUNCHED
+                            : ratio > gapFraction ? Status.GAPPED : Status.NORMAL);
+                }
+            }
+            result.add(headway.build());
+        }
+        return LineHeadwayDTO.builder()
+                .routeId(routeId)
+                .routeName(line != null ? line.routeName() : null)
+                .scheduledHeadwaySeconds(scheduled)
+                .computedAt(now)
+                .buses(result)
+                .build();
+    }
+
+    private static BusHeadwayAlertEvent alert(LineHeadwayDTO line, BusHeadwayDTO bus, LocalDateTime now) {
+        return BusHeadwayAlertEvent.builder()
+                .busId(String.valueOf(bus.getBusId()))
+                .leaderBusId(String.valueOf(bus.getLeaderBusId()))
+                .routeId(line.getRouteId())
+                .routeName(line.getRouteName())
+                .status(bus.getStatus().name())
+                .headwaySeconds(bus.getHeadwaySeconds())
+                .scheduledHeadwaySeconds(line.getScheduledHeadwaySeconds())
+                .gapMeters(bus.getGapMeters())
+                .detectedAt(now)
+                .build();
+    }
+
+    /**
+     * Horaire à fréquence d'une ligne
+     */
+    record ScheduleWindow(Set<DayOfWeek> days, LocalDate validFrom, LocalDate validUntil,
+                          LocalTime start, LocalTime end, int frequencyMinutes) {
+
+        boolean appliesAt(LocalDateTime at) {
+            LocalDate date = at.toLocalDate();
+            if ((!days.isEmpty() && !days.contains(at.getDayOfWeek()))
+                    || (validFrom != null && date.isBefore(validFrom))
+                    || (validUntil != null && date.isAfter(validUntil))) {
+                return false;
+            }
+            LocalTime time = at.toLocalTime();
+            // Un service qui passe minuit se termine le lendemain
+            return start.isAfter(end)
+                    ? !time.isBefore(start) || !time.isAfter(end)
+                    : !time.isBefore(start) && !time.isAfter(end);
+        }
+    }
+
+    /**
+     * Temps planifié depuis l'origine en fonction de l'abscisse sur le tracé : interpolé entre
+     * les arrêts dont le {@code timeFromOrigin} est connu, prolongé à leur vitesse moyenne
+     */
+    record RouteClock(double[] offsets, double[] seconds, double lengthMeters, double metersPerSecond) {
+
+        static RouteClock of(StopIndex index, StopIndex.RouteLine line, double defaultMetersPerSecond) {
+            if (line == null) {
+                return new RouteClock(new double[0], new double[0], 0, defaultMetersPerSecond);
+            }
+            List<StopIndex.LineStop> stops = line.stops();
+            double[] offsets = new double[stops.size()];
+            double[] seconds = new double[stops.size()];
+            int count = 0;
+            for (int i = 0; i < stops.size(); i++) {
+                double offset = index.shapes().vertexOffset(line.routeId(), i);
+                int time = stops.get(i).timeFromOriginSeconds();
+                if (time >= 0 && !Double.isNaN(offset)
+                        && (count == 0 || (offset > offsets[count - 1] && time > seconds[count - 1]))) {
+                    offsets[count] = offset;
+                    seconds[count] = time;
+                    count++;
+                }
+            }
+            double length = index.shapes().vertexOffset(line.routeId(), line.circular() ? stops.size() : stops.size() - 1);
+            double speed = count >= 2
+                    ? (offsets[count - 1] - offsets[0]) / (seconds[count - 1] - seconds[0])
+                    : defaultMetersPerSecond;
+            return new RouteClock(Arrays.copyOf(offsets, count), Arrays.copyOf(seconds, count),
+                    Double.isNaN(length) ? 0 : length, speed);
+        }
+
+        double secondsAt(double offset) {
+            if (offsets.length == 0) {
+                return offset / metersPerSecond;
+            }
+            int last = offsets.length - 1;
+            if (offset <= offsets[0]) {
+                return seconds[0] - (offsets[0] - offset) / metersPerSecond;
+            }
+            if (offset >= offsets[last]) {
+                return seconds[last] + (offset - offsets[last]) / metersPerSecond;
+            }
+            int found = Arrays.binarySearch(offsets, offset);
+            if (found >= 0) {
+                return seconds[found];
+            }
+            int upper = -found - 1;
+            int lower = upper - 1;
+            double fraction = (offset - offsets[lower]) / (offsets[upper] - offsets[lower]);
+            return seconds[lower] + fraction * (seconds[upper] - seconds[lower]);
+        }
+
+        /**
+         * Temps planifié de {@code from} jusqu'à {@code to}, en passant par l'origine si {@code to} est derrière
+         */
+        double runningSeconds(double from, double to) {
+            if (to >= from) {
+                return secondsAt(to) - secondsAt(from);
+            }
+            return secondsAt(lengthMeters) - secondsAt(from) + secondsAt(to) - secondsAt(0);
+        }
+    }
+
+    /**
+     * Classes internes pour mapper la réponse du schedule-service
+     */
+    @lombok.Data
+    static class SchedulePage {
+        private List<ScheduleDetail> content;
+    }
+
+    @lombok.Data
+    static class ScheduleDetail {
+        private Long routeId;
+        private LocalTime departureTime;
+        private LocalTime arrivalTime;
+        private Set<DayOfWeek> daysOfWeek;
+        private LocalDate validFrom;
+        private LocalDate validUntil;
+        private Boolean isActive;
+        private Integer frequency;
+    }
+}
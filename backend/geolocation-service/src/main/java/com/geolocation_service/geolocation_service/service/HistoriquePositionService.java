@@ -1,25 +1,119 @@
 package com.geolocation_service.geolocation_service.service;
 
+import com.geolocation_service.geolocation_service.dto.DailyDistanceDTO;
+import com.geolocation_service.geolocation_service.dto.RouteTripCountDTO;
+import com.geolocation_service.geolocation_service.dto.TrackPointDTO;
 import com.geolocation_service.geolocation_service.model.HistoriquePosition;
 import com.geolocation_service.geolocation_service.repository.HistoriquePositionRepository;
+import com.geolocation_service.geolocation_service.repository.TrajetCompresseRepository;
+import com.geolocation_service.geolocation_service.util.PolylineCodec;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.DateOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 public class HistoriquePositionService {
 
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1970, 1, 1, 0, 0);
+
     private final HistoriquePositionRepository historiqueRepo;
+    private final TrajetCompresseRepository trajetCompresseRepo;
+    private final MongoTemplate mongoTemplate;
 
-    public HistoriquePositionService(HistoriquePositionRepository historiqueRepo) {
+    public HistoriquePositionService(HistoriquePositionRepository historiqueRepo,
+                                     TrajetCompresseRepository trajetCompresseRepo,
+                                     MongoTemplate mongoTemplate) {
         this.historiqueRepo = historiqueRepo;
+        this.trajetCompresseRepo = trajetCompresseRepo;
+        this.mongoTemplate = mongoTemplate;
     }
 
     public List<HistoriquePosition> getAllHistorique() {
         return historiqueRepo.findAll();
     }
 
+    /**
+     * Historiques d'un bus : anciens historiques (référence MongoDB) et trajets compactés
+     * (identifiant schedule-service) quand l'identifiant est numérique
+     */
     public List<HistoriquePosition> getHistoriqueByBus(String busId) {
-        return historiqueRepo.findByBusIdBus(busId);
+        List<HistoriquePosition> historiques = new ArrayList<>(historiqueRepo.findByBus_IdBus(busId));
+        try {
+            historiques.addAll(getTrajets(Long.parseLong(busId), null, null));
+        } catch (NumberFormatException e) {
+            // Identifiant de l'ancien système uniquement
+        }
+        return historiques;
+    }
+
+    /**
+     * Trajets compactés d'un bus ayant commencé dans l'intervalle, sans leur trace
+     *
+     * @param from début de l'intervalle (optionnel)
+     * @param to   fin de l'intervalle (optionnelle)
+     */
+    public List<HistoriquePosition> getTrajets(Long busId, LocalDateTime from, LocalDateTime to) {
+        return historiqueRepo.findByBusIdAndDateDebutBetweenOrderByDateDebutAsc(busId,
+                from != null ? from : EARLIEST,
+                to != null ? to : LocalDateTime.now().plusDays(1));
+    }
+
+    /**
+     * Trace simplifiée d'un trajet, décodée depuis sa forme compacte
+     *
+     * @return vide si l'historique n'existe pas ou n'a pas de trace compacte
+     */
+    public Optional<List<TrackPointDTO>> getTrace(String idHistorique) {
+        return historiqueRepo.findById(idHistorique)
+                .map(HistoriquePosition::getTrajetCompresseId)
+                .flatMap(trajetCompresseRepo::findById)
+                .map(trace -> PolylineCodec.decode(trace.getPolyline(), trace.getDateDebut()));
+    }
+
+    /**
+     * Kilomètres parcourus par la flotte par jour, agrégés depuis les résumés de trajet
+     * (jour du départ, fuseau du service)
+     */
+    public List<DailyDistanceDTO> getDistanceJournaliere(LocalDateTime from, LocalDateTime to) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(trajetsBetween(from, to)),
+                Aggregation.project("distanceParcourue")
+                        .and(DateOperators.DateToString.dateOf("dateDebut").toString("%Y-%m-%d")
+                                .withTimezone(DateOperators.Timezone.valueOf(ZoneId.systemDefault().getId())))
+                        .as("jour"),
+                Aggregation.group("jour").sum("distanceParcourue").as("distanceKm").count().as("trajets"),
+                Aggregation.sort(Sort.Direction.ASC, Aggregation.previousOperation()),
+                Aggregation.project("distanceKm", "trajets").and("jour").previousOperation());
+        return mongoTemplate.aggregate(aggregation, HistoriquePosition.class, DailyDistanceDTO.class)
+                .getMappedResults();
+    }
+
+    /**
+     * Nombre de trajets par ligne, agrégé depuis les résumés de trajet recalés sur une ligne
+     */
+    public List<RouteTripCountDTO> getTrajetsParLigne(LocalDateTime from, LocalDateTime to) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(trajetsBetween(from, to).and("routeId").ne(null)),
+                Aggregation.group("routeId").count().as("trajets").sum("distanceParcourue").as("distanceKm"),
+                Aggregation.sort(Sort.Direction.DESC, "trajets"),
+                Aggregation.project("trajets", "distanceKm").and("routeId").previousOperation());
+        return mongoTemplate.aggregate(aggregation, HistoriquePosition.class, RouteTripCountDTO.class)
+                .getMappedResults();
+    }
+
+    private Criteria trajetsBetween(LocalDateTime from, LocalDateTime to) {
+        return Criteria.where("busId").ne(null)
+                .and("dateDebut").gte(from != null ? from : EARLIEST)
+                .lt(to != null ? to : LocalDateTime.now().plusDays(1));
     }
 
     public HistoriquePosition saveHistorique(HistoriquePosition historique) {
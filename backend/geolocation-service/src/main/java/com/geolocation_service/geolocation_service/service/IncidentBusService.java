@@ -3,15 +3,19 @@ package com.geolocation_service.geolocation_service.service;
 import com.geolocation_service.geolocation_service.model.IncidentBus;
 import com.geolocation_service.geolocation_service.repository.IncidentBusRepository;
 import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Service
 public class IncidentBusService {
 
     private final IncidentBusRepository incidentRepo;
+    private final IncidentHeatmap incidentHeatmap;
 
-    public IncidentBusService(IncidentBusRepository incidentRepo) {
+    public IncidentBusService(IncidentBusRepository incidentRepo, IncidentHeatmap incidentHeatmap) {
         this.incidentRepo = incidentRepo;
+        this.incidentHeatmap = incidentHeatmap;
     }
 
     public List<IncidentBus> getAllIncidents() {
@@ -26,7 +30,36 @@ public class IncidentBusService {
         return incidentRepo.findByStatut(statut);
     }
 
+    /**
+     * Enregistre un incident (création ou mise à jour) et le répercute sur la carte de chaleur
+     */
     public IncidentBus saveIncident(IncidentBus incident) {
-        return incidentRepo.save(incident);
+        if (incident.getDateSignalement() == null) {
+            incident.setDateSignalement(LocalDateTime.now());
+        }
+        IncidentBus previous = incident.getIdIncident() != null
+                ? incidentRepo.findById(incident.getIdIncident()).orElse(null)
+                : null;
+        IncidentBus saved = incidentRepo.save(incident);
+        incidentHeatmap.replace(previous, saved);
+        return saved;
+    }
+
+    public IncidentBus resolveIncident(String idIncident) {
+        return incidentRepo.findById(idIncident)
+                .map(incident -> {
+                    IncidentBus previous = copyOf(incident);
+                    incident.setStatut(IncidentHeatmap.RESOLU);
+                    IncidentBus saved = incidentRepo.save(incident);
+                    incidentHeatmap.replace(previous, saved);
+                    return saved;
+                })
+                .orElseThrow(() -> new RuntimeException("Incident non trouvé avec id: " + idIncident));
+    }
+
+    private static IncidentBus copyOf(IncidentBus incident) {
+        return new IncidentBus(incident.getIdIncident(), incident.getType(), incident.getDescription(),
+                incident.getGravite(), incident.getDateSignalement(), incident.getStatut(),
+                incident.getLatitude(), incident.getLongitude(), incident.getBus());
     }
 }
@@ -0,0 +1,351 @@
+package com.geolocation_service.geolocation_service.service;
+
+import com.geolocation_service.geolocation_service.dto.IncidentHeatmapDTO;
+import com.geolocation_service.geolocation_service.model.IncidentBus;
+import com.geolocation_service.geolocation_service.service.ViewportSubscriptionRegistry.Viewport;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Agrégation spatiale incrémentale des incidents, servie sans relire la collection incident_bus.
+ * <p>
+ * Le monde est découpé en grille à chaque niveau de zoom {@code z} (2^z lignes de latitude sur
+ * 2^z colonnes de longitude, comme un geohash), de {@code min-zoom} à {@code max-zoom}. Chaque
+ * niveau tient les cellules non vides avec leur nombre d'incidents (total, non résolus, par type
+ * et par gravité), par jour et par mois de signalement. Un incident créé, modifié ou résolu met à
+ * jour une cellule par niveau et par compartiment. Une carte de chaleur fusionne les mois entiers
+ * de la période et les jours des mois entamés (au plus une soixantaine de compartiments sur un an).
+ * <p>
+ * La taille de la réponse est bornée : au-delà du zoom {@code bbox-required-zoom}, une zone
+ * affichée est exigée et seules ses lignes de cellules sont parcourues ; au plus
+ * {@code max-cells} cellules, les plus chargées, sont renvoyées.
+ * <p>
+ * La structure est chargée au démarrage puis resynchronisée toutes les
+ * {@code resync-interval-ms}, pour reprendre les incidents écrits par les autres instances. Les
+ * écritures reçues pendant la lecture sont rejouées sur la nouvelle structure avant qu'elle ne
+ * remplace l'ancienne.
+ */
+@Component
+@Slf4j
+public class IncidentHeatmap {
+
+    static final String RESOLU = "RESOLU";
+    private static final String NON_RENSEIGNE = "NON_RENSEIGNE";
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+    private final int minZoom;
+    private final int maxZoom;
+    private final long maxDays;
+    private final int bboxRequiredZoom;
+    private final int maxCells;
+    private Levels levels;
+    /**
+     * Dernière version de chaque incident écrit pendant une resynchronisation, null sinon
+     */
+    private Map<String, IncidentBus> pendingWrites;
+
+    public IncidentHeatmap(MongoTemplate mongoTemplate,
+                           @Value("${geolocation.incidents.heatmap.enabled:true}") boolean enabled,
+                           @Value("${geolocation.incidents.heatmap.min-zoom:2}") int minZoom,
+                           @Value("${geolocation.incidents.heatmap.max-zoom:16}") int maxZoom,
+                           @Value("${geolocation.incidents.heatmap.max-days:366}") long maxDays,
+                           @Value("${geolocation.incidents.heatmap.bbox-required-zoom:10}") int bboxRequiredZoom,
+                           @Value("${geolocation.incidents.heatmap.max-cells:5000}") int maxCells) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+        this.minZoom = minZoom;
+        this.maxZoom = maxZoom;
+        this.maxDays = maxDays;
+        this.bboxRequiredZoom = bboxRequiredZoom;
+        this.maxCells = maxCells;
+        this.levels = new Levels(minZoom, maxZoom);
+    }
+
+    /**
+     * Valide une demande de carte de chaleur
+     *
+     * @param area zone affichée, optionnelle jusqu'au zoom {@code bbox-required-zoom}
+     * @return le motif de rejet, ou null si la demande est valide
+     */
+    public String validate(int zoom, LocalDate from, LocalDate to, Viewport area) {
+        if (zoom < minZoom || zoom > maxZoom) {
+            return "zoom hors limites (" + minZoom + "-" + maxZoom + ")";
+        }
+        if (area == null && zoom > bboxRequiredZoom) {
+            return "zone requise au-delà du zoom " + bboxRequiredZoom;
+        }
+        if (from.isAfter(to)) {
+            return "période inversée";
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= maxDays) {
+            return "période trop longue";
+        }
+        return null;
+    }
+
+    /**
+     * Répercute l'écriture d'un incident : retire sa version précédente (null à la création) puis ajoute la nouvelle
+     */
+    public synchronized void replace(IncidentBus previous, IncidentBus current) {
+        if (previous != null) {
+            levels.apply(previous, -1);
+        }
+        if (current != null) {
+            levels.apply(current, 1);
+            if (pendingWrites != null && current.getIdIncident() != null) {
+                pendingWrites.put(current.getIdIncident(), current);
+            }
+        }
+    }
+
+    /**
+     * Carte de chaleur des incidents signalés du jour {@code from} au jour {@code to} inclus
+     *
+     * @param area zone affichée (null : toute la grille)
+     */
+    public synchronized IncidentHeatmapDTO heatmap(int zoom, LocalDate from, LocalDate to, Viewport area) {
+        int cellsPerSide = 1 << zoom;
+        int minRow = 0;
+        int maxRow = cellsPerSide - 1;
+        int minCol = 0;
+        int maxCol = cellsPerSide - 1;
+        if (area != null) {
+            minRow = index(area.minLat(), 90, 180, cellsPerSide);
+            maxRow = index(area.maxLat(), 90, 180, cellsPerSide);
+            minCol = index(area.minLon(), 180, 360, cellsPerSide);
+            maxCol = index(area.maxLon(), 180, 360, cellsPerSide);
+        }
+
+        Map<Long, Counts> merged = new HashMap<>();
+        for (NavigableMap<Long, Counts> bucket : levels.level(zoom).buckets(from, to)) {
+            if (area == null) {
+                bucket.forEach((key, counts) -> merge(merged, key, counts));
+            } else if (maxRow - minRow + 1 > bucket.size()) {
+                // Zone haute de plus de lignes que le compartiment n'a de cellules : filtrage direct
+                int fromRow = minRow, toRow = maxRow, fromCol = minCol, toCol = maxCol;
+                bucket.forEach((key, counts) -> {
+                    int row = (int) (key >> 32);
+                    int col = (int) (long) key;
+                    if (row >= fromRow && row <= toRow && col >= fromCol && col <= toCol) {
+                        merge(merged, key, counts);
+                    }
+                });
+            } else {
+                // Cellules triées par ligne puis colonne : une plage de clés par ligne de la zone
+                for (int row = minRow; row <= maxRow; row++) {
+                    bucket.subMap(StopIndex.cellKey(row, minCol), true, StopIndex.cellKey(row, maxCol), true)
+                            .forEach((key, counts) -> merge(merged, key, counts));
+                }
+            }
+        }
+
+        double cellHeight = 180.0 / cellsPerSide;
+        double cellWidth = 360.0 / cellsPerSide;
+        List<IncidentHeatmapDTO.Cell> cells = new ArrayList<>(merged.size());
+        merged.forEach((key, counts) -> {
+            int row = (int) (key >> 32);
+            int col = (int) (long) key;
+            cells.add(IncidentHeatmapDTO.Cell.builder()
+                    .cellId(zoom + "/" + row + "/" + col)
+                    .latitude(-90 + (row + 0.5) * cellHeight)
+                    .longitude(-180 + (col + 0.5) * cellWidth)
+                    .count(counts.total)
+                    .open(counts.open)
+                    .byType(counts.byType)
+                    .byGravite(counts.byGravite)
+                    .build());
+        });
+        cells.sort(Comparator.comparingInt(IncidentHeatmapDTO.Cell::getCount).reversed());
+        boolean truncated = cells.size() > maxCells;
+        return IncidentHeatmapDTO.builder()
+                .zoom(zoom)
+                .from(from)
+                .to(to)
+                .cellHeightDegrees(cellHeight)
+                .cellWidthDegrees(cellWidth)
+                .cells(truncated ? new ArrayList<>(cells.subList(0, maxCells)) : cells)
+                .truncated(truncated)
+                .build();
+    }
+
+    /**
+     * Recharge la structure depuis MongoDB, sans la référence au bus de chaque incident
+     */
+    @Scheduled(fixedDelayString = "${geolocation.incidents.heatmap.resync-interval-ms:900000}")
+    public void resync() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            pendingWrites = new HashMap<>();
+        }
+        try {
+            Query query = new Query();
+            query.fields().include("type", "gravite", "statut", "dateSignalement", "latitude", "longitude");
+            List<IncidentBus> incidents = mongoTemplate.find(query, IncidentBus.class);
+            load(incidents);
+            log.info("Incident heatmap loaded: {} incidents", incidents.size());
+        } catch (Exception e) {
+            synchronized (this) {
+                pendingWrites = null;
+            }
+            log.error("Unable to load incident heatmap: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Remplace la structure par celle construite depuis {@code incidents}. Un incident écrit
+     * pendant la lecture y figure dans une version inconnue : elle est retirée au profit de la
+     * dernière version écrite.
+     */
+    void load(List<IncidentBus> incidents) {
+        Levels loaded = new Levels(minZoom, maxZoom);
+        incidents.forEach(incident -> loaded.apply(incident, 1));
+        synchronized (this) {
+            if (pendingWrites != null && !pendingWrites.isEmpty()) {
+                for (IncidentBus incident : incidents) {
+                    if (incident.getIdIncident() != null && pendingWrites.containsKey(incident.getIdIncident())) {
+                        loaded.apply(incident, -1);
+                    }
+                }
+                pendingWrites.values().forEach(current -> loaded.apply(current, 1));
+            }
+            pendingWrites = null;
+            levels = loaded;
+        }
+    }
+
+    private static int index(double coordinate, double offset, double span, int cellsPerSide) {
+        return Math.max(0, Math.min(cellsPerSide - 1, (int) Math.floor((coordinate + offset) / span * cellsPerSide)));
+    }
+
+    private static void merge(Map<Long, Counts> merged, Long key, Counts counts) {
+        merged.computeIfAbsent(key, k -> new Counts()).add(counts);
+    }
+
+    /**
+     * Compartiments de chaque niveau de zoom
+     */
+    private static final class Levels {
+        private final int minZoom;
+        private final List<Buckets> byZoom = new ArrayList<>();
+
+        Levels(int minZoom, int maxZoom) {
+            this.minZoom = minZoom;
+            for (int zoom = minZoom; zoom <= maxZoom; zoom++) {
+                byZoom.add(new Buckets());
+            }
+        }
+
+        Buckets level(int zoom) {
+            return byZoom.get(zoom - minZoom);
+        }
+
+        void apply(IncidentBus incident, int delta) {
+            // Sans date ni coordonnées, un incident ne peut pas être placé
+            if (incident.getDateSignalement() == null || (incident.getLatitude() == 0 && incident.getLongitude() == 0)) {
+                return;
+            }
+            LocalDate day = incident.getDateSignalement().toLocalDate();
+            for (int i = 0; i < byZoom.size(); i++) {
+                int cellsPerSide = 1 << (minZoom + i);
+                long key = StopIndex.cellKey(index(incident.getLatitude(), 90, 180, cellsPerSide),
+                        index(incident.getLongitude(), 180, 360, cellsPerSide));
+                Buckets buckets = byZoom.get(i);
+                apply(buckets.days, day, key, incident, delta);
+                apply(buckets.months, YearMonth.from(day), key, incident, delta);
+            }
+        }
+
+        private static <T> void apply(NavigableMap<T, NavigableMap<Long, Counts>> buckets, T bucket, long key,
+                                      IncidentBus incident, int delta) {
+            NavigableMap<Long, Counts> cells = buckets.computeIfAbsent(bucket, b -> new TreeMap<>());
+            Counts counts = cells.computeIfAbsent(key, k -> new Counts());
+            counts.apply(incident, delta);
+            if (counts.total <= 0) {
+                cells.remove(key);
+                if (cells.isEmpty()) {
+                    buckets.remove(bucket);
+                }
+            }
+        }
+    }
+
+    /**
+     * Cellules non vides d'un niveau, par jour et par mois de signalement
+     */
+    private static final class Buckets {
+        private final NavigableMap<LocalDate, NavigableMap<Long, Counts>> days = new TreeMap<>();
+        private final NavigableMap<YearMonth, NavigableMap<Long, Counts>> months = new TreeMap<>();
+
+        /**
+         * Compartiments couvrant exactement la période : mois entiers, jours des mois entamés
+         */
+        List<NavigableMap<Long, Counts>> buckets(LocalDate from, LocalDate to) {
+            List<NavigableMap<Long, Counts>> buckets = new ArrayList<>();
+            LocalDate cursor = from;
+            while (!cursor.isAfter(to)) {
+                YearMonth month = YearMonth.from(cursor);
+                LocalDate monthEnd = month.atEndOfMonth();
+                if (cursor.getDayOfMonth() == 1 && !monthEnd.isAfter(to)) {
+                    NavigableMap<Long, Counts> cells = months.get(month);
+                    if (cells != null) {
+                        buckets.add(cells);
+                    }
+                    cursor = monthEnd.plusDays(1);
+                } else {
+                    LocalDate end = monthEnd.isAfter(to) ? to : monthEnd;
+                    buckets.addAll(days.subMap(cursor, true, end, true).values());
+                    cursor = end.plusDays(1);
+                }
+            }
+            return buckets;
+        }
+    }
+
+    /**
+     * Compteurs d'une cellule
+     */
+    private static final class Counts {
+        private int total;
+        private int open;
+        private final Map<String, Integer> byType = new TreeMap<>();
+        private final Map<String, Integer> byGravite = new TreeMap<>();
+
+        void apply(IncidentBus incident, int delta) {
+            total += delta;
+            if (!RESOLU.equals(incident.getStatut())) {
+                open += delta;
+            }
+            increment(byType, incident.getType(), delta);
+            increment(byGravite, incident.getGravite(), delta);
+        }
+
+        void add(Counts other) {
+            total += other.total;
+            open += other.open;
+            other.byType.forEach((type, count) -> increment(byType, type, count));
+            other.byGravite.forEach((gravite, count) -> increment(byGravite, gravite, count));
+        }
+
+        private static void increment(Map<String, Integer> counts, String key, int delta) {
+            counts.merge(key != null ? key : NON_RENSEIGNE, delta, (a, b) -> a + b == 0 ? null : a + b);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.geolocation_service.geolocation_service.service;
+
+import com.geolocation_service.geolocation_service.model.PositionBus;
+import com.geolocation_service.geolocation_service.repository.PositionBusRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Filtre d'ingestion des doublons et des points en retard, appliqué avant l'écriture.
+ * <p>
+ * Les applications conducteur renvoient leurs points sur un réseau instable : un même point
+ * peut arriver plusieurs fois, et des points anciens après des points récents. Pour chaque bus,
+ * le filtre retient l'horodatage le plus récent accepté (high-water mark) et les horodatages
+ * acceptés dans la fenêtre de réordonnancement qui le précède :
+ * <ul>
+ *     <li>{@link Verdict#ACCEPTED} : point plus récent que le high-water mark ;</li>
+ *     <li>{@link Verdict#LATE} : point en retard dans la fenêtre, jamais vu (conservé pour
+ *     l'historique, mais sans effet sur l'état temps réel) ;</li>
+ *     <li>{@link Verdict#DUPLICATE} : couple (bus, horodatage appareil) déjà accepté ;</li>
+ *     <li>{@link Verdict#STALE} : point antérieur à la fenêtre, abandonné.</li>
+ * </ul>
+ * Les horodatages sont comparés à la milliseconde, précision du stockage. Au premier point
+ * d'un bus depuis le démarrage, le high-water mark est initialisé depuis sa dernière
+ * position enregistrée, hors de tout verrou de la table ; un lot initialise tous ses bus
+ * inconnus en une seule requête ({@link #prefetch(Collection)}).
+ */
+@Component
+@Slf4j
+public class IngestGuard {
+
+    public enum Verdict {
+        ACCEPTED,
+        LATE,
+        DUPLICATE,
+        STALE;
+
+        /**
+         * Le point doit être enregistré
+         */
+        public boolean persisted() {
+            return this == ACCEPTED || this == LATE;
+        }
+    }
+
+    private final PositionBusRepository positionBusRepository;
+    private final boolean enabled;
+    private final Duration reorderWindow;
+    private final Duration idleEviction;
+    private final Map<Long, Watermark> watermarks = new ConcurrentHashMap<>();
+
+    private final Counter late;
+    private final Counter duplicates;
+    private final Counter stale;
+
+    public IngestGuard(PositionBusRepository positionBusRepository,
+                       MeterRegistry meterRegistry,
+                       @Value("${geolocation.ingest.guard.enabled:true}") boolean enabled,
+                       @Value("${geolocation.ingest.guard.reorder-window-seconds:30}") long reorderWindowSeconds,
+                       @Value("${geolocation.ingest.guard.idle-eviction-minutes:30}") long idleEvictionMinutes) {
+        this.positionBusRepository = positionBusRepository;
+        this.enabled = enabled;
+        this.reorderWindow = Duration.ofSeconds(reorderWindowSeconds);
+        this.idleEviction = Duration.ofMinutes(idleEvictionMinutes);
+        this.late = meterRegistry.counter("geolocation.ingest.guard.late");
+        this.duplicates = meterRegistry.counter("geolocation.ingest.guard.dropped", "reason", "duplicate");
+        this.stale = meterRegistry.counter("geolocation.ingest.guard.dropped", "reason", "stale");
+    }
+
+    /**
+     * Classe un point et, s'il doit être enregistré, le retient comme vu
+     */
+    public Verdict admit(PositionBus position) {
+        if (!enabled || position.getBusId() == null || position.getTimestamp() == null) {
+            return Verdict.ACCEPTED;
+        }
+        LocalDateTime timestamp = position.getTimestamp().truncatedTo(ChronoUnit.MILLIS);
+        Watermark watermark = watermark(position.getBusId());
+        Verdict verdict = watermark.admit(timestamp, reorderWindow);
+        switch (verdict) {
+            case LATE -> late.increment();
+            case DUPLICATE -> duplicates.increment();
+            case STALE -> stale.increment();
+            default -> {
+            }
+        }
+        if (verdict == Verdict.STALE) {
+            log.debug("Dropping stale position of bus {} at {}", position.getBusId(), timestamp);
+        }
+        return verdict;
+    }
+
+    /**
+     * Oublie un point admis dont l'écriture a échoué, pour qu'un renvoi ne soit pas pris pour un doublon
+     */
+    public void release(PositionBus position) {
+        if (position.getBusId() == null || position.getTimestamp() == null) {
+            return;
+        }
+        Watermark watermark = watermarks.get(position.getBusId());
+        if (watermark != null) {
+            watermark.release(position.getTimestamp().truncatedTo(ChronoUnit.MILLIS));
+        }
+    }
+
+    /**
+     * Initialise en une requête les high-water marks des bus d'un lot encore inconnus
+     */
+    public void prefetch(Collection<Long> busIds) {
+        if (!enabled) {
+            return;
+        }
+        List<Long> unknown = busIds.stream()
+                .filter(busId -> busId != null && !watermarks.containsKey(busId))
+                .distinct()
+                .toList();
+        if (unknown.isEmpty()) {
+            return;
+        }
+        Map<Long, Watermark> seeded = new HashMap<>();
+        unknown.forEach(busId -> seeded.put(busId, new Watermark()));
+        try {
+            for (PositionBus last : positionBusRepository.findLastTimestampByBusIdIn(unknown)) {
+                Watermark watermark = seeded.get(last.getBusId());
+                if (watermark != null && last.getTimestamp() != null) {
+                    watermark.seen.add(last.getTimestamp().truncatedTo(ChronoUnit.MILLIS));
+                }
+            }
+        } catch (Exception e) {
+            // Chaque bus sera initialisé à son premier point
+            log.warn("Unable to seed ingest watermarks of {} buses: {}", unknown.size(), e.getMessage());
+            return;
+        }
+        seeded.forEach(watermarks::putIfAbsent);
+    }
+
+    @Scheduled(fixedDelayString = "${geolocation.live.eviction-interval-ms:30000}")
+    public void evictIdle() {
+        LocalDateTime idleBefore = LocalDateTime.now().minus(idleEviction);
+        watermarks.values().removeIf(watermark -> watermark.idleSince(idleBefore));
+    }
+
+    /**
+     * High-water mark d'un bus ; la lecture en base se fait hors du verrou de la table, la
+     * première initialisation publiée l'emporte
+     */
+    private Watermark watermark(Long busId) {
+        Watermark watermark = watermarks.get(busId);
+        if (watermark != null) {
+            return watermark;
+        }
+        Watermark seeded = seed(busId);
+        Watermark existing = watermarks.putIfAbsent(busId, seeded);
+        return existing != null ? existing : seeded;
+    }
+
+    private Watermark seed(Long busId) {
+        Watermark watermark = new Watermark();
+        try {
+            positionBusRepository.findFirstByBusIdOrderByTimestampDesc(busId)
+                    .map(PositionBus::getTimestamp)
+                    .ifPresent(last -> watermark.seen.add(last.truncatedTo(ChronoUnit.MILLIS)));
+        } catch (Exception e) {
+            // Sans historique, le premier point reçu fait office de high-water mark
+            log.warn("Unable to seed ingest watermark of bus {}: {}", busId, e.getMessage());
+        }
+        return watermark;
+    }
+
+    /**
+     * Horodatages acceptés d'un bus dans la fenêtre de réordonnancement (accès sous verrou de l'instance)
+     */
+    private static final class Watermark {
+        private final TreeSet<LocalDateTime> seen = new TreeSet<>();
+
+        synchronized Verdict admit(LocalDateTime timestamp, Duration reorderWindow) {
+            if (seen.isEmpty() || timestamp.isAfter(seen.last())) {
+                seen.add(timestamp);
+                // Ne garder que la fenêtre précédant le nouveau high-water mark
+                seen.headSet(timestamp.minus(reorderWindow)).clear();
+                return Verdict.ACCEPTED;
+            }
+            if (timestamp.isBefore(seen.last().minus(reorderWindow))) {
+                return Verdict.STALE;
+            }
+            return seen.add(timestamp) ? Verdict.LATE : Verdict.DUPLICATE;
+        }
+
+        synchronized void release(LocalDateTime timestamp) {
+            seen.remove(timestamp);
+        }
+
+        synchronized boolean idleSince(LocalDateTime idleBefore) {
+            return seen.isEmpty() || seen.last().isBefore(idleBefore);
+        }
+    }
+}
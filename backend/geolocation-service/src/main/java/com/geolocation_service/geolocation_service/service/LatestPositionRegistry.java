@@ -0,0 +1,141 @@
+package com.geolocation_service.geolocation_service.service;
+
+import com.geolocation_service.geolocation_service.model.PositionBus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registre en mémoire de la dernière position connue de chaque bus.
+ * <p>
+ * Alimenté à chaque écriture de position, il permet de servir les requêtes
+ * "live" (dernière position, bus actifs, diffusion WebSocket) en O(bus actifs)
+ * sans interroger MongoDB. Les bus inactifs depuis plus de
+ * {@code geolocation.live.idle-timeout-minutes} sont évincés périodiquement.
+ * <p>
+ * L'activité d'un bus est jugée sur son dernier contact : l'horodatage de sa position, ou
+ * celui d'un point plus récent non enregistré ({@link #touch}, bus à l'arrêt).
+ */
+@Component
+@Slf4j
+public class LatestPositionRegistry {
+
+    private final Map<Long, PositionBus> latestPositions = new ConcurrentHashMap<>();
+    private final Map<Long, LocalDateTime> lastSeen = new ConcurrentHashMap<>();
+    private final Set<Long> changedBusIds = ConcurrentHashMap.newKeySet();
+    private final Duration idleTimeout;
+
+    public LatestPositionRegistry(@Value("${geolocation.live.idle-timeout-minutes:5}") long idleTimeoutMinutes) {
+        this.idleTimeout = Duration.ofMinutes(idleTimeoutMinutes);
+    }
+
+    /**
+     * Enregistre une position si elle est plus récente que celle déjà connue pour ce bus
+     */
+    public void update(PositionBus position) {
+        if (position == null || position.getBusId() == null || position.getTimestamp() == null) {
+            return;
+        }
+        PositionBus retained = latestPositions.merge(position.getBusId(), position,
+                (current, candidate) -> candidate.getTimestamp().isBefore(current.getTimestamp()) ? current : candidate);
+        if (retained == position) {
+            changedBusIds.add(position.getBusId());
+        }
+    }
+
+    /**
+     * Prolonge le dernier contact d'un bus connu sans changer sa position (ni la signaler comme modifiée)
+     */
+    public void touch(Long busId, LocalDateTime timestamp) {
+        if (busId == null || timestamp == null || !latestPositions.containsKey(busId)) {
+            return;
+        }
+        lastSeen.merge(busId, timestamp, (current, candidate) -> candidate.isAfter(current) ? candidate : current);
+    }
+
+    /**
+     * Dernier contact d'un bus : sa position ou un point plus récent non enregistré
+     */
+    public LocalDateTime lastSeen(PositionBus position) {
+        LocalDateTime touched = lastSeen.get(position.getBusId());
+        return touched != null && touched.isAfter(position.getTimestamp()) ? touched : position.getTimestamp();
+    }
+
+    /**
+     * Retourne puis réinitialise l'ensemble des bus dont la position a changé
+     * depuis le précédent appel. Plusieurs mises à jour d'un même bus sont ainsi
+     * fusionnées entre deux appels.
+     */
+    public List<Long> drainChangedBusIds() {
+        List<Long> drained = new ArrayList<>(changedBusIds.size());
+        for (Iterator<Long> it = changedBusIds.iterator(); it.hasNext(); ) {
+            drained.add(it.next());
+            it.remove();
+        }
+        return drained;
+    }
+
+    /**
+     * Dernière position connue d'un bus (même inactif tant qu'il n'a pas été évincé)
+     */
+    public Optional<PositionBus> getLatest(Long busId) {
+        return Optional.ofNullable(latestPositions.get(busId));
+    }
+
+    /**
+     * Positions des bus ayant émis depuis moins de {@code idleTimeout}
+     */
+    public List<PositionBus> getActivePositions() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(idleTimeout);
+        List<PositionBus> active = new ArrayList<>(latestPositions.size());
+        for (PositionBus position : latestPositions.values()) {
+            if (lastSeen(position).isAfter(cutoff)) {
+                active.add(position);
+            }
+        }
+        return active;
+    }
+
+    public List<Long> getActiveBusIds() {
+        return getActivePositions().stream()
+                .map(PositionBus::getBusId)
+                .toList();
+    }
+
+    public int size() {
+        return latestPositions.size();
+    }
+
+    /**
+     * Évince les bus inactifs. Une entrée mise à jour entre-temps n'est pas supprimée.
+     *
+     * @return nombre de bus évincés
+     */
+    @Scheduled(fixedDelayString = "${geolocation.live.eviction-interval-ms:30000}")
+    public int evictIdle() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(idleTimeout);
+        int evicted = 0;
+        for (PositionBus position : latestPositions.values()) {
+            if (!lastSeen(position).isAfter(cutoff)
+                    && latestPositions.remove(position.getBusId(), position)) {
+                lastSeen.remove(position.getBusId());
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            log.debug("Evicted {} idle buses from live registry", evicted);
+        }
+        return evicted;
+    }
+}
@@ -0,0 +1,129 @@
+package com.geolocation_service.geolocation_service.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Élection d'une instance leader parmi les réplicas du service.
+ * <p>
+ * Le leader détient un bail Redis ({@code SET NX PX}) qu'il renouvelle toutes les
+ * {@code geolocation.live.redis.leader-renew-interval-ms} ; si l'instance s'arrête ou perd
+ * Redis, le bail expire et une autre instance le reprend au renouvellement suivant. L'instance
+ * ne se considère leader que jusqu'à l'échéance locale de son dernier bail obtenu, moins
+ * {@code leader-safety-margin-ms} : un renouvellement retardé ne la laisse pas agir en leader
+ * après l'expiration du bail dans Redis. Seul le leader exécute les traitements périodiques à l'échelle du cluster (compaction des trajets,
+ * éviction de l'état partagé, diffusion vers un broker partagé).
+ * Sans état partagé ({@code geolocation.live.redis.enabled=false}), l'instance est toujours leader.
+ */
+@Component
+@Slf4j
+public class LeaderElection {
+
+    static final String LEADER_KEY = "geolocation:live:leader";
+
+    /**
+     * Renouvelle le bail de l'instance, ou le prend s'il est libre
+     */
+    private static final RedisScript<Long> ACQUIRE_SCRIPT = new DefaultRedisScript<>("""
+            local holder = redis.call('GET', KEYS[1])
+            if holder == ARGV[1] then
+              redis.call('PEXPIRE', KEYS[1], ARGV[2])
+              return 1
+            end
+            if not holder then
+              redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2])
+              return 1
+            end
+            return 0
+            """, Long.class);
+
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+              return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final boolean enabled;
+    private final long leaseMillis;
+    private final long safetyMarginMillis;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private volatile boolean leader;
+    private volatile long leaseDeadlineNanos;
+
+    public LeaderElection(ObjectProvider<StringRedisTemplate> redisTemplate,
+                          MeterRegistry meterRegistry,
+                          @Value("${geolocation.live.redis.enabled:false}") boolean enabled,
+                          @Value("${geolocation.live.redis.leader-lease-ms:10000}") long leaseMillis,
+                          @Value("${geolocation.live.redis.leader-safety-margin-ms:2000}") long safetyMarginMillis) {
+        this.enabled = enabled;
+        this.redisTemplate = enabled ? redisTemplate.getObject() : null;
+        this.leaseMillis = leaseMillis;
+        this.safetyMarginMillis = safetyMarginMillis;
+        meterRegistry.gauge("geolocation.live.leader", this, election -> election.isLeader() ? 1 : 0);
+    }
+
+    /**
+     * Leader tant que le dernier bail obtenu n'a pas expiré localement, même si le renouvellement est en retard
+     */
+    public boolean isLeader() {
+        return !enabled || (leader && System.nanoTime() - leaseDeadlineNanos < 0);
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    @Scheduled(fixedDelayString = "${geolocation.live.redis.leader-renew-interval-ms:3000}")
+    public void renew() {
+        if (!enabled) {
+            return;
+        }
+        boolean wasLeader = leader;
+        // Échéance comptée depuis l'envoi de la demande : le bail Redis ne peut pas expirer avant
+        long requestedAt = System.nanoTime();
+        try {
+            Long held = redisTemplate.execute(ACQUIRE_SCRIPT, List.of(LEADER_KEY), instanceId, String.valueOf(leaseMillis));
+            if (held != null && held == 1) {
+                leaseDeadlineNanos = requestedAt + TimeUnit.MILLISECONDS.toNanos(leaseMillis - safetyMarginMillis);
+                leader = true;
+            } else {
+                leader = false;
+            }
+        } catch (Exception e) {
+            // Sans Redis, impossible de savoir si le bail est encore valide : on se retire
+            leader = false;
+            log.warn("Unable to renew leader lease: {}", e.getMessage());
+        }
+        if (leader != wasLeader) {
+            log.info("Instance {} {} leader", instanceId, leader ? "became" : "is no longer");
+        }
+    }
+
+    @PreDestroy
+    public void release() {
+        if (!enabled || !leader) {
+            return;
+        }
+        leader = false;
+        try {
+            redisTemplate.execute(RELEASE_SCRIPT, List.of(LEADER_KEY), instanceId);
+        } catch (Exception e) {
+            log.warn("Unable to release leader lease: {}", e.getMessage());
+        }
+    }
+}
@@ -11,9 +11,11 @@ import java.util.Optional;
 public class LigneBusService {
 
     private final LigneBusRepository ligneBusRepository;
+    private final BusSummaryService busSummaryService;
 
-    public LigneBusService(LigneBusRepository ligneBusRepository) {
+    public LigneBusService(LigneBusRepository ligneBusRepository, BusSummaryService busSummaryService) {
         this.ligneBusRepository = ligneBusRepository;
+        this.busSummaryService = busSummaryService;
     }
 
     public List<LigneBus> getAllLignes() {
@@ -44,12 +46,15 @@ public class LigneBusService {
                     ligne.setDescription(ligneDetails.getDescription());
                     ligne.setCouleur(ligneDetails.getCouleur());
                     ligne.setActif(ligneDetails.isActif());
-                    return ligneBusRepository.save(ligne);
+                    LigneBus saved = ligneBusRepository.save(ligne);
+                    busSummaryService.onLigneUpdated(saved);
+                    return saved;
                 })
                 .orElseThrow(() -> new RuntimeException("Ligne non trouvée avec id: " + idLigne));
     }
 
     public void deleteLigne(String idLigne) {
         ligneBusRepository.deleteById(idLigne);
+        busSummaryService.onLigneDeleted(idLigne);
     }
 }
\ No newline at end of file
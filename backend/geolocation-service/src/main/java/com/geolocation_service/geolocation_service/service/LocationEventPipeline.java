@@ -0,0 +1,180 @@
+package com.geolocation_service.geolocation_service.service;
+
+import com.geolocation_service.geolocation_service.event.BusLocationUpdatedEvent;
+import com.geolocation_service.geolocation_service.event.producer.LocationEventProducer;
+import com.geolocation_service.geolocation_service.model.PositionBus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publication des positions ingérées sur {@code bus-location-updated-events}.
+ * <p>
+ * Le chemin d'ingestion ne fait qu'un {@code offer} dans une file bornée
+ * ({@code geolocation.events.location.queue-capacity}) : si Kafka ralentit et que la
+ * file est pleine, l'événement est abandonné et compté plutôt que de bloquer le thread
+ * de la requête. Un thread dédié vide la file par lots et les envoie au producteur,
+ * qui regroupe et compresse les enregistrements ; les résultats d'envoi sont suivis
+ * par callbacks asynchrones (compteurs {@code geolocation.events.location.*}).
+ */
+@Component
+@Slf4j
+public class LocationEventPipeline implements PositionIngestListener, SmartLifecycle {
+
+    private static final long FAILURE_LOG_INTERVAL_MS = 60_000;
+
+    private final LocationEventProducer locationEventProducer;
+    private final boolean enabled;
+    private final int maxDrainBatch;
+    private final long shutdownTimeoutMs;
+    private final BlockingQueue<BusLocationUpdatedEvent> queue;
+
+    private final Counter enqueued;
+    private final Counter dropped;
+    private final Counter sent;
+    private final Counter failed;
+    private final AtomicLong lastFailureLoggedAt = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread publisherThread;
+
+    public LocationEventPipeline(LocationEventProducer locationEventProducer,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${geolocation.events.location.enabled:true}") boolean enabled,
+                                 @Value("${geolocation.events.location.queue-capacity:10000}") int queueCapacity,
+                                 @Value("${geolocation.events.location.max-drain-batch:500}") int maxDrainBatch,
+                                 @Value("${geolocation.events.location.shutdown-timeout-ms:5000}") long shutdownTimeoutMs) {
+        this.locationEventProducer = locationEventProducer;
+        this.enabled = enabled;
+        this.maxDrainBatch = maxDrainBatch;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        this.enqueued = meterRegistry.counter("geolocation.events.location.enqueued");
+        this.dropped = meterRegistry.counter("geolocation.events.location.dropped");
+        this.sent = meterRegistry.counter("geolocation.events.location.sent");
+        this.failed = meterRegistry.counter("geolocation.events.location.failed");
+        meterRegistry.gauge("geolocation.events.location.queue.size", queue, BlockingQueue::size);
+    }
+
+    @Override
+    public void onPosition(PositionBus position) {
+        if (!enabled || position.getBusId() == null) {
+            return;
+        }
+        BusLocationUpdatedEvent event = BusLocationUpdatedEvent.builder()
+                .busId(String.valueOf(position.getBusId()))
+                .latitude(position.getLatitude())
+                .longitude(position.getLongitude())
+                .speed(position.getVitesse())
+                .timestamp(position.getTimestamp())
+                .build();
+        if (queue.offer(event)) {
+            enqueued.increment();
+        } else {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * Envoie au producteur les événements en attente (au plus {@code max-drain-batch})
+     *
+     * @return nombre d'événements remis au producteur
+     */
+    int publishPending() {
+        return publishBatch(null);
+    }
+
+    private int publishBatch(BusLocationUpdatedEvent head) {
+        List<BusLocationUpdatedEvent> batch = new ArrayList<>(Math.min(queue.size() + 1, maxDrainBatch));
+        if (head != null) {
+            batch.add(head);
+        }
+        queue.drainTo(batch, maxDrainBatch - batch.size());
+        for (BusLocationUpdatedEvent event : batch) {
+            try {
+                locationEventProducer.publishLocationUpdated(event).whenComplete((result, ex) -> {
+                    if (ex == null) {
+                        sent.increment();
+                    } else {
+                        onFailure(event, ex);
+                    }
+                });
+            } catch (Exception e) {
+                // Échec synchrone (métadonnées indisponibles, buffer producteur plein au-delà de max.block.ms)
+                onFailure(event, e);
+            }
+        }
+        return batch.size();
+    }
+
+    private void onFailure(BusLocationUpdatedEvent event, Throwable ex) {
+        failed.increment();
+        long now = System.currentTimeMillis();
+        long last = lastFailureLoggedAt.get();
+        if (now - last >= FAILURE_LOG_INTERVAL_MS && lastFailureLoggedAt.compareAndSet(last, now)) {
+            log.warn("Unable to publish location event for bus {} ({} failures so far): {}",
+                    event.getBusId(), (long) failed.count(), ex.getMessage());
+        } else {
+            log.debug("Unable to publish location event for bus {}: {}", event.getBusId(), ex.getMessage());
+        }
+    }
+
+    private void publishLoop() {
+        while (running || !queue.isEmpty()) {
+            try {
+                BusLocationUpdatedEvent head = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (head != null) {
+                    publishBatch(head);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        publisherThread = new Thread(this::publishLoop, "location-event-publisher");
+        publisherThread.setDaemon(true);
+        publisherThread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (publisherThread == null) {
+            return;
+        }
+        try {
+            // Laisse le thread vider la file avant l'arrêt du producteur Kafka
+            publisherThread.join(shutdownTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            log.warn("{} location events not published at shutdown", queue.size());
+        }
+        publisherThread = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
@@ -0,0 +1,83 @@
+package com.geolocation_service.geolocation_service.service;
+
+import com.geolocation_service.geolocation_service.model.PositionBus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Recalage des positions GPS brutes sur le tracé des lignes, avant leur écriture.
+ * <p>
+ * Le point est projeté sur le segment le plus proche du tracé de la ligne courante du
+ * bus (dernière arrivée détectée, sinon dernière ligne recalée) ; si la ligne n'est pas
+ * connue, sur le segment le plus proche toutes lignes confondues. Sur un tracé qui
+ * repasse près de lui-même, une projection qui ferait reculer le bus de plus de
+ * {@code backtrack-tolerance-meters} est pénalisée. L'abscisse obtenue est stockée
+ * avec le point brut ({@link PositionBus#getRouteOffsetMeters()}) : distance parcourue
+ * et avancement deviennent une simple différence d'abscisses.
+ */
+@Component
+public class MapMatcher {
+
+    private final StopNetworkService stopNetworkService;
+    private final StopEventDetector stopEventDetector;
+    private final boolean enabled;
+    private final double maxSnapMeters;
+    private final double backtrackToleranceMeters;
+    private final Map<Long, RouteShapeIndex.Match> lastMatches = new ConcurrentHashMap<>();
+
+    public MapMatcher(StopNetworkService stopNetworkService,
+                      StopEventDetector stopEventDetector,
+                      @Value("${geolocation.map-matching.enabled:true}") boolean enabled,
+                      @Value("${geolocation.map-matching.max-snap-meters:50}") double maxSnapMeters,
+                      @Value("${geolocation.map-matching.backtrack-tolerance-meters:30}") double backtrackToleranceMeters) {
+        this.stopNetworkService = stopNetworkService;
+        this.stopEventDetector = stopEventDetector;
+        this.enabled = enabled;
+        this.maxSnapMeters = maxSnapMeters;
+        this.backtrackToleranceMeters = backtrackToleranceMeters;
+    }
+
+    /**
+     * Renseigne {@code matchedRouteId} et {@code routeOffsetMeters} de la position
+     * (laissés à null si aucun tracé n'est à moins de {@code max-snap-meters})
+     */
+    public void match(PositionBus position) {
+        if (!enabled || position.getBusId() == null) {
+            return;
+        }
+        RouteShapeIndex shapes = stopNetworkService.getStopIndex().shapes();
+        if (shapes.isEmpty()) {
+            return;
+        }
+        RouteShapeIndex.Match previous = lastMatches.get(position.getBusId());
+        StopEventDetector.StopArrival arrival = stopEventDetector.lastArrival(position.getBusId());
+        Long routeId = arrival != null && arrival.routeId() != null ? arrival.routeId()
+                : previous != null ? previous.routeId() : null;
+
+        RouteShapeIndex.Match best = null;
+        double bestScore = Double.MAX_VALUE;
+        for (RouteShapeIndex.Match candidate : shapes.candidates(position.getLatitude(), position.getLongitude(), maxSnapMeters)) {
+            if (routeId != null && !routeId.equals(candidate.routeId())) {
+                continue;
+            }
+            double score = candidate.distanceMeters();
+            if (previous != null && previous.routeId().equals(candidate.routeId())
+                    && candidate.offsetMeters() < previous.offsetMeters() - backtrackToleranceMeters) {
+                score += maxSnapMeters;
+            }
+            if (score < bestScore) {
+                best = candidate;
+                bestScore = score;
+            }
+        }
+        if (best == null) {
+            return;
+        }
+        position.setMatchedRouteId(best.routeId());
+        position.setRouteOffsetMeters(best.offsetMeters());
+        lastMatches.put(position.getBusId(), best);
+    }
+}
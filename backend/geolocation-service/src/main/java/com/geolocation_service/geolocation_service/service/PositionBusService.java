@@ -1,65 +1,292 @@
 package com.geolocation_service.geolocation_service.service;
 
+import com.geolocation_service.geolocation_service.dto.BatchPositionResponse;
+import com.geolocation_service.geolocation_service.dto.CreatePositionRequest;
 import com.geolocation_service.geolocation_service.model.PositionBus;
 import com.geolocation_service.geolocation_service.repository.PositionBusRepository;
+import com.mongodb.bulk.BulkWriteError;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.stereotype.Service;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
 
 @Service
+@Slf4j
 public class PositionBusService {
 
+    /**
+     * Tolérance sur l'horloge des appareils pour les horodatages dans le futur
+     */
+    private static final long MAX_CLOCK_SKEW_SECONDS = 60;
+
     private final PositionBusRepository positionBusRepository;
+    private final LatestPositionRegistry latestPositionRegistry;
+    private final MongoTemplate mongoTemplate;
+    private final List<PositionIngestListener> ingestListeners;
+    private final MapMatcher mapMatcher;
+    private final IngestGuard ingestGuard;
+    private final ZoneGeofenceService zoneGeofenceService;
+    private final StationarySuppressor stationarySuppressor;
 
-    public PositionBusService(PositionBusRepository positionBusRepository) {
+    public PositionBusService(PositionBusRepository positionBusRepository,
+                              LatestPositionRegistry latestPositionRegistry,
+                              MongoTemplate mongoTemplate,
+                              List<PositionIngestListener> ingestListeners,
+                              MapMatcher mapMatcher,
+                              IngestGuard ingestGuard,
+                              ZoneGeofenceService zoneGeofenceService,
+                              StationarySuppressor stationarySuppressor) {
         this.positionBusRepository = positionBusRepository;
+        this.latestPositionRegistry = latestPositionRegistry;
+        this.mongoTemplate = mongoTemplate;
+        this.ingestListeners = ingestListeners;
+        this.mapMatcher = mapMatcher;
+        this.ingestGuard = ingestGuard;
+        this.zoneGeofenceService = zoneGeofenceService;
+        this.stationarySuppressor = stationarySuppressor;
     }
 
-    public List<PositionBus> getAllPositions() {
-        return positionBusRepository.findAll();
+    /**
+     * Positions reçues depuis {@code window}, au plus {@code maxPoints} (les plus récentes),
+     * dans l'ordre chronologique. La collection n'est jamais lue en entier : l'historique
+     * se lit en flux par {@link PositionReplayService}.
+     */
+    public List<PositionBus> getRecentPositions(Duration window, int maxPoints) {
+        List<PositionBus> latest = new ArrayList<>(positionBusRepository.findByTimestampAfterOrderByTimestampDesc(
+                LocalDateTime.now().minus(window), Limit.of(maxPoints)));
+        Collections.reverse(latest);
+        return latest;
     }
 
-    public List<PositionBus> getPositionsByBusId(Long busId) {
-        return positionBusRepository.findByBusId(busId);
+    /**
+     * Dernières positions d'un bus, au plus {@code maxPoints}, rendues dans l'ordre chronologique
+     * comme l'était l'historique complet (qui se lit désormais en flux par {@link PositionReplayService})
+     */
+    public List<PositionBus> getPositionsByBusId(Long busId, int maxPoints) {
+        List<PositionBus> latest = new ArrayList<>(
+                positionBusRepository.findByBusIdOrderByTimestampDesc(busId, Limit.of(maxPoints)));
+        Collections.reverse(latest);
+        return latest;
     }
 
+    /**
+     * Enregistre une position, sauf doublon ou point trop ancien ({@link IngestGuard}) et
+     * point d'un bus à l'arrêt entre deux battements de cœur ({@link StationarySuppressor})
+     *
+     * @return la position enregistrée, ou null si elle a été écartée
+     */
     public PositionBus addPosition(PositionBus positionBus) {
         // Ensure timestamp is set if not provided
         if (positionBus.getTimestamp() == null) {
             positionBus.setTimestamp(LocalDateTime.now());
         }
-        return positionBusRepository.save(positionBus);
+        IngestGuard.Verdict verdict = ingestGuard.admit(positionBus);
+        if (!verdict.persisted()
+                || (verdict == IngestGuard.Verdict.ACCEPTED && stationarySuppressor.suppress(positionBus))) {
+            return null;
+        }
+        mapMatcher.match(positionBus);
+        zoneGeofenceService.tag(positionBus);
+        PositionBus saved;
+        try {
+            // insert et non save : l'identifiant est déjà fixé, save ferait un upsert sur _id
+            // (non indexé, et restreint) dans la collection time-series
+            saved = positionBusRepository.insert(positionBus);
+        } catch (RuntimeException e) {
+            release(positionBus);
+            throw e;
+        }
+        if (verdict == IngestGuard.Verdict.ACCEPTED) {
+            accepted(saved);
+        }
+        return saved;
+    }
+
+    /**
+     * Construit une position à partir d'une requête de l'application conducteur
+     * (les champs optionnels reçoivent leur valeur par défaut)
+     */
+    public PositionBus buildPosition(CreatePositionRequest request) {
+        PositionBus position = new PositionBus();
+        position.setIdPosition(UUID.randomUUID().toString());
+        position.setBusId(request.getBusId());
+        position.setLatitude(request.getLatitude());
+        position.setLongitude(request.getLongitude());
+        position.setAltitude(request.getAltitude() != null ? request.getAltitude() : 0.0);
+        position.setPrecision(request.getPrecision() != null ? request.getPrecision() : 10.0);
+        position.setVitesse(request.getVitesse() != null ? request.getVitesse() : 0.0);
+        position.setDirection(request.getDirection() != null ? request.getDirection() : 0.0);
+        position.setTimestamp(request.getTimestamp() != null ? request.getTimestamp() : LocalDateTime.now());
+        return position;
+    }
+
+    /**
+     * Valide une requête de position
+     *
+     * @return le motif de rejet, ou null si la position est valide
+     */
+    public String validate(CreatePositionRequest request) {
+        if (request == null) {
+            return "position vide";
+        }
+        if (request.getBusId() == null) {
+            return "busId manquant";
+        }
+        if (request.getLatitude() == null || request.getLongitude() == null) {
+            return "coordonnées manquantes";
+        }
+        if (request.getLatitude() < -90 || request.getLatitude() > 90
+                || request.getLongitude() < -180 || request.getLongitude() > 180) {
+            return "coordonnées hors limites";
+        }
+        if (request.getTimestamp() != null
+                && request.getTimestamp().isAfter(LocalDateTime.now().plusSeconds(MAX_CLOCK_SKEW_SECONDS))) {
+            return "horodatage dans le futur";
+        }
+        return null;
     }
 
     /**
-     * Get the latest position for a specific bus
+     * Ingestion groupée : valide tous les points en une passe puis les insère
+     * en une seule écriture bulk non ordonnée. Un point rejeté (validation,
+     * doublon, point trop ancien ou erreur d'écriture) n'empêche pas l'insertion des autres.
+     * Les points en retard sont enregistrés sans mettre à jour l'état temps réel ; les points
+     * d'un bus à l'arrêt supprimés ne sont ni rejetés ni enregistrés.
+     */
+    public BatchPositionResponse addPositions(List<CreatePositionRequest> requests) {
+        BatchPositionResponse response = BatchPositionResponse.builder()
+                .received(requests.size())
+                .build();
+
+        List<PositionBus> toInsert = new ArrayList<>(requests.size());
+        List<Integer> originalIndexes = new ArrayList<>(requests.size());
+        Set<Integer> latePositions = new HashSet<>();
+        ingestGuard.prefetch(requests.stream()
+                .filter(Objects::nonNull)
+                .map(CreatePositionRequest::getBusId)
+                .toList());
+        for (int i = 0; i < requests.size(); i++) {
+            CreatePositionRequest request = requests.get(i);
+            String reason = validate(request);
+            if (reason != null) {
+                response.getRejected().add(rejection(i, request, reason));
+                continue;
+            }
+            PositionBus position = buildPosition(request);
+            IngestGuard.Verdict verdict = ingestGuard.admit(position);
+            if (!verdict.persisted()) {
+                response.getRejected().add(rejection(i, request,
+                        verdict == IngestGuard.Verdict.DUPLICATE ? "doublon" : "point trop ancien"));
+                continue;
+            }
+            if (verdict == IngestGuard.Verdict.LATE) {
+                latePositions.add(toInsert.size());
+            } else if (stationarySuppressor.suppress(position)) {
+                response.setSuppressed(response.getSuppressed() + 1);
+                continue;
+            }
+            mapMatcher.match(position);
+            zoneGeofenceService.tag(position);
+            toInsert.add(position);
+            originalIndexes.add(i);
+        }
+
+        if (toInsert.isEmpty()) {
+            return response;
+        }
+
+        Set<Integer> failedWrites = new HashSet<>();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PositionBus.class)
+                    .insert(toInsert)
+                    .execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                int index = originalIndexes.get(error.getIndex());
+                failedWrites.add(error.getIndex());
+                release(toInsert.get(error.getIndex()));
+                response.getRejected().add(rejection(index, requests.get(index), "erreur d'écriture: " + error.getMessage()));
+            }
+        } catch (RuntimeException e) {
+            // Écriture perdue en bloc (réseau, délai dépassé) : le renvoi du lot doit être accepté
+            toInsert.forEach(this::release);
+            throw e;
+        }
+
+        for (int i = 0; i < toInsert.size(); i++) {
+            if (!failedWrites.contains(i) && !latePositions.contains(i)) {
+                accepted(toInsert.get(i));
+            }
+        }
+        response.setAccepted(toInsert.size() - failedWrites.size());
+        log.debug("Batch ingestion: {} received, {} accepted, {} rejected",
+                response.getReceived(), response.getAccepted(), response.getRejected().size());
+        return response;
+    }
+
+    /**
+     * Oublie un point dont l'écriture a échoué, pour qu'un renvoi ne soit ni pris pour un doublon ni supprimé
+     */
+    private void release(PositionBus position) {
+        ingestGuard.release(position);
+        stationarySuppressor.release(position);
+    }
+
+    /**
+     * Propage une position écrite au registre temps réel et aux traitements incrémentaux
+     */
+    private void accepted(PositionBus position) {
+        latestPositionRegistry.update(position);
+        for (PositionIngestListener listener : ingestListeners) {
+            try {
+                listener.onPosition(position);
+            } catch (Exception e) {
+                log.error("Position listener {} failed for bus {}: {}",
+                        listener.getClass().getSimpleName(), position.getBusId(), e.getMessage());
+            }
+        }
+    }
+
+    private BatchPositionResponse.RejectedPosition rejection(int index, CreatePositionRequest request, String reason) {
+        return BatchPositionResponse.RejectedPosition.builder()
+                .index(index)
+                .busId(request != null ? request.getBusId() : null)
+                .reason(reason)
+                .build();
+    }
+
+    /**
+     * Get the latest position for a specific bus.
+     * Served from the live registry; falls back to a single indexed lookup for buses not seen since startup.
      */
     public PositionBus getLatestPosition(Long busId) {
-        List<PositionBus> positions = positionBusRepository.findByBusId(busId);
-        return positions.isEmpty() ? null : positions.get(positions.size() - 1);
+        return latestPositionRegistry.getLatest(busId)
+                .or(() -> positionBusRepository.findFirstByBusIdOrderByTimestampDesc(busId))
+                .orElse(null);
     }
 
     /**
-     * Get all active bus positions (updated in last 5 minutes)
+     * Get the latest position of every active bus (updated within the live idle timeout)
      */
     public List<PositionBus> getAllActiveBusPositions() {
-        LocalDateTime fiveMinutesAgo = LocalDateTime.now().minusMinutes(5);
-        List<PositionBus> allPositions = positionBusRepository.findAll();
-
-        return allPositions.stream()
-                .filter(pos -> pos.getTimestamp() != null && pos.getTimestamp().isAfter(fiveMinutesAgo))
-                .collect(Collectors.toList());
+        return latestPositionRegistry.getActivePositions();
     }
 
     /**
      * Get all unique bus IDs that have active positions
      */
     public List<Long> getActiveBusIds() {
-        return getAllActiveBusPositions().stream()
-                .map(PositionBus::getBusId)
-                .filter(java.util.Objects::nonNull)
-                .distinct()
-                .collect(Collectors.toList());
+        return latestPositionRegistry.getActiveBusIds();
     }
 }
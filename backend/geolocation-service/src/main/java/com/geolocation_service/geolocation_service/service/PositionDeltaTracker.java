@@ -0,0 +1,105 @@
+package com.geolocation_service.geolocation_service.service;
+
+import com.geolocation_service.geolocation_service.model.PositionBus;
+import com.geolocation_service.geolocation_service.util.GeoUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Calcule, à chaque tick de diffusion, les positions à publier aux clients temps réel.
+ * <p>
+ * Seuls les bus dont la position a changé depuis le tick précédent sont examinés
+ * (les mises à jour multiples d'un bus sont fusionnées par le registre). Une position
+ * n'est publiée que si le bus s'est déplacé d'au moins
+ * {@code geolocation.broadcast.min-distance-meters} depuis le dernier envoi, ou si le
+ * dernier envoi date de plus de {@code geolocation.broadcast.max-silence-seconds}
+ * (rafraîchissement des bus à l'arrêt).
+ * <p>
+ * Une position écartée reste en attente : si le bus n'émet plus rien (dernier petit
+ * déplacement avant l'arrêt, points suivants supprimés par {@link StationarySuppressor}),
+ * elle est publiée une fois {@code max-silence-seconds} écoulées depuis le dernier envoi,
+ * pour que les clients ne gardent pas indéfiniment une position périmée.
+ */
+@Component
+public class PositionDeltaTracker {
+
+    private final LatestPositionRegistry latestPositionRegistry;
+    private final Map<Long, PositionBus> lastBroadcast = new ConcurrentHashMap<>();
+    // Bus dont la dernière position n'a pas été publiée (déplacement trop faible)
+    private final Set<Long> unsent = ConcurrentHashMap.newKeySet();
+    private final double minDistanceMeters;
+    private final Duration maxSilence;
+
+    public PositionDeltaTracker(LatestPositionRegistry latestPositionRegistry,
+                                @Value("${geolocation.broadcast.min-distance-meters:10}") double minDistanceMeters,
+                                @Value("${geolocation.broadcast.max-silence-seconds:30}") long maxSilenceSeconds) {
+        this.latestPositionRegistry = latestPositionRegistry;
+        this.minDistanceMeters = minDistanceMeters;
+        this.maxSilence = Duration.ofSeconds(maxSilenceSeconds);
+    }
+
+    /**
+     * Positions ayant changé de façon significative depuis le dernier appel
+     */
+    public List<PositionBus> collectChanges() {
+        return collectChanges(LocalDateTime.now());
+    }
+
+    List<PositionBus> collectChanges(LocalDateTime now) {
+        List<Long> changedBusIds = latestPositionRegistry.drainChangedBusIds();
+        List<PositionBus> changes = new ArrayList<>(changedBusIds.size());
+
+        for (Long busId : changedBusIds) {
+            PositionBus latest = latestPositionRegistry.getLatest(busId).orElse(null);
+            if (latest == null) {
+                lastBroadcast.remove(busId);
+                unsent.remove(busId);
+                continue;
+            }
+            PositionBus previous = lastBroadcast.get(busId);
+            if (previous == null || isSignificant(previous, latest)) {
+                lastBroadcast.put(busId, latest);
+                unsent.remove(busId);
+                changes.add(latest);
+            } else {
+                unsent.add(busId);
+            }
+        }
+
+        for (Iterator<Long> it = unsent.iterator(); it.hasNext(); ) {
+            Long busId = it.next();
+            PositionBus latest = latestPositionRegistry.getLatest(busId).orElse(null);
+            PositionBus previous = lastBroadcast.get(busId);
+            if (latest == null || previous == null) {
+                it.remove();
+            } else if (Duration.between(previous.getTimestamp(), now).compareTo(maxSilence) >= 0) {
+                it.remove();
+                lastBroadcast.put(busId, latest);
+                changes.add(latest);
+            }
+        }
+
+        if (lastBroadcast.size() > latestPositionRegistry.size()) {
+            // Oublier les bus évincés du registre pour les republier dès leur retour
+            lastBroadcast.keySet().removeIf(busId -> latestPositionRegistry.getLatest(busId).isEmpty());
+        }
+        return changes;
+    }
+
+    private boolean isSignificant(PositionBus previous, PositionBus latest) {
+        double moved = GeoUtils.distanceMeters(
+                previous.getLatitude(), previous.getLongitude(),
+                latest.getLatitude(), latest.getLongitude());
+        return moved >= minDistanceMeters
+                || Duration.between(previous.getTimestamp(), latest.getTimestamp()).compareTo(maxSilence) >= 0;
+    }
+}
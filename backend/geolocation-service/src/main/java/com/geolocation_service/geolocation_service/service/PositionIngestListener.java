@@ -0,0 +1,15 @@
+package com.geolocation_service.geolocation_service.service;
+
+import com.geolocation_service.geolocation_service.model.PositionBus;
+
+/**
+ * Traitement incrémental appelé pour chaque position acceptée par {@link PositionBusService},
+ * après son écriture en base (unitaire ou groupée).
+ * <p>
+ * Appelé sur le thread d'ingestion : une implémentation doit rester en O(1) par position
+ * et ne pas faire d'entrée/sortie bloquante.
+ */
+public interface PositionIngestListener {
+
+    void onPosition(PositionBus position);
+}
@@ -0,0 +1,218 @@
+package com.geolocation_service.geolocation_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.geolocation_service.geolocation_service.dto.TrackPointDTO;
+import com.geolocation_service.geolocation_service.model.PositionBus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+/**
+ * Rejeu de l'historique de positions d'un bus en flux.
+ * <p>
+ * Les positions sont lues par curseur MongoDB (tri par horodatage, champs utiles seulement)
+ * et écrites au fil de la lecture, en NDJSON ou en Server-Sent Events : la mémoire utilisée
+ * ne dépend pas de la longueur de l'historique. Le rejeu peut être :
+ * <ul>
+ *     <li>échantillonné : au plus un point toutes les {@code sampleSeconds} secondes d'horodatage,
+ *     le dernier point de la fenêtre étant toujours émis ;</li>
+ *     <li>repris : {@code cursor} est l'horodatage du dernier point reçu (identifiant d'événement SSE) ;</li>
+ *     <li>cadencé : avec {@code speed}, les points sont espacés de leur écart réel divisé par
+ *     {@code speed} (10 = dix fois plus vite), chaque pause étant bornée à {@code max-pause-ms}.</li>
+ * </ul>
+ * Un rejeu cadencé occupe un thread de l'exécuteur asynchrone de Spring MVC pendant toute sa durée :
+ * au plus {@code max-paced} rejeux cadencés tournent à la fois ({@link #tryStartPaced()}), pour que
+ * les autres réponses en flux ne fassent pas la queue derrière eux.
+ */
+@Service
+public class PositionReplayService {
+
+    /**
+     * Format du flux de rejeu
+     */
+    public enum Format {
+        NDJSON,
+        SSE
+    }
+
+    /**
+     * Paramètres d'un rejeu
+     *
+     * @param cursor        horodatage exclusif de reprise (remplace {@code from}), optionnel
+     * @param sampleSeconds écart minimal entre deux points émis, 0 pour tous les points
+     * @param speed         multiplicateur de cadence, 0 pour émettre sans attendre
+     * @param limit         nombre maximal de points émis
+     */
+    public record ReplayRequest(Long busId, LocalDateTime from, LocalDateTime to, LocalDateTime cursor,
+                                long sampleSeconds, double speed, int limit) {
+    }
+
+    private static final int FLUSH_EVERY = 256;
+    private static final int CURSOR_BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration maxWindow;
+    private final int maxPoints;
+    private final double maxSpeed;
+    private final long maxPauseMillis;
+    private final Semaphore pacedReplays;
+
+    public PositionReplayService(MongoTemplate mongoTemplate,
+                                 ObjectMapper objectMapper,
+                                 @Value("${geolocation.replay.max-window-hours:24}") long maxWindowHours,
+                                 @Value("${geolocation.replay.max-points:100000}") int maxPoints,
+                                 @Value("${geolocation.replay.max-speed:100}") double maxSpeed,
+                                 @Value("${geolocation.replay.max-pause-ms:5000}") long maxPauseMillis,
+                                 @Value("${geolocation.replay.max-paced:2}") int maxPaced) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+        this.maxWindow = Duration.ofHours(maxWindowHours);
+        this.maxPoints = maxPoints;
+        this.maxSpeed = maxSpeed;
+        this.maxPauseMillis = maxPauseMillis;
+        this.pacedReplays = new Semaphore(maxPaced);
+    }
+
+    public int getMaxPoints() {
+        return maxPoints;
+    }
+
+    /**
+     * Réserve une place de rejeu cadencé, à libérer par {@link #endPaced()} à la fin du rejeu
+     *
+     * @return false si tous les rejeux cadencés autorisés sont en cours
+     */
+    public boolean tryStartPaced() {
+        return pacedReplays.tryAcquire();
+    }
+
+    public void endPaced() {
+        pacedReplays.release();
+    }
+
+    /**
+     * Valide les paramètres d'un rejeu
+     *
+     * @return le motif de rejet, ou null si le rejeu est valide
+     */
+    public String validate(ReplayRequest request) {
+        if (request.from() == null || request.to() == null) {
+            return "fenêtre manquante";
+        }
+        if (!request.from().isBefore(request.to())) {
+            return "fenêtre vide";
+        }
+        if (Duration.between(request.from(), request.to()).compareTo(maxWindow) > 0) {
+            return "fenêtre supérieure à " + maxWindow.toHours() + " h";
+        }
+        if (request.sampleSeconds() < 0) {
+            return "échantillonnage négatif";
+        }
+        if (request.speed() < 0 || request.speed() > maxSpeed) {
+            return "vitesse de rejeu hors limites";
+        }
+        if (request.limit() <= 0 || request.limit() > maxPoints) {
+            return "limite hors bornes";
+        }
+        return null;
+    }
+
+    /**
+     * Écrit le rejeu au fil de la lecture du curseur MongoDB
+     *
+     * @return nombre de points émis
+     * @throws IOException si le client s'est déconnecté (le curseur est alors fermé)
+     */
+    public int replay(ReplayRequest request, Format format, OutputStream output) throws IOException {
+        Criteria criteria = Criteria.where("busId").is(request.busId()).and("timestamp").lte(request.to());
+        criteria = request.cursor() != null ? criteria.gt(request.cursor()) : criteria.gte(request.from());
+        Query query = Query.query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, "timestamp"))
+                .cursorBatchSize(CURSOR_BATCH_SIZE);
+        query.fields().include("latitude", "longitude", "vitesse", "timestamp");
+
+        OutputStream out = new BufferedOutputStream(output);
+        int emitted = 0;
+        LocalDateTime lastEmitted = null;
+        PositionBus skipped = null;
+        try (Stream<PositionBus> positions = mongoTemplate.stream(query, PositionBus.class)) {
+            Iterator<PositionBus> iterator = positions.iterator();
+            while (iterator.hasNext() && emitted < request.limit()) {
+                PositionBus position = iterator.next();
+                if (lastEmitted != null && request.sampleSeconds() > 0
+                        && Duration.between(lastEmitted, position.getTimestamp()).getSeconds() < request.sampleSeconds()) {
+                    skipped = position;
+                    continue;
+                }
+                pace(request.speed(), lastEmitted, position.getTimestamp());
+                write(out, format, position);
+                lastEmitted = position.getTimestamp();
+                skipped = null;
+                emitted++;
+                if (request.speed() > 0 || emitted % FLUSH_EVERY == 0) {
+                    out.flush();
+                }
+            }
+        }
+        if (skipped != null && emitted < request.limit()) {
+            pace(request.speed(), lastEmitted, skipped.getTimestamp());
+            write(out, format, skipped);
+            emitted++;
+        }
+        if (format == Format.SSE) {
+            // Sans cet événement, EventSource se reconnecterait indéfiniment
+            out.write("event: end\ndata: {}\n\n".getBytes(StandardCharsets.UTF_8));
+        }
+        out.flush();
+        return emitted;
+    }
+
+    private void write(OutputStream out, Format format, PositionBus position) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(TrackPointDTO.builder()
+                .latitude(position.getLatitude())
+                .longitude(position.getLongitude())
+                .vitesse(position.getVitesse())
+                .timestamp(position.getTimestamp())
+                .build());
+        if (format == Format.SSE) {
+            out.write(("id: " + position.getTimestamp() + "\nevent: position\ndata: ").getBytes(StandardCharsets.UTF_8));
+            out.write(json);
+            out.write('\n');
+            out.write('\n');
+        } else {
+            out.write(json);
+            out.write('\n');
+        }
+    }
+
+    private void pace(double speed, LocalDateTime previous, LocalDateTime next) throws IOException {
+        if (speed <= 0 || previous == null) {
+            return;
+        }
+        long pauseMillis = Math.min((long) (Duration.between(previous, next).toMillis() / speed), maxPauseMillis);
+        if (pauseMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(pauseMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("replay interrupted");
+        }
+    }
+}
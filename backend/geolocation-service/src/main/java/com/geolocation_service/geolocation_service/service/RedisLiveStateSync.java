@@ -0,0 +1,255 @@
+package com.geolocation_service.geolocation_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.geolocation_service.geolocation_service.model.PositionBus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Partage de l'état temps réel entre les instances du service via Redis.
+ * <p>
+ * Chaque instance publie les positions qu'elle ingère et récupère celles ingérées par les
+ * autres, si bien que le {@link LatestPositionRegistry} de chaque instance couvre tous les bus :
+ * <ul>
+ *     <li>écriture différée : {@link #onPosition(PositionBus)} ne fait que retenir la dernière
+ *     position de chaque bus ; elles sont écrites toutes les {@code flush-interval-ms} en un seul
+ *     script Lua, qui ne remplace une position que par une plus récente ;</li>
+ *     <li>Redis tient, par bus, la position (hash {@code positions}), son horodatage (zset
+ *     {@code timestamps}), ses coordonnées (geo set {@code geo}, pour les requêtes {@code GEOSEARCH})
+ *     et un numéro de séquence d'écriture (zset {@code sequence}) ;</li>
+ *     <li>synchronisation : toutes les {@code sync-interval-ms}, l'instance lit les bus écrits
+ *     depuis sa dernière séquence connue et les verse dans son registre ;</li>
+ *     <li>le leader ({@link LeaderElection}) supprime les bus inactifs depuis {@code idle-timeout-minutes}.</li>
+ * </ul>
+ * Les positions reçues d'une autre instance alimentent le registre (et donc la diffusion
+ * et les instantanés) et l'appartenance aux zones ({@link ZoneGeofenceService#track(PositionBus)}),
+ * mais pas les {@link PositionIngestListener}, déjà appelés par l'instance qui a ingéré le point.
+ * <p>
+ * Seules ces lectures sont partagées : le filtre de doublons, les trajets, les arrêts, les ETA
+ * et la suppression des bus à l'arrêt restent propres à l'instance qui ingère le bus. La passerelle
+ * route donc toutes les positions d'un même bus vers la même instance (un seul écrivain par bus).
+ */
+@Component
+@ConditionalOnProperty(name = "geolocation.live.redis.enabled", havingValue = "true")
+@Slf4j
+public class RedisLiveStateSync implements PositionIngestListener {
+
+    static final String POSITIONS_KEY = "geolocation:live:positions";
+    static final String TIMESTAMPS_KEY = "geolocation:live:timestamps";
+    static final String GEO_KEY = "geolocation:live:geo";
+    static final String SEQUENCE_KEY = "geolocation:live:sequence";
+    static final String SEQUENCE_COUNTER_KEY = "geolocation:live:sequence:counter";
+
+    private static final List<String> KEYS = List.of(POSITIONS_KEY, TIMESTAMPS_KEY, GEO_KEY, SEQUENCE_KEY, SEQUENCE_COUNTER_KEY);
+
+    /**
+     * Écrit les positions par groupes de 5 arguments (busId, horodatage ms, json, longitude, latitude),
+     * en ignorant celles qui ne sont pas plus récentes que la position enregistrée
+     */
+    private static final RedisScript<Long> WRITE_SCRIPT = new DefaultRedisScript<>("""
+            local written = 0
+            for i = 1, #ARGV, 5 do
+              local busId = ARGV[i]
+              local current = redis.call('ZSCORE', KEYS[2], busId)
+              if not current or tonumber(current) < tonumber(ARGV[i + 1]) then
+                redis.call('HSET', KEYS[1], busId, ARGV[i + 2])
+                redis.call('ZADD', KEYS[2], ARGV[i + 1], busId)
+                local lat = tonumber(ARGV[i + 4])
+                if lat >= -85.05112878 and lat <= 85.05112878 then
+                  redis.call('GEOADD', KEYS[3], ARGV[i + 3], ARGV[i + 4], busId)
+                end
+                redis.call('ZADD', KEYS[4], redis.call('INCR', KEYS[5]), busId)
+                written = written + 1
+              end
+            end
+            return written
+            """, Long.class);
+
+    /**
+     * Supprime les bus dont la position est antérieure à ARGV[1] (ms)
+     */
+    private static final RedisScript<Long> EVICT_SCRIPT = new DefaultRedisScript<>("""
+            local idle = redis.call('ZRANGEBYSCORE', KEYS[2], '-inf', '(' .. ARGV[1])
+            for _, busId in ipairs(idle) do
+              redis.call('HDEL', KEYS[1], busId)
+              redis.call('ZREM', KEYS[2], busId)
+              redis.call('ZREM', KEYS[3], busId)
+              redis.call('ZREM', KEYS[4], busId)
+            end
+            return #idle
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final LatestPositionRegistry latestPositionRegistry;
+    private final LeaderElection leaderElection;
+    private final ZoneGeofenceService zoneGeofenceService;
+    private final Duration idleTimeout;
+    private final Map<Long, PositionBus> pending = new ConcurrentHashMap<>();
+
+    private volatile double lastSequence;
+
+    public RedisLiveStateSync(StringRedisTemplate redisTemplate,
+                              ObjectMapper objectMapper,
+                              LatestPositionRegistry latestPositionRegistry,
+                              LeaderElection leaderElection,
+                              ZoneGeofenceService zoneGeofenceService,
+                              @Value("${geolocation.live.idle-timeout-minutes:5}") long idleTimeoutMinutes) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.latestPositionRegistry = latestPositionRegistry;
+        this.leaderElection = leaderElection;
+        this.zoneGeofenceService = zoneGeofenceService;
+        this.idleTimeout = Duration.ofMinutes(idleTimeoutMinutes);
+    }
+
+    @Override
+    public void onPosition(PositionBus position) {
+        if (position.getBusId() == null || position.getTimestamp() == null) {
+            return;
+        }
+        pending.merge(position.getBusId(), position,
+                (current, candidate) -> candidate.getTimestamp().isBefore(current.getTimestamp()) ? current : candidate);
+    }
+
+    /**
+     * Écrit dans Redis les positions retenues depuis le précédent appel
+     *
+     * @return nombre de positions écrites (plus récentes que celles déjà partagées)
+     */
+    @Scheduled(fixedDelayString = "${geolocation.live.redis.flush-interval-ms:200}")
+    public long flush() {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        List<PositionBus> batch = new ArrayList<>(pending.size());
+        for (Map.Entry<Long, PositionBus> entry : pending.entrySet()) {
+            // Une position plus récente arrivée entre-temps reste en attente du prochain flush
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                batch.add(entry.getValue());
+            }
+        }
+
+        List<String> args = new ArrayList<>(batch.size() * 5);
+        for (PositionBus position : batch) {
+            try {
+                String json = objectMapper.writeValueAsString(position);
+                args.add(String.valueOf(position.getBusId()));
+                args.add(String.valueOf(epochMillis(position.getTimestamp())));
+                args.add(json);
+                args.add(String.valueOf(position.getLongitude()));
+                args.add(String.valueOf(position.getLatitude()));
+            } catch (JsonProcessingException e) {
+                log.warn("Unable to serialize position of bus {}: {}", position.getBusId(), e.getMessage());
+            }
+        }
+        if (args.isEmpty()) {
+            return 0;
+        }
+        try {
+            Long written = redisTemplate.execute(WRITE_SCRIPT, KEYS, args.toArray());
+            return written != null ? written : 0;
+        } catch (Exception e) {
+            // Réessayer au prochain flush, sauf si une position plus récente est arrivée entre-temps
+            batch.forEach(this::onPosition);
+            log.warn("Unable to share {} live positions: {}", batch.size(), e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Verse dans le registre local les positions écrites dans Redis depuis la dernière synchronisation
+     *
+     * @return nombre de positions appliquées au registre
+     */
+    @Scheduled(fixedDelayString = "${geolocation.live.redis.sync-interval-ms:500}")
+    public int sync() {
+        Set<ZSetOperations.TypedTuple<String>> updated;
+        List<Object> payloads;
+        try {
+            updated = redisTemplate.opsForZSet().rangeByScoreWithScores(SEQUENCE_KEY, lastSequence + 1, Double.POSITIVE_INFINITY);
+            if (updated == null || updated.isEmpty()) {
+                return 0;
+            }
+            List<Object> busIds = new ArrayList<>(updated.size());
+            updated.forEach(tuple -> busIds.add(tuple.getValue()));
+            payloads = redisTemplate.opsForHash().multiGet(POSITIONS_KEY, busIds);
+        } catch (Exception e) {
+            log.warn("Unable to read shared live positions: {}", e.getMessage());
+            return 0;
+        }
+
+        int applied = 0;
+        double maxSequence = lastSequence;
+        int i = 0;
+        for (ZSetOperations.TypedTuple<String> tuple : updated) {
+            Object payload = payloads.get(i++);
+            maxSequence = Math.max(maxSequence, tuple.getScore() != null ? tuple.getScore() : 0);
+            if (payload == null) {
+                // Évincé entre les deux lectures
+                continue;
+            }
+            try {
+                PositionBus position = objectMapper.readValue(payload.toString(), PositionBus.class);
+                if (isNewer(position)) {
+                    latestPositionRegistry.update(position);
+                    zoneGeofenceService.track(position);
+                    applied++;
+                }
+            } catch (JsonProcessingException e) {
+                log.warn("Ignoring unreadable shared position of bus {}: {}", tuple.getValue(), e.getMessage());
+            }
+        }
+        lastSequence = maxSequence;
+        return applied;
+    }
+
+    /**
+     * Les positions ingérées par cette instance reviennent par la synchronisation : les ignorer
+     */
+    private boolean isNewer(PositionBus position) {
+        if (position.getBusId() == null || position.getTimestamp() == null) {
+            return false;
+        }
+        return latestPositionRegistry.getLatest(position.getBusId())
+                .map(local -> position.getTimestamp().isAfter(local.getTimestamp()))
+                .orElse(true);
+    }
+
+    @Scheduled(fixedDelayString = "${geolocation.live.eviction-interval-ms:30000}")
+    public void evictIdle() {
+        if (!leaderElection.isLeader()) {
+            return;
+        }
+        try {
+            Long evicted = redisTemplate.execute(EVICT_SCRIPT, KEYS.subList(0, 4),
+                    String.valueOf(epochMillis(LocalDateTime.now().minus(idleTimeout))));
+            if (evicted != null && evicted > 0) {
+                log.debug("Evicted {} idle buses from shared live state", evicted);
+            }
+        } catch (Exception e) {
+            log.warn("Unable to evict idle buses from shared live state: {}", e.getMessage());
+        }
+    }
+
+    private static long epochMillis(LocalDateTime timestamp) {
+        return timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
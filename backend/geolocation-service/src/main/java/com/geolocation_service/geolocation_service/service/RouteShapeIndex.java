@@ -0,0 +1,157 @@
+package com.geolocation_service.geolocation_service.service;
+
+import com.geolocation_service.geolocation_service.util.GeoUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index spatial immuable des segments des tracés de lignes.
+ * <p>
+ * Le tracé d'une ligne est la polyligne reliant ses arrêts dans l'ordre (refermée pour
+ * une ligne circulaire) ; chaque sommet porte sa distance depuis l'origine du tracé.
+ * Chaque segment est rangé dans toutes les cellules de grille couvertes par son emprise :
+ * la recherche des segments proches d'un point n'examine que les cellules voisines.
+ */
+public final class RouteShapeIndex {
+
+    /**
+     * Projection d'un point sur le tracé d'une ligne
+     *
+     * @param offsetMeters   abscisse curviligne du projeté depuis l'origine du tracé
+     * @param distanceMeters distance entre le point et son projeté
+     */
+    public record Match(Long routeId, double offsetMeters, double distanceMeters) {
+    }
+
+    private record Segment(Long routeId, double latA, double lonA, double latB, double lonB,
+                           double startOffset, double length) {
+    }
+
+    private static final RouteShapeIndex EMPTY = new RouteShapeIndex(Map.of(), Map.of(), 1, 1, 1);
+
+    private final Map<Long, Segment[]> cells;
+    private final Map<Long, double[]> vertexOffsets;
+    private final double cellSizeMeters;
+    private final double cellDegreesLat;
+    private final double cellDegreesLon;
+
+    private RouteShapeIndex(Map<Long, Segment[]> cells, Map<Long, double[]> vertexOffsets,
+                            double cellSizeMeters, double cellDegreesLat, double cellDegreesLon) {
+        this.cells = cells;
+        this.vertexOffsets = vertexOffsets;
+        this.cellSizeMeters = cellSizeMeters;
+        this.cellDegreesLat = cellDegreesLat;
+        this.cellDegreesLon = cellDegreesLon;
+    }
+
+    public static RouteShapeIndex empty() {
+        return EMPTY;
+    }
+
+    public static RouteShapeIndex build(Collection<StopIndex.RouteLine> routes, double cellSizeMeters) {
+        double meanLatitude = routes.stream()
+                .flatMap(route -> route.stops().stream())
+                .mapToDouble(StopIndex.LineStop::latitude)
+                .average()
+                .orElse(Double.NaN);
+        if (Double.isNaN(meanLatitude)) {
+            return EMPTY;
+        }
+        double cellDegreesLat = Math.toDegrees(cellSizeMeters / GeoUtils.EARTH_RADIUS_METERS);
+        double cellDegreesLon = cellDegreesLat / Math.max(Math.cos(Math.toRadians(meanLatitude)), 0.01);
+
+        Map<Long, List<Segment>> buckets = new HashMap<>();
+        Map<Long, double[]> vertexOffsets = new HashMap<>();
+        for (StopIndex.RouteLine route : routes) {
+            List<StopIndex.LineStop> vertices = new ArrayList<>(route.stops());
+            if (route.circular() && vertices.size() > 1) {
+                vertices.add(vertices.get(0));
+            }
+            double[] offsets = new double[vertices.size()];
+            for (int i = 1; i < vertices.size(); i++) {
+                StopIndex.LineStop a = vertices.get(i - 1);
+                StopIndex.LineStop b = vertices.get(i);
+                double length = GeoUtils.approxDistanceMeters(a.latitude(), a.longitude(), b.latitude(), b.longitude());
+                offsets[i] = offsets[i - 1] + length;
+                Segment segment = new Segment(route.routeId(), a.latitude(), a.longitude(),
+                        b.latitude(), b.longitude(), offsets[i - 1], length);
+
+                int rowMin = StopIndex.cell(Math.min(a.latitude(), b.latitude()), cellDegreesLat);
+                int rowMax = StopIndex.cell(Math.max(a.latitude(), b.latitude()), cellDegreesLat);
+                int colMin = StopIndex.cell(Math.min(a.longitude(), b.longitude()), cellDegreesLon);
+                int colMax = StopIndex.cell(Math.max(a.longitude(), b.longitude()), cellDegreesLon);
+                for (int r = rowMin; r <= rowMax; r++) {
+                    for (int c = colMin; c <= colMax; c++) {
+                        buckets.computeIfAbsent(StopIndex.cellKey(r, c), k -> new ArrayList<>()).add(segment);
+                    }
+                }
+            }
+            vertexOffsets.put(route.routeId(), offsets);
+        }
+
+        Map<Long, Segment[]> cells = new HashMap<>(buckets.size() * 2);
+        buckets.forEach((key, bucket) -> cells.put(key, bucket.toArray(new Segment[0])));
+        return new RouteShapeIndex(cells, vertexOffsets, cellSizeMeters, cellDegreesLat, cellDegreesLon);
+    }
+
+    /**
+     * Projections du point sur les segments situés à moins de {@code maxDistanceMeters}
+     * (une par segment, dans un ordre quelconque)
+     */
+    public List<Match> candidates(double latitude, double longitude, double maxDistanceMeters) {
+        if (cells.isEmpty()) {
+            return List.of();
+        }
+        int row = StopIndex.cell(latitude, cellDegreesLat);
+        int col = StopIndex.cell(longitude, cellDegreesLon);
+        int ring = (int) Math.ceil(maxDistanceMeters / cellSizeMeters);
+
+        // Un segment long est présent dans plusieurs cellules : ne l'évaluer qu'une fois
+        Set<Segment> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Match> matches = new ArrayList<>();
+        for (int r = row - ring; r <= row + ring; r++) {
+            for (int c = col - ring; c <= col + ring; c++) {
+                Segment[] bucket = cells.get(StopIndex.cellKey(r, c));
+                if (bucket == null) {
+                    continue;
+                }
+                for (Segment segment : bucket) {
+                    if (!seen.add(segment)) {
+                        continue;
+                    }
+                    double fraction = GeoUtils.segmentFraction(latitude, longitude,
+                            segment.latA(), segment.lonA(), segment.latB(), segment.lonB());
+                    double snappedLat = segment.latA() + fraction * (segment.latB() - segment.latA());
+                    double snappedLon = segment.lonA() + fraction * (segment.lonB() - segment.lonA());
+                    double distance = GeoUtils.approxDistanceMeters(latitude, longitude, snappedLat, snappedLon);
+                    if (distance <= maxDistanceMeters) {
+                        matches.add(new Match(segment.routeId(), segment.startOffset() + fraction * segment.length(), distance));
+                    }
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Abscisse curviligne d'un arrêt de la ligne, par index dans {@link StopIndex.RouteLine#stops()}
+     * (l'index {@code stops().size()} désigne le retour à l'origine d'une ligne circulaire)
+     *
+     * @return NaN si la ligne ou l'index est inconnu
+     */
+    public double vertexOffset(Long routeId, int index) {
+        double[] offsets = vertexOffsets.get(routeId);
+        return offsets != null && index >= 0 && index < offsets.length ? offsets[index] : Double.NaN;
+    }
+
+    public boolean isEmpty() {
+        return cells.isEmpty();
+    }
+}
@@ -0,0 +1,415 @@
+package com.geolocation_service.geolocation_service.service;
+
+import com.geolocation_service.geolocation_service.dto.LivePositionDTO;
+import com.geolocation_service.geolocation_service.model.PositionBus;
+import com.geolocation_service.geolocation_service.service.ViewportSubscriptionRegistry.Viewport;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Diffusion des positions temps réel en Server-Sent Events, pour les écrans d'arrêt et widgets
+ * qui ne font que lire (alternative légère à STOMP/SockJS).
+ * <p>
+ * Une connexion ne coûte qu'une requête asynchrone, son filtre et un tampon borné : aucun
+ * thread ne lui est réservé. À chaque tick de diffusion, les positions modifiées sont déposées
+ * dans le tampon des connexions concernées ; un tampon plein perd ses positions les plus
+ * anciennes ({@code geolocation.sse.buffer-size}, compteur {@code geolocation.sse.dropped}).
+ * Un pool de {@code sender-threads} vide les tampons, une connexion ayant au plus une tâche
+ * d'envoi en attente ou en cours, et envoie tout ce qui est en attente en un seul événement :
+ * pendant l'écriture vers un client lent, ses nouvelles positions restent dans son tampon.
+ * <p>
+ * L'écriture d'un événement est bloquante. Un envoi en cours depuis plus de
+ * {@code send-timeout-ms} (fenêtre TCP du client pleine) est abandonné : la connexion ne reçoit
+ * plus rien, un thread est ajouté au pool tant que l'écriture reste bloquée, pour que les autres
+ * connexions soient toujours servies, et la connexion est fermée dès que l'écriture rend la main
+ * (compteur {@code geolocation.sse.stalled}).
+ * <p>
+ * Filtres : une zone (bbox, éventuellement limitée à des lignes) est indexée sur la grille de
+ * {@link ViewportSubscriptionRegistry} ; des lignes seules sont indexées par ligne ; sans filtre,
+ * la connexion reçoit toute la flotte. Un commentaire est envoyé aux connexions restées
+ * muettes depuis {@code heartbeat-interval-ms}, pour détecter les clients partis.
+ */
+@Component
+@Slf4j
+public class SsePositionHub {
+
+    private final LatestPositionRegistry latestPositionRegistry;
+    private final ViewportSubscriptionRegistry areas;
+    private final Executor sender;
+    private final long timeoutMs;
+    private final int bufferSize;
+    private final int maxConnections;
+    private final long heartbeatIntervalMs;
+    private final long sendTimeoutMs;
+    private final Map<String, Subscriber> subscribers = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Subscriber>> byRoute = new ConcurrentHashMap<>();
+    private final Set<Subscriber> unfiltered = ConcurrentHashMap.newKeySet();
+    private final Counter dropped;
+    private final Counter stalled;
+    private final AtomicInteger stalledSends = new AtomicInteger();
+
+    @Autowired
+    public SsePositionHub(LatestPositionRegistry latestPositionRegistry,
+                          MeterRegistry meterRegistry,
+                          @Value("${geolocation.viewport.cell-size-degrees:0.01}") double cellDegrees,
+                          @Value("${geolocation.viewport.max-cells:2500}") int maxCells,
+                          @Value("${geolocation.sse.sender-threads:4}") int senderThreads,
+                          @Value("${geolocation.sse.timeout-ms:1800000}") long timeoutMs,
+                          @Value("${geolocation.sse.buffer-size:64}") int bufferSize,
+                          @Value("${geolocation.sse.max-connections:20000}") int maxConnections,
+                          @Value("${geolocation.sse.heartbeat-interval-ms:15000}") long heartbeatIntervalMs,
+                          @Value("${geolocation.sse.send-timeout-ms:5000}") long sendTimeoutMs) {
+        this(latestPositionRegistry, meterRegistry, new ViewportSubscriptionRegistry(meterRegistry, "sse", cellDegrees, maxCells),
+                Executors.newFixedThreadPool(senderThreads, new CustomizableThreadFactory("sse-sender-")),
+                timeoutMs, bufferSize, maxConnections, heartbeatIntervalMs, sendTimeoutMs);
+    }
+
+    SsePositionHub(LatestPositionRegistry latestPositionRegistry, MeterRegistry meterRegistry,
+                   ViewportSubscriptionRegistry areas, Executor sender,
+                   long timeoutMs, int bufferSize, int maxConnections, long heartbeatIntervalMs, long sendTimeoutMs) {
+        this.latestPositionRegistry = latestPositionRegistry;
+        this.areas = areas;
+        this.sender = sender;
+        this.timeoutMs = timeoutMs;
+        this.bufferSize = bufferSize;
+        this.maxConnections = maxConnections;
+        this.heartbeatIntervalMs = heartbeatIntervalMs;
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.dropped = meterRegistry.counter("geolocation.sse.dropped");
+        this.stalled = meterRegistry.counter("geolocation.sse.stalled");
+        meterRegistry.gauge("geolocation.sse.connections", subscribers, Map::size);
+        meterRegistry.gauge("geolocation.sse.stalled.sends", stalledSends);
+    }
+
+    /**
+     * Ouvre un flux filtré sur des lignes (vide : toutes) et/ou une zone (null : partout).
+     * Le flux commence par les positions actives correspondantes (événement {@code snapshot}),
+     * puis reçoit les changements (événements {@code positions}).
+     *
+     * @return null si le nombre maximal de connexions est atteint
+     */
+    public SseEmitter subscribe(Set<Long> routeIds, Viewport area) {
+        if (subscribers.size() >= maxConnections) {
+            return null;
+        }
+        return register(new SseEmitter(timeoutMs), routeIds, area);
+    }
+
+    SseEmitter register(SseEmitter emitter, Set<Long> routeIds, Viewport area) {
+        Subscriber subscriber = new Subscriber(UUID.randomUUID().toString(), emitter, routeIds, area);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+
+        // Les changements reçus pendant l'envoi de l'état initial attendent dans le tampon
+        subscribers.put(subscriber.id, subscriber);
+        if (area != null) {
+            areas.register(subscriber.id, area);
+        } else if (!routeIds.isEmpty()) {
+            routeIds.forEach(routeId -> byRoute.computeIfAbsent(routeId, id -> ConcurrentHashMap.newKeySet()).add(subscriber));
+        } else {
+            unfiltered.add(subscriber);
+        }
+
+        List<LivePositionDTO> snapshot = latestPositionRegistry.getActivePositions().stream()
+                .filter(subscriber::accepts)
+                .map(LivePositionDTO::from)
+                .toList();
+        send(subscriber, SseEmitter.event().name("snapshot").data(snapshot, MediaType.APPLICATION_JSON));
+        if (subscribers.containsKey(subscriber.id) && subscriber.finish()) {
+            sender.execute(() -> drain(subscriber));
+        }
+        return emitter;
+    }
+
+    /**
+     * Dépose les positions modifiées d'un tick dans les tampons des connexions concernées
+     */
+    public void publish(List<PositionBus> changes) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        Map<Long, LivePositionDTO> deltas = new HashMap<>(changes.size() * 2);
+        for (PositionBus position : changes) {
+            deltas.put(position.getBusId(), LivePositionDTO.from(position));
+        }
+
+        areas.route(changes).forEach((id, inArea) -> {
+            Subscriber subscriber = subscribers.get(id);
+            if (subscriber != null) {
+                deliver(subscriber, inArea.stream().map(position -> deltas.get(position.getBusId())).toList());
+            }
+        });
+        if (!byRoute.isEmpty()) {
+            for (PositionBus position : changes) {
+                Set<Subscriber> followers = position.getMatchedRouteId() != null ? byRoute.get(position.getMatchedRouteId()) : null;
+                if (followers != null) {
+                    List<LivePositionDTO> delta = List.of(deltas.get(position.getBusId()));
+                    followers.forEach(subscriber -> deliver(subscriber, delta));
+                }
+            }
+        }
+        if (!unfiltered.isEmpty()) {
+            List<LivePositionDTO> all = List.copyOf(deltas.values());
+            unfiltered.forEach(subscriber -> deliver(subscriber, all));
+        }
+    }
+
+    /**
+     * Signale aux connexions muettes qu'elles sont toujours servies ; un envoi en échec ferme la connexion
+     */
+    @Scheduled(fixedDelayString = "${geolocation.sse.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        long idleBefore = System.currentTimeMillis() - heartbeatIntervalMs;
+        for (Subscriber subscriber : subscribers.values()) {
+            if (subscriber.lastSentAt < idleBefore && subscriber.requestHeartbeat()) {
+                sender.execute(() -> drain(subscriber));
+            }
+        }
+    }
+
+    /**
+     * Abandonne les connexions dont l'écriture est bloquée depuis plus de {@code send-timeout-ms}
+     */
+    @Scheduled(fixedDelayString = "${geolocation.sse.stall-check-interval-ms:1000}")
+    public void detectStalls() {
+        long startedBefore = System.currentTimeMillis() - sendTimeoutMs;
+        for (Subscriber subscriber : subscribers.values()) {
+            if (subscriber.markStalled(startedBefore)) {
+                log.debug("SSE client {} stalled for more than {} ms, dropping it", subscriber.id, sendTimeoutMs);
+                stalled.increment();
+                stalledSends.incrementAndGet();
+                // Plus de positions pour ce client ; son thread bloqué est remplacé dans le pool
+                remove(subscriber);
+                resizeSender(1);
+            }
+        }
+    }
+
+    public int size() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (sender instanceof ExecutorService executor) {
+            executor.shutdownNow();
+        }
+        subscribers.values().forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    private void deliver(Subscriber subscriber, Collection<LivePositionDTO> positions) {
+        if (subscriber.offer(positions, bufferSize)) {
+            sender.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        Subscriber.Batch batch = subscriber.take();
+        if (batch.dropped() > 0) {
+            dropped.increment(batch.dropped());
+        }
+        if (!batch.positions().isEmpty()) {
+            send(subscriber, SseEmitter.event().name("positions").data(batch.positions(), MediaType.APPLICATION_JSON));
+        } else if (batch.heartbeat()) {
+            send(subscriber, SseEmitter.event().comment("keep-alive"));
+        }
+        // Les positions arrivées pendant l'envoi sont restées dans le tampon
+        if (subscribers.containsKey(subscriber.id) && subscriber.finish()) {
+            sender.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void send(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (!subscribers.containsKey(subscriber.id)) {
+            return;
+        }
+        subscriber.startSend(System.currentTimeMillis());
+        boolean sent = false;
+        try {
+            subscriber.emitter.send(event);
+            subscriber.lastSentAt = System.currentTimeMillis();
+            sent = true;
+        } catch (Exception e) {
+            log.debug("SSE client {} gone: {}", subscriber.id, e.getMessage());
+            remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+        } finally {
+            if (subscriber.endSend()) {
+                // Écriture abandonnée qui rend enfin la main : le thread ajouté au pool n'est plus utile
+                stalledSends.decrementAndGet();
+                resizeSender(-1);
+                if (sent) {
+                    subscriber.emitter.complete();
+                }
+            }
+        }
+    }
+
+    private void resizeSender(int delta) {
+        if (!(sender instanceof ThreadPoolExecutor pool)) {
+            return;
+        }
+        synchronized (pool) {
+            // Le maximum ne peut pas descendre sous le nombre de threads permanents
+            if (delta > 0) {
+                pool.setMaximumPoolSize(pool.getMaximumPoolSize() + delta);
+                pool.setCorePoolSize(pool.getCorePoolSize() + delta);
+            } else {
+                pool.setCorePoolSize(pool.getCorePoolSize() + delta);
+                pool.setMaximumPoolSize(pool.getMaximumPoolSize() + delta);
+            }
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        if (subscribers.remove(subscriber.id) == null) {
+            return;
+        }
+        areas.remove(subscriber.id);
+        unfiltered.remove(subscriber);
+        subscriber.routeIds.forEach(routeId -> byRoute.computeIfPresent(routeId, (id, followers) -> {
+            followers.remove(subscriber);
+            return followers.isEmpty() ? null : followers;
+        }));
+    }
+
+    /**
+     * Connexion SSE : filtre et tampon borné des positions en attente d'envoi (accès sous verrou de l'instance)
+     */
+    private static final class Subscriber {
+
+        record Batch(List<LivePositionDTO> positions, boolean heartbeat, int dropped) {
+        }
+
+        private final String id;
+        private final SseEmitter emitter;
+        private final Set<Long> routeIds;
+        private final Viewport area;
+        private ArrayDeque<LivePositionDTO> pending;
+        // Envoi planifié (ou état initial en cours d'envoi) : les ajouts attendent dans le tampon
+        private boolean scheduled = true;
+        private boolean heartbeat;
+        private int dropped;
+        // Début de l'écriture en cours (0 : aucune), écriture abandonnée par detectStalls
+        private long sendingSince;
+        private boolean stalled;
+        private volatile long lastSentAt = System.currentTimeMillis();
+
+        Subscriber(String id, SseEmitter emitter, Set<Long> routeIds, Viewport area) {
+            this.id = id;
+            this.emitter = emitter;
+            this.routeIds = routeIds;
+            this.area = area;
+        }
+
+        boolean accepts(PositionBus position) {
+            if (area != null) {
+                return area.accepts(position);
+            }
+            return routeIds.isEmpty() || (position.getMatchedRouteId() != null && routeIds.contains(position.getMatchedRouteId()));
+        }
+
+        /**
+         * Ajoute des positions au tampon, en perdant les plus anciennes au-delà de la capacité
+         *
+         * @return true si un envoi doit être planifié
+         */
+        synchronized boolean offer(Collection<LivePositionDTO> positions, int capacity) {
+            if (pending == null) {
+                pending = new ArrayDeque<>(Math.min(capacity, Math.max(positions.size(), 4)));
+            }
+            for (LivePositionDTO position : positions) {
+                if (pending.size() >= capacity) {
+                    pending.pollFirst();
+                    dropped++;
+                }
+                pending.addLast(position);
+            }
+            return schedule();
+        }
+
+        synchronized boolean requestHeartbeat() {
+            heartbeat = true;
+            return schedule();
+        }
+
+        /**
+         * Fin d'un envoi (état initial ou positions) : la connexion peut à nouveau être planifiée
+         *
+         * @return true si des changements sont arrivés entre-temps et doivent être envoyés
+         */
+        synchronized boolean finish() {
+            scheduled = (pending != null && !pending.isEmpty()) || heartbeat;
+            return scheduled;
+        }
+
+        synchronized void startSend(long now) {
+            sendingSince = now;
+        }
+
+        /**
+         * @return true si l'écriture qui se termine avait été abandonnée
+         */
+        synchronized boolean endSend() {
+            sendingSince = 0;
+            boolean wasStalled = stalled;
+            stalled = false;
+            return wasStalled;
+        }
+
+        /**
+         * @return true si l'écriture en cours a commencé avant {@code startedBefore} et vient d'être abandonnée
+         */
+        synchronized boolean markStalled(long startedBefore) {
+            if (sendingSince == 0 || stalled || sendingSince > startedBefore) {
+                return false;
+            }
+            stalled = true;
+            return true;
+        }
+
+        synchronized Batch take() {
+            List<LivePositionDTO> positions = pending != null ? new ArrayList<>(pending) : List.of();
+            // Le tampon est libéré entre deux envois : une connexion inactive ne garde que son filtre
+            pending = null;
+            Batch batch = new Batch(positions, heartbeat, dropped);
+            heartbeat = false;
+            dropped = 0;
+            // Reste planifiée jusqu'à finish() : pas de second envoi concurrent pour cette connexion
+            return batch;
+        }
+
+        private boolean schedule() {
+            if (scheduled) {
+                return false;
+            }
+            scheduled = true;
+            return true;
+        }
+    }
+}
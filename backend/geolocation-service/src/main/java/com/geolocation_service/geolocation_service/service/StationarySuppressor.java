@@ -0,0 +1,111 @@
+package com.geolocation_service.geolocation_service.service;
+
+import com.geolocation_service.geolocation_service.model.PositionBus;
+import com.geolocation_service.geolocation_service.util.GeoUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Réduit les écritures des bus à l'arrêt (terminus, dépôt), appliqué après {@link IngestGuard}.
+ * <p>
+ * Un bus stationné continue d'émettre le même point toutes les quelques secondes. Pour chaque bus,
+ * le filtre retient le dernier point enregistré (ancre) : un nouveau point à moins de
+ * {@code max-distance-meters} de l'ancre, à une vitesse d'au plus {@code max-speed-kmh}, est
+ * supprimé tant que l'ancre a moins de {@code heartbeat-interval-seconds}. Il ne met alors à
+ * jour que l'heure de dernier contact du registre temps réel : ni écriture, ni diffusion, ni
+ * traitement incrémental. Passé l'intervalle, le point est enregistré comme battement de cœur
+ * et devient la nouvelle ancre, de sorte qu'un bus à l'arrêt écrit au plus un point par intervalle.
+ * <p>
+ * L'intervalle doit rester inférieur à {@code geolocation.live.idle-timeout-minutes} : les autres
+ * instances ne voient un bus stationné qu'à travers ses battements de cœur.
+ */
+@Component
+public class StationarySuppressor {
+
+    private final LatestPositionRegistry latestPositionRegistry;
+    private final boolean enabled;
+    private final double maxDistanceMeters;
+    private final double maxSpeedKmh;
+    private final Duration heartbeatInterval;
+    private final Duration idleEviction;
+    private final Map<Long, Anchor> anchors = new ConcurrentHashMap<>();
+    private final Counter suppressed;
+
+    public StationarySuppressor(LatestPositionRegistry latestPositionRegistry,
+                                MeterRegistry meterRegistry,
+                                @Value("${geolocation.ingest.stationary.enabled:true}") boolean enabled,
+                                @Value("${geolocation.ingest.stationary.max-distance-meters:15}") double maxDistanceMeters,
+                                @Value("${geolocation.ingest.stationary.max-speed-kmh:2}") double maxSpeedKmh,
+                                @Value("${geolocation.ingest.stationary.heartbeat-interval-seconds:60}") long heartbeatIntervalSeconds,
+                                @Value("${geolocation.ingest.guard.idle-eviction-minutes:30}") long idleEvictionMinutes) {
+        this.latestPositionRegistry = latestPositionRegistry;
+        this.enabled = enabled;
+        this.maxDistanceMeters = maxDistanceMeters;
+        this.maxSpeedKmh = maxSpeedKmh;
+        this.heartbeatInterval = Duration.ofSeconds(heartbeatIntervalSeconds);
+        this.idleEviction = Duration.ofMinutes(idleEvictionMinutes);
+        this.suppressed = meterRegistry.counter("geolocation.ingest.stationary.suppressed");
+    }
+
+    /**
+     * Décide si un point accepté doit être écrit. Un point supprimé est compté et rafraîchit
+     * l'heure de dernier contact du bus ; un point à écrire devient l'ancre du bus.
+     *
+     * @return true si le point ne doit pas être enregistré
+     */
+    public boolean suppress(PositionBus position) {
+        if (!enabled || position.getBusId() == null || position.getTimestamp() == null) {
+            return false;
+        }
+        Anchor candidate = new Anchor(position.getLatitude(), position.getLongitude(), position.getTimestamp());
+        boolean[] stationary = new boolean[1];
+        anchors.compute(position.getBusId(), (busId, anchor) -> {
+            stationary[0] = anchor != null && isStationary(anchor, position);
+            return stationary[0] ? anchor : candidate;
+        });
+        if (stationary[0]) {
+            latestPositionRegistry.touch(position.getBusId(), position.getTimestamp());
+            suppressed.increment();
+        }
+        return stationary[0];
+    }
+
+    /**
+     * Oublie l'ancre posée par un point dont l'écriture a échoué : le point suivant du bus sera
+     * enregistré au lieu d'être supprimé au profit d'un point absent de la base
+     */
+    public void release(PositionBus position) {
+        if (position.getBusId() == null || position.getTimestamp() == null) {
+            return;
+        }
+        anchors.remove(position.getBusId(),
+                new Anchor(position.getLatitude(), position.getLongitude(), position.getTimestamp()));
+    }
+
+    private boolean isStationary(Anchor anchor, PositionBus position) {
+        return position.getVitesse() <= maxSpeedKmh
+                && position.getTimestamp().isBefore(anchor.timestamp().plus(heartbeatInterval))
+                && GeoUtils.distanceMeters(anchor.latitude(), anchor.longitude(),
+                position.getLatitude(), position.getLongitude()) < maxDistanceMeters;
+    }
+
+    @Scheduled(fixedDelayString = "${geolocation.live.eviction-interval-ms:30000}")
+    public void evictIdle() {
+        LocalDateTime idleBefore = LocalDateTime.now().minus(idleEviction);
+        anchors.values().removeIf(anchor -> anchor.timestamp().isBefore(idleBefore));
+    }
+
+    /**
+     * Dernier point enregistré d'un bus
+     */
+    private record Anchor(double latitude, double longitude, LocalDateTime timestamp) {
+    }
+}
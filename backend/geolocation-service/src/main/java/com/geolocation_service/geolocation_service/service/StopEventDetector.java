@@ -0,0 +1,212 @@
+package com.geolocation_service.geolocation_service.service;
+
+import com.geolocation_service.geolocation_service.event.BusArrivedAtStopEvent;
+import com.geolocation_service.geolocation_service.event.BusDepartedFromStopEvent;
+import com.geolocation_service.geolocation_service.event.producer.LocationEventProducer;
+import com.geolocation_service.geolocation_service.model.PositionBus;
+import com.geolocation_service.geolocation_service.util.GeoUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Détection des arrivées et départs aux arrêts, position par position.
+ * <p>
+ * Règles (par bus) :
+ * <ul>
+ *     <li>une visite commence quand le bus entre à moins de {@code arrival-radius-meters} d'un arrêt ;</li>
+ *     <li>l'arrivée est confirmée quand le bus y roule à moins de {@code arrival-max-speed-kmh}
+ *     ou y est resté au moins {@code min-dwell-seconds} : un bus qui passe sans s'arrêter ne génère rien ;</li>
+ *     <li>la visite se termine quand le bus s'éloigne au-delà de {@code departure-radius-meters}
+ *     (hystérésis : le bruit GPS autour du rayon d'arrivée ne termine pas la visite) ;
+ *     un départ n'est émis que si l'arrivée l'a été.</li>
+ * </ul>
+ * Chaque événement est donc émis au plus une fois par visite. Les positions plus
+ * anciennes que la dernière traitée sont ignorées.
+ */
+@Component
+@Order(StopEventDetector.INGEST_ORDER)
+public class StopEventDetector implements PositionIngestListener {
+
+    /**
+     * Exécuté avant les traitements qui lisent {@link #lastArrival(Long)} à l'ingestion
+     */
+    static final int INGEST_ORDER = 10;
+
+    /**
+     * Dernière arrivée confirmée d'un bus à un arrêt
+     */
+    public record StopArrival(Long routeId, Long stopId, LocalDateTime arrivedAt) {
+    }
+
+    private final StopNetworkService stopNetworkService;
+    private final LocationEventProducer locationEventProducer;
+    private final double arrivalRadiusMeters;
+    private final double departureRadiusMeters;
+    private final double arrivalMaxSpeedKmh;
+    private final Duration minDwell;
+    private final Map<Long, StopVisit> visits = new ConcurrentHashMap<>();
+
+    public StopEventDetector(StopNetworkService stopNetworkService,
+                             LocationEventProducer locationEventProducer,
+                             @Value("${geolocation.stops.arrival-radius-meters:30}") double arrivalRadiusMeters,
+                             @Value("${geolocation.stops.departure-radius-meters:60}") double departureRadiusMeters,
+                             @Value("${geolocation.stops.arrival-max-speed-kmh:10}") double arrivalMaxSpeedKmh,
+                             @Value("${geolocation.stops.min-dwell-seconds:10}") long minDwellSeconds) {
+        this.stopNetworkService = stopNetworkService;
+        this.locationEventProducer = locationEventProducer;
+        this.arrivalRadiusMeters = arrivalRadiusMeters;
+        this.departureRadiusMeters = Math.max(departureRadiusMeters, arrivalRadiusMeters);
+        this.arrivalMaxSpeedKmh = arrivalMaxSpeedKmh;
+        this.minDwell = Duration.ofSeconds(minDwellSeconds);
+    }
+
+    @Override
+    public void onPosition(PositionBus position) {
+        StopIndex index = stopNetworkService.getStopIndex();
+        if (index.isEmpty() || position.getBusId() == null || position.getTimestamp() == null) {
+            return;
+        }
+
+        StopVisit visit = visits.computeIfAbsent(position.getBusId(), busId -> new StopVisit());
+        BusDepartedFromStopEvent departed = null;
+        BusArrivedAtStopEvent arrived = null;
+
+        synchronized (visit) {
+            if (visit.lastTimestamp != null && !position.getTimestamp().isAfter(visit.lastTimestamp)) {
+                return;
+            }
+            visit.lastTimestamp = position.getTimestamp();
+
+            if (visit.stop != null) {
+                StopIndex.StopPoint current = index.get(visit.stop.stopId());
+                if (current != null && distance(current, position) <= departureRadiusMeters) {
+                    if (!visit.arrived && qualifiesAsArrival(visit, position)) {
+                        arrived = arrive(visit, position);
+                    }
+                } else {
+                    if (visit.arrived) {
+                        departed = depart(visit, position);
+                    }
+                    visit.stop = null;
+                }
+            }
+
+            if (visit.stop == null && arrived == null) {
+                StopIndex.StopPoint nearest = index.nearest(position.getLatitude(), position.getLongitude(), arrivalRadiusMeters);
+                if (nearest != null) {
+                    visit.stop = nearest;
+                    visit.enteredAt = position.getTimestamp();
+                    visit.arrived = false;
+                    if (qualifiesAsArrival(visit, position)) {
+                        arrived = arrive(visit, position);
+                    }
+                }
+            }
+        }
+
+        // Publication hors du verrou du bus
+        if (departed != null) {
+            locationEventProducer.publishBusDeparted(departed);
+        }
+        if (arrived != null) {
+            locationEventProducer.publishBusArrived(arrived);
+        }
+    }
+
+    /**
+     * Dernière arrivée confirmée du bus (la ligne est celle déduite à cet arrêt)
+     *
+     * @return null si aucune arrivée n'a encore été détectée
+     */
+    public StopArrival lastArrival(Long busId) {
+        StopVisit visit = visits.get(busId);
+        return visit != null ? visit.lastArrival : null;
+    }
+
+    private boolean qualifiesAsArrival(StopVisit visit, PositionBus position) {
+        return position.getVitesse() <= arrivalMaxSpeedKmh
+                || Duration.between(visit.enteredAt, position.getTimestamp()).compareTo(minDwell) >= 0;
+    }
+
+    private BusArrivedAtStopEvent arrive(StopVisit visit, PositionBus position) {
+        visit.arrived = true;
+        visit.route = selectRoute(visit.stop, visit.route, visit.previousStop);
+        visit.lastArrival = new StopArrival(visit.route != null ? visit.route.routeId() : null,
+                visit.stop.stopId(), position.getTimestamp());
+        return BusArrivedAtStopEvent.builder()
+                .busId(String.valueOf(position.getBusId()))
+                .stopId(String.valueOf(visit.stop.stopId()))
+                .stopName(visit.stop.stopName())
+                .routeName(visit.route != null ? visit.route.routeName() : null)
+                .arrivedAt(position.getTimestamp())
+                .build();
+    }
+
+    private BusDepartedFromStopEvent depart(StopVisit visit, PositionBus position) {
+        visit.arrived = false;
+        visit.previousStop = visit.stop;
+        return BusDepartedFromStopEvent.builder()
+                .busId(String.valueOf(position.getBusId()))
+                .stopId(String.valueOf(visit.stop.stopId()))
+                .stopName(visit.stop.stopName())
+                .nextStopName(visit.route != null ? visit.route.nextStopName() : null)
+                .routeName(visit.route != null ? visit.route.routeName() : null)
+                .departedAt(position.getTimestamp())
+                .build();
+    }
+
+    /**
+     * Ligne la plus probable du bus à cet arrêt : la ligne déjà suivie si elle dessert l'arrêt,
+     * sinon une ligne sur laquelle cet arrêt suit le précédent arrêt visité, sinon la première.
+     */
+    static StopIndex.RouteStopRef selectRoute(StopIndex.StopPoint stop, StopIndex.RouteStopRef currentRoute,
+                                              StopIndex.StopPoint previousStop) {
+        if (stop.routes().isEmpty()) {
+            return null;
+        }
+        if (currentRoute != null) {
+            for (StopIndex.RouteStopRef ref : stop.routes()) {
+                if (ref.routeId().equals(currentRoute.routeId())) {
+                    return ref;
+                }
+            }
+        }
+        if (previousStop != null) {
+            for (StopIndex.RouteStopRef previous : previousStop.routes()) {
+                if (stop.stopId().equals(previous.nextStopId())) {
+                    for (StopIndex.RouteStopRef ref : stop.routes()) {
+                        if (ref.routeId().equals(previous.routeId())) {
+                            return ref;
+                        }
+                    }
+                }
+            }
+        }
+        return stop.routes().get(0);
+    }
+
+    private double distance(StopIndex.StopPoint stop, PositionBus position) {
+        return GeoUtils.approxDistanceMeters(stop.latitude(), stop.longitude(),
+                position.getLatitude(), position.getLongitude());
+    }
+
+    /**
+     * État de visite d'un bus (accès sous verrou de l'instance)
+     */
+    private static final class StopVisit {
+        private StopIndex.StopPoint stop;
+        private LocalDateTime enteredAt;
+        private boolean arrived;
+        private StopIndex.RouteStopRef route;
+        private StopIndex.StopPoint previousStop;
+        private LocalDateTime lastTimestamp;
+        // Lu sans verrou par lastArrival()
+        private volatile StopArrival lastArrival;
+    }
+}
@@ -0,0 +1,184 @@
+package com.geolocation_service.geolocation_service.service;
+
+import com.geolocation_service.geolocation_service.util.GeoUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index spatial immuable des arrêts du réseau (grille régulière).
+ * <p>
+ * Chaque arrêt est rangé dans une cellule d'environ {@code cellSizeMeters} de côté ;
+ * une recherche dans un rayon inférieur à la taille de cellule n'examine que les
+ * 9 cellules voisines, soit quelques arrêts, en O(1) quelle que soit la taille du réseau.
+ * Une nouvelle instance est construite à chaque rechargement du réseau.
+ */
+public final class StopIndex {
+
+    /**
+     * Passage d'une ligne par un arrêt
+     *
+     * @param nextStopId arrêt suivant sur la ligne (null pour le terminus d'une ligne non circulaire)
+     */
+    public record RouteStopRef(Long routeId, String routeName, int sequence, Long nextStopId, String nextStopName) {
+    }
+
+    public record StopPoint(Long stopId, String stopName, double latitude, double longitude, List<RouteStopRef> routes) {
+    }
+
+    /**
+     * Arrêt d'une ligne, avec les valeurs planifiées depuis l'origine
+     */
+    public record LineStop(Long stopId, String stopName, double latitude, double longitude,
+                           double distanceFromOriginMeters, int timeFromOriginSeconds) {
+    }
+
+    /**
+     * Séquence ordonnée des arrêts d'une ligne
+     */
+    public record RouteLine(Long routeId, String routeName, boolean circular, List<LineStop> stops) {
+
+        public int indexOf(Long stopId) {
+            for (int i = 0; i < stops.size(); i++) {
+                if (stops.get(i).stopId().equals(stopId)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Index de l'arrêt suivant, ou -1 au terminus d'une ligne non circulaire
+         */
+        public int nextIndex(int index) {
+            if (index + 1 < stops.size()) {
+                return index + 1;
+            }
+            return circular && stops.size() > 1 ? 0 : -1;
+        }
+    }
+
+    private static final StopIndex EMPTY = new StopIndex(Map.of(), Map.of(), Map.of(), RouteShapeIndex.empty(), 1, 1, 1);
+
+    private final Map<Long, StopPoint[]> cells;
+    private final Map<Long, StopPoint> stopsById;
+    private final Map<Long, RouteLine> routesById;
+    private final RouteShapeIndex shapes;
+    private final double cellSizeMeters;
+    private final double cellDegreesLat;
+    private final double cellDegreesLon;
+
+    private StopIndex(Map<Long, StopPoint[]> cells, Map<Long, StopPoint> stopsById, Map<Long, RouteLine> routesById,
+                      RouteShapeIndex shapes, double cellSizeMeters, double cellDegreesLat, double cellDegreesLon) {
+        this.cells = cells;
+        this.stopsById = stopsById;
+        this.routesById = routesById;
+        this.shapes = shapes;
+        this.cellSizeMeters = cellSizeMeters;
+        this.cellDegreesLat = cellDegreesLat;
+        this.cellDegreesLon = cellDegreesLon;
+    }
+
+    public static StopIndex empty() {
+        return EMPTY;
+    }
+
+    public static StopIndex build(Collection<StopPoint> stops, double cellSizeMeters) {
+        return build(stops, List.of(), cellSizeMeters);
+    }
+
+    public static StopIndex build(Collection<StopPoint> stops, Collection<RouteLine> routes, double cellSizeMeters) {
+        if (stops.isEmpty()) {
+            return EMPTY;
+        }
+        double meanLatitude = stops.stream().mapToDouble(StopPoint::latitude).average().orElse(0);
+        double cellDegreesLat = Math.toDegrees(cellSizeMeters / GeoUtils.EARTH_RADIUS_METERS);
+        double cellDegreesLon = cellDegreesLat / Math.max(Math.cos(Math.toRadians(meanLatitude)), 0.01);
+
+        Map<Long, List<StopPoint>> buckets = new HashMap<>();
+        Map<Long, StopPoint> stopsById = new HashMap<>();
+        for (StopPoint stop : stops) {
+            long key = cellKey(cell(stop.latitude(), cellDegreesLat), cell(stop.longitude(), cellDegreesLon));
+            buckets.computeIfAbsent(key, k -> new ArrayList<>()).add(stop);
+            stopsById.put(stop.stopId(), stop);
+        }
+
+        Map<Long, StopPoint[]> cells = new HashMap<>(buckets.size() * 2);
+        buckets.forEach((key, bucket) -> cells.put(key, bucket.toArray(new StopPoint[0])));
+        Map<Long, RouteLine> routesById = new HashMap<>();
+        routes.forEach(route -> routesById.put(route.routeId(), route));
+        return new StopIndex(cells, stopsById, routesById, RouteShapeIndex.build(routes, cellSizeMeters),
+                cellSizeMeters, cellDegreesLat, cellDegreesLon);
+    }
+
+    /**
+     * Arrêt le plus proche dans un rayon donné
+     *
+     * @return l'arrêt, ou null si aucun arrêt n'est à moins de {@code maxDistanceMeters}
+     */
+    public StopPoint nearest(double latitude, double longitude, double maxDistanceMeters) {
+        if (cells.isEmpty()) {
+            return null;
+        }
+        int row = cell(latitude, cellDegreesLat);
+        int col = cell(longitude, cellDegreesLon);
+        int ring = (int) Math.ceil(maxDistanceMeters / cellSizeMeters);
+
+        StopPoint best = null;
+        double bestDistance = maxDistanceMeters;
+        for (int r = row - ring; r <= row + ring; r++) {
+            for (int c = col - ring; c <= col + ring; c++) {
+                StopPoint[] bucket = cells.get(cellKey(r, c));
+                if (bucket == null) {
+                    continue;
+                }
+                for (StopPoint stop : bucket) {
+                    double distance = GeoUtils.approxDistanceMeters(latitude, longitude, stop.latitude(), stop.longitude());
+                    if (distance <= bestDistance) {
+                        best = stop;
+                        bestDistance = distance;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    public StopPoint get(Long stopId) {
+        return stopsById.get(stopId);
+    }
+
+    public RouteLine route(Long routeId) {
+        return routeId != null ? routesById.get(routeId) : null;
+    }
+
+    /**
+     * Tracés des lignes (polylignes passant par les arrêts successifs)
+     */
+    public RouteShapeIndex shapes() {
+        return shapes;
+    }
+
+    public Collection<StopPoint> stops() {
+        return stopsById.values();
+    }
+
+    public int size() {
+        return stopsById.size();
+    }
+
+    public boolean isEmpty() {
+        return stopsById.isEmpty();
+    }
+
+    static int cell(double degrees, double cellDegrees) {
+        return (int) Math.floor(degrees / cellDegrees);
+    }
+
+    static long cellKey(int row, int col) {
+        return ((long) row << 32) | (col & 0xFFFFFFFFL);
+    }
+}
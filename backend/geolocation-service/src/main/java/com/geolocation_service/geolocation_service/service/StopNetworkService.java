@@ -0,0 +1,139 @@
+package com.geolocation_service.geolocation_service.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Réseau d'arrêts (arrêts et séquences des lignes actives) chargé depuis le schedule-service.
+ * <p>
+ * Le réseau complet est récupéré en un appel ({@code GET /api/routes/details/active}),
+ * transformé en {@link StopIndex} puis publié atomiquement : les lecteurs sur le chemin
+ * d'ingestion ne sont jamais bloqués par un rechargement. Rechargé toutes les
+ * {@code geolocation.stops.refresh-interval-ms} et à chaque {@code route-changed-events}.
+ * En cas d'échec, l'index précédent est conservé.
+ */
+@Service
+@Slf4j
+public class StopNetworkService {
+
+    private final RestTemplate restTemplate;
+    private final String scheduleServiceUrl;
+    private final boolean enabled;
+    private final double cellSizeMeters;
+
+    private volatile StopIndex stopIndex = StopIndex.empty();
+
+    public StopNetworkService(RestTemplate restTemplate,
+                              @Value("${schedule.service.url:http://schedule-service:8082}") String scheduleServiceUrl,
+                              @Value("${geolocation.stops.enabled:true}") boolean enabled,
+                              @Value("${geolocation.stops.index-cell-size-meters:200}") double cellSizeMeters) {
+        this.restTemplate = restTemplate;
+        this.scheduleServiceUrl = scheduleServiceUrl;
+        this.enabled = enabled;
+        this.cellSizeMeters = cellSizeMeters;
+    }
+
+    public StopIndex getStopIndex() {
+        return stopIndex;
+    }
+
+    @Scheduled(fixedDelayString = "${geolocation.stops.refresh-interval-ms:600000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            RouteDetails[] routes = restTemplate.getForObject(
+                    scheduleServiceUrl + "/api/routes/details/active", RouteDetails[].class);
+            if (routes == null) {
+                return;
+            }
+            stopIndex = buildIndex(List.of(routes), cellSizeMeters);
+            log.info("Stop network loaded: {} routes, {} stops", routes.length, stopIndex.size());
+        } catch (Exception e) {
+            log.error("Unable to load stop network from schedule-service: {}", e.getMessage());
+        }
+    }
+
+    static StopIndex buildIndex(List<RouteDetails> routes, double cellSizeMeters) {
+        Map<Long, RouteStopDetail> stops = new LinkedHashMap<>();
+        Map<Long, List<StopIndex.RouteStopRef>> refsByStop = new LinkedHashMap<>();
+        List<StopIndex.RouteLine> lines = new ArrayList<>(routes.size());
+
+        for (RouteDetails route : routes) {
+            if (route.getStops() == null) {
+                continue;
+            }
+            List<RouteStopDetail> ordered = new ArrayList<>(route.getStops().stream()
+                    .filter(stop -> stop.getStopId() != null && stop.getLatitude() != null && stop.getLongitude() != null)
+                    .sorted(Comparator.comparing(RouteStopDetail::getSequenceNumber,
+                            Comparator.nullsLast(Comparator.naturalOrder())))
+                    .toList());
+
+            for (int i = 0; i < ordered.size(); i++) {
+                RouteStopDetail stop = ordered.get(i);
+                RouteStopDetail next = i + 1 < ordered.size() ? ordered.get(i + 1)
+                        : Boolean.TRUE.equals(route.getIsCircular()) && ordered.size() > 1 ? ordered.get(0) : null;
+                stops.putIfAbsent(stop.getStopId(), stop);
+                refsByStop.computeIfAbsent(stop.getStopId(), id -> new ArrayList<>())
+                        .add(new StopIndex.RouteStopRef(route.getId(), route.getRouteName(),
+                                stop.getSequenceNumber() != null ? stop.getSequenceNumber() : i + 1,
+                                next != null ? next.getStopId() : null,
+                                next != null ? next.getStopName() : null));
+            }
+            if (route.getId() != null && !ordered.isEmpty()) {
+                lines.add(new StopIndex.RouteLine(route.getId(), route.getRouteName(),
+                        Boolean.TRUE.equals(route.getIsCircular()), ordered.stream().map(StopNetworkService::toLineStop).toList()));
+            }
+        }
+
+        List<StopIndex.StopPoint> points = new ArrayList<>(stops.size());
+        stops.forEach((stopId, stop) -> points.add(new StopIndex.StopPoint(stopId, stop.getStopName(),
+                stop.getLatitude().doubleValue(), stop.getLongitude().doubleValue(),
+                List.copyOf(refsByStop.get(stopId)))));
+        return StopIndex.build(points, lines, cellSizeMeters);
+    }
+
+    private static StopIndex.LineStop toLineStop(RouteStopDetail stop) {
+        // Le schedule-service exprime la distance en km et le temps en minutes
+        return new StopIndex.LineStop(stop.getStopId(), stop.getStopName(),
+                stop.getLatitude().doubleValue(), stop.getLongitude().doubleValue(),
+                stop.getDistanceFromOrigin() != null ? stop.getDistanceFromOrigin().doubleValue() * 1000 : -1,
+                stop.getTimeFromOrigin() != null ? stop.getTimeFromOrigin() * 60 : -1);
+    }
+
+    /**
+     * Classes internes pour mapper la réponse du schedule-service
+     */
+    @lombok.Data
+    static class RouteDetails {
+        private Long id;
+        private String routeNumber;
+        private String routeName;
+        private Boolean isCircular;
+        private List<RouteStopDetail> stops;
+    }
+
+    @lombok.Data
+    static class RouteStopDetail {
+        private Long stopId;
+        private String stopCode;
+        private String stopName;
+        private BigDecimal latitude;
+        private BigDecimal longitude;
+        private Integer sequenceNumber;
+        private BigDecimal distanceFromOrigin;
+        private Integer timeFromOrigin;
+        private Integer dwellTime;
+    }
+}
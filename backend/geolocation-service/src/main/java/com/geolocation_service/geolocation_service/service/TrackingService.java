@@ -5,17 +5,20 @@ import com.geolocation_service.geolocation_service.model.PositionBus;
 import com.geolocation_service.geolocation_service.repository.PositionBusRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.web.client.HttpClientErrorException;
 
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Service pour enrichir les positions de bus avec les informations
- * complètes provenant du schedule-service
+ * complètes provenant du schedule-service.
+ * <p>
+ * Les informations de bus sont lues depuis {@link BusMetadataCache} : un seul
+ * appel groupé au schedule-service au plus, quel que soit le nombre de positions.
  */
 @Service
 @RequiredArgsConstructor
@@ -23,10 +26,8 @@ import java.util.List;
 public class TrackingService {
 
     private final PositionBusRepository positionBusRepository;
-    private final RestTemplate restTemplate;
-
-    @Value("${schedule.service.url:http://schedule-service:8082}")
-    private String scheduleServiceUrl;
+    private final PositionBusService positionBusService;
+    private final BusMetadataCache busMetadataCache;
 
     /**
      * Récupère toutes les positions de bus et les enrichit avec les informations
@@ -41,48 +42,70 @@ public class TrackingService {
         List<PositionBus> positions = positionBusRepository.findAll();
         log.info("Found {} positions in database", positions.size());
 
-        List<EnrichedPositionDTO> enrichedPositions = new ArrayList<>();
-
+        Set<Long> busIds = new LinkedHashSet<>();
         for (PositionBus position : positions) {
-            try {
-                // Extraire busId depuis l'objet Bus de MongoDB (ancien système)
-                // ou depuis un champ busId direct si disponible
-                Long busId = extractBusId(position);
-                
-                if (busId == null) {
-                    log.warn("Position {} has no valid busId, skipping", position.getIdPosition());
-                    continue;
-                }
+            Long busId = extractBusId(position);
+            if (busId != null) {
+                busIds.add(busId);
+            }
+        }
+        // Un seul appel au schedule-service pour les bus absents du cache
+        Map<Long, EnrichedPositionDTO.BusInfoDTO> busInfos = busMetadataCache.getAll(busIds);
 
-                // Appeler schedule-service pour obtenir les infos complètes du bus
-                EnrichedPositionDTO.BusInfoDTO busInfo = fetchBusInfo(busId);
+        List<EnrichedPositionDTO> enrichedPositions = new ArrayList<>(positions.size());
 
-                // Construire le DTO enrichi
-                EnrichedPositionDTO enriched = EnrichedPositionDTO.builder()
-                        .idPosition(position.getIdPosition())
-                        .busId(busId)
-                        .latitude(position.getLatitude())
-                        .longitude(position.getLongitude())
-                        .altitude(position.getAltitude())
-                        .precision(position.getPrecision())
-                        .vitesse(position.getVitesse())
-                        .direction(position.getDirection())
-                        .timestamp(position.getTimestamp())
-                        .bus(busInfo)
-                        .build();
+        for (PositionBus position : positions) {
+            Long busId = extractBusId(position);
 
-                enrichedPositions.add(enriched);
-                
-            } catch (Exception e) {
-                log.error("Error enriching position {}: {}", position.getIdPosition(), e.getMessage());
-                // Continue avec la prochaine position en cas d'erreur
+            if (busId == null) {
+                log.warn("Position {} has no valid busId, skipping", position.getIdPosition());
+                continue;
             }
+
+            enrichedPositions.add(toEnrichedPosition(position, busId, busInfos.get(busId)));
         }
 
         log.info("Successfully enriched {} positions", enrichedPositions.size());
         return enrichedPositions;
     }
 
+    /**
+     * Dernière position connue d'un bus (registre en mémoire, sinon MongoDB)
+     *
+     * @param busId ID du bus
+     * @return la position, ou null si le bus n'a jamais émis
+     */
+    public PositionBus getLatestPosition(Long busId) {
+        return positionBusService.getLatestPosition(busId);
+    }
+
+    /**
+     * Enrichit une seule position avec les informations du bus (une lecture de cache)
+     *
+     * @param position position à enrichir, d'un bus connu
+     * @return Position enrichie
+     */
+    public EnrichedPositionDTO enrich(PositionBus position) {
+        Long busId = extractBusId(position);
+        return toEnrichedPosition(position, busId, busMetadataCache.get(busId));
+    }
+
+    private EnrichedPositionDTO toEnrichedPosition(PositionBus position, Long busId,
+                                                   EnrichedPositionDTO.BusInfoDTO busInfo) {
+        return EnrichedPositionDTO.builder()
+                .idPosition(position.getIdPosition())
+                .busId(busId)
+                .latitude(position.getLatitude())
+                .longitude(position.getLongitude())
+                .altitude(position.getAltitude())
+                .precision(position.getPrecision())
+                .vitesse(position.getVitesse())
+                .direction(position.getDirection())
+                .timestamp(position.getTimestamp())
+                .bus(busInfo)
+                .build();
+    }
+
     /**
      * Extrait l'ID du bus depuis la position
      * Compatible avec l'ancien système (Bus MongoDB) et le nouveau (busId direct)
@@ -106,84 +129,4 @@ public class TrackingService {
         
         return null;
     }
-
-    /**
-     * Appelle le schedule-service pour obtenir les informations complètes d'un bus
-     *
-     * @param busId ID du bus
-     * @return Informations complètes du bus
-     */
-    private EnrichedPositionDTO.BusInfoDTO fetchBusInfo(Long busId) {
-        String url = scheduleServiceUrl + "/api/buses/" + busId;
-        
-        try {
-            log.debug("Calling schedule-service: {}", url);
-            
-            // Appel REST vers schedule-service
-            BusResponse busResponse = restTemplate.getForObject(url, BusResponse.class);
-            
-            if (busResponse == null) {
-                log.warn("Bus {} not found in schedule-service", busId);
-                return createDefaultBusInfo(busId);
-            }
-
-            // Mapper vers notre DTO
-            return EnrichedPositionDTO.BusInfoDTO.builder()
-                    .id(busResponse.getId())
-                    .busNumber(busResponse.getBusNumber())
-                    .licensePlate(busResponse.getLicensePlate())
-                    .manufacturer(busResponse.getManufacturer())
-                    .model(busResponse.getModel())
-                    .year(busResponse.getYear())
-                    .capacity(busResponse.getCapacity())
-                    .status(busResponse.getStatus())
-                    .seatingCapacity(busResponse.getSeatingCapacity())
-                    .standingCapacity(busResponse.getStandingCapacity())
-                    .hasWifi(busResponse.getHasWifi())
-                    .hasAirConditioning(busResponse.getHasAirConditioning())
-                    .hasGPS(busResponse.getHasGPS())
-                    .notes(busResponse.getNotes())
-                    .build();
-                    
-        } catch (HttpClientErrorException.NotFound e) {
-            log.warn("Bus {} not found in schedule-service (404)", busId);
-            return createDefaultBusInfo(busId);
-        } catch (Exception e) {
-            log.error("Error fetching bus {} from schedule-service: {}", busId, e.getMessage());
-            return createDefaultBusInfo(busId);
-        }
-    }
-
-    /**
-     * Crée un BusInfo par défaut quand le bus n'est pas trouvé dans schedule-service
-     */
-    private EnrichedPositionDTO.BusInfoDTO createDefaultBusInfo(Long busId) {
-        return EnrichedPositionDTO.BusInfoDTO.builder()
-                .id(busId)
-                .busNumber("BUS-" + busId)
-                .status("UNKNOWN")
-                .build();
-    }
-
-    /**
-     * Classe interne pour mapper la réponse du schedule-service
-     */
-    @lombok.Data
-    private static class BusResponse {
-        private Long id;
-        private String busNumber;
-        private String licensePlate;
-        private String manufacturer;
-        private String model;
-        private Integer year;
-        private Integer capacity;
-        private String status;
-        private Integer seatingCapacity;
-        private Integer standingCapacity;
-        private Boolean hasWifi;
-        private Boolean hasAirConditioning;
-        private Boolean hasGPS;
-        private String notes;
-    }
 }
-
@@ -0,0 +1,228 @@
+package com.geolocation_service.geolocation_service.service;
+
+import com.geolocation_service.geolocation_service.dto.TrackPointDTO;
+import com.geolocation_service.geolocation_service.model.HistoriquePosition;
+import com.geolocation_service.geolocation_service.model.PositionBus;
+import com.geolocation_service.geolocation_service.model.TrajetCompresse;
+import com.geolocation_service.geolocation_service.repository.HistoriquePositionRepository;
+import com.geolocation_service.geolocation_service.repository.TrajetCompresseRepository;
+import com.geolocation_service.geolocation_service.util.PolylineCodec;
+import com.geolocation_service.geolocation_service.util.TrajectorySimplifier;
+import com.mongodb.client.result.DeleteResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Compaction des trajets terminés en traces compactes.
+ * <p>
+ * Les trajets sont résumés à l'ingestion par {@link TripStatisticsService} ; ce service leur
+ * ajoute la trace. Périodiquement, les résumés terminés depuis plus de
+ * {@code compact-after-hours} et encore sans trace sont repris par lots, dans l'ordre de fin :
+ * les positions du trajet sont relues (flux trié, champs utiles seulement), simplifiées
+ * ({@link TrajectorySimplifier}, {@code tolerance-meters}), encodées en polyligne delta
+ * ({@link PolylineCodec}) dans {@code trajet_compresse}, puis le résumé est mis à jour avec
+ * la référence de la trace. Un résumé qui a déjà sa trace n'est jamais recompacté.
+ * <p>
+ * Une fois la trace attachée, les positions brutes des trajets terminés depuis plus de
+ * {@code purge-raw-after-days} sont supprimées (0 : conservées jusqu'à
+ * {@code geolocation.positions.storage.retention-days}) : au-delà, l'historique n'est plus
+ * rejouable point par point et ne subsiste que sous forme de trace simplifiée. Les points émis
+ * hors trajet (bus à l'arrêt) suivent la rétention de la collection. Sur une collection
+ * time-series, la suppression par plage d'horodatage demande MongoDB 7.0. Avec plusieurs
+ * instances, seul le leader ({@link LeaderElection}) lance la compaction périodique.
+ */
+@Service
+@Slf4j
+public class TrajectoryCompactionService {
+
+    static final int BATCH_SIZE = 100;
+
+    private final MongoTemplate mongoTemplate;
+    private final HistoriquePositionRepository historiqueRepository;
+    private final TrajetCompresseRepository trajetCompresseRepository;
+    private final LeaderElection leaderElection;
+    private final boolean enabled;
+    private final double toleranceMeters;
+    private final Duration compactAfter;
+    private final Duration lookback;
+    private final Duration purgeRawAfter;
+
+    public TrajectoryCompactionService(MongoTemplate mongoTemplate,
+                                       HistoriquePositionRepository historiqueRepository,
+                                       TrajetCompresseRepository trajetCompresseRepository,
+                                       LeaderElection leaderElection,
+                                       @Value("${geolocation.history.compaction.enabled:true}") boolean enabled,
+                                       @Value("${geolocation.history.compaction.tolerance-meters:10}") double toleranceMeters,
+                                       @Value("${geolocation.history.compaction.compact-after-hours:24}") long compactAfterHours,
+                                       @Value("${geolocation.history.compaction.lookback-days:7}") long lookbackDays,
+                                       @Value("${geolocation.history.compaction.purge-raw-after-days:30}") long purgeRawAfterDays) {
+        this.mongoTemplate = mongoTemplate;
+        this.historiqueRepository = historiqueRepository;
+        this.trajetCompresseRepository = trajetCompresseRepository;
+        this.leaderElection = leaderElection;
+        this.enabled = enabled;
+        this.toleranceMeters = toleranceMeters;
+        this.compactAfter = Duration.ofHours(compactAfterHours);
+        this.lookback = Duration.ofDays(lookbackDays);
+        this.purgeRawAfter = Duration.ofDays(purgeRawAfterDays);
+    }
+
+    @Scheduled(fixedDelayString = "${geolocation.history.compaction.interval-ms:3600000}",
+            initialDelayString = "${geolocation.history.compaction.initial-delay-ms:300000}")
+    public void scheduledCompaction() {
+        if (!enabled || !leaderElection.isLeader()) {
+            return;
+        }
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            compact(now);
+            purgeRawPositions(now);
+        } catch (Exception e) {
+            log.error("Trajectory compaction failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Ajoute leur trace aux trajets terminés avant {@code now - compact-after-hours}
+     *
+     * @return nombre de trajets compactés
+     */
+    public int compact(LocalDateTime now) {
+        LocalDateTime until = now.minus(compactAfter);
+        Criteria pending = Criteria.where("busId").ne(null)
+                .and("trajetCompresseId").is(null)
+                .and("dateFin").gt(now.minus(lookback)).lte(until);
+
+        int compacted = 0;
+        HistoriquePosition last = null;
+        List<HistoriquePosition> batch;
+        do {
+            batch = mongoTemplate.find(page(pending, last), HistoriquePosition.class);
+            for (HistoriquePosition historique : batch) {
+                try {
+                    compacted += compactTrip(historique);
+                } catch (Exception e) {
+                    // Les autres trajets sont traités ; celui-ci sera repris au prochain passage
+                    log.error("Unable to compact trip {}: {}", historique.getIdHistorique(), e.getMessage());
+                }
+            }
+            // Les trajets non compactés (échec, trop peu de positions) restent derrière le curseur
+            if (!batch.isEmpty()) {
+                last = batch.get(batch.size() - 1);
+            }
+        } while (batch.size() == BATCH_SIZE);
+
+        if (compacted > 0) {
+            log.info("Compacted {} trips", compacted);
+        }
+        return compacted;
+    }
+
+    /**
+     * Supprime les positions brutes des trajets compactés terminés avant {@code now - purge-raw-after-days}
+     *
+     * @return nombre de trajets purgés
+     */
+    public int purgeRawPositions(LocalDateTime now) {
+        if (purgeRawAfter.isZero()) {
+            return 0;
+        }
+        LocalDateTime until = now.minus(purgeRawAfter);
+
+        Criteria compactedBefore = Criteria.where("trajetCompresseId").ne(null)
+                .and("positionsBrutesSupprimees").ne(true)
+                .and("dateFin").lte(until);
+
+        int purged = 0;
+        long deleted = 0;
+        HistoriquePosition last = null;
+        List<HistoriquePosition> batch;
+        do {
+            batch = mongoTemplate.find(page(compactedBefore, last), HistoriquePosition.class);
+            for (HistoriquePosition historique : batch) {
+                try {
+                    DeleteResult result = mongoTemplate.remove(Query.query(Criteria.where("busId").is(historique.getBusId())
+                            .and("timestamp").gte(historique.getDateDebut()).lte(historique.getDateFin())), PositionBus.class);
+                    historique.setPositionsBrutesSupprimees(true);
+                    historiqueRepository.save(historique);
+                    deleted += result.getDeletedCount();
+                    purged++;
+                } catch (Exception e) {
+                    // Repris au prochain passage
+                    log.error("Unable to purge raw positions of trip {}: {}", historique.getIdHistorique(), e.getMessage());
+                }
+            }
+            if (!batch.isEmpty()) {
+                last = batch.get(batch.size() - 1);
+            }
+        } while (batch.size() == BATCH_SIZE);
+
+        if (purged > 0) {
+            log.info("Purged {} raw positions of {} compacted trips", deleted, purged);
+        }
+        return purged;
+    }
+
+    /**
+     * Page de trajets triée sur (dateFin, identifiant), reprise après le dernier trajet de la page
+     * précédente : les trajets de même dateFin que lui, restés au-delà de la limite, ne sont pas sautés
+     */
+    private static Query page(Criteria filter, HistoriquePosition last) {
+        Criteria criteria = filter;
+        if (last != null) {
+            criteria = new Criteria().andOperator(filter, new Criteria().orOperator(
+                    Criteria.where("dateFin").gt(last.getDateFin()),
+                    Criteria.where("dateFin").is(last.getDateFin()).and("idHistorique").gt(last.getIdHistorique())));
+        }
+        return Query.query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, "dateFin", "idHistorique"))
+                .limit(BATCH_SIZE);
+    }
+
+    int compactTrip(HistoriquePosition historique) {
+        Query query = Query.query(Criteria.where("busId").is(historique.getBusId())
+                        .and("timestamp").gte(historique.getDateDebut()).lte(historique.getDateFin()))
+                .with(Sort.by(Sort.Direction.ASC, "timestamp"));
+        query.fields().include("latitude", "longitude", "vitesse", "timestamp");
+
+        List<TrackPointDTO> points = new ArrayList<>();
+        try (Stream<PositionBus> positions = mongoTemplate.stream(query, PositionBus.class)) {
+            positions.forEach(position -> points.add(TrackPointDTO.builder()
+                    .latitude(position.getLatitude())
+                    .longitude(position.getLongitude())
+                    .vitesse(position.getVitesse())
+                    .timestamp(position.getTimestamp())
+                    .build()));
+        }
+        if (points.size() < 2) {
+            return 0;
+        }
+        List<TrackPointDTO> simplified = TrajectorySimplifier.simplify(points, toleranceMeters);
+
+        TrajetCompresse trace = trajetCompresseRepository.save(TrajetCompresse.builder()
+                .busId(historique.getBusId())
+                .dateDebut(points.get(0).getTimestamp())
+                .dateFin(points.get(points.size() - 1).getTimestamp())
+                .nombrePointsOriginaux(points.size())
+                .nombrePoints(simplified.size())
+                .toleranceMetres(toleranceMeters)
+                .polyline(PolylineCodec.encode(simplified))
+                .build());
+
+        historique.setTrajetCompresseId(trace.getId());
+        historiqueRepository.save(historique);
+        return 1;
+    }
+}
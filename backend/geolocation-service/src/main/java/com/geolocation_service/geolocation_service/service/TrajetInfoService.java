@@ -5,20 +5,26 @@ import com.geolocation_service.geolocation_service.model.*;
 import com.geolocation_service.geolocation_service.repository.*;
 import org.springframework.stereotype.Service;
 
-import java.time.Duration;
-import java.time.LocalDateTime;
-import java.util.List;
+import java.util.Optional;
 
+/**
+ * Informations de trajet d'un bus. Les statistiques proviennent des accumulateurs
+ * tenus à jour à l'ingestion ({@link TripStatisticsService}) : aucune relecture de
+ * l'historique des positions par requête.
+ */
 @Service
 public class TrajetInfoService {
 
     private final BusRepository busRepository;
-    private final PositionBusRepository positionBusRepository;
+    private final TripStatisticsService tripStatisticsService;
+    private final EtaService etaService;
 
     public TrajetInfoService(BusRepository busRepository,
-                             PositionBusRepository positionBusRepository) {
+                             TripStatisticsService tripStatisticsService,
+                             EtaService etaService) {
         this.busRepository = busRepository;
-        this.positionBusRepository = positionBusRepository;
+        this.tripStatisticsService = tripStatisticsService;
+        this.etaService = etaService;
     }
 
     public TrajetInfoDTO getTrajetInfo(String busId) {
@@ -26,7 +32,6 @@ public class TrajetInfoService {
         Bus bus = busRepository.findById(busId)
                 .orElseThrow(() -> new RuntimeException("Bus non trouvé avec id: " + busId));
 
-        // Récupérer la dernière position (nouveau système avec Long busId)
         // Convertir String busId en Long pour le nouveau système
         Long busIdLong;
         try {
@@ -34,13 +39,8 @@ public class TrajetInfoService {
         } catch (NumberFormatException e) {
             throw new RuntimeException("ID de bus invalide: " + busId);
         }
-        List<PositionBus> positions = positionBusRepository.findByBusIdOrderByTimestampDesc(busIdLong);
-
-        if (positions.isEmpty()) {
-            throw new RuntimeException("Aucune position trouvée pour le bus: " + busId);
-        }
-
-        PositionBus lastPosition = positions.get(0);
+        TripAccumulator.Snapshot trip = tripStatisticsService.getTrip(busIdLong)
+                .orElseThrow(() -> new RuntimeException("Aucune position trouvée pour le bus: " + busId));
 
         // Créer le DTO
         TrajetInfoDTO dto = new TrajetInfoDTO();
@@ -67,99 +67,28 @@ public class TrajetInfoService {
         }
 
         // Position actuelle
-        dto.setLatitudeActuelle(lastPosition.getLatitude());
-        dto.setLongitudeActuelle(lastPosition.getLongitude());
-        dto.setVitesseActuelle(lastPosition.getVitesse());
-        dto.setDerniereMiseAJour(lastPosition.getTimestamp());
-
-        // Calculer les statistiques du trajet en cours
-        calculerStatistiquesTrajet(dto, busId, lastPosition.getTimestamp());
-
-        return dto;
-    }
-
-    private void calculerStatistiquesTrajet(TrajetInfoDTO dto, String busId, LocalDateTime now) {
-        // Récupérer les positions des 2 dernières heures (nouveau système avec Long busId)
-        // Convertir String busId en Long pour le nouveau système
-        Long busIdLong;
-        try {
-            busIdLong = Long.parseLong(busId);
-        } catch (NumberFormatException e) {
-            // Si conversion échoue, utiliser 0L (ne trouvera rien mais ne plantera pas)
-            busIdLong = 0L;
-        }
-        LocalDateTime debutPeriode = now.minusHours(2);
-        List<PositionBus> positions = positionBusRepository
-                .findByBusIdAndTimestampBetweenOrderByTimestampAsc(busIdLong, debutPeriode, now);
-
-        if (positions.isEmpty()) {
-            dto.setHeureDepart(now);
-            dto.setDistanceParcourue(0.0);
-            dto.setDureeTrajetMinutes(0);
-            dto.setNombreArretsEffectues(0);
-            return;
-        }
-
-        // Heure de départ = timestamp de la première position
-        dto.setHeureDepart(positions.get(0).getTimestamp());
-
-        // Calculer la distance parcourue (formule de Haversine)
-        double distanceTotale = 0.0;
-        for (int i = 1; i < positions.size(); i++) {
-            PositionBus p1 = positions.get(i - 1);
-            PositionBus p2 = positions.get(i);
-            distanceTotale += calculerDistance(
-                    p1.getLatitude(), p1.getLongitude(),
-                    p2.getLatitude(), p2.getLongitude()
-            );
-        }
-        dto.setDistanceParcourue(Math.round(distanceTotale * 100.0) / 100.0);
-
-        // Durée du trajet
-        Duration duree = Duration.between(positions.get(0).getTimestamp(), now);
-        dto.setDureeTrajetMinutes((int) duree.toMinutes());
-
-        // Compter les arrêts (vitesse < 5 km/h pendant plus de 30 secondes)
-        int nombreArrets = compterArrets(positions);
-        dto.setNombreArretsEffectues(nombreArrets);
-
-        // Informations prochaine étape (exemple simplifié)
-        if (dto.getDirection() != null) {
+        dto.setLatitudeActuelle(trip.lastLatitude());
+        dto.setLongitudeActuelle(trip.lastLongitude());
+        dto.setVitesseActuelle(trip.lastVitesse());
+        dto.setDerniereMiseAJour(trip.lastTimestamp());
+
+        // Statistiques du trajet en cours
+        dto.setHeureDepart(trip.tripStart());
+        dto.setDistanceParcourue(Math.round(trip.distanceKm() * 100.0) / 100.0);
+        dto.setDureeTrajetMinutes((int) trip.tripDuration().toMinutes());
+        dto.setNombreArretsEffectues(trip.stopCount());
+
+        // Informations prochaine étape (ETA tenue à jour à l'ingestion)
+        Optional<StopEtaDTO> nextStop = etaService.getNextStop(busIdLong);
+        if (nextStop.isPresent()) {
+            dto.setProchainArret(nextStop.get().getStopName());
+            double distanceKm = etaService.getDistanceToNextStopMeters(busIdLong) / 1000.0;
+            dto.setDistanceProchainArret(Math.max(0, Math.round(distanceKm * 100.0) / 100.0));
+            dto.setTempsEstimeProchainArret((int) Math.ceil(nextStop.get().getSecondsAway() / 60.0));
+        } else if (dto.getDirection() != null) {
             dto.setProchainArret(dto.getDirection().getPointArrivee());
-            dto.setDistanceProchainArret(5.2); // À calculer avec vraies coordonnées
-            dto.setTempsEstimeProchainArret(15); // À calculer avec vitesse moyenne
-        }
-    }
-
-    private double calculerDistance(double lat1, double lon1, double lat2, double lon2) {
-        // Formule de Haversine pour calculer la distance entre deux points GPS
-        final int R = 6371; // Rayon de la Terre en km
-
-        double latDistance = Math.toRadians(lat2 - lat1);
-        double lonDistance = Math.toRadians(lon2 - lon1);
-
-        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
-                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
-                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
-
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-
-        return R * c; // Distance en km
-    }
-
-    private int compterArrets(List<PositionBus> positions) {
-        int arrets = 0;
-        boolean enArret = false;
-
-        for (PositionBus position : positions) {
-            if (position.getVitesse() < 5 && !enArret) {
-                arrets++;
-                enArret = true;
-            } else if (position.getVitesse() >= 5) {
-                enArret = false;
-            }
         }
 
-        return arrets;
+        return dto;
     }
-}
\ No newline at end of file
+}
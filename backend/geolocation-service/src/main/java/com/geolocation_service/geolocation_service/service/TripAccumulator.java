@@ -0,0 +1,237 @@
+package com.geolocation_service.geolocation_service.service;
+
+import com.geolocation_service.geolocation_service.model.PositionBus;
+import com.geolocation_service.geolocation_service.model.TripCheckpoint;
+import com.geolocation_service.geolocation_service.util.GeoUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Statistiques cumulées du trajet en cours d'un bus, mises à jour position par position.
+ * <p>
+ * Un trajet commence à la première position reçue et se termine quand le bus
+ * n'émet plus pendant plus de {@code maxGap} (la position suivante ouvre un
+ * nouveau trajet), ou quand il est recalé sur une autre ligne que celle du trajet
+ * (changement de ligne ou de sens au terminus). Le trajet terminé est mis de côté
+ * pour {@link #drainClosedTrip()}. Un arrêt est compté à chaque passage sous
+ * {@code stopSpeedKmh}. Les positions plus anciennes que la dernière prise en
+ * compte sont ignorées.
+ * <p>
+ * Un accumulateur reconstruit depuis une fenêtre d'historique peut commencer au milieu
+ * d'un trajet ({@link #markTripPartial()}) : ce premier trajet, dont le vrai départ est
+ * inconnu, n'est jamais mis de côté pour être résumé.
+ * <p>
+ * Entre deux positions recalées sur le même tracé ({@link MapMatcher}), la distance
+ * parcourue est l'écart d'abscisses : le bruit GPS latéral n'est plus compté. Un léger
+ * recul (bruit le long du tracé) compte pour zéro ; un écart incohérent avec le
+ * déplacement brut (retour à l'origine d'une ligne circulaire, mauvais recalage)
+ * retombe sur la distance à vol d'oiseau.
+ */
+public final class TripAccumulator {
+
+    /**
+     * Recul le long du tracé attribué au bruit GPS plutôt qu'à un mauvais recalage
+     */
+    private static final double BACKTRACK_TOLERANCE_METERS = 30;
+
+    /**
+     * Écart d'abscisses maximal accepté, relativement au déplacement à vol d'oiseau
+     */
+    private static final double MAX_OFFSET_STRETCH = 3;
+
+    private final Long busId;
+
+    private LocalDateTime tripStart;
+    private Long tripRouteId;
+    private boolean tripClosed;
+    private boolean tripPartial;
+    private double distanceKm;
+    private int stopCount;
+    private boolean stopped;
+
+    private double lastLatitude;
+    private double lastLongitude;
+    private double lastVitesse;
+    private LocalDateTime lastTimestamp;
+    private Long lastRouteId;
+    private Double lastRouteOffset;
+
+    private boolean dirty;
+    private Snapshot closedTrip;
+
+    TripAccumulator(Long busId) {
+        this.busId = busId;
+    }
+
+    static TripAccumulator fromCheckpoint(TripCheckpoint checkpoint) {
+        TripAccumulator accumulator = new TripAccumulator(checkpoint.getBusId());
+        accumulator.tripStart = checkpoint.getTripStart();
+        accumulator.tripRouteId = checkpoint.getTripRouteId();
+        accumulator.tripClosed = checkpoint.isTripClosed();
+        accumulator.tripPartial = checkpoint.isTripPartial();
+        accumulator.distanceKm = checkpoint.getDistanceKm();
+        accumulator.stopCount = checkpoint.getStopCount();
+        accumulator.stopped = checkpoint.isStopped();
+        accumulator.lastLatitude = checkpoint.getLastLatitude();
+        accumulator.lastLongitude = checkpoint.getLastLongitude();
+        accumulator.lastVitesse = checkpoint.getLastVitesse();
+        accumulator.lastTimestamp = checkpoint.getLastTimestamp();
+        accumulator.lastRouteId = checkpoint.getLastRouteId();
+        accumulator.lastRouteOffset = checkpoint.getLastRouteOffset();
+        return accumulator;
+    }
+
+    /**
+     * Intègre une position
+     *
+     * @return false si la position a été ignorée (pas plus récente que la dernière)
+     */
+    synchronized boolean apply(PositionBus position, Duration maxGap, double stopSpeedKmh) {
+        LocalDateTime timestamp = position.getTimestamp();
+        if (timestamp == null || (lastTimestamp != null && !timestamp.isAfter(lastTimestamp))) {
+            return false;
+        }
+
+        if (lastTimestamp == null || Duration.between(lastTimestamp, timestamp).compareTo(maxGap) > 0
+                || changesRoute(position)) {
+            if (lastTimestamp != null && !tripClosed && !tripPartial) {
+                closedTrip = snapshot();
+            }
+            // Seul le trajet ouvert par la première position peut être partiel
+            tripPartial = tripPartial && lastTimestamp == null;
+            tripStart = timestamp;
+            tripRouteId = position.getMatchedRouteId();
+            tripClosed = false;
+            distanceKm = 0.0;
+            stopCount = 0;
+            stopped = false;
+        } else {
+            distanceKm += stepMeters(position) / 1000.0;
+            if (tripRouteId == null) {
+                tripRouteId = position.getMatchedRouteId();
+            }
+        }
+
+        if (position.getVitesse() < stopSpeedKmh) {
+            if (!stopped) {
+                stopCount++;
+                stopped = true;
+            }
+        } else {
+            stopped = false;
+        }
+
+        lastLatitude = position.getLatitude();
+        lastLongitude = position.getLongitude();
+        lastVitesse = position.getVitesse();
+        lastTimestamp = timestamp;
+        lastRouteId = position.getMatchedRouteId();
+        lastRouteOffset = position.getRouteOffsetMeters();
+        dirty = true;
+        return true;
+    }
+
+    private boolean changesRoute(PositionBus position) {
+        return tripRouteId != null && position.getMatchedRouteId() != null
+                && !tripRouteId.equals(position.getMatchedRouteId());
+    }
+
+    /**
+     * Le trajet ouvert par la première position a commencé avant celle-ci : il ne sera pas résumé
+     */
+    synchronized void markTripPartial() {
+        tripPartial = true;
+    }
+
+    /**
+     * Termine le trajet en cours si le bus n'a plus émis depuis {@code idleBefore}
+     *
+     * @return le trajet terminé, ou null s'il est encore actif, déjà terminé ou partiel
+     */
+    synchronized Snapshot closeIfIdle(LocalDateTime idleBefore) {
+        if (tripClosed || lastTimestamp == null || !lastTimestamp.isBefore(idleBefore)) {
+            return null;
+        }
+        tripClosed = true;
+        dirty = true;
+        return tripPartial ? null : snapshot();
+    }
+
+    /**
+     * Retourne puis oublie le dernier trajet terminé par {@link #apply}
+     */
+    synchronized Snapshot drainClosedTrip() {
+        Snapshot closed = closedTrip;
+        closedTrip = null;
+        return closed;
+    }
+
+    private double stepMeters(PositionBus position) {
+        if (lastRouteOffset == null || position.getRouteOffsetMeters() == null
+                || lastRouteId == null || !lastRouteId.equals(position.getMatchedRouteId())) {
+            return GeoUtils.distanceMeters(lastLatitude, lastLongitude, position.getLatitude(), position.getLongitude());
+        }
+        double along = position.getRouteOffsetMeters() - lastRouteOffset;
+        double straight = GeoUtils.approxDistanceMeters(lastLatitude, lastLongitude,
+                position.getLatitude(), position.getLongitude());
+        if (along < -BACKTRACK_TOLERANCE_METERS || along > straight * MAX_OFFSET_STRETCH + BACKTRACK_TOLERANCE_METERS) {
+            return straight;
+        }
+        return Math.max(0, along);
+    }
+
+    synchronized Snapshot snapshot() {
+        return new Snapshot(busId, tripStart, tripRouteId, distanceKm, stopCount, stopped,
+                lastLatitude, lastLongitude, lastVitesse, lastTimestamp);
+    }
+
+    /**
+     * Checkpoint à sauvegarder si l'accumulateur a changé depuis le précédent, sinon null
+     */
+    synchronized TripCheckpoint drainCheckpoint() {
+        if (!dirty) {
+            return null;
+        }
+        dirty = false;
+        return TripCheckpoint.builder()
+                .busId(busId)
+                .tripStart(tripStart)
+                .tripRouteId(tripRouteId)
+                .tripClosed(tripClosed)
+                .tripPartial(tripPartial)
+                .distanceKm(distanceKm)
+                .stopCount(stopCount)
+                .stopped(stopped)
+                .lastLatitude(lastLatitude)
+                .lastLongitude(lastLongitude)
+                .lastVitesse(lastVitesse)
+                .lastTimestamp(lastTimestamp)
+                .lastRouteId(lastRouteId)
+                .lastRouteOffset(lastRouteOffset)
+                .build();
+    }
+
+    synchronized void markDirty() {
+        dirty = true;
+    }
+
+    /**
+     * Vue figée de l'accumulateur
+     */
+    public record Snapshot(Long busId,
+                           LocalDateTime tripStart,
+                           Long routeId,
+                           double distanceKm,
+                           int stopCount,
+                           boolean stopped,
+                           double lastLatitude,
+                           double lastLongitude,
+                           double lastVitesse,
+                           LocalDateTime lastTimestamp) {
+
+        public Duration tripDuration() {
+            return Duration.between(tripStart, lastTimestamp);
+        }
+    }
+}
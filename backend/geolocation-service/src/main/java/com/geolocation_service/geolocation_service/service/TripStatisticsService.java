@@ -0,0 +1,254 @@
+package com.geolocation_service.geolocation_service.service;
+
+import com.geolocation_service.geolocation_service.model.HistoriquePosition;
+import com.geolocation_service.geolocation_service.model.PositionBus;
+import com.geolocation_service.geolocation_service.model.TripCheckpoint;
+import com.geolocation_service.geolocation_service.repository.HistoriquePositionRepository;
+import com.geolocation_service.geolocation_service.repository.PositionBusRepository;
+import com.geolocation_service.geolocation_service.repository.TripCheckpointRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Statistiques de trajet maintenues incrémentalement à l'ingestion des positions.
+ * <p>
+ * Chaque bus possède un {@link TripAccumulator} (distance cumulée, état roulant/arrêté,
+ * nombre d'arrêts, heure de départ) mis à jour en O(1) par position : la lecture des
+ * statistiques ne relit plus l'historique. Les accumulateurs modifiés sont sauvegardés
+ * toutes les {@code geolocation.trips.checkpoint-interval-ms} dans {@code trip_checkpoint} ;
+ * au démarrage ils sont rechargés puis complétés avec les positions reçues depuis.
+ * Un bus inconnu (jamais vu depuis le démarrage, sans checkpoint) est reconstruit une
+ * fois depuis ses positions des {@code geolocation.trips.rebuild-window-hours} dernières heures ;
+ * si la fenêtre commence au milieu d'un trajet, ce trajet tronqué n'est jamais résumé
+ * (son résumé, sous l'identifiant de son vrai départ, compterait sinon la distance en double).
+ * <p>
+ * Chaque trajet terminé (nouveau trajet après un silence ou un changement de ligne, ou bus
+ * inactif depuis plus de {@code max-gap-minutes} au checkpoint) est résumé en un
+ * {@link HistoriquePosition} écrit au checkpoint suivant. Son identifiant est dérivé du bus
+ * et de l'heure de départ : une réécriture (rejeu après redémarrage) remplace le résumé
+ * au lieu de le dupliquer. Les rapports lisent ces résumés, pas les positions brutes.
+ */
+@Service
+@Slf4j
+public class TripStatisticsService implements PositionIngestListener, ApplicationRunner {
+
+    private final PositionBusRepository positionBusRepository;
+    private final TripCheckpointRepository tripCheckpointRepository;
+    private final HistoriquePositionRepository historiqueRepository;
+    private final Map<Long, TripAccumulator> accumulators = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<HistoriquePosition> pendingRollups = new ConcurrentLinkedQueue<>();
+    private final Duration maxGap;
+    private final double stopSpeedKmh;
+    private final Duration rebuildWindow;
+    private final boolean restoreOnStartup;
+
+    public TripStatisticsService(PositionBusRepository positionBusRepository,
+                                 TripCheckpointRepository tripCheckpointRepository,
+                                 HistoriquePositionRepository historiqueRepository,
+                                 @Value("${geolocation.trips.max-gap-minutes:30}") long maxGapMinutes,
+                                 @Value("${geolocation.trips.stop-speed-kmh:5}") double stopSpeedKmh,
+                                 @Value("${geolocation.trips.rebuild-window-hours:2}") long rebuildWindowHours,
+                                 @Value("${geolocation.trips.restore-on-startup:true}") boolean restoreOnStartup) {
+        this.positionBusRepository = positionBusRepository;
+        this.tripCheckpointRepository = tripCheckpointRepository;
+        this.historiqueRepository = historiqueRepository;
+        this.maxGap = Duration.ofMinutes(maxGapMinutes);
+        this.stopSpeedKmh = stopSpeedKmh;
+        this.rebuildWindow = Duration.ofHours(rebuildWindowHours);
+        this.restoreOnStartup = restoreOnStartup;
+    }
+
+    @Override
+    public void onPosition(PositionBus position) {
+        if (position.getBusId() == null) {
+            return;
+        }
+        apply(accumulators.computeIfAbsent(position.getBusId(), TripAccumulator::new), position);
+    }
+
+    private boolean apply(TripAccumulator accumulator, PositionBus position) {
+        boolean applied = accumulator.apply(position, maxGap, stopSpeedKmh);
+        if (applied) {
+            enqueueRollup(accumulator.drainClosedTrip());
+        }
+        return applied;
+    }
+
+    private void enqueueRollup(TripAccumulator.Snapshot trip) {
+        if (trip == null || trip.tripStart() == null || !trip.lastTimestamp().isAfter(trip.tripStart())) {
+            // Position isolée : pas un trajet
+            return;
+        }
+        HistoriquePosition rollup = new HistoriquePosition();
+        rollup.setIdHistorique(trip.busId() + "_" + trip.tripStart());
+        rollup.setBusId(trip.busId());
+        rollup.setRouteId(trip.routeId());
+        rollup.setDateDebut(trip.tripStart());
+        rollup.setDateFin(trip.lastTimestamp());
+        rollup.setDistanceParcourue(Math.round(trip.distanceKm() * 100.0) / 100.0);
+        rollup.setDureeTrajet((int) trip.tripDuration().toMinutes());
+        rollup.setNombreArrets(trip.stopCount());
+        pendingRollups.add(rollup);
+    }
+
+    /**
+     * Statistiques du trajet en cours d'un bus
+     *
+     * @return vide si le bus n'a aucune position récente
+     */
+    public Optional<TripAccumulator.Snapshot> getTrip(Long busId) {
+        TripAccumulator accumulator = accumulators.get(busId);
+        if (accumulator == null) {
+            accumulator = rebuild(busId);
+            if (accumulator == null) {
+                return Optional.empty();
+            }
+        }
+        return Optional.of(accumulator.snapshot());
+    }
+
+    /**
+     * Reconstruit l'accumulateur d'un bus depuis la fin de son historique de positions
+     */
+    private TripAccumulator rebuild(Long busId) {
+        LocalDateTime now = LocalDateTime.now();
+        List<PositionBus> positions = positionBusRepository
+                .findByBusIdAndTimestampBetweenOrderByTimestampAsc(busId, now.minus(rebuildWindow), now);
+        if (positions.isEmpty()) {
+            return null;
+        }
+        TripAccumulator rebuilt = new TripAccumulator(busId);
+        if (startsMidTrip(busId, positions.get(0).getTimestamp())) {
+            rebuilt.markTripPartial();
+        }
+        positions.forEach(position -> apply(rebuilt, position));
+        // Une position ingérée entre-temps a pu créer l'accumulateur : il prime
+        TripAccumulator existing = accumulators.putIfAbsent(busId, rebuilt);
+        return existing != null ? existing : rebuilt;
+    }
+
+    /**
+     * Le bus a émis moins de {@code maxGap} avant {@code firstTimestamp} : le trajet était déjà en cours
+     */
+    private boolean startsMidTrip(Long busId, LocalDateTime firstTimestamp) {
+        return positionBusRepository.findFirstByBusIdAndTimestampBeforeOrderByTimestampDesc(busId, firstTimestamp)
+                .map(previous -> Duration.between(previous.getTimestamp(), firstTimestamp).compareTo(maxGap) <= 0)
+                .orElse(false);
+    }
+
+    /**
+     * Termine les trajets des bus inactifs, écrit les trajets terminés puis sauvegarde
+     * les accumulateurs modifiés depuis le précédent checkpoint.
+     * Les checkpoints ne sont écrits qu'une fois les trajets terminés enregistrés : un
+     * redémarrage entre les deux rejoue le trajet depuis le checkpoint précédent.
+     *
+     * @return nombre de checkpoints écrits
+     */
+    @Scheduled(fixedDelayString = "${geolocation.trips.checkpoint-interval-ms:60000}")
+    public int checkpoint() {
+        LocalDateTime idleBefore = LocalDateTime.now().minus(maxGap);
+        for (TripAccumulator accumulator : accumulators.values()) {
+            enqueueRollup(accumulator.closeIfIdle(idleBefore));
+        }
+        if (!flushRollups()) {
+            return 0;
+        }
+
+        List<TripAccumulator> drained = new ArrayList<>();
+        List<TripCheckpoint> checkpoints = new ArrayList<>();
+        for (TripAccumulator accumulator : accumulators.values()) {
+            TripCheckpoint checkpoint = accumulator.drainCheckpoint();
+            if (checkpoint != null) {
+                drained.add(accumulator);
+                checkpoints.add(checkpoint);
+            }
+        }
+        if (checkpoints.isEmpty()) {
+            return 0;
+        }
+        try {
+            tripCheckpointRepository.saveAll(checkpoints);
+            log.debug("Saved {} trip checkpoints", checkpoints.size());
+            return checkpoints.size();
+        } catch (Exception e) {
+            // Retenter au prochain passage
+            drained.forEach(TripAccumulator::markDirty);
+            log.error("Unable to save trip checkpoints: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Écrit les trajets terminés en attente
+     *
+     * @return false si l'écriture a échoué (les trajets seront réécrits au prochain passage)
+     */
+    private boolean flushRollups() {
+        List<HistoriquePosition> rollups = new ArrayList<>();
+        HistoriquePosition rollup;
+        while ((rollup = pendingRollups.poll()) != null) {
+            rollups.add(rollup);
+        }
+        if (rollups.isEmpty()) {
+            return true;
+        }
+        try {
+            historiqueRepository.saveAll(rollups);
+            log.debug("Saved {} trip rollups", rollups.size());
+            return true;
+        } catch (Exception e) {
+            pendingRollups.addAll(rollups);
+            log.error("Unable to save trip rollups: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!restoreOnStartup) {
+            return;
+        }
+        try {
+            restore();
+        } catch (Exception e) {
+            // Les trajets seront reconstruits à la demande
+            log.error("Unable to restore trip accumulators: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Recharge les checkpoints des trajets possiblement en cours et rejoue les positions reçues depuis.
+     * Les trajets interrompus par un arrêt du service sont rechargés aussi : le prochain checkpoint
+     * les termine et les résume.
+     */
+    void restore() {
+        LocalDateTime now = LocalDateTime.now();
+        List<TripCheckpoint> checkpoints = tripCheckpointRepository.findByLastTimestampAfterOrTripClosedFalse(now.minus(maxGap));
+        int replayed = 0;
+        for (TripCheckpoint checkpoint : checkpoints) {
+            TripAccumulator accumulator = TripAccumulator.fromCheckpoint(checkpoint);
+            List<PositionBus> tail = positionBusRepository.findByBusIdAndTimestampBetweenOrderByTimestampAsc(
+                    checkpoint.getBusId(), checkpoint.getLastTimestamp(), now);
+            for (PositionBus position : tail) {
+                if (apply(accumulator, position)) {
+                    replayed++;
+                }
+            }
+            accumulators.putIfAbsent(checkpoint.getBusId(), accumulator);
+        }
+        log.info("Restored {} trip accumulators ({} positions replayed)", checkpoints.size(), replayed);
+    }
+}
@@ -0,0 +1,199 @@
+package com.geolocation_service.geolocation_service.service;
+
+import com.geolocation_service.geolocation_service.dto.ViewportRequest;
+import com.geolocation_service.geolocation_service.model.PositionBus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongConsumer;
+
+/**
+ * Abonnements des clients de la carte temps réel à une zone affichée (viewport).
+ * <p>
+ * Chaque session STOMP déclare le rectangle qu'elle affiche, et éventuellement des lignes à
+ * suivre ; elle ne reçoit alors que les bus visibles au lieu de toute la flotte. Les viewports
+ * sont indexés sur une grille de {@code geolocation.viewport.cell-size-degrees} : à chaque tick,
+ * une position modifiée n'est testée que contre les sessions dont le viewport recouvre sa cellule.
+ * Un viewport couvrant plus de {@code max-cells} cellules (carte très dézoomée) est testé contre
+ * chaque position plutôt que d'être inscrit dans toutes ses cellules.
+ * <p>
+ * Un bus est aussi envoyé aux sessions où se trouvait sa position précédente, pour que le client
+ * le voie quitter son viewport. Les sessions sont oubliées à leur déconnexion.
+ */
+@Component
+public class ViewportSubscriptionRegistry {
+
+    /**
+     * Rectangle affiché par un client et lignes suivies (vide : toutes les lignes)
+     */
+    public record Viewport(double minLat, double minLon, double maxLat, double maxLon, Set<Long> routeIds) {
+
+        public static Viewport of(ViewportRequest request) {
+            return new Viewport(request.getMinLatitude(), request.getMinLongitude(),
+                    request.getMaxLatitude(), request.getMaxLongitude(),
+                    request.getRouteIds() != null ? Set.copyOf(request.getRouteIds()) : Set.of());
+        }
+
+        public boolean accepts(PositionBus position) {
+            return position.getLatitude() >= minLat && position.getLatitude() <= maxLat
+                    && position.getLongitude() >= minLon && position.getLongitude() <= maxLon
+                    && (routeIds.isEmpty()
+                    || position.getMatchedRouteId() != null && routeIds.contains(position.getMatchedRouteId()));
+        }
+    }
+
+    private final double cellDegrees;
+    private final int maxCells;
+    private final Map<String, Viewport> viewports = new ConcurrentHashMap<>();
+    private final Map<Long, Set<String>> sessionsByCell = new ConcurrentHashMap<>();
+    private final Set<String> wideSessions = ConcurrentHashMap.newKeySet();
+    private final Map<Long, PositionBus> lastRouted = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ViewportSubscriptionRegistry(MeterRegistry meterRegistry,
+                                        @Value("${geolocation.viewport.cell-size-degrees:0.01}") double cellDegrees,
+                                        @Value("${geolocation.viewport.max-cells:2500}") int maxCells) {
+        this(meterRegistry, "stomp", cellDegrees, maxCells);
+    }
+
+    /**
+     * Registre propre à un autre transport (flux SSE), compté à part
+     */
+    public ViewportSubscriptionRegistry(MeterRegistry meterRegistry, String transport, double cellDegrees, int maxCells) {
+        this.cellDegrees = cellDegrees;
+        this.maxCells = maxCells;
+        meterRegistry.gauge("geolocation.viewport.subscriptions", Tags.of("transport", transport), viewports, Map::size);
+    }
+
+    /**
+     * Valide un viewport
+     *
+     * @return le motif de rejet, ou null si le viewport est valide
+     */
+    public static String validate(ViewportRequest request) {
+        if (request == null || request.getMinLatitude() == null || request.getMinLongitude() == null
+                || request.getMaxLatitude() == null || request.getMaxLongitude() == null) {
+            return "viewport incomplet";
+        }
+        if (request.getMinLatitude() < -90 || request.getMaxLatitude() > 90
+                || request.getMinLongitude() < -180 || request.getMaxLongitude() > 180) {
+            return "viewport hors limites";
+        }
+        if (request.getMinLatitude() > request.getMaxLatitude() || request.getMinLongitude() > request.getMaxLongitude()) {
+            return "viewport inversé";
+        }
+        if (request.getRouteIds() != null && request.getRouteIds().contains(null)) {
+            return "ligne invalide";
+        }
+        return null;
+    }
+
+    /**
+     * Enregistre ou remplace le viewport d'une session
+     */
+    public void register(String sessionId, Viewport viewport) {
+        remove(sessionId);
+        viewports.put(sessionId, viewport);
+        if (cellCount(viewport) > maxCells) {
+            wideSessions.add(sessionId);
+            return;
+        }
+        forEachCell(viewport, key -> sessionsByCell.compute(key, (k, sessions) -> {
+            Set<String> updated = sessions != null ? sessions : ConcurrentHashMap.newKeySet();
+            updated.add(sessionId);
+            return updated;
+        }));
+    }
+
+    public void remove(String sessionId) {
+        Viewport viewport = viewports.remove(sessionId);
+        if (viewport == null || wideSessions.remove(sessionId)) {
+            return;
+        }
+        forEachCell(viewport, key -> sessionsByCell.computeIfPresent(key, (k, sessions) -> {
+            sessions.remove(sessionId);
+            return sessions.isEmpty() ? null : sessions;
+        }));
+    }
+
+    /**
+     * Une déconnexion peut être publiée plusieurs fois : le retrait est idempotent
+     */
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        remove(event.getSessionId());
+    }
+
+    public Viewport get(String sessionId) {
+        return viewports.get(sessionId);
+    }
+
+    public int size() {
+        return viewports.size();
+    }
+
+    /**
+     * Répartit les positions modifiées d'un tick entre les sessions qui doivent les recevoir
+     *
+     * @return positions à envoyer, par session
+     */
+    public Map<String, List<PositionBus>> route(List<PositionBus> changes) {
+        Map<String, List<PositionBus>> batches = new HashMap<>();
+        Set<String> candidates = new HashSet<>();
+        for (PositionBus position : changes) {
+            PositionBus previous = lastRouted.put(position.getBusId(), position);
+            if (viewports.isEmpty()) {
+                continue;
+            }
+            candidates.clear();
+            collectCandidates(position, candidates);
+            if (previous != null) {
+                collectCandidates(previous, candidates);
+            }
+            candidates.addAll(wideSessions);
+            for (String sessionId : candidates) {
+                Viewport viewport = viewports.get(sessionId);
+                if (viewport != null && (viewport.accepts(position) || (previous != null && viewport.accepts(previous)))) {
+                    batches.computeIfAbsent(sessionId, id -> new ArrayList<>()).add(position);
+                }
+            }
+        }
+        return batches;
+    }
+
+    private void collectCandidates(PositionBus position, Set<String> candidates) {
+        Set<String> sessions = sessionsByCell.get(StopIndex.cellKey(
+                StopIndex.cell(position.getLatitude(), cellDegrees), StopIndex.cell(position.getLongitude(), cellDegrees)));
+        if (sessions != null) {
+            candidates.addAll(sessions);
+        }
+    }
+
+    private long cellCount(Viewport viewport) {
+        long rows = StopIndex.cell(viewport.maxLat(), cellDegrees) - StopIndex.cell(viewport.minLat(), cellDegrees) + 1L;
+        long cols = StopIndex.cell(viewport.maxLon(), cellDegrees) - StopIndex.cell(viewport.minLon(), cellDegrees) + 1L;
+        return rows * cols;
+    }
+
+    private void forEachCell(Viewport viewport, LongConsumer action) {
+        int maxRow = StopIndex.cell(viewport.maxLat(), cellDegrees);
+        int maxCol = StopIndex.cell(viewport.maxLon(), cellDegrees);
+        for (int row = StopIndex.cell(viewport.minLat(), cellDegrees); row <= maxRow; row++) {
+            for (int col = StopIndex.cell(viewport.minLon(), cellDegrees); col <= maxCol; col++) {
+                action.accept(StopIndex.cellKey(row, col));
+            }
+        }
+    }
+}
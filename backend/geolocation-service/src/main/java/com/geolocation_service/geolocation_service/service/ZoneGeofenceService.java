@@ -0,0 +1,241 @@
+package com.geolocation_service.geolocation_service.service;
+
+import com.geolocation_service.geolocation_service.event.BusEnteredZoneEvent;
+import com.geolocation_service.geolocation_service.event.BusExitedZoneEvent;
+import com.geolocation_service.geolocation_service.event.producer.LocationEventProducer;
+import com.geolocation_service.geolocation_service.model.PositionBus;
+import com.geolocation_service.geolocation_service.model.ZoneGeographique;
+import com.geolocation_service.geolocation_service.repository.ZoneGeographiqueRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Géorepérage des bus sur les zones géographiques.
+ * <p>
+ * Les zones actives ayant un polygone sont compilées en {@link ZoneIndex}, publié atomiquement
+ * au démarrage, à chaque création de zone et toutes les {@code geolocation.zones.refresh-interval-ms}
+ * (zones modifiées par une autre instance). À l'ingestion :
+ * <ul>
+ *     <li>{@link #tag(PositionBus)} renseigne la zone du point avant son écriture ;</li>
+ *     <li>{@link #onPosition(PositionBus)} compare les zones du point à celles de la position
+ *     précédente du bus, émet les entrées et sorties de zone et tient à jour l'ensemble des bus
+ *     présents dans chaque zone, lu par {@link #getBusesInZone(String)} sans requête MongoDB ;</li>
+ *     <li>{@link #track(PositionBus)} applique les positions ingérées par les autres instances,
+ *     pour que chaque instance connaisse les bus de toute la flotte dans ses zones.</li>
+ * </ul>
+ */
+@Service
+@Slf4j
+public class ZoneGeofenceService implements PositionIngestListener {
+
+    private final ZoneGeographiqueRepository zoneRepository;
+    private final LocationEventProducer locationEventProducer;
+    private final LatestPositionRegistry latestPositionRegistry;
+    private final Map<Long, BusZones> zonesByBus = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> busesByZone = new ConcurrentHashMap<>();
+
+    private volatile ZoneIndex zoneIndex = ZoneIndex.empty();
+
+    public ZoneGeofenceService(ZoneGeographiqueRepository zoneRepository,
+                               LocationEventProducer locationEventProducer,
+                               LatestPositionRegistry latestPositionRegistry) {
+        this.zoneRepository = zoneRepository;
+        this.locationEventProducer = locationEventProducer;
+        this.latestPositionRegistry = latestPositionRegistry;
+    }
+
+    public ZoneIndex getZoneIndex() {
+        return zoneIndex;
+    }
+
+    @Scheduled(fixedDelayString = "${geolocation.zones.refresh-interval-ms:300000}")
+    public void reload() {
+        try {
+            zoneIndex = buildIndex(zoneRepository.findAll());
+            log.info("Zone index loaded: {} zones", zoneIndex.size());
+        } catch (Exception e) {
+            log.error("Unable to load geographic zones: {}", e.getMessage());
+        }
+    }
+
+    static ZoneIndex buildIndex(List<ZoneGeographique> zones) {
+        List<ZoneIndex.Zone> compiled = new ArrayList<>(zones.size());
+        for (ZoneGeographique zone : zones) {
+            if (zone.isActif() && zone.getPolygone() != null && validatePolygon(zone.getPolygone()) == null) {
+                compiled.add(compile(zone));
+            }
+        }
+        return ZoneIndex.build(compiled);
+    }
+
+    private static ZoneIndex.Zone compile(ZoneGeographique zone) {
+        List<List<Double>> vertices = zone.getPolygone();
+        double[] latitudes = new double[vertices.size()];
+        double[] longitudes = new double[vertices.size()];
+        for (int i = 0; i < vertices.size(); i++) {
+            longitudes[i] = vertices.get(i).get(0);
+            latitudes[i] = vertices.get(i).get(1);
+        }
+        return ZoneIndex.Zone.of(zone.getIdZone(), zone.getNom(), latitudes, longitudes);
+    }
+
+    /**
+     * Valide le polygone d'une zone
+     *
+     * @return le motif de rejet, ou null si le polygone est absent ou valide
+     */
+    public static String validatePolygon(List<List<Double>> polygone) {
+        if (polygone == null) {
+            return null;
+        }
+        if (polygone.size() < 3) {
+            return "polygone de moins de 3 sommets";
+        }
+        for (List<Double> vertex : polygone) {
+            if (vertex == null || vertex.size() < 2 || vertex.get(0) == null || vertex.get(1) == null) {
+                return "sommet invalide (attendu [longitude, latitude])";
+            }
+            if (vertex.get(0) < -180 || vertex.get(0) > 180 || vertex.get(1) < -90 || vertex.get(1) > 90) {
+                return "sommet hors limites";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Renseigne la zone du point (la plus petite si plusieurs zones se chevauchent)
+     */
+    public void tag(PositionBus position) {
+        ZoneIndex index = zoneIndex;
+        if (index.isEmpty()) {
+            return;
+        }
+        ZoneIndex.Zone zone = index.smallestContaining(position.getLatitude(), position.getLongitude());
+        position.setZoneId(zone != null ? zone.zoneId() : null);
+    }
+
+    @Override
+    public void onPosition(PositionBus position) {
+        ZoneIndex index = zoneIndex;
+        List<String> entered = new ArrayList<>();
+        List<String> exited = new ArrayList<>();
+        if (!updateZones(index, position, entered, exited)) {
+            return;
+        }
+
+        // Publication hors du verrou du bus
+        String busId = String.valueOf(position.getBusId());
+        for (String zoneId : exited) {
+            locationEventProducer.publishBusExitedZone(BusExitedZoneEvent.builder()
+                    .busId(busId)
+                    .zoneId(zoneId)
+                    .zoneName(zoneName(index, zoneId))
+                    .latitude(position.getLatitude())
+                    .longitude(position.getLongitude())
+                    .exitedAt(position.getTimestamp())
+                    .build());
+        }
+        for (String zoneId : entered) {
+            locationEventProducer.publishBusEnteredZone(BusEnteredZoneEvent.builder()
+                    .busId(busId)
+                    .zoneId(zoneId)
+                    .zoneName(zoneName(index, zoneId))
+                    .latitude(position.getLatitude())
+                    .longitude(position.getLongitude())
+                    .enteredAt(position.getTimestamp())
+                    .build());
+        }
+    }
+
+    /**
+     * Position d'un bus ingérée par une autre instance ({@link RedisLiveStateSync}) : tient à jour
+     * les bus présents dans chaque zone, sans émettre d'événement (déjà émis par cette instance)
+     */
+    public void track(PositionBus position) {
+        updateZones(zoneIndex, position, new ArrayList<>(), new ArrayList<>());
+    }
+
+    /**
+     * Met à jour les zones du bus et les bus de chaque zone
+     *
+     * @return false si le point est invalide ou n'est pas plus récent que le précédent
+     */
+    private boolean updateZones(ZoneIndex index, PositionBus position, List<String> entered, List<String> exited) {
+        if (position.getBusId() == null || position.getTimestamp() == null) {
+            return false;
+        }
+        Set<String> current = new HashSet<>();
+        for (ZoneIndex.Zone zone : index.containing(position.getLatitude(), position.getLongitude())) {
+            current.add(zone.zoneId());
+        }
+
+        BusZones busZones = zonesByBus.computeIfAbsent(position.getBusId(), busId -> new BusZones());
+        synchronized (busZones) {
+            if (busZones.lastTimestamp != null && !position.getTimestamp().isAfter(busZones.lastTimestamp)) {
+                return false;
+            }
+            busZones.lastTimestamp = position.getTimestamp();
+            for (String zoneId : busZones.zoneIds) {
+                if (!current.contains(zoneId)) {
+                    exited.add(zoneId);
+                }
+            }
+            for (String zoneId : current) {
+                if (!busZones.zoneIds.contains(zoneId)) {
+                    entered.add(zoneId);
+                }
+            }
+            busZones.zoneIds = current;
+            exited.forEach(zoneId -> busesByZone.computeIfPresent(zoneId, (id, buses) -> {
+                buses.remove(position.getBusId());
+                return buses.isEmpty() ? null : buses;
+            }));
+            entered.forEach(zoneId -> busesByZone.compute(zoneId, (id, buses) -> {
+                Set<Long> updated = buses != null ? buses : ConcurrentHashMap.newKeySet();
+                updated.add(position.getBusId());
+                return updated;
+            }));
+        }
+        return true;
+    }
+
+    /**
+     * Dernières positions des bus actifs présents dans une zone
+     */
+    public List<PositionBus> getBusesInZone(String zoneId) {
+        Set<Long> buses = busesByZone.get(zoneId);
+        if (buses == null) {
+            return List.of();
+        }
+        List<PositionBus> positions = new ArrayList<>(buses.size());
+        for (Long busId : buses) {
+            Optional<PositionBus> latest = latestPositionRegistry.getLatest(busId);
+            // Un bus évincé du registre (inactif) n'est plus compté dans la zone
+            latest.ifPresent(positions::add);
+        }
+        return positions;
+    }
+
+    private static String zoneName(ZoneIndex index, String zoneId) {
+        ZoneIndex.Zone zone = index.get(zoneId);
+        return zone != null ? zone.nom() : null;
+    }
+
+    /**
+     * Zones courantes d'un bus (accès sous verrou de l'instance)
+     */
+    private static final class BusZones {
+        private Set<String> zoneIds = Set.of();
+        private LocalDateTime lastTimestamp;
+    }
+}
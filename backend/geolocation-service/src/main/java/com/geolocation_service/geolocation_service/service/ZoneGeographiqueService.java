@@ -1,5 +1,6 @@
 package com.geolocation_service.geolocation_service.service;
 
+import com.geolocation_service.geolocation_service.model.PositionBus;
 import com.geolocation_service.geolocation_service.model.ZoneGeographique;
 import com.geolocation_service.geolocation_service.repository.ZoneGeographiqueRepository;
 import org.springframework.stereotype.Service;
@@ -9,17 +10,43 @@ import java.util.List;
 public class ZoneGeographiqueService {
 
     private final ZoneGeographiqueRepository zoneRepo;
+    private final ZoneGeofenceService zoneGeofenceService;
 
-    public ZoneGeographiqueService(ZoneGeographiqueRepository zoneRepo) {
+    public ZoneGeographiqueService(ZoneGeographiqueRepository zoneRepo, ZoneGeofenceService zoneGeofenceService) {
         this.zoneRepo = zoneRepo;
+        this.zoneGeofenceService = zoneGeofenceService;
     }
 
     public List<ZoneGeographique> getAllZones() {
         return zoneRepo.findAll();
     }
 
+    /**
+     * Valide une zone avant création
+     *
+     * @return le motif de rejet, ou null si la zone est valide
+     */
+    public String validate(ZoneGeographique zone) {
+        if (zone == null) {
+            return "zone vide";
+        }
+        return ZoneGeofenceService.validatePolygon(zone.getPolygone());
+    }
+
+    /**
+     * Enregistre une zone puis recompile l'index de géorepérage
+     */
     public ZoneGeographique createZone(ZoneGeographique zone) {
-        return zoneRepo.save(zone);
+        ZoneGeographique saved = zoneRepo.save(zone);
+        zoneGeofenceService.reload();
+        return saved;
+    }
+
+    /**
+     * Dernières positions des bus actifs présents dans la zone (index temps réel)
+     */
+    public List<PositionBus> getBusesInZone(String idZone) {
+        return zoneGeofenceService.getBusesInZone(idZone);
     }
 
     public ZoneGeographique getZoneByNom(String nom) {
@@ -0,0 +1,219 @@
+package com.geolocation_service.geolocation_service.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index spatial immuable des zones géographiques (R-tree construit par Sort-Tile-Recursive).
+ * <p>
+ * Les zones sont regroupées par paquets de {@code NODE_CAPACITY} rectangles englobants voisins,
+ * niveau par niveau : une recherche ne descend que dans les nœuds dont le rectangle contient le
+ * point, puis teste l'appartenance au polygone (lancer de rayon) des seules zones candidates.
+ * Les coordonnées sont traitées dans le plan (longitude, latitude), suffisant à l'échelle d'une ville.
+ * Une nouvelle instance est construite à chaque rechargement des zones.
+ */
+public final class ZoneIndex {
+
+    /**
+     * Zone compilée : sommets du polygone et rectangle englobant
+     */
+    public record Zone(String zoneId, String nom, double[] latitudes, double[] longitudes,
+                       double minLat, double minLon, double maxLat, double maxLon, double area) {
+
+        public static Zone of(String zoneId, String nom, double[] latitudes, double[] longitudes) {
+            double minLat = Double.MAX_VALUE;
+            double minLon = Double.MAX_VALUE;
+            double maxLat = -Double.MAX_VALUE;
+            double maxLon = -Double.MAX_VALUE;
+            double doubleArea = 0;
+            for (int i = 0, j = latitudes.length - 1; i < latitudes.length; j = i++) {
+                minLat = Math.min(minLat, latitudes[i]);
+                minLon = Math.min(minLon, longitudes[i]);
+                maxLat = Math.max(maxLat, latitudes[i]);
+                maxLon = Math.max(maxLon, longitudes[i]);
+                doubleArea += (longitudes[j] + longitudes[i]) * (latitudes[j] - latitudes[i]);
+            }
+            return new Zone(zoneId, nom, latitudes, longitudes, minLat, minLon, maxLat, maxLon, Math.abs(doubleArea) / 2);
+        }
+
+        /**
+         * Appartenance du point au polygone (lancer de rayon, règle pair-impair)
+         */
+        public boolean contains(double latitude, double longitude) {
+            if (latitude < minLat || latitude > maxLat || longitude < minLon || longitude > maxLon) {
+                return false;
+            }
+            boolean inside = false;
+            for (int i = 0, j = latitudes.length - 1; i < latitudes.length; j = i++) {
+                if ((latitudes[i] > latitude) != (latitudes[j] > latitude)
+                        && longitude < (longitudes[j] - longitudes[i]) * (latitude - latitudes[i])
+                        / (latitudes[j] - latitudes[i]) + longitudes[i]) {
+                    inside = !inside;
+                }
+            }
+            return inside;
+        }
+    }
+
+    static final int NODE_CAPACITY = 8;
+
+    private static final ZoneIndex EMPTY = new ZoneIndex(null, Map.of());
+
+    private final Node root;
+    private final Map<String, Zone> zonesById;
+
+    private ZoneIndex(Node root, Map<String, Zone> zonesById) {
+        this.root = root;
+        this.zonesById = zonesById;
+    }
+
+    public static ZoneIndex empty() {
+        return EMPTY;
+    }
+
+    public static ZoneIndex build(Collection<Zone> zones) {
+        if (zones.isEmpty()) {
+            return EMPTY;
+        }
+        Map<String, Zone> zonesById = new HashMap<>();
+        List<Node> level = new ArrayList<>(zones.size());
+        for (Zone zone : zones) {
+            zonesById.put(zone.zoneId(), zone);
+            level.add(Node.leaf(zone));
+        }
+        while (level.size() > 1) {
+            level = pack(level);
+        }
+        return new ZoneIndex(level.get(0), zonesById);
+    }
+
+    /**
+     * Regroupe un niveau de nœuds en nœuds parents : tranches verticales triées par longitude,
+     * puis paquets de nœuds voisins en latitude dans chaque tranche
+     */
+    private static List<Node> pack(List<Node> nodes) {
+        int parentCount = (int) Math.ceil(nodes.size() / (double) NODE_CAPACITY);
+        int sliceCount = (int) Math.ceil(Math.sqrt(parentCount));
+        int sliceSize = sliceCount * NODE_CAPACITY;
+
+        List<Node> sorted = new ArrayList<>(nodes);
+        sorted.sort(Comparator.comparingDouble(Node::centerLon));
+        List<Node> parents = new ArrayList<>(parentCount);
+        for (int start = 0; start < sorted.size(); start += sliceSize) {
+            List<Node> slice = new ArrayList<>(sorted.subList(start, Math.min(start + sliceSize, sorted.size())));
+            slice.sort(Comparator.comparingDouble(Node::centerLat));
+            for (int i = 0; i < slice.size(); i += NODE_CAPACITY) {
+                parents.add(Node.branch(slice.subList(i, Math.min(i + NODE_CAPACITY, slice.size()))));
+            }
+        }
+        return parents;
+    }
+
+    /**
+     * Zones contenant le point
+     */
+    public List<Zone> containing(double latitude, double longitude) {
+        List<Zone> result = new ArrayList<>(2);
+        if (root != null) {
+            collect(root, latitude, longitude, result);
+        }
+        return result;
+    }
+
+    /**
+     * Zone la plus petite (la plus précise) contenant le point
+     *
+     * @return null si le point n'est dans aucune zone
+     */
+    public Zone smallestContaining(double latitude, double longitude) {
+        Zone smallest = null;
+        for (Zone zone : containing(latitude, longitude)) {
+            if (smallest == null || zone.area() < smallest.area()) {
+                smallest = zone;
+            }
+        }
+        return smallest;
+    }
+
+    private static void collect(Node node, double latitude, double longitude, List<Zone> result) {
+        if (!node.covers(latitude, longitude)) {
+            return;
+        }
+        if (node.zone != null) {
+            if (node.zone.contains(latitude, longitude)) {
+                result.add(node.zone);
+            }
+            return;
+        }
+        for (Node child : node.children) {
+            collect(child, latitude, longitude, result);
+        }
+    }
+
+    public Zone get(String zoneId) {
+        return zonesById.get(zoneId);
+    }
+
+    public int size() {
+        return zonesById.size();
+    }
+
+    public boolean isEmpty() {
+        return zonesById.isEmpty();
+    }
+
+    /**
+     * Nœud du R-tree : une zone (feuille) ou jusqu'à {@code NODE_CAPACITY} nœuds enfants
+     */
+    private static final class Node {
+        private final double minLat;
+        private final double minLon;
+        private final double maxLat;
+        private final double maxLon;
+        private final Zone zone;
+        private final Node[] children;
+
+        private Node(double minLat, double minLon, double maxLat, double maxLon, Zone zone, Node[] children) {
+            this.minLat = minLat;
+            this.minLon = minLon;
+            this.maxLat = maxLat;
+            this.maxLon = maxLon;
+            this.zone = zone;
+            this.children = children;
+        }
+
+        static Node leaf(Zone zone) {
+            return new Node(zone.minLat(), zone.minLon(), zone.maxLat(), zone.maxLon(), zone, null);
+        }
+
+        static Node branch(List<Node> children) {
+            double minLat = Double.MAX_VALUE;
+            double minLon = Double.MAX_VALUE;
+            double maxLat = -Double.MAX_VALUE;
+            double maxLon = -Double.MAX_VALUE;
+            for (Node child : children) {
+                minLat = Math.min(minLat, child.minLat);
+                minLon = Math.min(minLon, child.minLon);
+                maxLat = Math.max(maxLat, child.maxLat);
+                maxLon = Math.max(maxLon, child.maxLon);
+            }
+            return new Node(minLat, minLon, maxLat, maxLon, null, children.toArray(new Node[0]));
+        }
+
+        boolean covers(double latitude, double longitude) {
+            return latitude >= minLat && latitude <= maxLat && longitude >= minLon && longitude <= maxLon;
+        }
+
+        double centerLat() {
+            return (minLat + maxLat) / 2;
+        }
+
+        double centerLon() {
+            return (minLon + maxLon) / 2;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.geolocation_service.geolocation_service.util;
+
+/**
+ * Fonctions géographiques utilitaires (distances entre coordonnées GPS)
+ */
+public final class GeoUtils {
+
+    /**
+     * Rayon moyen de la Terre en mètres
+     */
+    public static final double EARTH_RADIUS_METERS = 6_371_000d;
+
+    private GeoUtils() {
+    }
+
+    /**
+     * Distance orthodromique entre deux points GPS (formule de Haversine)
+     *
+     * @return distance en mètres
+     */
+    public static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double latDistance = Math.toRadians(lat2 - lat1);
+        double lonDistance = Math.toRadians(lon2 - lon1);
+
+        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
+
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+
+        return EARTH_RADIUS_METERS * c;
+    }
+
+    /**
+     * Distance approchée (projection équirectangulaire), suffisante en dessous de
+     * quelques kilomètres et bien moins coûteuse que Haversine sur le chemin d'ingestion
+     *
+     * @return distance en mètres
+     */
+    public static double approxDistanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double x = Math.toRadians(lon2 - lon1) * Math.cos(Math.toRadians((lat1 + lat2) / 2));
+        double y = Math.toRadians(lat2 - lat1);
+        return EARTH_RADIUS_METERS * Math.sqrt(x * x + y * y);
+    }
+
+    /**
+     * Position relative du projeté d'un point sur le segment [A, B]
+     * (projection équirectangulaire locale autour de A)
+     *
+     * @return 0 au point A, 1 au point B, borné à [0, 1]
+     */
+    public static double segmentFraction(double lat, double lon, double latA, double lonA, double latB, double lonB) {
+        double cosLat = Math.cos(Math.toRadians(latA));
+        double sx = (lonB - lonA) * cosLat;
+        double sy = latB - latA;
+        double lengthSquared = sx * sx + sy * sy;
+        if (lengthSquared == 0) {
+            return 0;
+        }
+        double px = (lon - lonA) * cosLat;
+        double py = lat - latA;
+        return Math.max(0, Math.min(1, (px * sx + py * sy) / lengthSquared));
+    }
+}
@@ -0,0 +1,98 @@
+package com.geolocation_service.geolocation_service.util;
+
+import com.geolocation_service.geolocation_service.dto.TrackPointDTO;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Encodage compact d'une trace (algorithme « encoded polyline »).
+ * <p>
+ * Chaque point est réduit à quatre entiers — latitude et longitude à 1e-5 degré (~1 m),
+ * secondes depuis le début de la trace, vitesse en km/h — encodés en écart avec le
+ * point précédent, en entiers signés de longueur variable sur des caractères ASCII
+ * imprimables. Un point occupe typiquement 6 à 10 octets, contre plusieurs centaines
+ * pour un document position_bus.
+ */
+public final class PolylineCodec {
+
+    private static final double COORDINATE_FACTOR = 1e5;
+
+    private PolylineCodec() {
+    }
+
+    public static String encode(List<TrackPointDTO> points) {
+        if (points.isEmpty()) {
+            return "";
+        }
+        LocalDateTime start = points.get(0).getTimestamp();
+        StringBuilder encoded = new StringBuilder(points.size() * 8);
+        long previousLat = 0;
+        long previousLon = 0;
+        long previousSeconds = 0;
+        long previousSpeed = 0;
+        for (TrackPointDTO point : points) {
+            long lat = Math.round(point.getLatitude() * COORDINATE_FACTOR);
+            long lon = Math.round(point.getLongitude() * COORDINATE_FACTOR);
+            long seconds = Duration.between(start, point.getTimestamp()).getSeconds();
+            long speed = Math.round(point.getVitesse());
+            writeSigned(encoded, lat - previousLat);
+            writeSigned(encoded, lon - previousLon);
+            writeSigned(encoded, seconds - previousSeconds);
+            writeSigned(encoded, speed - previousSpeed);
+            previousLat = lat;
+            previousLon = lon;
+            previousSeconds = seconds;
+            previousSpeed = speed;
+        }
+        return encoded.toString();
+    }
+
+    /**
+     * @param start horodatage du premier point (les temps sont encodés relativement à lui)
+     */
+    public static List<TrackPointDTO> decode(String encoded, LocalDateTime start) {
+        List<TrackPointDTO> points = new ArrayList<>(encoded.length() / 6);
+        int[] cursor = {0};
+        long lat = 0;
+        long lon = 0;
+        long seconds = 0;
+        long speed = 0;
+        while (cursor[0] < encoded.length()) {
+            lat += readSigned(encoded, cursor);
+            lon += readSigned(encoded, cursor);
+            seconds += readSigned(encoded, cursor);
+            speed += readSigned(encoded, cursor);
+            points.add(TrackPointDTO.builder()
+                    .latitude(lat / COORDINATE_FACTOR)
+                    .longitude(lon / COORDINATE_FACTOR)
+                    .vitesse(speed)
+                    .timestamp(start.plusSeconds(seconds))
+                    .build());
+        }
+        return points;
+    }
+
+    private static void writeSigned(StringBuilder out, long value) {
+        long shifted = value < 0 ? ~(value << 1) : value << 1;
+        while (shifted >= 0x20) {
+            out.append((char) ((0x20 | (shifted & 0x1f)) + 63));
+            shifted >>= 5;
+        }
+        out.append((char) (shifted + 63));
+    }
+
+    private static long readSigned(String in, int[] cursor) {
+        long result = 0;
+        int shift = 0;
+        int chunk;
+        do {
+            chunk = in.charAt(cursor[0]++) - 63;
+            result |= (long) (chunk & 0x1f) << shift;
+            shift += 5;
+        } while (chunk >= 0x20);
+        return (result & 1) != 0 ? ~(result >> 1) : result >> 1;
+    }
+}
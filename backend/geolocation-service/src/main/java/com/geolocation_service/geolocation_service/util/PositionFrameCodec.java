@@ -0,0 +1,144 @@
+package com.geolocation_service.geolocation_service.util;
+
+import com.geolocation_service.geolocation_service.model.PositionBus;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Encodage binaire compact des positions diffusées sur {@code /ws-binary}
+ * (sous-protocole {@value #SUB_PROTOCOL}). Une trame regroupe toutes les positions d'un tick.
+ * <p>
+ * Format (entiers big-endian, varint = LEB128 non signé, zigzag pour les valeurs signées) :
+ * <pre>
+ * En-tête
+ *   u8      version            (= 1)
+ *   u8      flags              (bit 0 : trame d'état complet envoyée à la connexion)
+ *   i64     baseTime           (epoch millis, horodatage le plus récent de la trame)
+ *   varint  count
+ * Puis count entrées
+ *   varint  busId
+ *   i32     latitude  x 1e5    (~1,1 m)
+ *   i32     longitude x 1e5
+ *   u16     vitesse   x 10     (km/h, plafonnée à 6553,5)
+ *   u16     direction x 10     (degrés, 0..3599)
+ *   varint  zigzag(timestamp - baseTime) en millisecondes (donc &le; 0)
+ * </pre>
+ * Une entrée occupe ~15 octets, contre plusieurs centaines en JSON.
+ * Le décodeur de référence côté frontend est {@code frontend/src/lib/positionFrames.ts}.
+ */
+public final class PositionFrameCodec {
+
+    public static final String SUB_PROTOCOL = "bus-positions.v1";
+    public static final int VERSION = 1;
+    public static final int FLAG_SNAPSHOT = 0x01;
+
+    private static final double COORDINATE_SCALE = 1e5;
+    private static final double TENTHS = 10.0;
+    private static final int U16_MAX = 0xFFFF;
+
+    private PositionFrameCodec() {
+    }
+
+    public static byte[] encode(List<PositionBus> positions, boolean snapshot) {
+        long baseTime = 0;
+        for (PositionBus position : positions) {
+            baseTime = Math.max(baseTime, toEpochMillis(position.getTimestamp()));
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(10 + positions.size() * 16);
+        out.write(VERSION);
+        out.write(snapshot ? FLAG_SNAPSHOT : 0);
+        out.writeBytes(ByteBuffer.allocate(Long.BYTES).putLong(baseTime).array());
+        writeVarint(out, positions.size());
+
+        ByteBuffer fixed = ByteBuffer.allocate(12);
+        for (PositionBus position : positions) {
+            writeVarint(out, position.getBusId());
+            fixed.clear();
+            fixed.putInt((int) Math.round(position.getLatitude() * COORDINATE_SCALE));
+            fixed.putInt((int) Math.round(position.getLongitude() * COORDINATE_SCALE));
+            fixed.putShort((short) clamp(Math.round(position.getVitesse() * TENTHS), 0, U16_MAX));
+            fixed.putShort((short) Math.floorMod(Math.round(position.getDirection() * TENTHS), 3600));
+            out.write(fixed.array(), 0, fixed.position());
+            writeVarint(out, zigzag(toEpochMillis(position.getTimestamp()) - baseTime));
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Décodage de référence (utilisé par les tests et les clients Java)
+     */
+    public static List<PositionBus> decode(byte[] frame) {
+        ByteBuffer buffer = ByteBuffer.wrap(frame);
+        int version = buffer.get() & 0xFF;
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported frame version: " + version);
+        }
+        buffer.get(); // flags
+        long baseTime = buffer.getLong();
+        int count = (int) readVarint(buffer);
+
+        List<PositionBus> positions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            PositionBus position = new PositionBus();
+            position.setBusId(readVarint(buffer));
+            position.setLatitude(buffer.getInt() / COORDINATE_SCALE);
+            position.setLongitude(buffer.getInt() / COORDINATE_SCALE);
+            position.setVitesse((buffer.getShort() & U16_MAX) / TENTHS);
+            position.setDirection((buffer.getShort() & U16_MAX) / TENTHS);
+            position.setTimestamp(fromEpochMillis(baseTime + unzigzag(readVarint(buffer))));
+            positions.add(position);
+        }
+        return positions;
+    }
+
+    public static boolean isSnapshot(byte[] frame) {
+        return frame.length > 1 && (frame[1] & FLAG_SNAPSHOT) != 0;
+    }
+
+    private static long toEpochMillis(LocalDateTime timestamp) {
+        return timestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime fromEpochMillis(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    private static long clamp(long value, long min, long max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(ByteBuffer buffer) {
+        long result = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            result |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return result;
+    }
+}
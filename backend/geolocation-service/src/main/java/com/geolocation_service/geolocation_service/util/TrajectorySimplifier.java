@@ -0,0 +1,80 @@
+package com.geolocation_service.geolocation_service.util;
+
+import com.geolocation_service.geolocation_service.dto.TrackPointDTO;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Simplification de trajectoire par Douglas-Peucker.
+ * <p>
+ * L'écart d'un point au segment est mesuré en distance euclidienne synchronisée : la
+ * position réelle est comparée à la position interpolée au même instant entre les deux
+ * extrémités, et non à la droite. Un arrêt prolongé ou un ralentissement est donc
+ * conservé même quand le tracé est rectiligne, et la trace simplifiée reste rejouable
+ * dans le temps à {@code toleranceMeters} près.
+ */
+public final class TrajectorySimplifier {
+
+    private TrajectorySimplifier() {
+    }
+
+    /**
+     * @return les points conservés, dans l'ordre (le premier et le dernier toujours)
+     */
+    public static List<TrackPointDTO> simplify(List<TrackPointDTO> points, double toleranceMeters) {
+        int size = points.size();
+        if (size <= 2) {
+            return new ArrayList<>(points);
+        }
+        boolean[] keep = new boolean[size];
+        keep[0] = true;
+        keep[size - 1] = true;
+
+        // Pile explicite : pas de récursion sur les longues traces
+        Deque<int[]> ranges = new ArrayDeque<>();
+        ranges.push(new int[]{0, size - 1});
+        while (!ranges.isEmpty()) {
+            int[] range = ranges.pop();
+            int first = range[0];
+            int last = range[1];
+            if (last - first < 2) {
+                continue;
+            }
+            int farthest = -1;
+            double maxDistance = toleranceMeters;
+            for (int i = first + 1; i < last; i++) {
+                double distance = synchronizedDistance(points.get(i), points.get(first), points.get(last));
+                if (distance > maxDistance) {
+                    maxDistance = distance;
+                    farthest = i;
+                }
+            }
+            if (farthest >= 0) {
+                keep[farthest] = true;
+                ranges.push(new int[]{first, farthest});
+                ranges.push(new int[]{farthest, last});
+            }
+        }
+
+        List<TrackPointDTO> kept = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            if (keep[i]) {
+                kept.add(points.get(i));
+            }
+        }
+        return kept;
+    }
+
+    private static double synchronizedDistance(TrackPointDTO point, TrackPointDTO start, TrackPointDTO end) {
+        long span = Duration.between(start.getTimestamp(), end.getTimestamp()).toMillis();
+        double ratio = span <= 0 ? 0
+                : (double) Duration.between(start.getTimestamp(), point.getTimestamp()).toMillis() / span;
+        double latitude = start.getLatitude() + ratio * (end.getLatitude() - start.getLatitude());
+        double longitude = start.getLongitude() + ratio * (end.getLongitude() - start.getLongitude());
+        return GeoUtils.approxDistanceMeters(point.getLatitude(), point.getLongitude(), latitude, longitude);
+    }
+}
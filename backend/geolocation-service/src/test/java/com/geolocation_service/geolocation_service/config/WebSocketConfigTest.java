@@ -0,0 +1,368 @@
+package com.geolocation_service.geolocation_service.config;
+
+import com.geolocation_service.geolocation_service.controller.BinaryPositionWebSocketHandler;
+import com.geolocation_service.geolocation_service.controller.BusLocationWebSocketController;
+import com.geolocation_service.geolocation_service.model.PositionBus;
+import com.geolocation_service.geolocation_service.service.LeaderElection;
+import com.geolocation_service.geolocation_service.service.PositionBusService;
+import com.geolocation_service.geolocation_service.service.PositionDeltaTracker;
+import com.geolocation_service.geolocation_service.service.SsePositionHub;
+import com.geolocation_service.geolocation_service.service.ViewportSubscriptionRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.simp.config.AbstractMessageBrokerConfiguration;
+import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.messaging.DefaultSimpUserRegistry;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Mode relais : le contexte de messagerie est démarré avec la configuration de {@link WebSocketConfig}
+ * devant un broker STOMP minimal ({@link FakeStompBroker}) à la place de RabbitMQ/ActiveMQ.
+ */
+@ExtendWith(MockitoExtension.class)
+class WebSocketConfigTest {
+
+    private static final String SESSION_ID = "s1";
+
+    private static volatile int relayPort;
+
+    @Mock
+    private PositionBusService positionBusService;
+
+    @Mock
+    private PositionDeltaTracker positionDeltaTracker;
+
+    @Mock
+    private BinaryPositionWebSocketHandler binaryPositionWebSocketHandler;
+
+    @Mock
+    private LeaderElection leaderElection;
+
+    @Mock
+    private ViewportSubscriptionRegistry viewportSubscriptions;
+
+    @Mock
+    private SsePositionHub ssePositionHub;
+
+    private FakeStompBroker broker;
+    private AnnotationConfigApplicationContext context;
+    private BlockingQueue<Message<?>> outbound;
+    private BusLocationWebSocketController controller;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        broker = new FakeStompBroker();
+        relayPort = broker.port();
+        context = new AnnotationConfigApplicationContext(RelayBrokerConfig.class);
+
+        outbound = new LinkedBlockingQueue<>();
+        context.getBean("clientOutboundChannel", SubscribableChannel.class).subscribe(outbound::add);
+        StompBrokerRelayMessageHandler relay = context.getBean(StompBrokerRelayMessageHandler.class);
+        await(relay::isBrokerAvailable, "system session connected to the broker");
+
+        controller = new BusLocationWebSocketController(positionBusService, positionDeltaTracker,
+                context.getBean(SimpMessagingTemplate.class), binaryPositionWebSocketHandler, leaderElection,
+                viewportSubscriptions, ssePositionHub, true);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        context.close();
+        broker.close();
+    }
+
+    private static PositionBus position(Long busId) {
+        PositionBus position = new PositionBus();
+        position.setBusId(busId);
+        position.setLatitude(33.5731);
+        position.setLongitude(-7.5898);
+        return position;
+    }
+
+    private static void await(BooleanSupplier condition, String description) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as(description).isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+
+    private Message<?> nextFrame(StompCommand command) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (true) {
+            Message<?> message = outbound.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            assertThat(message).as("%s frame", command).isNotNull();
+            if (StompHeaderAccessor.wrap(message).getCommand() == command) {
+                return message;
+            }
+        }
+    }
+
+    private void send(StompHeaderAccessor headers) {
+        headers.setSessionId(SESSION_ID);
+        MessageChannel inbound = context.getBean("clientInboundChannel", MessageChannel.class);
+        inbound.send(MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders()));
+    }
+
+    /**
+     * Connecte un client STOMP de cette instance au broker et l'abonne à {@code destination}
+     */
+    private void subscribe(String destination) throws InterruptedException {
+        StompHeaderAccessor connect = StompHeaderAccessor.create(StompCommand.CONNECT);
+        connect.setAcceptVersion("1.2");
+        connect.setHeartbeat(0, 0);
+        send(connect);
+        nextFrame(StompCommand.CONNECTED);
+
+        StompHeaderAccessor subscribe = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        subscribe.setSubscriptionId("sub-0");
+        subscribe.setDestination(destination);
+        send(subscribe);
+        await(() -> broker.hasSubscription(destination), "subscription reached the broker");
+    }
+
+    @Test
+    void testRelayReplacesSimpleBroker() {
+        StompBrokerRelayMessageHandler relay = context.getBean(StompBrokerRelayMessageHandler.class);
+
+        assertThat(relay.getRelayHost()).isEqualTo("127.0.0.1");
+        assertThat(relay.getRelayPort()).isEqualTo(relayPort);
+        assertThat(relay.getSystemLogin()).isEqualTo("system");
+        assertThat(relay.getClientLogin()).isEqualTo("client");
+        assertThat(context.getBeansOfType(SimpleBrokerMessageHandler.class)).isEmpty();
+    }
+
+    @Test
+    void testLeaderTickReachesSubscriberThroughBroker() throws Exception {
+        subscribe("/topic/buses/all");
+        List<PositionBus> changes = List.of(position(1L));
+        when(positionDeltaTracker.collectChanges()).thenReturn(changes);
+        when(leaderElection.isLeader()).thenReturn(true);
+
+        controller.broadcastChangedBusLocations();
+
+        Message<?> message = nextFrame(StompCommand.MESSAGE);
+        StompHeaderAccessor headers = StompHeaderAccessor.wrap(message);
+        assertThat(headers.getSessionId()).isEqualTo(SESSION_ID);
+        assertThat(headers.getDestination()).isEqualTo("/topic/buses/all");
+        assertThat(new String((byte[]) message.getPayload(), StandardCharsets.UTF_8)).contains("\"busId\":1");
+    }
+
+    @Test
+    void testFollowerTickIsNotPublished() throws Exception {
+        subscribe("/topic/buses/all");
+        List<PositionBus> followerChanges = List.of(position(1L));
+        when(positionDeltaTracker.collectChanges()).thenReturn(followerChanges, List.of(position(2L)));
+        when(leaderElection.isLeader()).thenReturn(false, true);
+
+        controller.broadcastChangedBusLocations();
+        // Les clients locaux (SSE) sont servis même par une instance qui n'est pas leader
+        verify(ssePositionHub).publish(followerChanges);
+        controller.broadcastChangedBusLocations();
+
+        // Les envois passent par la même connexion système : la première trame reçue est celle du leader
+        Message<?> message = nextFrame(StompCommand.MESSAGE);
+        assertThat(new String((byte[]) message.getPayload(), StandardCharsets.UTF_8)).contains("\"busId\":2");
+    }
+
+    /**
+     * Configuration de messagerie sans couche web : seul {@link WebSocketConfig#configureMessageBroker} est appliqué
+     */
+    @Configuration
+    static class RelayBrokerConfig extends AbstractMessageBrokerConfiguration {
+
+        @Override
+        protected void configureMessageBroker(MessageBrokerRegistry registry) {
+            new WebSocketConfig(true, "127.0.0.1", relayPort, "client", "client", "system", "system", "")
+                    .configureMessageBroker(registry);
+        }
+
+        @Override
+        protected SimpUserRegistry createLocalUserRegistry(Integer order) {
+            return new DefaultSimpUserRegistry();
+        }
+    }
+
+    /**
+     * Broker STOMP minimal : CONNECT, SUBSCRIBE et SEND, sans heart-beat ni acquittement
+     */
+    static final class FakeStompBroker implements AutoCloseable {
+
+        private final ServerSocket server;
+        private final ExecutorService executor = Executors.newCachedThreadPool();
+        private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+        private final AtomicInteger messageIds = new AtomicInteger();
+
+        FakeStompBroker() throws IOException {
+            server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+            executor.execute(this::accept);
+        }
+
+        int port() {
+            return server.getLocalPort();
+        }
+
+        boolean hasSubscription(String destination) {
+            return subscriptions.stream().anyMatch(subscription -> subscription.destination().equals(destination));
+        }
+
+        private void accept() {
+            while (!server.isClosed()) {
+                try {
+                    Socket socket = server.accept();
+                    executor.execute(() -> serve(socket));
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void serve(Socket socket) {
+            try (socket) {
+                InputStream in = new BufferedInputStream(socket.getInputStream());
+                OutputStream out = socket.getOutputStream();
+                Frame frame;
+                while ((frame = read(in)) != null) {
+                    switch (frame.command()) {
+                        case "CONNECT", "STOMP" -> write(out, "CONNECTED\nversion:1.2\nheart-beat:0,0\n\n", new byte[0]);
+                        case "SUBSCRIBE" -> subscriptions.add(new Subscription(out,
+                                frame.headers().get("destination"), frame.headers().get("id")));
+                        case "SEND" -> deliver(frame);
+                        case "DISCONNECT" -> {
+                            return;
+                        }
+                        default -> {
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                // Connexion fermée par le relais
+            }
+        }
+
+        private void deliver(Frame frame) throws IOException {
+            String destination = frame.headers().get("destination");
+            for (Subscription subscription : subscriptions) {
+                if (!subscription.destination().equals(destination)) {
+                    continue;
+                }
+                String headers = "MESSAGE\n"
+                        + "subscription:" + subscription.id() + "\n"
+                        + "message-id:" + messageIds.incrementAndGet() + "\n"
+                        + "destination:" + destination + "\n"
+                        + "content-type:" + frame.headers().getOrDefault("content-type", "application/json") + "\n"
+                        + "content-length:" + frame.body().length + "\n\n";
+                write(subscription.out(), headers, frame.body());
+            }
+        }
+
+        private static void write(OutputStream out, String headers, byte[] body) throws IOException {
+            synchronized (out) {
+                out.write(headers.getBytes(StandardCharsets.UTF_8));
+                out.write(body);
+                out.write(0);
+                out.flush();
+            }
+        }
+
+        /**
+         * Lit une trame, null en fin de flux. Les fins de ligne entre trames (heart-beats) sont ignorées.
+         */
+        private static Frame read(InputStream in) throws IOException {
+            String command;
+            do {
+                command = readLine(in);
+                if (command == null) {
+                    return null;
+                }
+            } while (command.isEmpty());
+
+            Map<String, String> headers = new HashMap<>();
+            String line;
+            while ((line = readLine(in)) != null && !line.isEmpty()) {
+                int colon = line.indexOf(':');
+                // La première occurrence d'un en-tête répété prime
+                headers.putIfAbsent(line.substring(0, colon), line.substring(colon + 1));
+            }
+
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            String contentLength = headers.get("content-length");
+            if (contentLength != null) {
+                body.write(in.readNBytes(Integer.parseInt(contentLength)));
+                in.read();
+            } else {
+                int b;
+                while ((b = in.read()) > 0) {
+                    body.write(b);
+                }
+            }
+            return new Frame(command, headers, body.toByteArray());
+        }
+
+        private static String readLine(InputStream in) throws IOException {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int b;
+            while ((b = in.read()) != '\n') {
+                if (b < 0) {
+                    return null;
+                }
+                if (b != '\r') {
+                    line.write(b);
+                }
+            }
+            return line.toString(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void close() throws IOException {
+            server.close();
+            executor.shutdownNow();
+        }
+
+        private record Frame(String command, Map<String, String> headers, byte[] body) {
+        }
+
+        private record Subscription(OutputStream out, String destination, String id) {
+        }
+    }
+}
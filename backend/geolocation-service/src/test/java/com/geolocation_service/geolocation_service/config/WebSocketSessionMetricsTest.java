@@ -0,0 +1,65 @@
+package com.geolocation_service.geolocation_service.config;
+
+import com.geolocation_service.geolocation_service.controller.BinaryPositionWebSocketHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class WebSocketSessionMetricsTest {
+
+    @Mock
+    private BinaryPositionWebSocketHandler binaryPositionWebSocketHandler;
+
+    private SimpleMeterRegistry meterRegistry;
+    private WebSocketSessionMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        metrics = new WebSocketSessionMetrics(meterRegistry, binaryPositionWebSocketHandler);
+    }
+
+    private Message<byte[]> message(String sessionId) {
+        return MessageBuilder.withPayload(new byte[0])
+                .setHeader(SimpMessageHeaderAccessor.SESSION_ID_HEADER, sessionId)
+                .build();
+    }
+
+    private double gauge(String transport) {
+        return meterRegistry.get("geolocation.websocket.sessions").tag("transport", transport).gauge().value();
+    }
+
+    @Test
+    void testStompSessionsAreCountedUntilDisconnect() {
+        metrics.onConnected(new SessionConnectedEvent(this, message("s1")));
+        metrics.onConnected(new SessionConnectedEvent(this, message("s2")));
+        assertThat(gauge("stomp")).isEqualTo(2);
+
+        SessionDisconnectEvent disconnect = new SessionDisconnectEvent(this, message("s1"), "s1", CloseStatus.NORMAL);
+        metrics.onDisconnect(disconnect);
+        // Une même déconnexion peut être publiée plusieurs fois
+        metrics.onDisconnect(disconnect);
+
+        assertThat(gauge("stomp")).isEqualTo(1);
+    }
+
+    @Test
+    void testBinarySessionsComeFromHandler() {
+        when(binaryPositionWebSocketHandler.getSessionCount()).thenReturn(3);
+
+        assertThat(gauge("binary")).isEqualTo(3);
+    }
+}
@@ -2,7 +2,9 @@ package com.geolocation_service.geolocation_service.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.geolocation_service.geolocation_service.model.Bus;
+import com.geolocation_service.geolocation_service.model.BusSummary;
 import com.geolocation_service.geolocation_service.service.BusService;
+import com.geolocation_service.geolocation_service.service.BusSummaryService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -32,7 +34,11 @@ class BusControllerTest {
     @MockBean
     private BusService busService;
 
+    @MockBean
+    private BusSummaryService busSummaryService;
+
     private Bus testBus;
+    private BusSummary testSummary;
 
     @BeforeEach
     void setUp() {
@@ -44,24 +50,48 @@ class BusControllerTest {
         testBus.setCapacite(80);
         testBus.setAnnee(2020);
         testBus.setStatut("EN_SERVICE");
+
+        testSummary = BusSummary.builder()
+                .idBus("bus-1")
+                .immatriculation("A-12345-B")
+                .modele("Mercedes Citaro")
+                .statut("EN_SERVICE")
+                .ligneId("ligne-1")
+                .numeroLigne("15")
+                .nomLigne("Casa - Ain Diab")
+                .build();
     }
 
     @Test
     void testGetAllBuses() throws Exception {
         // Given
-        when(busService.getAllBuses()).thenReturn(Arrays.asList(testBus));
+        when(busSummaryService.search(null, null)).thenReturn(Arrays.asList(testSummary));
 
         // When & Then
         mockMvc.perform(get("/api/bus"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].immatriculation").value("A-12345-B"))
-                .andExpect(jsonPath("$[0].modele").value("Mercedes Citaro"));
+                .andExpect(jsonPath("$[0].modele").value("Mercedes Citaro"))
+                .andExpect(jsonPath("$[0].ligneActuelle.nomLigne").value("Casa - Ain Diab"));
+    }
+
+    @Test
+    void testSearchBuses() throws Exception {
+        // Given
+        when(busSummaryService.search("ligne-1", "dir-1")).thenReturn(Arrays.asList(testSummary));
+
+        // When & Then
+        mockMvc.perform(get("/api/bus/search").param("ligneId", "ligne-1").param("directionId", "dir-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].idBus").value("bus-1"))
+                .andExpect(jsonPath("$[0].ligneActuelle.numeroLigne").value("15"))
+                .andExpect(jsonPath("$[0].directionActuelle").doesNotExist());
     }
 
     @Test
     void testGetBusById() throws Exception {
         // Given
-        when(busService.getBusById("bus-1")).thenReturn(Optional.of(testBus));
+        when(busSummaryService.getSummary("bus-1")).thenReturn(Optional.of(testSummary));
 
         // When & Then
         mockMvc.perform(get("/api/bus/bus-1"))
@@ -0,0 +1,57 @@
+package com.geolocation_service.geolocation_service.controller;
+
+import com.geolocation_service.geolocation_service.dto.StopEtaDTO;
+import com.geolocation_service.geolocation_service.service.EtaService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(EtaController.class)
+class EtaControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private EtaService etaService;
+
+    @Test
+    void testGetStopArrivals() throws Exception {
+        when(etaService.getArrivals(12L, 3)).thenReturn(List.of(
+                StopEtaDTO.builder().busId(1L).stopId(12L).secondsAway(90).stopsAway(1).build()));
+
+        mockMvc.perform(get("/api/eta/stop/12").param("limit", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].busId").value(1))
+                .andExpect(jsonPath("$[0].secondsAway").value(90));
+    }
+
+    @Test
+    void testLimitIsCapped() throws Exception {
+        when(etaService.getArrivals(12L, 50)).thenReturn(List.of());
+
+        mockMvc.perform(get("/api/eta/stop/12").param("limit", "1000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty());
+    }
+
+    @Test
+    void testInvalidLimitIsRejected() throws Exception {
+        mockMvc.perform(get("/api/eta/stop/12").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+
+        verify(etaService, never()).getArrivals(anyLong(), anyInt());
+    }
+}
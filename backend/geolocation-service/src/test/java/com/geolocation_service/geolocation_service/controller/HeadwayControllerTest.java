@@ -0,0 +1,41 @@
+package com.geolocation_service.geolocation_service.controller;
+
+import com.geolocation_service.geolocation_service.dto.LineHeadwayDTO;
+import com.geolocation_service.geolocation_service.service.HeadwayService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(HeadwayController.class)
+class HeadwayControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private HeadwayService headwayService;
+
+    @Test
+    void testGetLineHeadways() throws Exception {
+        when(headwayService.getLineHeadways(7L)).thenReturn(LineHeadwayDTO.builder()
+                .routeId(7L)
+                .scheduledHeadwaySeconds(600L)
+                .buses(List.of(LineHeadwayDTO.BusHeadwayDTO.builder()
+                        .busId(2L).leaderBusId(1L).headwaySeconds(60L).status(LineHeadwayDTO.Status.BUNCHED).build()))
+                .build());
+
+        mockMvc.perform(get("/api/lines/7/headways"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.scheduledHeadwaySeconds").value(600))
+                .andExpect(jsonPath("$.buses[0].leaderBusId").value(1))
+                .andExpect(jsonPath("$.buses[0].status").value("BUNCHED"));
+    }
+}
@@ -0,0 +1,77 @@
+package com.geolocation_service.geolocation_service.controller;
+
+import com.geolocation_service.geolocation_service.dto.IncidentHeatmapDTO;
+import com.geolocation_service.geolocation_service.service.IncidentBusService;
+import com.geolocation_service.geolocation_service.service.IncidentHeatmap;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(IncidentBusController.class)
+class IncidentBusControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private IncidentBusService incidentService;
+
+    @MockitoBean
+    private IncidentHeatmap incidentHeatmap;
+
+    @Test
+    void testGetHeatmap() throws Exception {
+        LocalDate from = LocalDate.of(2025, 3, 1);
+        LocalDate to = LocalDate.of(2025, 3, 10);
+        when(incidentHeatmap.heatmap(eq(10), eq(from), eq(to), isNull())).thenReturn(IncidentHeatmapDTO.builder()
+                .zoom(10).from(from).to(to)
+                .cells(List.of(IncidentHeatmapDTO.Cell.builder()
+                        .cellId("10/702/490").count(3).open(1).byType(Map.of("PANNE", 3)).build()))
+                .build());
+
+        mockMvc.perform(get("/api/incidents/heatmap").param("zoom", "10").param("from", "2025-03-01").param("to", "2025-03-10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cells[0].cellId").value("10/702/490"))
+                .andExpect(jsonPath("$.cells[0].count").value(3))
+                .andExpect(jsonPath("$.cells[0].byType.PANNE").value(3));
+    }
+
+    @Test
+    void testGetHeatmapRejectsInvalidRequest() throws Exception {
+        when(incidentHeatmap.validate(anyInt(), any(), any(), any())).thenReturn("période inversée");
+
+        mockMvc.perform(get("/api/incidents/heatmap").param("from", "2025-03-10").param("to", "2025-03-01"))
+                .andExpect(status().isBadRequest());
+        verify(incidentHeatmap, never()).heatmap(anyInt(), any(), any(), any());
+    }
+
+    @Test
+    void testGetHeatmapPassesArea() throws Exception {
+        when(incidentHeatmap.heatmap(anyInt(), any(), any(), any())).thenReturn(IncidentHeatmapDTO.builder().build());
+
+        mockMvc.perform(get("/api/incidents/heatmap").param("zoom", "15").param("bbox", "-7.8,33.4,-7.4,33.7"))
+                .andExpect(status().isOk());
+        verify(incidentHeatmap).heatmap(eq(15), any(), any(),
+                argThat(area -> area.minLat() == 33.4 && area.maxLon() == -7.4));
+
+        mockMvc.perform(get("/api/incidents/heatmap").param("bbox", "-7.8,33.7,-7.4"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -1,6 +1,8 @@
 package com.geolocation_service.geolocation_service.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.geolocation_service.geolocation_service.dto.BatchPositionResponse;
+import com.geolocation_service.geolocation_service.dto.CreatePositionRequest;
 import com.geolocation_service.geolocation_service.model.Bus;
 import com.geolocation_service.geolocation_service.model.PositionBus;
 import com.geolocation_service.geolocation_service.service.PositionBusService;
@@ -9,14 +11,21 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 //import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -53,7 +62,8 @@ class PositionBusControllerTest {
 
     @Test
     void testGetAllPositions() throws Exception {
-        when(positionBusService.getAllPositions()).thenReturn(Arrays.asList(testPosition));
+        // Plafonné aux geolocation.positions.all.window-minutes (10) dernières minutes et max-points (1000)
+        when(positionBusService.getRecentPositions(Duration.ofMinutes(10), 1000)).thenReturn(Arrays.asList(testPosition));
 
         mockMvc.perform(get("/api/positions"))
                 .andExpect(status().isOk())
@@ -63,7 +73,8 @@ class PositionBusControllerTest {
 
     @Test
     void testGetPositionsByBus() throws Exception {
-        when(positionBusService.getPositionsByBusId(1L))
+        // Plafonné à geolocation.positions.by-bus.max-points (1000 par défaut)
+        when(positionBusService.getPositionsByBusId(1L, 1000))
                 .thenReturn(Arrays.asList(testPosition));
 
         mockMvc.perform(get("/api/positions/bus/1"))
@@ -82,4 +93,51 @@ class PositionBusControllerTest {
                 .andExpect(status().isCreated())
                 .andExpect(jsonPath("$.latitude").value(33.5731));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testDuplicateDriverPositionIsAcknowledged() throws Exception {
+        CreatePositionRequest request = CreatePositionRequest.builder().busId(1L).latitude(33.5731).longitude(-7.5898).build();
+        when(positionBusService.buildPosition(any(CreatePositionRequest.class))).thenReturn(testPosition);
+        when(positionBusService.addPosition(any(PositionBus.class))).thenReturn(null);
+
+        mockMvc.perform(post("/api/positions/driver")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void testCreatePositionsBatch() throws Exception {
+        BatchPositionResponse response = BatchPositionResponse.builder()
+                .received(2)
+                .accepted(1)
+                .rejected(List.of(BatchPositionResponse.RejectedPosition.builder()
+                        .index(1).busId(2L).reason("coordonnées hors limites").build()))
+                .build();
+        when(positionBusService.addPositions(anyList())).thenReturn(response);
+
+        List<CreatePositionRequest> batch = List.of(
+                CreatePositionRequest.builder().busId(1L).latitude(33.5731).longitude(-7.5898).build(),
+                CreatePositionRequest.builder().busId(2L).latitude(120.0).longitude(-7.5898).build());
+
+        mockMvc.perform(post("/api/positions/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(batch)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.accepted").value(1))
+                .andExpect(jsonPath("$.rejected[0].index").value(1));
+    }
+
+    @Test
+    void testMixedBusBatchRejectedInSingleBusMode() {
+        PositionBusController singleBusController = new PositionBusController(positionBusService, 1000, 1000, 10, 1000, true);
+        List<CreatePositionRequest> batch = List.of(
+                CreatePositionRequest.builder().busId(1L).latitude(33.5731).longitude(-7.5898).build(),
+                CreatePositionRequest.builder().busId(2L).latitude(33.5741).longitude(-7.5888).build());
+
+        assertThat(singleBusController.createPositionsBatch(batch).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+
+        verify(positionBusService, never()).addPositions(anyList());
+    }
+}
@@ -0,0 +1,112 @@
+package com.geolocation_service.geolocation_service.controller;
+
+import com.geolocation_service.geolocation_service.service.PositionReplayService;
+import com.geolocation_service.geolocation_service.service.PositionReplayService.Format;
+import com.geolocation_service.geolocation_service.service.PositionReplayService.ReplayRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(PositionReplayController.class)
+class PositionReplayControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private PositionReplayService replayService;
+
+    @Test
+    void testReplayStreamsNdjson() throws Exception {
+        when(replayService.getMaxPoints()).thenReturn(1000);
+        when(replayService.replay(any(ReplayRequest.class), eq(Format.NDJSON), any(OutputStream.class)))
+                .thenAnswer(invocation -> {
+                    invocation.getArgument(2, OutputStream.class).write("{\"latitude\":33.57}\n".getBytes(StandardCharsets.UTF_8));
+                    return 1;
+                });
+
+        MvcResult result = mockMvc.perform(get("/api/positions/bus/1/replay")
+                        .param("from", "2024-05-10T08:00:00")
+                        .param("to", "2024-05-10T09:00:00"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string("{\"latitude\":33.57}\n"));
+    }
+
+    @Test
+    void testLastEventIdResumesSseReplay() throws Exception {
+        when(replayService.getMaxPoints()).thenReturn(1000);
+
+        mockMvc.perform(get("/api/positions/bus/1/replay")
+                        .param("format", "sse")
+                        .param("from", "2024-05-10T08:00:00")
+                        .param("to", "2024-05-10T09:00:00")
+                        .header("Last-Event-ID", "2024-05-10T08:30:00"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/event-stream"));
+
+        verify(replayService).validate(argThat(request ->
+                LocalDateTime.of(2024, 5, 10, 8, 30).equals(request.cursor())));
+    }
+
+    @Test
+    void testInvalidReplayIsRejected() throws Exception {
+        when(replayService.getMaxPoints()).thenReturn(1000);
+        when(replayService.validate(any(ReplayRequest.class))).thenReturn("fenêtre vide");
+
+        mockMvc.perform(get("/api/positions/bus/1/replay"))
+                .andExpect(status().isBadRequest());
+
+        verify(replayService, never()).replay(any(), any(), any());
+    }
+
+    @Test
+    void testPacedReplayIsRefusedWhenAllSlotsAreBusy() throws Exception {
+        when(replayService.getMaxPoints()).thenReturn(1000);
+        when(replayService.tryStartPaced()).thenReturn(false);
+
+        mockMvc.perform(get("/api/positions/bus/1/replay").param("speed", "10"))
+                .andExpect(status().isServiceUnavailable());
+        verify(replayService, never()).replay(any(), any(), any());
+    }
+
+    @Test
+    void testPacedReplayReleasesItsSlot() throws Exception {
+        when(replayService.getMaxPoints()).thenReturn(1000);
+        when(replayService.tryStartPaced()).thenReturn(true);
+
+        MvcResult result = mockMvc.perform(get("/api/positions/bus/1/replay").param("speed", "10"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+
+        verify(replayService).endPaced();
+    }
+
+    @Test
+    void testUnknownFormatIsRejected() throws Exception {
+        mockMvc.perform(get("/api/positions/bus/1/replay").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,131 @@
+package com.geolocation_service.geolocation_service.controller;
+
+import com.geolocation_service.geolocation_service.dto.EnrichedPositionDTO;
+import com.geolocation_service.geolocation_service.model.PositionBus;
+import com.geolocation_service.geolocation_service.service.SsePositionHub;
+import com.geolocation_service.geolocation_service.service.TrackingService;
+import com.geolocation_service.geolocation_service.service.ViewportSubscriptionRegistry.Viewport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(TrackingController.class)
+class TrackingControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private TrackingService trackingService;
+
+    @MockitoBean
+    private SsePositionHub ssePositionHub;
+
+    private PositionBus latest;
+
+    @BeforeEach
+    void setUp() {
+        latest = new PositionBus();
+        latest.setIdPosition("pos-1");
+        latest.setBusId(1L);
+        latest.setLatitude(33.5731);
+        latest.setLongitude(-7.5898);
+        latest.setTimestamp(LocalDateTime.of(2025, 1, 1, 8, 0));
+
+        EnrichedPositionDTO enriched = EnrichedPositionDTO.builder()
+                .idPosition("pos-1")
+                .busId(1L)
+                .latitude(33.5731)
+                .longitude(-7.5898)
+                .timestamp(latest.getTimestamp())
+                .bus(EnrichedPositionDTO.BusInfoDTO.builder().id(1L).busNumber("BUS-001").build())
+                .build();
+
+        when(trackingService.getLatestPosition(1L)).thenReturn(latest);
+        when(trackingService.enrich(latest)).thenReturn(enriched);
+    }
+
+    @Test
+    void testGetEnrichedPositionByBusIdReturnsETag() throws Exception {
+        mockMvc.perform(get("/api/tracking/positions-enriched/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(jsonPath("$.busId").value(1))
+                .andExpect(jsonPath("$.bus.busNumber").value("BUS-001"));
+
+        verify(trackingService, never()).getEnrichedPositions();
+    }
+
+    @Test
+    void testGetEnrichedPositionByBusIdNotModified() throws Exception {
+        String eTag = mockMvc.perform(get("/api/tracking/positions-enriched/1"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/tracking/positions-enriched/1").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void testNewPositionChangesETag() throws Exception {
+        String eTag = mockMvc.perform(get("/api/tracking/positions-enriched/1"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        latest.setTimestamp(latest.getTimestamp().plusSeconds(5));
+        when(trackingService.enrich(any(PositionBus.class))).thenReturn(EnrichedPositionDTO.builder().busId(1L).build());
+
+        mockMvc.perform(get("/api/tracking/positions-enriched/1").header("If-None-Match", eTag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testGetEnrichedPositionByBusIdNotFound() throws Exception {
+        when(trackingService.getLatestPosition(99L)).thenReturn(null);
+
+        mockMvc.perform(get("/api/tracking/positions-enriched/99"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testStreamPositionsWithLinesAndBbox() throws Exception {
+        when(ssePositionHub.subscribe(eq(Set.of(7L)), any(Viewport.class))).thenReturn(new SseEmitter());
+
+        mockMvc.perform(get("/api/tracking/stream").param("lines", "7").param("bbox", "-7.63,33.58,-7.60,33.60"))
+                .andExpect(request().asyncStarted());
+
+        verify(ssePositionHub).subscribe(Set.of(7L), new Viewport(33.58, -7.63, 33.60, -7.60, Set.of(7L)));
+    }
+
+    @Test
+    void testStreamPositionsRejectsInvalidBbox() throws Exception {
+        mockMvc.perform(get("/api/tracking/stream").param("bbox", "-7.63,33.58,-7.60"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/tracking/stream").param("bbox", "-7.60,33.60,-7.63,33.58"))
+                .andExpect(status().isBadRequest());
+
+        verify(ssePositionHub, never()).subscribe(any(), any());
+    }
+
+    @Test
+    void testStreamPositionsWhenConnectionLimitReached() throws Exception {
+        when(ssePositionHub.subscribe(Set.of(), null)).thenReturn(null);
+
+        mockMvc.perform(get("/api/tracking/stream"))
+                .andExpect(status().isServiceUnavailable());
+    }
+}
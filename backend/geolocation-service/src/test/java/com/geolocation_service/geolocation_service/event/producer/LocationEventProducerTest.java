@@ -0,0 +1,92 @@
+package com.geolocation_service.geolocation_service.event.producer;
+
+import com.geolocation_service.geolocation_service.event.BusArrivedAtStopEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LocationEventProducerTest {
+
+    @Mock
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private LocationEventProducer producer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        producer = new LocationEventProducer(kafkaTemplate, meterRegistry, 1, 1000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        producer.shutdown();
+    }
+
+    private BusArrivedAtStopEvent arrival(String busId) {
+        return BusArrivedAtStopEvent.builder().busId(busId).stopName("Place Nations Unies").build();
+    }
+
+    @Test
+    void testEventIsSentOffTheCallerThread() {
+        when(kafkaTemplate.send(anyString(), anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        producer.publishBusArrived(arrival("1"));
+
+        verify(kafkaTemplate, timeout(1000)).send(eq("bus-arrived-events"), eq("1"), any());
+    }
+
+    @Test
+    @Timeout(5)
+    void testBlockedBrokerDropsEventsInsteadOfBlockingIngest() throws Exception {
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch broker = new CountDownLatch(1);
+        when(kafkaTemplate.send(anyString(), anyString(), any())).thenAnswer(invocation -> {
+            // Métadonnées indisponibles : send bloque jusqu'à max.block.ms
+            sending.countDown();
+            broker.await();
+            return CompletableFuture.completedFuture(null);
+        });
+
+        producer.publishBusArrived(arrival("1"));
+        assertThat(sending.await(1, TimeUnit.SECONDS)).isTrue();
+        producer.publishBusArrived(arrival("2"));
+        producer.publishBusArrived(arrival("3"));
+        producer.publishBusArrived(arrival("4"));
+
+        assertThat(meterRegistry.counter("geolocation.events.domain.dropped").count()).isEqualTo(2);
+        assertThat(meterRegistry.get("geolocation.events.domain.queue.size").gauge().value()).isEqualTo(1);
+        broker.countDown();
+    }
+
+    @Test
+    void testFailedSendIsCounted() {
+        when(kafkaTemplate.send(anyString(), anyString(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        producer.publishBusArrived(arrival("1"));
+        producer.shutdown();
+
+        assertThat(meterRegistry.counter("geolocation.events.domain.failed").count()).isEqualTo(1);
+    }
+}
@@ -1,12 +1,15 @@
 package com.geolocation_service.geolocation_service.integration;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.geolocation_service.geolocation_service.dto.CreatePositionRequest;
 import com.geolocation_service.geolocation_service.model.PositionBus;
 import com.geolocation_service.geolocation_service.repository.PositionBusRepository;
+import org.bson.Document;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.DynamicPropertyRegistry;
@@ -47,6 +50,9 @@ class GeolocationServiceIntegrationTest {
         registry.add("eureka.client.enabled", () -> "false");
         registry.add("spring.cloud.config.enabled", () -> "false");
 
+        // Exercise the time-series storage layout against the real MongoDB container
+        registry.add("geolocation.positions.storage.init-enabled", () -> "true");
+
         // Disable Redis for tests
         registry.add("spring.data.redis.repositories.enabled", () -> "false");
     }
@@ -60,6 +66,9 @@ class GeolocationServiceIntegrationTest {
     @Autowired
     private PositionBusRepository positionBusRepository;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
     private static String positionId;
     private static Long busId = 101L;
 
@@ -254,6 +263,42 @@ class GeolocationServiceIntegrationTest {
         assertThat(positionsForBus102).hasSize(1);
     }
 
+    @Test
+    @Order(11)
+    @DisplayName("Should insert driver positions into the time-series collection")
+    void testAddDriverPositionToTimeSeries() throws Exception {
+        Long driverBusId = 104L;
+        Document collection = mongoTemplate.getDb()
+                .listCollections()
+                .filter(new Document("name", mongoTemplate.getCollectionName(PositionBus.class)))
+                .first();
+        assertThat(collection).isNotNull();
+        assertThat(collection.getString("type")).isEqualTo("timeseries");
+
+        CreatePositionRequest request = CreatePositionRequest.builder()
+                .busId(driverBusId)
+                .latitude(34.0209) // Rabat coordinates
+                .longitude(-6.8416)
+                .vitesse(30.0)
+                .timestamp(LocalDateTime.now().withNano(0))
+                .build();
+
+        mockMvc.perform(post("/api/positions/driver")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.busId").value(driverBusId))
+                .andExpect(jsonPath("$.idPosition").exists());
+
+        // Resending the same point is acknowledged without a second document
+        mockMvc.perform(post("/api/positions/driver")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk());
+
+        assertThat(positionBusRepository.findByBusId(driverBusId)).hasSize(1);
+    }
+
     @AfterAll
     static void tearDown() {
         mongoDBContainer.stop();
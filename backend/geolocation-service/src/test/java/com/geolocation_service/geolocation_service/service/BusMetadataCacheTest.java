@@ -0,0 +1,122 @@
+package com.geolocation_service.geolocation_service.service;
+
+import com.geolocation_service.geolocation_service.dto.EnrichedPositionDTO.BusInfoDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BusMetadataCacheTest {
+
+    private static final String LOOKUP_URL = "http://schedule/api/buses/lookup";
+
+    private RestTemplate restTemplate;
+    private BusMetadataCache cache;
+
+    @BeforeEach
+    void setUp() {
+        restTemplate = mock(RestTemplate.class);
+        cache = new BusMetadataCache(restTemplate, "http://schedule", 300, 100);
+    }
+
+    private BusMetadataCache.BusResponse bus(Long id) {
+        BusMetadataCache.BusResponse response = new BusMetadataCache.BusResponse();
+        response.setId(id);
+        response.setBusNumber("BUS-00" + id);
+        response.setStatus("ACTIVE");
+        return response;
+    }
+
+    @Test
+    void testMissingBusesAreFetchedInOneCall() {
+        when(restTemplate.postForObject(eq(LOOKUP_URL), any(), eq(BusMetadataCache.BusResponse[].class)))
+                .thenReturn(new BusMetadataCache.BusResponse[]{bus(1L), bus(2L)});
+
+        Map<Long, BusInfoDTO> infos = cache.getAll(List.of(1L, 2L, 1L));
+
+        assertThat(infos).containsOnlyKeys(1L, 2L);
+        assertThat(infos.get(2L).getBusNumber()).isEqualTo("BUS-002");
+        verify(restTemplate, times(1)).postForObject(anyString(), any(), eq(BusMetadataCache.BusResponse[].class));
+    }
+
+    @Test
+    void testCachedBusesAreNotFetchedAgain() {
+        when(restTemplate.postForObject(eq(LOOKUP_URL), any(), eq(BusMetadataCache.BusResponse[].class)))
+                .thenReturn(new BusMetadataCache.BusResponse[]{bus(1L)});
+
+        cache.getAll(List.of(1L));
+        BusInfoDTO info = cache.get(1L);
+
+        assertThat(info.getStatus()).isEqualTo("ACTIVE");
+        verify(restTemplate, times(1)).postForObject(anyString(), any(), eq(BusMetadataCache.BusResponse[].class));
+    }
+
+    @Test
+    void testUnknownBusIsCachedWithDefaults() {
+        when(restTemplate.postForObject(eq(LOOKUP_URL), any(), eq(BusMetadataCache.BusResponse[].class)))
+                .thenReturn(new BusMetadataCache.BusResponse[0]);
+
+        assertThat(cache.get(9L).getStatus()).isEqualTo("UNKNOWN");
+        assertThat(cache.get(9L).getBusNumber()).isEqualTo("BUS-9");
+        verify(restTemplate, times(1)).postForObject(anyString(), any(), eq(BusMetadataCache.BusResponse[].class));
+    }
+
+    @Test
+    void testFailedLookupIsNotCached() {
+        when(restTemplate.postForObject(eq(LOOKUP_URL), any(), eq(BusMetadataCache.BusResponse[].class)))
+                .thenThrow(new ResourceAccessException("timeout"));
+
+        assertThat(cache.get(1L).getStatus()).isEqualTo("UNKNOWN");
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void testInvalidateForcesRefetch() {
+        when(restTemplate.postForObject(eq(LOOKUP_URL), any(), eq(BusMetadataCache.BusResponse[].class)))
+                .thenReturn(new BusMetadataCache.BusResponse[]{bus(1L)});
+
+        cache.get(1L);
+        cache.invalidate(1L);
+        cache.get(1L);
+
+        verify(restTemplate, times(2)).postForObject(anyString(), any(), eq(BusMetadataCache.BusResponse[].class));
+    }
+
+    @Test
+    void testExpiredEntriesAreRefetched() {
+        cache = new BusMetadataCache(restTemplate, "http://schedule", 0, 100);
+        when(restTemplate.postForObject(eq(LOOKUP_URL), any(), eq(BusMetadataCache.BusResponse[].class)))
+                .thenReturn(new BusMetadataCache.BusResponse[]{bus(1L)});
+
+        cache.get(1L);
+        cache.get(1L);
+
+        verify(restTemplate, times(2)).postForObject(anyString(), any(), eq(BusMetadataCache.BusResponse[].class));
+    }
+
+    @Test
+    void testSizeIsBounded() {
+        cache = new BusMetadataCache(restTemplate, "http://schedule", 300, 2);
+        when(restTemplate.postForObject(eq(LOOKUP_URL), any(), eq(BusMetadataCache.BusResponse[].class)))
+                .thenReturn(new BusMetadataCache.BusResponse[]{bus(1L), bus(2L)})
+                .thenReturn(new BusMetadataCache.BusResponse[]{bus(3L)});
+
+        cache.getAll(List.of(1L, 2L));
+        cache.get(3L);
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get(3L).getStatus()).isEqualTo("ACTIVE");
+    }
+}
@@ -26,6 +26,9 @@ class BusServiceTest {
     @Mock
     private BusRepository busRepository;
 
+    @Mock
+    private BusSummaryService busSummaryService;
+
     @InjectMocks
     private BusService busService;
 
@@ -105,6 +108,7 @@ class BusServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.getImmatriculation()).isEqualTo("A-12345-B");
         verify(busRepository, times(1)).save(testBus);
+        verify(busSummaryService, times(1)).refresh(testBus);
     }
 
     @Test
@@ -128,6 +132,7 @@ class BusServiceTest {
         assertThat(result).isNotNull();
         verify(busRepository, times(1)).findById("bus-1");
         verify(busRepository, times(1)).save(any(Bus.class));
+        verify(busSummaryService, times(1)).refresh(testBus);
     }
 
     @Test
@@ -148,5 +153,6 @@ class BusServiceTest {
 
         // Then
         verify(busRepository, times(1)).deleteById("bus-1");
+        verify(busSummaryService, times(1)).remove("bus-1");
     }
 }
\ No newline at end of file
@@ -0,0 +1,130 @@
+package com.geolocation_service.geolocation_service.service;
+
+import com.geolocation_service.geolocation_service.model.Bus;
+import com.geolocation_service.geolocation_service.model.BusSummary;
+import com.geolocation_service.geolocation_service.model.Direction;
+import com.geolocation_service.geolocation_service.model.LigneBus;
+import com.geolocation_service.geolocation_service.repository.BusSummaryRepository;
+import com.geolocation_service.geolocation_service.repository.DirectionRepository;
+import com.geolocation_service.geolocation_service.repository.LigneBusRepository;
+import com.mongodb.DBRef;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BusSummaryServiceTest {
+
+    @Mock
+    private BusSummaryRepository busSummaryRepository;
+
+    @Mock
+    private LigneBusRepository ligneBusRepository;
+
+    @Mock
+    private DirectionRepository directionRepository;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private BusSummaryService busSummaryService;
+
+    private LigneBus ligne;
+    private Direction direction;
+
+    @BeforeEach
+    void setUp() {
+        ligne = new LigneBus("ligne-1", "15", "Casa - Ain Diab", null, "#FF5733", true);
+        direction = new Direction("dir-1", "Vers Ain Diab", "Casa Port", "Ain Diab", ligne);
+    }
+
+    @Test
+    void testRefreshResolvesLineAndDirectionNames() {
+        // Le bus reçu ne porte que les identifiants de ses références
+        Bus bus = new Bus();
+        bus.setIdBus("bus-1");
+        bus.setImmatriculation("A-12345-B");
+        bus.setLigneActuelle(new LigneBus("ligne-1", null, null, null, null, false));
+        bus.setDirectionActuelle(new Direction("dir-1", null, null, null, null));
+        when(ligneBusRepository.findById("ligne-1")).thenReturn(Optional.of(ligne));
+        when(directionRepository.findById("dir-1")).thenReturn(Optional.of(direction));
+
+        busSummaryService.refresh(bus);
+
+        ArgumentCaptor<BusSummary> saved = ArgumentCaptor.forClass(BusSummary.class);
+        verify(busSummaryRepository).save(saved.capture());
+        assertThat(saved.getValue().getImmatriculation()).isEqualTo("A-12345-B");
+        assertThat(saved.getValue().getNomLigne()).isEqualTo("Casa - Ain Diab");
+        assertThat(saved.getValue().getCouleurLigne()).isEqualTo("#FF5733");
+        assertThat(saved.getValue().getNomDirection()).isEqualTo("Vers Ain Diab");
+    }
+
+    @Test
+    void testSearchUsesOneQueryPerFilter() {
+        busSummaryService.search("ligne-1", "dir-1");
+        busSummaryService.search("ligne-1", null);
+        busSummaryService.search(null, "dir-1");
+        busSummaryService.search(null, null);
+
+        verify(busSummaryRepository).findByLigneIdAndDirectionId("ligne-1", "dir-1");
+        verify(busSummaryRepository).findByLigneId("ligne-1");
+        verify(busSummaryRepository).findByDirectionId("dir-1");
+        verify(busSummaryRepository).findAll();
+    }
+
+    @Test
+    void testLineRenameIsPropagatedInOneUpdate() {
+        busSummaryService.onLigneUpdated(ligne);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateMulti(query.capture(), update.capture(), eq(BusSummary.class));
+        assertThat(query.getValue().getQueryObject().get("ligneId")).isEqualTo("ligne-1");
+        assertThat(update.getValue().getUpdateObject().get("$set", Document.class).get("nomLigne"))
+                .isEqualTo("Casa - Ain Diab");
+    }
+
+    @Test
+    void testRebuildReadsRawBusesWithoutTheirLists() {
+        when(ligneBusRepository.findAll()).thenReturn(List.of(ligne));
+        when(mongoTemplate.find(any(Query.class), eq(Direction.class))).thenReturn(List.of(direction));
+        when(mongoTemplate.getCollectionName(Bus.class)).thenReturn("bus");
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("bus"))).thenReturn(List.of(
+                new Document("_id", "bus-1").append("immatriculation", "A-12345-B").append("capacite", 80)
+                        .append("ligneActuelle", new DBRef("ligne_bus", "ligne-1"))
+                        .append("directionActuelle", new DBRef("direction", "dir-1")),
+                new Document("_id", "bus-2").append("immatriculation", "B-555-C")));
+
+        int count = busSummaryService.rebuild();
+
+        assertThat(count).isEqualTo(2);
+        ArgumentCaptor<Query> busQuery = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(busQuery.capture(), eq(Document.class), eq("bus"));
+        assertThat(busQuery.getValue().getFieldsObject()).containsKeys("positions", "incidents", "historiques");
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<BusSummary>> saved = ArgumentCaptor.forClass(List.class);
+        verify(busSummaryRepository).saveAll(saved.capture());
+        assertThat(saved.getValue()).extracting(BusSummary::getNomLigne).containsExactly("Casa - Ain Diab", null);
+        assertThat(saved.getValue().get(0).getCapacite()).isEqualTo(80);
+        assertThat(saved.getValue().get(0).getPointArrivee()).isEqualTo("Ain Diab");
+        verify(mongoTemplate).remove(any(Query.class), eq(BusSummary.class));
+    }
+}
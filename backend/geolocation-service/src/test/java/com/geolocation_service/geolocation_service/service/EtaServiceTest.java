@@ -0,0 +1,154 @@
+package com.geolocation_service.geolocation_service.service;
+
+import com.geolocation_service.geolocation_service.dto.StopEtaDTO;
+import com.geolocation_service.geolocation_service.model.PositionBus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class EtaServiceTest {
+
+    private static final double LON = -7.5898;
+
+    @Mock
+    private StopNetworkService stopNetworkService;
+
+    @Mock
+    private StopEventDetector stopEventDetector;
+
+    private EtaService etaService;
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        // Trois arrêts espacés de ~1,1 km, planifiés à 3 puis 4 minutes d'intervalle
+        StopNetworkService.RouteDetails route = new StopNetworkService.RouteDetails();
+        route.setId(7L);
+        route.setRouteName("Ligne 7");
+        route.setStops(List.of(stop(1L, 33.57, 1, 0), stop(2L, 33.58, 2, 3), stop(3L, 33.59, 3, 7)));
+        lenient().when(stopNetworkService.getStopIndex()).thenReturn(StopNetworkService.buildIndex(List.of(route), 200));
+
+        etaService = new EtaService(stopNetworkService, stopEventDetector, 0.5, 60, 15, 20, 30, 300);
+        now = LocalDateTime.now().withSecond(0).withNano(0);
+    }
+
+    private static StopNetworkService.RouteStopDetail stop(Long id, double latitude, int sequence, int minutes) {
+        StopNetworkService.RouteStopDetail stop = new StopNetworkService.RouteStopDetail();
+        stop.setStopId(id);
+        stop.setStopName("Stop " + id);
+        stop.setLatitude(BigDecimal.valueOf(latitude));
+        stop.setLongitude(BigDecimal.valueOf(LON));
+        stop.setSequenceNumber(sequence);
+        stop.setTimeFromOrigin(minutes);
+        return stop;
+    }
+
+    private void feed(double latitude, LocalDateTime timestamp) {
+        PositionBus position = new PositionBus();
+        position.setBusId(1L);
+        position.setLatitude(latitude);
+        position.setLongitude(LON);
+        position.setTimestamp(timestamp);
+        etaService.onPosition(position);
+    }
+
+    private void arrivedAt(Long stopId, LocalDateTime at) {
+        when(stopEventDetector.lastArrival(1L)).thenReturn(new StopEventDetector.StopArrival(7L, stopId, at));
+    }
+
+    @Test
+    void testScheduledTimesUsedWithoutHistory() {
+        arrivedAt(1L, now);
+        // A mi-chemin entre les arrêts 1 et 2
+        feed(33.575, now.plusSeconds(60));
+
+        List<StopEtaDTO> stop2 = etaService.getArrivals(2L, 5);
+        List<StopEtaDTO> stop3 = etaService.getArrivals(3L, 5);
+
+        assertThat(stop2).hasSize(1);
+        assertThat(stop2.get(0).getEstimatedArrival()).isCloseTo(now.plusSeconds(60 + 90), within(1, ChronoUnit.SECONDS));
+        assertThat(stop2.get(0).getStopsAway()).isEqualTo(1);
+        assertThat(stop3.get(0).getEstimatedArrival()).isCloseTo(now.plusSeconds(60 + 90 + 240), within(1, ChronoUnit.SECONDS));
+        assertThat(stop3.get(0).getStopsAway()).isEqualTo(2);
+        assertThat(etaService.getArrivals(1L, 5)).isEmpty();
+    }
+
+    @Test
+    void testObservedSegmentTimesAreLearned() {
+        arrivedAt(1L, now);
+        feed(33.57, now.plusSeconds(1));
+        // Segment 1 -> 2 parcouru en 5 minutes au lieu de 3
+        arrivedAt(2L, now.plusMinutes(5));
+        feed(33.58, now.plusMinutes(5).plusSeconds(1));
+
+        assertThat(etaService.segmentSeconds(
+                stopNetworkService.getStopIndex().route(7L), 0, 1, now)).isCloseTo(300, within(0.001));
+    }
+
+    @Test
+    void testBoardMovesWithTheBus() {
+        arrivedAt(1L, now);
+        feed(33.571, now.plusSeconds(10));
+        arrivedAt(2L, now.plusMinutes(3));
+        feed(33.581, now.plusMinutes(3).plusSeconds(10));
+
+        assertThat(etaService.getArrivals(2L, 5)).isEmpty();
+        assertThat(etaService.getArrivals(3L, 5)).extracting(StopEtaDTO::getBusId).containsExactly(1L);
+        assertThat(etaService.getNextStop(1L)).get().extracting(StopEtaDTO::getStopId).isEqualTo(3L);
+    }
+
+    @Test
+    void testStopPassedWithoutArrivalIsSkipped() {
+        arrivedAt(1L, now);
+        // Arrêt 2 passé sans ralentir : aucune arrivée détectée, mais le bus est à mi-chemin de l'arrêt 3
+        PositionBus position = new PositionBus();
+        position.setBusId(1L);
+        position.setLatitude(33.585);
+        position.setLongitude(LON);
+        position.setTimestamp(now.plusMinutes(4));
+        position.setMatchedRouteId(7L);
+        position.setRouteOffsetMeters(stopNetworkService.getStopIndex().shapes().vertexOffset(7L, 1) + 556);
+        etaService.onPosition(position);
+
+        assertThat(etaService.getArrivals(2L, 5)).isEmpty();
+        List<StopEtaDTO> stop3 = etaService.getArrivals(3L, 5);
+        assertThat(stop3).singleElement().satisfies(arrival -> {
+            assertThat(arrival.getStopsAway()).isEqualTo(1);
+            assertThat(arrival.getEstimatedArrival()).isCloseTo(now.plusMinutes(4).plusSeconds(120), within(2, ChronoUnit.SECONDS));
+        });
+    }
+
+    @Test
+    void testTerminusClearsBoards() {
+        arrivedAt(2L, now);
+        feed(33.581, now.plusSeconds(10));
+        arrivedAt(3L, now.plusMinutes(4));
+        feed(33.59, now.plusMinutes(4).plusSeconds(10));
+
+        assertThat(etaService.getArrivals(3L, 5)).isEmpty();
+        assertThat(etaService.getNextStop(1L)).isEmpty();
+    }
+
+    @Test
+    void testStaleBusesAreEvicted() {
+        arrivedAt(1L, now.minusMinutes(20));
+        feed(33.571, now.minusMinutes(20));
+
+        assertThat(etaService.getArrivals(2L, 5)).isEmpty();
+        assertThat(etaService.evictStale()).isEqualTo(1);
+        assertThat(etaService.getNextStop(1L)).isEmpty();
+    }
+}
@@ -0,0 +1,208 @@
+package com.geolocation_service.geolocation_service.service;
+
+import com.geolocation_service.geolocation_service.dto.LineHeadwayDTO;
+import com.geolocation_service.geolocation_service.dto.LineHeadwayDTO.BusHeadwayDTO;
+import com.geolocation_service.geolocation_service.dto.LineHeadwayDTO.Status;
+import com.geolocation_service.geolocation_service.event.BusHeadwayAlertEvent;
+import com.geolocation_service.geolocation_service.event.producer.LocationEventProducer;
+import com.geolocation_service.geolocation_service.model.PositionBus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class HeadwayServiceTest {
+
+    private static final double LON = -7.5898;
+
+    @Mock
+    private StopNetworkService stopNetworkService;
+
+    @Mock
+    private LocationEventProducer locationEventProducer;
+
+    @Mock
+    private LeaderElection leaderElection;
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    private LatestPositionRegistry registry;
+    private HeadwayService headwayService;
+    private StopIndex index;
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        // Trois arrêts espacés de ~1,1 km, planifiés à 3 puis 4 minutes d'intervalle
+        StopNetworkService.RouteDetails route = new StopNetworkService.RouteDetails();
+        route.setId(7L);
+        route.setRouteName("Ligne 7");
+        route.setStops(List.of(stop(1L, 33.57, 1, 0), stop(2L, 33.58, 2, 3), stop(3L, 33.59, 3, 7)));
+        index = StopNetworkService.buildIndex(List.of(route), 200);
+        lenient().when(stopNetworkService.getStopIndex()).thenReturn(index);
+        lenient().when(leaderElection.isLeader()).thenReturn(true);
+
+        registry = new LatestPositionRegistry(5);
+        headwayService = new HeadwayService(registry, stopNetworkService, locationEventProducer, leaderElection,
+                restTemplate, "http://schedule-service", true, 0.25, 2.0, 20);
+        // Un bus toutes les 10 minutes, tous les jours
+        headwayService.setScheduleWindows(Map.of(7L, List.of(
+                new HeadwayService.ScheduleWindow(Set.of(), null, null, LocalTime.MIN, LocalTime.MAX, 10))));
+        now = LocalDateTime.now();
+    }
+
+    private static StopNetworkService.RouteStopDetail stop(Long id, double latitude, int sequence, int minutes) {
+        StopNetworkService.RouteStopDetail stop = new StopNetworkService.RouteStopDetail();
+        stop.setStopId(id);
+        stop.setStopName("Stop " + id);
+        stop.setLatitude(BigDecimal.valueOf(latitude));
+        stop.setLongitude(BigDecimal.valueOf(LON));
+        stop.setSequenceNumber(sequence);
+        stop.setTimeFromOrigin(minutes);
+        return stop;
+    }
+
+    private void bus(Long busId, double offsetMeters) {
+        PositionBus position = new PositionBus();
+        position.setBusId(busId);
+        position.setMatchedRouteId(7L);
+        position.setRouteOffsetMeters(offsetMeters);
+        position.setTimestamp(now);
+        registry.update(position);
+    }
+
+    private double stopOffset(int stopIndex) {
+        return index.shapes().vertexOffset(7L, stopIndex);
+    }
+
+    @Test
+    void testBusesAreOrderedByProgressWithScheduledRunningTime() {
+        bus(1L, stopOffset(1) + 500);
+        bus(2L, stopOffset(1) + 450);
+        bus(3L, stopOffset(1) / 2);
+
+        LineHeadwayDTO line = headwayService.computeHeadways(now).get(7L);
+
+        assertThat(line.getScheduledHeadwaySeconds()).isEqualTo(600);
+        assertThat(line.getBuses()).extracting(BusHeadwayDTO::getBusId).containsExactly(1L, 2L, 3L);
+        assertThat(line.getBuses()).extracting(BusHeadwayDTO::getStatus)
+                .containsExactly(Status.UNKNOWN, Status.BUNCHED, Status.NORMAL);
+
+        BusHeadwayDTO bunched = line.getBuses().get(1);
+        assertThat(bunched.getLeaderBusId()).isEqualTo(1L);
+        assertThat(bunched.getGapMeters()).isCloseTo(50, within(0.001));
+        // 50 m sur le segment 2 → 3, planifié à 4 minutes
+        assertThat(bunched.getHeadwaySeconds()).isEqualTo(Math.round(50 / (stopOffset(2) - stopOffset(1)) * 240));
+
+        BusHeadwayDTO follower = line.getBuses().get(2);
+        long expected = Math.round(90 + 450 / (stopOffset(2) - stopOffset(1)) * 240);
+        assertThat(follower.getHeadwaySeconds()).isEqualTo(expected);
+        assertThat(headwayService.getLineHeadways(7L)).isSameAs(line);
+    }
+
+    @Test
+    void testAlertIsPublishedOnceWhenBusBunches() {
+        bus(1L, 1500);
+        bus(2L, 1480);
+
+        headwayService.computeHeadways(now);
+        headwayService.computeHeadways(now.plusSeconds(10));
+
+        ArgumentCaptor<BusHeadwayAlertEvent> alert = ArgumentCaptor.forClass(BusHeadwayAlertEvent.class);
+        verify(locationEventProducer, times(1)).publishHeadwayAlert(alert.capture());
+        assertThat(alert.getValue().getBusId()).isEqualTo("2");
+        assertThat(alert.getValue().getLeaderBusId()).isEqualTo("1");
+        assertThat(alert.getValue().getStatus()).isEqualTo("BUNCHED");
+        assertThat(alert.getValue().getScheduledHeadwaySeconds()).isEqualTo(600);
+    }
+
+    @Test
+    void testFollowerInstanceDoesNotPublishAlerts() {
+        when(leaderElection.isLeader()).thenReturn(false);
+        bus(1L, 1500);
+        bus(2L, 1480);
+
+        headwayService.computeHeadways(now);
+
+        verify(locationEventProducer, never()).publishHeadwayAlert(any());
+    }
+
+    @Test
+    void testWithoutScheduledFrequencyStatusIsUnknown() {
+        headwayService.setScheduleWindows(Map.of());
+        bus(1L, 1500);
+        bus(2L, 1480);
+
+        LineHeadwayDTO line = headwayService.computeHeadways(now).get(7L);
+
+        assertThat(line.getScheduledHeadwaySeconds()).isNull();
+        assertThat(line.getBuses().get(1).getHeadwaySeconds()).isNotNull();
+        assertThat(line.getBuses()).extracting(BusHeadwayDTO::getStatus).containsOnly(Status.UNKNOWN);
+        verify(locationEventProducer, never()).publishHeadwayAlert(any());
+    }
+
+    @Test
+    void testUnknownLineIsEmpty() {
+        assertThat(headwayService.getLineHeadways(99L).getBuses()).isEmpty();
+    }
+
+    @Test
+    void testScheduleWindowMatchesDaysAndOvernightService() {
+        HeadwayService.ScheduleWindow night = new HeadwayService.ScheduleWindow(Set.of(DayOfWeek.FRIDAY), null, null,
+                LocalTime.of(22, 0), LocalTime.of(1, 0), 30);
+        LocalDateTime friday = LocalDateTime.of(2024, 5, 10, 0, 0);
+
+        assertThat(night.appliesAt(friday.withHour(23))).isTrue();
+        assertThat(night.appliesAt(friday.withHour(0).withMinute(30))).isTrue();
+        assertThat(night.appliesAt(friday.withHour(12))).isFalse();
+        assertThat(night.appliesAt(friday.plusDays(1).withHour(23))).isFalse();
+    }
+
+    @Test
+    void testRefreshSchedulesKeepsFrequencyServices() {
+        HeadwayService.ScheduleDetail frequent = schedule(7L, 12);
+        HeadwayService.ScheduleDetail singleTrip = schedule(8L, 0);
+        HeadwayService.SchedulePage page = new HeadwayService.SchedulePage();
+        page.setContent(List.of(frequent, singleTrip));
+        when(restTemplate.getForObject(anyString(), eq(HeadwayService.SchedulePage.class))).thenReturn(page);
+
+        headwayService.refreshSchedules();
+
+        assertThat(headwayService.scheduledHeadwaySeconds(7L, now)).isEqualTo(720);
+        assertThat(headwayService.scheduledHeadwaySeconds(8L, now)).isNull();
+    }
+
+    private static HeadwayService.ScheduleDetail schedule(Long routeId, int frequency) {
+        HeadwayService.ScheduleDetail schedule = new HeadwayService.ScheduleDetail();
+        schedule.setRouteId(routeId);
+        schedule.setDepartureTime(LocalTime.MIN);
+        schedule.setArrivalTime(LocalTime.MAX);
+        schedule.setIsActive(true);
+        schedule.setFrequency(frequency);
+        return schedule;
+    }
+}
@@ -0,0 +1,165 @@
+package com.geolocation_service.geolocation_service.service;
+
+import com.geolocation_service.geolocation_service.dto.IncidentHeatmapDTO;
+import com.geolocation_service.geolocation_service.model.IncidentBus;
+import com.geolocation_service.geolocation_service.service.ViewportSubscriptionRegistry.Viewport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IncidentHeatmapTest {
+
+    private static final LocalDate JOUR = LocalDate.of(2025, 3, 10);
+    private static final Viewport CASABLANCA = new Viewport(33.4, -7.8, 33.7, -7.4, Set.of());
+
+    private IncidentHeatmap heatmap;
+
+    @BeforeEach
+    void setUp() {
+        heatmap = new IncidentHeatmap(mock(MongoTemplate.class), true, 2, 16, 366, 10, 100);
+    }
+
+    private IncidentBus incident(String id, String type, String statut, double latitude, double longitude, LocalDate day) {
+        return new IncidentBus(id, type, "desc", "MOYENNE", day.atTime(8, 0), statut, latitude, longitude, null);
+    }
+
+    @Test
+    void testNearbyIncidentsShareACellAtLowZoomOnly() {
+        // Casablanca centre et Maarif : ~3 km d'écart
+        heatmap.replace(null, incident("1", "PANNE", "SIGNALE", 33.59, -7.61, JOUR));
+        heatmap.replace(null, incident("2", "ACCIDENT", "SIGNALE", 33.565, -7.64, JOUR));
+
+        IncidentHeatmapDTO city = heatmap.heatmap(8, JOUR, JOUR, null);
+        IncidentHeatmapDTO street = heatmap.heatmap(16, JOUR, JOUR, CASABLANCA);
+
+        assertThat(city.getCells()).hasSize(1);
+        assertThat(city.getCells().get(0).getCount()).isEqualTo(2);
+        assertThat(city.getCells().get(0).getByType()).isEqualTo(Map.of("ACCIDENT", 1, "PANNE", 1));
+        assertThat(city.getCells().get(0).getCellId()).startsWith("8/");
+        assertThat(street.getCells()).hasSize(2);
+    }
+
+    @Test
+    void testResolutionKeepsCountButClosesIncident() {
+        IncidentBus signale = incident("1", "PANNE", "SIGNALE", 33.59, -7.61, JOUR);
+        heatmap.replace(null, signale);
+        heatmap.replace(signale, incident("1", "PANNE", "RESOLU", 33.59, -7.61, JOUR));
+
+        IncidentHeatmapDTO.Cell cell = heatmap.heatmap(12, JOUR, JOUR, CASABLANCA).getCells().get(0);
+
+        assertThat(cell.getCount()).isEqualTo(1);
+        assertThat(cell.getOpen()).isZero();
+    }
+
+    @Test
+    void testUpdateMovesIncidentToItsNewCell() {
+        IncidentBus before = incident("1", "PANNE", "SIGNALE", 33.59, -7.61, JOUR);
+        heatmap.replace(null, before);
+        heatmap.replace(before, incident("1", "PANNE", "SIGNALE", 34.02, -6.84, JOUR));
+
+        List<IncidentHeatmapDTO.Cell> cells = heatmap.heatmap(12, JOUR, JOUR, null).getCells();
+
+        assertThat(cells).hasSize(1);
+        assertThat(cells.get(0).getLatitude()).isCloseTo(34.02, offset(0.05));
+    }
+
+    @Test
+    void testPeriodSelectsWholeDays() {
+        heatmap.replace(null, incident("1", "PANNE", "SIGNALE", 33.59, -7.61, JOUR));
+        heatmap.replace(null, incident("2", "PANNE", "SIGNALE", 33.59, -7.61, JOUR.plusDays(1)));
+        heatmap.replace(null, incident("3", "PANNE", "SIGNALE", 33.59, -7.61, JOUR.plusDays(5)));
+
+        assertThat(heatmap.heatmap(12, JOUR, JOUR.plusDays(1), CASABLANCA).getCells().get(0).getCount()).isEqualTo(2);
+        assertThat(heatmap.heatmap(12, JOUR.minusDays(3), JOUR.minusDays(1), CASABLANCA).getCells()).isEmpty();
+    }
+
+    @Test
+    void testLoadReplacesIncrementalState() {
+        heatmap.replace(null, incident("1", "PANNE", "SIGNALE", 33.59, -7.61, JOUR));
+
+        heatmap.load(List.of(
+                incident("2", null, "SIGNALE", 33.57, -7.64, JOUR),
+                new IncidentBus("3", "PANNE", "desc", "MOYENNE", LocalDateTime.of(JOUR, LocalTime.NOON), "SIGNALE", 0, 0, null)));
+
+        List<IncidentHeatmapDTO.Cell> cells = heatmap.heatmap(16, JOUR, JOUR, CASABLANCA).getCells();
+        // Sans coordonnées, l'incident 3 est ignoré
+        assertThat(cells).hasSize(1);
+        assertThat(cells.get(0).getByType()).containsOnlyKeys("NON_RENSEIGNE");
+    }
+
+    @Test
+    void testLongPeriodMergesMonthsAndPartialDays() {
+        heatmap.replace(null, incident("1", "PANNE", "SIGNALE", 33.59, -7.61, LocalDate.of(2025, 1, 31)));
+        heatmap.replace(null, incident("2", "PANNE", "SIGNALE", 33.59, -7.61, LocalDate.of(2025, 2, 14)));
+        heatmap.replace(null, incident("3", "PANNE", "SIGNALE", 33.59, -7.61, LocalDate.of(2025, 4, 2)));
+        heatmap.replace(null, incident("4", "PANNE", "SIGNALE", 33.59, -7.61, LocalDate.of(2025, 4, 20)));
+
+        // 31 janvier, février et mars entiers, 1er au 10 avril
+        List<IncidentHeatmapDTO.Cell> cells = heatmap.heatmap(12, LocalDate.of(2025, 1, 31), LocalDate.of(2025, 4, 10), CASABLANCA).getCells();
+
+        assertThat(cells).hasSize(1);
+        assertThat(cells.get(0).getCount()).isEqualTo(3);
+    }
+
+    @Test
+    void testAreaAndCellCapBoundTheResponse() {
+        heatmap.replace(null, incident("1", "PANNE", "SIGNALE", 33.59, -7.61, JOUR));
+        heatmap.replace(null, incident("2", "PANNE", "SIGNALE", 33.59, -7.61, JOUR));
+        // Rabat, hors de la zone
+        heatmap.replace(null, incident("3", "PANNE", "SIGNALE", 34.02, -6.84, JOUR));
+        for (int i = 0; i < 150; i++) {
+            heatmap.replace(null, incident("m" + i, "PANNE", "SIGNALE", 33.45 + (i / 15) * 0.003, -7.75 + (i % 15) * 0.006, JOUR));
+        }
+
+        IncidentHeatmapDTO result = heatmap.heatmap(16, JOUR, JOUR, CASABLANCA);
+
+        assertThat(result.isTruncated()).isTrue();
+        assertThat(result.getCells()).hasSize(100);
+        assertThat(result.getCells().get(0).getCount()).isEqualTo(2);
+        assertThat(result.getCells()).allMatch(cell -> cell.getLatitude() < 34);
+    }
+
+    @Test
+    void testWriteDuringResyncIsKept() {
+        IncidentBus read = incident("1", "PANNE", "SIGNALE", 33.59, -7.61, JOUR);
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        heatmap = new IncidentHeatmap(mongoTemplate, true, 2, 16, 366, 10, 100);
+        // Incident résolu pendant la lecture, créé pendant la lecture
+        when(mongoTemplate.find(any(Query.class), eq(IncidentBus.class))).thenAnswer(invocation -> {
+            heatmap.replace(read, incident("1", "PANNE", "RESOLU", 33.59, -7.61, JOUR));
+            heatmap.replace(null, incident("2", "ACCIDENT", "SIGNALE", 33.59, -7.61, JOUR));
+            return List.of(read);
+        });
+
+        heatmap.resync();
+
+        IncidentHeatmapDTO.Cell cell = heatmap.heatmap(12, JOUR, JOUR, CASABLANCA).getCells().get(0);
+        assertThat(cell.getCount()).isEqualTo(2);
+        assertThat(cell.getOpen()).isEqualTo(1);
+    }
+
+    @Test
+    void testValidate() {
+        assertThat(heatmap.validate(8, JOUR, JOUR, null)).isNull();
+        assertThat(heatmap.validate(12, JOUR, JOUR, CASABLANCA)).isNull();
+        assertThat(heatmap.validate(20, JOUR, JOUR, CASABLANCA)).isEqualTo("zoom hors limites (2-16)");
+        assertThat(heatmap.validate(12, JOUR, JOUR, null)).isEqualTo("zone requise au-delà du zoom 10");
+        assertThat(heatmap.validate(12, JOUR, JOUR.minusDays(1), CASABLANCA)).isEqualTo("période inversée");
+        assertThat(heatmap.validate(12, JOUR.minusYears(2), JOUR, CASABLANCA)).isEqualTo("période trop longue");
+    }
+}
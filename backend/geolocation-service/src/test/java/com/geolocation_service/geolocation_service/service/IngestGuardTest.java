@@ -0,0 +1,124 @@
+package com.geolocation_service.geolocation_service.service;
+
+import com.geolocation_service.geolocation_service.model.PositionBus;
+import com.geolocation_service.geolocation_service.repository.PositionBusRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class IngestGuardTest {
+
+    @Mock
+    private PositionBusRepository positionBusRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private IngestGuard ingestGuard;
+    private LocalDateTime start;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ingestGuard = new IngestGuard(positionBusRepository, meterRegistry, true, 30, 30);
+        start = LocalDateTime.of(2024, 5, 10, 8, 0);
+    }
+
+    private PositionBus position(LocalDateTime timestamp) {
+        PositionBus position = new PositionBus();
+        position.setBusId(1L);
+        position.setTimestamp(timestamp);
+        return position;
+    }
+
+    @Test
+    void testNewerPointsAreAccepted() {
+        assertThat(ingestGuard.admit(position(start))).isEqualTo(IngestGuard.Verdict.ACCEPTED);
+        assertThat(ingestGuard.admit(position(start.plusSeconds(5)))).isEqualTo(IngestGuard.Verdict.ACCEPTED);
+    }
+
+    @Test
+    void testRetriedPointIsDuplicate() {
+        ingestGuard.admit(position(start));
+        ingestGuard.admit(position(start.plusSeconds(5)));
+
+        // Même instant à la milliseconde près (précision du stockage)
+        assertThat(ingestGuard.admit(position(start.plusSeconds(5).plusNanos(200_000))))
+                .isEqualTo(IngestGuard.Verdict.DUPLICATE);
+        assertThat(ingestGuard.admit(position(start))).isEqualTo(IngestGuard.Verdict.DUPLICATE);
+        assertThat(meterRegistry.counter("geolocation.ingest.guard.dropped", "reason", "duplicate").count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void testLatePointInsideWindowIsAcceptedOnce() {
+        ingestGuard.admit(position(start));
+        ingestGuard.admit(position(start.plusSeconds(20)));
+
+        assertThat(ingestGuard.admit(position(start.plusSeconds(10)))).isEqualTo(IngestGuard.Verdict.LATE);
+        assertThat(ingestGuard.admit(position(start.plusSeconds(10)))).isEqualTo(IngestGuard.Verdict.DUPLICATE);
+    }
+
+    @Test
+    void testPointOlderThanWindowIsStale() {
+        ingestGuard.admit(position(start.plusMinutes(2)));
+
+        assertThat(ingestGuard.admit(position(start))).isEqualTo(IngestGuard.Verdict.STALE);
+    }
+
+    @Test
+    void testWatermarkIsSeededOnceFromLastStoredPosition() {
+        when(positionBusRepository.findFirstByBusIdOrderByTimestampDesc(1L)).thenReturn(Optional.of(position(start)));
+
+        assertThat(ingestGuard.admit(position(start))).isEqualTo(IngestGuard.Verdict.DUPLICATE);
+        assertThat(ingestGuard.admit(position(start.plusSeconds(5)))).isEqualTo(IngestGuard.Verdict.ACCEPTED);
+        verify(positionBusRepository, times(1)).findFirstByBusIdOrderByTimestampDesc(1L);
+    }
+
+    @Test
+    void testBatchSeedsUnknownBusesInOneQuery() {
+        PositionBus other = position(start);
+        other.setBusId(2L);
+        when(positionBusRepository.findLastTimestampByBusIdIn(List.of(1L, 2L))).thenReturn(List.of(position(start)));
+
+        ingestGuard.prefetch(List.of(1L, 2L, 1L));
+        ingestGuard.prefetch(List.of(1L, 2L));
+
+        assertThat(ingestGuard.admit(position(start))).isEqualTo(IngestGuard.Verdict.DUPLICATE);
+        assertThat(ingestGuard.admit(other)).isEqualTo(IngestGuard.Verdict.ACCEPTED);
+        verify(positionBusRepository, times(1)).findLastTimestampByBusIdIn(anyCollection());
+        verify(positionBusRepository, never()).findFirstByBusIdOrderByTimestampDesc(anyLong());
+    }
+
+    @Test
+    void testReleasedPointCanBeResent() {
+        ingestGuard.admit(position(start));
+        ingestGuard.admit(position(start.plusSeconds(5)));
+
+        ingestGuard.release(position(start.plusSeconds(5)));
+
+        assertThat(ingestGuard.admit(position(start.plusSeconds(5)))).isEqualTo(IngestGuard.Verdict.ACCEPTED);
+    }
+
+    @Test
+    void testDisabledGuardAcceptsEverything() {
+        IngestGuard disabled = new IngestGuard(positionBusRepository, meterRegistry, false, 30, 30);
+        disabled.admit(position(start));
+
+        assertThat(disabled.admit(position(start))).isEqualTo(IngestGuard.Verdict.ACCEPTED);
+    }
+}
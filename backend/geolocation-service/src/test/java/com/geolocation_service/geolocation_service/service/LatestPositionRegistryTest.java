@@ -0,0 +1,85 @@
+package com.geolocation_service.geolocation_service.service;
+
+import com.geolocation_service.geolocation_service.model.PositionBus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LatestPositionRegistryTest {
+
+    private LatestPositionRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new LatestPositionRegistry(5);
+    }
+
+    private PositionBus position(Long busId, LocalDateTime timestamp) {
+        PositionBus position = new PositionBus();
+        position.setBusId(busId);
+        position.setLatitude(33.5731);
+        position.setLongitude(-7.5898);
+        position.setTimestamp(timestamp);
+        return position;
+    }
+
+    @Test
+    void testKeepsMostRecentPosition() {
+        LocalDateTime now = LocalDateTime.now();
+        PositionBus recent = position(1L, now);
+
+        registry.update(recent);
+        registry.update(position(1L, now.minusSeconds(30)));
+
+        assertThat(registry.getLatest(1L)).containsSame(recent);
+        assertThat(registry.size()).isEqualTo(1);
+    }
+
+    @Test
+    void testActivePositionsExcludeIdleBuses() {
+        LocalDateTime now = LocalDateTime.now();
+        registry.update(position(1L, now));
+        registry.update(position(2L, now.minusMinutes(10)));
+
+        assertThat(registry.getActiveBusIds()).containsExactly(1L);
+    }
+
+    @Test
+    void testTouchKeepsParkedBusActiveWithoutChange() {
+        LocalDateTime now = LocalDateTime.now();
+        PositionBus parked = position(1L, now.minusMinutes(10));
+        registry.update(parked);
+        registry.drainChangedBusIds();
+
+        registry.touch(1L, now);
+        registry.touch(2L, now);
+
+        assertThat(registry.getActiveBusIds()).containsExactly(1L);
+        assertThat(registry.getLatest(1L)).containsSame(parked);
+        assertThat(registry.drainChangedBusIds()).isEmpty();
+        assertThat(registry.evictIdle()).isZero();
+    }
+
+    @Test
+    void testEvictIdleRemovesOnlyIdleBuses() {
+        LocalDateTime now = LocalDateTime.now();
+        registry.update(position(1L, now));
+        registry.update(position(2L, now.minusMinutes(10)));
+
+        int evicted = registry.evictIdle();
+
+        assertThat(evicted).isEqualTo(1);
+        assertThat(registry.getLatest(2L)).isEmpty();
+        assertThat(registry.getLatest(1L)).isPresent();
+    }
+
+    @Test
+    void testIgnoresPositionsWithoutBusId() {
+        registry.update(position(null, LocalDateTime.now()));
+
+        assertThat(registry.size()).isZero();
+    }
+}
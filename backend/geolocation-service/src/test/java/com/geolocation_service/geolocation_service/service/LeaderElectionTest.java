@@ -0,0 +1,120 @@
+package com.geolocation_service.geolocation_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LeaderElectionTest {
+
+    @Mock
+    private ObjectProvider<StringRedisTemplate> redisTemplateProvider;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    private LeaderElection election(boolean enabled) {
+        return election(enabled, 10000);
+    }
+
+    private LeaderElection election(boolean enabled, long leaseMillis) {
+        if (enabled) {
+            when(redisTemplateProvider.getObject()).thenReturn(redisTemplate);
+        }
+        return new LeaderElection(redisTemplateProvider, new SimpleMeterRegistry(), enabled, leaseMillis, 20);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void leaseResult(Long result) {
+        when(redisTemplate.execute(any(RedisScript.class), eq(List.of(LeaderElection.LEADER_KEY)), any(Object[].class)))
+                .thenReturn(result);
+    }
+
+    @Test
+    void testSingleInstanceIsAlwaysLeader() {
+        LeaderElection election = election(false);
+
+        election.renew();
+
+        assertThat(election.isLeader()).isTrue();
+        verifyNoInteractions(redisTemplateProvider);
+    }
+
+    @Test
+    void testInstanceHoldingLeaseIsLeader() {
+        LeaderElection election = election(true);
+        assertThat(election.isLeader()).isFalse();
+
+        leaseResult(1L);
+        election.renew();
+
+        assertThat(election.isLeader()).isTrue();
+    }
+
+    @Test
+    void testLeaseHeldElsewhereMakesFollower() {
+        LeaderElection election = election(true);
+        leaseResult(0L);
+
+        election.renew();
+
+        assertThat(election.isLeader()).isFalse();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testLeaderStepsDownWhenRedisIsUnreachable() {
+        LeaderElection election = election(true);
+        leaseResult(1L);
+        election.renew();
+
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenThrow(new RedisConnectionFailureException("down"));
+        election.renew();
+
+        assertThat(election.isLeader()).isFalse();
+    }
+
+    @Test
+    void testLeaderStepsDownWhenLeaseExpiresWithoutRenewal() throws InterruptedException {
+        // Renouvellement retardé (ordonnanceur occupé) : le bail Redis a pu être repris ailleurs
+        LeaderElection election = election(true, 100);
+        leaseResult(1L);
+        election.renew();
+        assertThat(election.isLeader()).isTrue();
+
+        Thread.sleep(100);
+
+        assertThat(election.isLeader()).isFalse();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testReleaseGivesUpLease() {
+        LeaderElection election = election(true);
+        leaseResult(1L);
+        election.renew();
+
+        election.release();
+
+        assertThat(election.isLeader()).isFalse();
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(LeaderElection.LEADER_KEY)),
+                eq(election.getInstanceId()));
+    }
+}
@@ -24,6 +24,9 @@ class LigneBusServiceTest {
     @Mock
     private LigneBusRepository ligneBusRepository;
 
+    @Mock
+    private BusSummaryService busSummaryService;
+
     @InjectMocks
     private LigneBusService ligneBusService;
 
@@ -129,6 +132,7 @@ class LigneBusServiceTest {
         assertThat(result).isNotNull();
         verify(ligneBusRepository, times(1)).findById("ligne-1");
         verify(ligneBusRepository, times(1)).save(any(LigneBus.class));
+        verify(busSummaryService, times(1)).onLigneUpdated(testLigne);
     }
 
     @Test
@@ -149,5 +153,6 @@ class LigneBusServiceTest {
 
         // Then
         verify(ligneBusRepository, times(1)).deleteById("ligne-1");
+        verify(busSummaryService, times(1)).onLigneDeleted("ligne-1");
     }
 }
\ No newline at end of file
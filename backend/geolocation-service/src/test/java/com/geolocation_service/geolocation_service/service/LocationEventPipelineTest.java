@@ -0,0 +1,109 @@
+package com.geolocation_service.geolocation_service.service;
+
+import com.geolocation_service.geolocation_service.event.BusLocationUpdatedEvent;
+import com.geolocation_service.geolocation_service.event.producer.LocationEventProducer;
+import com.geolocation_service.geolocation_service.model.PositionBus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LocationEventPipelineTest {
+
+    @Mock
+    private LocationEventProducer locationEventProducer;
+
+    private SimpleMeterRegistry meterRegistry;
+    private LocationEventPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        pipeline = new LocationEventPipeline(locationEventProducer, meterRegistry, true, 2, 500, 1000);
+    }
+
+    private PositionBus position(long busId) {
+        PositionBus position = new PositionBus();
+        position.setBusId(busId);
+        position.setLatitude(33.5731);
+        position.setLongitude(-7.5898);
+        position.setVitesse(32.0);
+        position.setTimestamp(LocalDateTime.of(2024, 5, 1, 8, 0));
+        return position;
+    }
+
+    private double count(String name) {
+        return meterRegistry.counter(name).count();
+    }
+
+    @Test
+    void testIngestOnlyEnqueues() {
+        pipeline.onPosition(position(1L));
+
+        verify(locationEventProducer, never()).publishLocationUpdated(any());
+        assertThat(count("geolocation.events.location.enqueued")).isEqualTo(1);
+        assertThat(meterRegistry.get("geolocation.events.location.queue.size").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void testFullQueueDropsInsteadOfBlocking() {
+        pipeline.onPosition(position(1L));
+        pipeline.onPosition(position(2L));
+        pipeline.onPosition(position(3L));
+
+        assertThat(count("geolocation.events.location.enqueued")).isEqualTo(2);
+        assertThat(count("geolocation.events.location.dropped")).isEqualTo(1);
+    }
+
+    @Test
+    void testPendingEventsArePublishedKeyedByBus() {
+        when(locationEventProducer.publishLocationUpdated(any())).thenReturn(new CompletableFuture<>());
+        pipeline.onPosition(position(1L));
+
+        assertThat(pipeline.publishPending()).isEqualTo(1);
+
+        ArgumentCaptor<BusLocationUpdatedEvent> event = ArgumentCaptor.forClass(BusLocationUpdatedEvent.class);
+        verify(locationEventProducer).publishLocationUpdated(event.capture());
+        assertThat(event.getValue().getBusId()).isEqualTo("1");
+        assertThat(event.getValue().getSpeed()).isEqualTo(32.0);
+    }
+
+    @Test
+    void testSendOutcomesAreCounted() {
+        when(locationEventProducer.publishLocationUpdated(any()))
+                .thenReturn(CompletableFuture.completedFuture(null))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("broker down")));
+        pipeline.onPosition(position(1L));
+        pipeline.onPosition(position(2L));
+
+        pipeline.publishPending();
+
+        verify(locationEventProducer, times(2)).publishLocationUpdated(any());
+        assertThat(count("geolocation.events.location.sent")).isEqualTo(1);
+        assertThat(count("geolocation.events.location.failed")).isEqualTo(1);
+    }
+
+    @Test
+    void testSynchronousSendFailureIsCounted() {
+        when(locationEventProducer.publishLocationUpdated(any())).thenThrow(new RuntimeException("metadata timeout"));
+        pipeline.onPosition(position(1L));
+
+        pipeline.publishPending();
+
+        assertThat(count("geolocation.events.location.failed")).isEqualTo(1);
+    }
+}
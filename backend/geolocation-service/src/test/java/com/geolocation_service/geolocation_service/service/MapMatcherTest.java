@@ -0,0 +1,88 @@
+package com.geolocation_service.geolocation_service.service;
+
+import com.geolocation_service.geolocation_service.model.PositionBus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MapMatcherTest {
+
+    private static final double LON = -7.5898;
+
+    @Mock
+    private StopNetworkService stopNetworkService;
+
+    @Mock
+    private StopEventDetector stopEventDetector;
+
+    private MapMatcher mapMatcher;
+
+    @BeforeEach
+    void setUp() {
+        // Ligne 7 nord-sud, ligne 9 parallèle à ~40 m à l'est
+        StopIndex.RouteLine line7 = new StopIndex.RouteLine(7L, "Ligne 7", false,
+                List.of(stop(1, 33.57, LON), stop(2, 33.58, LON)));
+        StopIndex.RouteLine line9 = new StopIndex.RouteLine(9L, "Ligne 9", false,
+                List.of(stop(3, 33.57, LON + 0.00043), stop(4, 33.58, LON + 0.00043)));
+        StopIndex index = StopIndex.build(List.of(
+                new StopIndex.StopPoint(1L, "Stop 1", 33.57, LON, List.of())), List.of(line7, line9), 200);
+        when(stopNetworkService.getStopIndex()).thenReturn(index);
+
+        mapMatcher = new MapMatcher(stopNetworkService, stopEventDetector, true, 50, 30);
+    }
+
+    private static StopIndex.LineStop stop(long id, double latitude, double longitude) {
+        return new StopIndex.LineStop(id, "Stop " + id, latitude, longitude, -1, -1);
+    }
+
+    private PositionBus position(double latitude, double longitude) {
+        PositionBus position = new PositionBus();
+        position.setBusId(1L);
+        position.setLatitude(latitude);
+        position.setLongitude(longitude);
+        position.setTimestamp(LocalDateTime.now());
+        return position;
+    }
+
+    @Test
+    void testSnapsToCurrentRouteEvenIfAnotherIsCloser() {
+        when(stopEventDetector.lastArrival(1L))
+                .thenReturn(new StopEventDetector.StopArrival(7L, 1L, LocalDateTime.now()));
+        // ~25 m de la ligne 7, ~15 m de la ligne 9
+        PositionBus position = position(33.575, LON + 0.00027);
+
+        mapMatcher.match(position);
+
+        assertThat(position.getMatchedRouteId()).isEqualTo(7L);
+        assertThat(position.getRouteOffsetMeters()).isCloseTo(556, within(5.0));
+    }
+
+    @Test
+    void testUnknownRouteSnapsToNearestShape() {
+        PositionBus position = position(33.575, LON + 0.00035);
+
+        mapMatcher.match(position);
+
+        assertThat(position.getMatchedRouteId()).isEqualTo(9L);
+    }
+
+    @Test
+    void testPointFarFromShapesIsLeftUnmatched() {
+        PositionBus position = position(33.575, LON + 0.01);
+
+        mapMatcher.match(position);
+
+        assertThat(position.getMatchedRouteId()).isNull();
+        assertThat(position.getRouteOffsetMeters()).isNull();
+    }
+}
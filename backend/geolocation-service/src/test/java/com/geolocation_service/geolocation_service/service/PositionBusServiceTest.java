@@ -1,21 +1,35 @@
 package com.geolocation_service.geolocation_service.service;
 
+import com.geolocation_service.geolocation_service.dto.BatchPositionResponse;
+import com.geolocation_service.geolocation_service.dto.CreatePositionRequest;
 import com.geolocation_service.geolocation_service.model.Bus;
 import com.geolocation_service.geolocation_service.model.PositionBus;
 import com.geolocation_service.geolocation_service.repository.PositionBusRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -24,6 +38,33 @@ class PositionBusServiceTest {
     @Mock
     private PositionBusRepository positionBusRepository;
 
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    @Spy
+    private LatestPositionRegistry latestPositionRegistry = new LatestPositionRegistry(5);
+
+    @Mock
+    private PositionIngestListener ingestListener;
+
+    @Spy
+    private List<PositionIngestListener> ingestListeners = new ArrayList<>();
+
+    @Mock
+    private MapMatcher mapMatcher;
+
+    @Mock
+    private IngestGuard ingestGuard;
+
+    @Mock
+    private ZoneGeofenceService zoneGeofenceService;
+
+    @Mock
+    private StationarySuppressor stationarySuppressor;
+
     @InjectMocks
     private PositionBusService positionBusService;
 
@@ -32,6 +73,9 @@ class PositionBusServiceTest {
 
     @BeforeEach
     void setUp() {
+        ingestListeners.add(ingestListener);
+        lenient().when(ingestGuard.admit(any(PositionBus.class))).thenReturn(IngestGuard.Verdict.ACCEPTED);
+
         testBus = new Bus();
         testBus.setIdBus("bus-1");
         testBus.setImmatriculation("A-12345-B");
@@ -49,40 +93,43 @@ class PositionBusServiceTest {
     }
 
     @Test
-    void testGetAllPositions() {
+    void testGetRecentPositions() {
         // Given
         List<PositionBus> positions = Arrays.asList(testPosition);
-        when(positionBusRepository.findAll()).thenReturn(positions);
+        when(positionBusRepository.findByTimestampAfterOrderByTimestampDesc(any(LocalDateTime.class), eq(Limit.of(100))))
+                .thenReturn(positions);
 
         // When
-        List<PositionBus> result = positionBusService.getAllPositions();
+        List<PositionBus> result = positionBusService.getRecentPositions(Duration.ofMinutes(10), 100);
 
         // Then
         assertThat(result).hasSize(1);
         assertThat(result.get(0).getLatitude()).isEqualTo(33.5731);
-        verify(positionBusRepository, times(1)).findAll();
+        verify(positionBusRepository, never()).findAll();
     }
 
     @Test
     void testGetPositionsByBusId() {
         // Given
         testPosition.setBusId(1L); // Utiliser le nouveau système
-        List<PositionBus> positions = Arrays.asList(testPosition);
-        when(positionBusRepository.findByBusId(1L)).thenReturn(positions);
+        PositionBus earlier = new PositionBus();
+        earlier.setBusId(1L);
+        earlier.setTimestamp(testPosition.getTimestamp().minusSeconds(10));
+        List<PositionBus> newestFirst = Arrays.asList(testPosition, earlier);
+        when(positionBusRepository.findByBusIdOrderByTimestampDesc(1L, Limit.of(500))).thenReturn(newestFirst);
 
         // When
-        List<PositionBus> result = positionBusService.getPositionsByBusId(1L);
+        List<PositionBus> result = positionBusService.getPositionsByBusId(1L, 500);
 
-        // Then
-        assertThat(result).hasSize(1);
-        assertThat(result.get(0).getBusId()).isEqualTo(1L);
-        verify(positionBusRepository, times(1)).findByBusId(1L);
+        // Then : les dernières positions, dans l'ordre chronologique de l'ancien historique complet
+        assertThat(result).containsExactly(earlier, testPosition);
+        verify(positionBusRepository, never()).findByBusId(1L);
     }
 
     @Test
     void testAddPosition() {
         // Given
-        when(positionBusRepository.save(any(PositionBus.class))).thenReturn(testPosition);
+        when(positionBusRepository.insert(any(PositionBus.class))).thenReturn(testPosition);
 
         // When
         PositionBus result = positionBusService.addPosition(testPosition);
@@ -91,6 +138,222 @@ class PositionBusServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.getLatitude()).isEqualTo(33.5731);
         assertThat(result.getVitesse()).isEqualTo(45.0);
-        verify(positionBusRepository, times(1)).save(testPosition);
+        verify(positionBusRepository, times(1)).insert(testPosition);
+    }
+
+    @Test
+    void testAddPositionIsMapMatchedBeforeSave() {
+        // Given
+        when(positionBusRepository.insert(any(PositionBus.class))).thenReturn(testPosition);
+
+        // When
+        positionBusService.addPosition(testPosition);
+
+        // Then
+        InOrder inOrder = inOrder(mapMatcher, zoneGeofenceService, positionBusRepository);
+        inOrder.verify(mapMatcher).match(testPosition);
+        inOrder.verify(zoneGeofenceService).tag(testPosition);
+        inOrder.verify(positionBusRepository).insert(testPosition);
+    }
+
+    @Test
+    void testAddPositionUpdatesLiveRegistry() {
+        // Given
+        testPosition.setBusId(1L);
+        when(positionBusRepository.insert(any(PositionBus.class))).thenReturn(testPosition);
+
+        // When
+        positionBusService.addPosition(testPosition);
+        PositionBus latest = positionBusService.getLatestPosition(1L);
+
+        // Then
+        assertThat(latest).isSameAs(testPosition);
+        assertThat(positionBusService.getActiveBusIds()).containsExactly(1L);
+        verify(positionBusRepository, never()).findFirstByBusIdOrderByTimestampDesc(any());
+        verify(ingestListener, times(1)).onPosition(testPosition);
+    }
+
+    @Test
+    void testDuplicatePositionIsNotSaved() {
+        // Given
+        when(ingestGuard.admit(testPosition)).thenReturn(IngestGuard.Verdict.DUPLICATE);
+
+        // When
+        PositionBus result = positionBusService.addPosition(testPosition);
+
+        // Then
+        assertThat(result).isNull();
+        verify(positionBusRepository, never()).insert(any(PositionBus.class));
+        verify(ingestListener, never()).onPosition(any());
+    }
+
+    @Test
+    void testStationaryPositionIsNotSaved() {
+        // Given
+        when(stationarySuppressor.suppress(testPosition)).thenReturn(true);
+
+        // When
+        PositionBus result = positionBusService.addPosition(testPosition);
+
+        // Then
+        assertThat(result).isNull();
+        verify(positionBusRepository, never()).insert(any(PositionBus.class));
+        verify(ingestListener, never()).onPosition(any());
+    }
+
+    @Test
+    void testLatePositionIsSavedWithoutLiveUpdate() {
+        // Given
+        testPosition.setBusId(1L);
+        when(ingestGuard.admit(testPosition)).thenReturn(IngestGuard.Verdict.LATE);
+        when(positionBusRepository.insert(any(PositionBus.class))).thenReturn(testPosition);
+
+        // When
+        PositionBus result = positionBusService.addPosition(testPosition);
+
+        // Then
+        assertThat(result).isSameAs(testPosition);
+        assertThat(latestPositionRegistry.getActiveBusIds()).isEmpty();
+        verify(ingestListener, never()).onPosition(any());
+    }
+
+    @Test
+    void testFailedSaveReleasesGuard() {
+        // Given
+        when(positionBusRepository.insert(any(PositionBus.class))).thenThrow(new IllegalStateException("mongo down"));
+
+        // When / Then
+        assertThatThrownBy(() -> positionBusService.addPosition(testPosition)).isInstanceOf(IllegalStateException.class);
+        verify(ingestGuard).release(testPosition);
+        verify(stationarySuppressor).release(testPosition);
+    }
+
+    @Test
+    void testFailedBulkWriteReleasesWholeBatch() {
+        // Given
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PositionBus.class)).thenReturn(bulkOperations);
+        when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenThrow(new DataAccessResourceFailureException("mongo down"));
+        List<CreatePositionRequest> requests = List.of(
+                CreatePositionRequest.builder().busId(1L).latitude(33.5731).longitude(-7.5898).build(),
+                CreatePositionRequest.builder().busId(2L).latitude(33.58).longitude(-7.59).build());
+
+        // When / Then
+        assertThatThrownBy(() -> positionBusService.addPositions(requests))
+                .isInstanceOf(DataAccessResourceFailureException.class);
+        verify(ingestGuard, times(2)).release(any(PositionBus.class));
+        verify(stationarySuppressor, times(2)).release(any(PositionBus.class));
+        verify(ingestListener, never()).onPosition(any());
+    }
+
+    @Test
+    void testFailingListenerDoesNotFailIngestion() {
+        // Given
+        testPosition.setBusId(1L);
+        when(positionBusRepository.insert(any(PositionBus.class))).thenReturn(testPosition);
+        doThrow(new IllegalStateException("boom")).when(ingestListener).onPosition(any());
+
+        // When
+        PositionBus saved = positionBusService.addPosition(testPosition);
+
+        // Then
+        assertThat(saved).isSameAs(testPosition);
+        assertThat(positionBusService.getLatestPosition(1L)).isSameAs(testPosition);
+    }
+
+    @Test
+    void testGetLatestPositionFallsBackToRepository() {
+        // Given
+        testPosition.setBusId(2L);
+        when(positionBusRepository.findFirstByBusIdOrderByTimestampDesc(2L)).thenReturn(Optional.of(testPosition));
+
+        // When
+        PositionBus latest = positionBusService.getLatestPosition(2L);
+
+        // Then
+        assertThat(latest).isSameAs(testPosition);
+        verify(positionBusRepository, never()).findAll();
+    }
+
+    @Test
+    void testAddPositionsBatchRejectsInvalidPointsAndBulkInsertsOthers() {
+        // Given
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PositionBus.class)).thenReturn(bulkOperations);
+        when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+        List<CreatePositionRequest> requests = Arrays.asList(
+                CreatePositionRequest.builder().busId(1L).latitude(33.5731).longitude(-7.5898).vitesse(30.0).build(),
+                CreatePositionRequest.builder().busId(2L).latitude(120.0).longitude(-7.5898).build(),
+                CreatePositionRequest.builder().latitude(33.5731).longitude(-7.5898).build(),
+                CreatePositionRequest.builder().busId(3L).latitude(33.58).longitude(-7.59)
+                        .timestamp(LocalDateTime.now().minusMinutes(1)).build()
+        );
+
+        // When
+        BatchPositionResponse response = positionBusService.addPositions(requests);
+
+        // Then
+        assertThat(response.getReceived()).isEqualTo(4);
+        assertThat(response.getAccepted()).isEqualTo(2);
+        assertThat(response.getRejected())
+                .extracting(BatchPositionResponse.RejectedPosition::getIndex)
+                .containsExactly(1, 2);
+        verify(bulkOperations, times(1)).insert(anyList());
+        verify(bulkOperations, times(1)).execute();
+        verify(positionBusRepository, never()).insert(any(PositionBus.class));
+        assertThat(latestPositionRegistry.getActiveBusIds()).containsExactlyInAnyOrder(1L, 3L);
+        verify(ingestListener, times(2)).onPosition(any(PositionBus.class));
+    }
+
+    @Test
+    void testAddPositionsBatchRejectsDuplicates() {
+        // Given
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PositionBus.class)).thenReturn(bulkOperations);
+        when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+        when(ingestGuard.admit(any(PositionBus.class)))
+                .thenReturn(IngestGuard.Verdict.ACCEPTED, IngestGuard.Verdict.DUPLICATE, IngestGuard.Verdict.STALE);
+        CreatePositionRequest request = CreatePositionRequest.builder().busId(1L).latitude(33.5731).longitude(-7.5898)
+                .timestamp(LocalDateTime.now().minusSeconds(5)).build();
+
+        // When
+        BatchPositionResponse response = positionBusService.addPositions(List.of(request, request, request));
+
+        // Then
+        assertThat(response.getAccepted()).isEqualTo(1);
+        assertThat(response.getRejected())
+                .extracting(BatchPositionResponse.RejectedPosition::getReason)
+                .containsExactly("doublon", "point trop ancien");
+        verify(ingestListener, times(1)).onPosition(any(PositionBus.class));
+    }
+
+    @Test
+    void testAddPositionsBatchCountsSuppressedStationaryPoints() {
+        // Given
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PositionBus.class)).thenReturn(bulkOperations);
+        when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+        when(stationarySuppressor.suppress(any(PositionBus.class))).thenReturn(false, true, true);
+        CreatePositionRequest request = CreatePositionRequest.builder().busId(1L).latitude(33.5731).longitude(-7.5898).build();
+
+        // When
+        BatchPositionResponse response = positionBusService.addPositions(List.of(request, request, request));
+
+        // Then
+        assertThat(response.getAccepted()).isEqualTo(1);
+        assertThat(response.getSuppressed()).isEqualTo(2);
+        assertThat(response.getRejected()).isEmpty();
+        verify(ingestListener, times(1)).onPosition(any(PositionBus.class));
+    }
+
+    @Test
+    void testAddPositionsBatchSkipsBulkWriteWhenNothingValid() {
+        // Given
+        List<CreatePositionRequest> requests = List.of(CreatePositionRequest.builder().busId(1L).build());
+
+        // When
+        BatchPositionResponse response = positionBusService.addPositions(requests);
+
+        // Then
+        assertThat(response.getAccepted()).isZero();
+        assertThat(response.getRejected()).hasSize(1);
+        verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), eq(PositionBus.class));
     }
-}
\ No newline at end of file
+}
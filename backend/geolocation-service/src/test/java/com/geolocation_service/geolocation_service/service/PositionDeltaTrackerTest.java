@@ -0,0 +1,97 @@
+package com.geolocation_service.geolocation_service.service;
+
+import com.geolocation_service.geolocation_service.model.PositionBus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PositionDeltaTrackerTest {
+
+    private LatestPositionRegistry registry;
+    private PositionDeltaTracker tracker;
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        registry = new LatestPositionRegistry(5);
+        tracker = new PositionDeltaTracker(registry, 10, 30);
+        now = LocalDateTime.now();
+    }
+
+    private PositionBus position(Long busId, double latitude, LocalDateTime timestamp) {
+        PositionBus position = new PositionBus();
+        position.setBusId(busId);
+        position.setLatitude(latitude);
+        position.setLongitude(-7.5898);
+        position.setTimestamp(timestamp);
+        return position;
+    }
+
+    @Test
+    void testFirstPositionIsBroadcast() {
+        registry.update(position(1L, 33.5731, now));
+
+        assertThat(tracker.collectChanges()).extracting(PositionBus::getBusId).containsExactly(1L);
+        assertThat(tracker.collectChanges()).isEmpty();
+    }
+
+    @Test
+    void testUpdatesWithinTickAreCoalesced() {
+        registry.update(position(1L, 33.5731, now.minusSeconds(4)));
+        registry.update(position(1L, 33.5741, now.minusSeconds(2)));
+        PositionBus last = position(1L, 33.5751, now);
+        registry.update(last);
+
+        assertThat(tracker.collectChanges()).containsExactly(last);
+    }
+
+    @Test
+    void testSmallMovementIsSuppressed() {
+        registry.update(position(1L, 33.5731, now.minusSeconds(5)));
+        tracker.collectChanges();
+
+        // ~1 m de déplacement
+        registry.update(position(1L, 33.57311, now));
+
+        assertThat(tracker.collectChanges()).isEmpty();
+    }
+
+    @Test
+    void testSignificantMovementIsBroadcast() {
+        registry.update(position(1L, 33.5731, now.minusSeconds(5)));
+        tracker.collectChanges();
+
+        // ~110 m de déplacement
+        registry.update(position(1L, 33.5741, now));
+
+        assertThat(tracker.collectChanges()).hasSize(1);
+    }
+
+    @Test
+    void testStationaryBusIsRefreshedAfterMaxSilence() {
+        registry.update(position(1L, 33.5731, now.minusSeconds(40)));
+        tracker.collectChanges();
+
+        registry.update(position(1L, 33.5731, now));
+
+        assertThat(tracker.collectChanges()).hasSize(1);
+    }
+
+    @Test
+    void testLastSmallMoveIsSentAfterMaxSilence() {
+        registry.update(position(1L, 33.5731, now.minusSeconds(5)));
+        tracker.collectChanges(now);
+
+        // ~1 m de déplacement, puis le bus n'émet plus (points suivants supprimés à l'arrêt)
+        PositionBus last = position(1L, 33.57311, now);
+        registry.update(last);
+        assertThat(tracker.collectChanges(now)).isEmpty();
+        assertThat(tracker.collectChanges(now.plusSeconds(10))).isEmpty();
+
+        assertThat(tracker.collectChanges(now.plusSeconds(30))).containsExactly(last);
+        assertThat(tracker.collectChanges(now.plusSeconds(90))).isEmpty();
+    }
+}
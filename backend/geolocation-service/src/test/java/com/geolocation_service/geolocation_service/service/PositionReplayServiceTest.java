@@ -0,0 +1,151 @@
+package com.geolocation_service.geolocation_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.geolocation_service.geolocation_service.model.PositionBus;
+import com.geolocation_service.geolocation_service.service.PositionReplayService.Format;
+import com.geolocation_service.geolocation_service.service.PositionReplayService.ReplayRequest;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PositionReplayServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private PositionReplayService replayService;
+    private LocalDateTime start;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        replayService = new PositionReplayService(mongoTemplate, objectMapper, 24, 1000, 100, 5000, 1);
+        start = LocalDateTime.of(2024, 5, 10, 8, 0);
+    }
+
+    private List<PositionBus> positions(int count, long intervalSeconds) {
+        List<PositionBus> positions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            PositionBus position = new PositionBus();
+            position.setLatitude(33.57 + i * 0.0001);
+            position.setLongitude(-7.5898);
+            position.setVitesse(30);
+            position.setTimestamp(start.plusSeconds(intervalSeconds * i));
+            positions.add(position);
+        }
+        return positions;
+    }
+
+    private ReplayRequest request(LocalDateTime cursor, long sampleSeconds, double speed, int limit) {
+        return new ReplayRequest(1L, start, start.plusHours(1), cursor, sampleSeconds, speed, limit);
+    }
+
+    private String replay(ReplayRequest request, Format format) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        replayService.replay(request, format, output);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testNdjsonEmitsOneLinePerPosition() throws Exception {
+        when(mongoTemplate.stream(any(Query.class), eq(PositionBus.class))).thenReturn(positions(3, 5).stream());
+
+        String[] lines = replay(request(null, 0, 0, 1000), Format.NDJSON).split("\n");
+
+        assertThat(lines).hasSize(3);
+        assertThat(lines[0]).startsWith("{").contains("\"latitude\":33.57", "\"timestamp\":\"2024-05-10T08:00:00\"");
+    }
+
+    @Test
+    void testSamplingKeepsLastPoint() throws Exception {
+        // 12 points toutes les 5 s, au plus un point toutes les 20 s : 0, 20, 40 puis le dernier (55)
+        when(mongoTemplate.stream(any(Query.class), eq(PositionBus.class))).thenReturn(positions(12, 5).stream());
+
+        String[] lines = replay(request(null, 20, 0, 1000), Format.NDJSON).split("\n");
+
+        assertThat(lines).hasSize(4);
+        assertThat(lines[3]).contains("08:00:55");
+    }
+
+    @Test
+    void testLimitStopsReading() throws Exception {
+        when(mongoTemplate.stream(any(Query.class), eq(PositionBus.class))).thenReturn(positions(10, 5).stream());
+
+        assertThat(replay(request(null, 0, 0, 4), Format.NDJSON).split("\n")).hasSize(4);
+    }
+
+    @Test
+    void testSseUsesTimestampAsEventIdAndSignalsEnd() throws Exception {
+        when(mongoTemplate.stream(any(Query.class), eq(PositionBus.class))).thenReturn(positions(2, 5).stream());
+
+        String body = replay(request(null, 0, 0, 1000), Format.SSE);
+
+        assertThat(body).startsWith("id: 2024-05-10T08:00\nevent: position\ndata: {");
+        assertThat(body).contains("id: 2024-05-10T08:00:05\n");
+        assertThat(body).endsWith("event: end\ndata: {}\n\n");
+    }
+
+    @Test
+    void testCursorResumesAfterLastPoint() throws Exception {
+        when(mongoTemplate.stream(any(Query.class), eq(PositionBus.class))).thenReturn(positions(1, 5).stream());
+
+        replay(request(start.plusMinutes(10), 0, 0, 1000), Format.NDJSON);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).stream(query.capture(), eq(PositionBus.class));
+        assertThat(query.getValue().getQueryObject().get("timestamp", Document.class))
+                .containsKey("$gt")
+                .doesNotContainKey("$gte");
+    }
+
+    @Test
+    void testSpeedPacesEmission() throws Exception {
+        // 4 points à 1 s d'écart rejoués à x10 : ~300 ms
+        when(mongoTemplate.stream(any(Query.class), eq(PositionBus.class))).thenReturn(positions(4, 1).stream());
+
+        long begin = System.nanoTime();
+        replay(request(null, 0, 10, 1000), Format.NDJSON);
+
+        assertThat((System.nanoTime() - begin) / 1_000_000).isGreaterThanOrEqualTo(290);
+    }
+
+    @Test
+    void testPacedReplaySlotsAreBounded() {
+        assertThat(replayService.tryStartPaced()).isTrue();
+        assertThat(replayService.tryStartPaced()).isFalse();
+
+        replayService.endPaced();
+
+        assertThat(replayService.tryStartPaced()).isTrue();
+    }
+
+    @Test
+    void testValidation() {
+        assertThat(replayService.validate(request(null, 0, 0, 1000))).isNull();
+        assertThat(replayService.validate(new ReplayRequest(1L, start, start.plusHours(25), null, 0, 0, 10))).isNotNull();
+        assertThat(replayService.validate(new ReplayRequest(1L, start, start, null, 0, 0, 10))).isNotNull();
+        assertThat(replayService.validate(request(null, 0, 500, 10))).isNotNull();
+        assertThat(replayService.validate(request(null, 0, 0, 5000))).isNotNull();
+    }
+}
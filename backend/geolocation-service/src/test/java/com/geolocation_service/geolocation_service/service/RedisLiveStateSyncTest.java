@@ -0,0 +1,165 @@
+package com.geolocation_service.geolocation_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.geolocation_service.geolocation_service.model.PositionBus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RedisLiveStateSyncTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ZSetOperations<String, String> zSetOperations;
+
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+
+    @Mock
+    private LeaderElection leaderElection;
+
+    @Mock
+    private ZoneGeofenceService zoneGeofenceService;
+
+    private ObjectMapper objectMapper;
+    private LatestPositionRegistry registry;
+    private RedisLiveStateSync sync;
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        registry = new LatestPositionRegistry(5);
+        sync = new RedisLiveStateSync(redisTemplate, objectMapper, registry, leaderElection, zoneGeofenceService, 5);
+        now = LocalDateTime.now().withNano(0);
+    }
+
+    private PositionBus position(Long busId, LocalDateTime timestamp) {
+        PositionBus position = new PositionBus();
+        position.setBusId(busId);
+        position.setLatitude(33.5731);
+        position.setLongitude(-7.5898);
+        position.setTimestamp(timestamp);
+        return position;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void remoteWrites(List<PositionBus> positions, double firstSequence) throws Exception {
+        Set<ZSetOperations.TypedTuple<String>> tuples = new LinkedHashSet<>();
+        List<Object> payloads = new ArrayList<>();
+        for (int i = 0; i < positions.size(); i++) {
+            tuples.add(new DefaultTypedTuple<>(String.valueOf(positions.get(i).getBusId()), firstSequence + i));
+            payloads.add(objectMapper.writeValueAsString(positions.get(i)));
+        }
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(zSetOperations.rangeByScoreWithScores(eq(RedisLiveStateSync.SEQUENCE_KEY), any(Double.class), eq(Double.POSITIVE_INFINITY)))
+                .thenReturn(tuples);
+        when(redisTemplate.<Object, Object>opsForHash()).thenReturn(hashOperations);
+        when(hashOperations.multiGet(eq(RedisLiveStateSync.POSITIONS_KEY), anyList())).thenReturn(payloads);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFlushWritesOnlyLatestPositionOfEachBus() {
+        sync.onPosition(position(1L, now.minusSeconds(10)));
+        sync.onPosition(position(1L, now));
+        sync.onPosition(position(1L, now.minusSeconds(5)));
+        sync.onPosition(position(2L, now));
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(2L);
+
+        assertThat(sync.flush()).isEqualTo(2);
+
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(redisTemplate).execute(any(RedisScript.class), anyList(), args.capture());
+        // 5 arguments par bus
+        assertThat(args.getValue()).hasSize(10);
+        assertThat(sync.flush()).isZero();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFailedFlushIsRetried() {
+        sync.onPosition(position(1L, now));
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenThrow(new RedisConnectionFailureException("down"))
+                .thenReturn(1L);
+
+        assertThat(sync.flush()).isZero();
+        assertThat(sync.flush()).isEqualTo(1);
+    }
+
+    @Test
+    void testSyncAppliesPositionsIngestedElsewhere() throws Exception {
+        remoteWrites(List.of(position(1L, now), position(2L, now)), 1);
+
+        assertThat(sync.sync()).isEqualTo(2);
+
+        assertThat(registry.getLatest(1L)).isPresent();
+        assertThat(registry.drainChangedBusIds()).containsExactlyInAnyOrder(1L, 2L);
+        // Les bus des autres instances sont aussi comptés dans les zones
+        verify(zoneGeofenceService, times(2)).track(any(PositionBus.class));
+    }
+
+    @Test
+    void testSyncSkipsPositionsAlreadyKnownLocally() throws Exception {
+        PositionBus local = position(1L, now);
+        registry.update(local);
+        registry.drainChangedBusIds();
+        remoteWrites(List.of(position(1L, now), position(2L, now.minusSeconds(5))), 1);
+
+        assertThat(sync.sync()).isEqualTo(1);
+
+        assertThat(registry.getLatest(1L)).containsSame(local);
+        assertThat(registry.drainChangedBusIds()).containsExactly(2L);
+        verify(zoneGeofenceService).track(any(PositionBus.class));
+    }
+
+    @Test
+    void testSyncResumesAfterLastSequence() throws Exception {
+        remoteWrites(List.of(position(1L, now), position(2L, now)), 7);
+        sync.sync();
+
+        sync.sync();
+
+        verify(zSetOperations).rangeByScoreWithScores(RedisLiveStateSync.SEQUENCE_KEY, 9, Double.POSITIVE_INFINITY);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testOnlyLeaderEvictsSharedState() {
+        when(leaderElection.isLeader()).thenReturn(false);
+
+        sync.evictIdle();
+
+        verify(redisTemplate, never()).execute(any(RedisScript.class), anyList(), any(Object[].class));
+    }
+}
@@ -0,0 +1,64 @@
+package com.geolocation_service.geolocation_service.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class RouteShapeIndexTest {
+
+    private static final double LON = -7.5898;
+
+    // 0,01 degré de latitude ~ 1112 m
+    private static StopIndex.LineStop stop(long id, double latitude, double longitude) {
+        return new StopIndex.LineStop(id, "Stop " + id, latitude, longitude, -1, -1);
+    }
+
+    @Test
+    void testOffsetAlongPolyline() {
+        StopIndex.RouteLine line = new StopIndex.RouteLine(7L, "Ligne 7", false,
+                List.of(stop(1, 33.57, LON), stop(2, 33.58, LON), stop(3, 33.59, LON)));
+        RouteShapeIndex shapes = RouteShapeIndex.build(List.of(line), 200);
+
+        // 20 m à l'est du tracé, aux trois quarts du second segment
+        List<RouteShapeIndex.Match> matches = shapes.candidates(33.5875, LON + 0.000216, 50);
+
+        assertThat(matches).hasSize(1);
+        assertThat(matches.get(0).routeId()).isEqualTo(7L);
+        assertThat(matches.get(0).offsetMeters()).isCloseTo(1.75 * 1112, within(5.0));
+        assertThat(matches.get(0).distanceMeters()).isCloseTo(20, within(1.0));
+        assertThat(shapes.vertexOffset(7L, 2)).isCloseTo(2 * 1112, within(5.0));
+    }
+
+    @Test
+    void testPointTooFarFromShape() {
+        StopIndex.RouteLine line = new StopIndex.RouteLine(7L, "Ligne 7", false,
+                List.of(stop(1, 33.57, LON), stop(2, 33.58, LON)));
+        RouteShapeIndex shapes = RouteShapeIndex.build(List.of(line), 200);
+
+        assertThat(shapes.candidates(33.575, LON + 0.002, 50)).isEmpty();
+    }
+
+    @Test
+    void testCircularRouteIsClosed() {
+        StopIndex.RouteLine line = new StopIndex.RouteLine(8L, "Circulaire", true,
+                List.of(stop(1, 33.57, LON), stop(2, 33.58, LON), stop(3, 33.58, LON + 0.01)));
+        RouteShapeIndex shapes = RouteShapeIndex.build(List.of(line), 200);
+
+        assertThat(shapes.vertexOffset(8L, 3)).isGreaterThan(shapes.vertexOffset(8L, 2));
+        // Sur le segment de retour 3 -> 1
+        assertThat(shapes.candidates(33.575, LON + 0.005, 50))
+                .allSatisfy(match -> assertThat(match.offsetMeters()).isGreaterThan(shapes.vertexOffset(8L, 2)));
+    }
+
+    @Test
+    void testEmptyIndex() {
+        RouteShapeIndex shapes = RouteShapeIndex.build(List.of(), 200);
+
+        assertThat(shapes.isEmpty()).isTrue();
+        assertThat(shapes.candidates(33.57, LON, 50)).isEmpty();
+        assertThat(shapes.vertexOffset(7L, 0)).isNaN();
+    }
+}
@@ -0,0 +1,248 @@
+package com.geolocation_service.geolocation_service.service;
+
+import com.geolocation_service.geolocation_service.dto.LivePositionDTO;
+import com.geolocation_service.geolocation_service.model.PositionBus;
+import com.geolocation_service.geolocation_service.service.ViewportSubscriptionRegistry.Viewport;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SsePositionHubTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private LatestPositionRegistry registry;
+    private List<Runnable> queued;
+    private SsePositionHub hub;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        registry = new LatestPositionRegistry(5);
+        queued = new ArrayList<>();
+        // Les envois sont exécutés à la demande du test, pour simuler un client lent
+        Executor sender = queued::add;
+        hub = new SsePositionHub(registry, meterRegistry, new ViewportSubscriptionRegistry(meterRegistry, "sse", 0.01, 100),
+                sender, 60_000, 3, 2, 15_000, 60_000);
+    }
+
+    private void runSends() {
+        while (!queued.isEmpty()) {
+            queued.remove(0).run();
+        }
+    }
+
+    private static PositionBus position(Long busId, double latitude, Long routeId) {
+        PositionBus position = new PositionBus();
+        position.setBusId(busId);
+        position.setLatitude(latitude);
+        position.setLongitude(-7.61);
+        position.setMatchedRouteId(routeId);
+        position.setTimestamp(LocalDateTime.now());
+        return position;
+    }
+
+    /**
+     * Émetteur qui garde les événements envoyés au lieu de les écrire sur une réponse HTTP
+     */
+    private static class RecordingEmitter extends SseEmitter {
+        final List<String> names = new ArrayList<>();
+        final List<List<Long>> payloads = new ArrayList<>();
+        boolean broken;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (broken) {
+                throw new IOException("client gone");
+            }
+            for (ResponseBodyEmitter.DataWithMediaType part : builder.build()) {
+                if (part.getData() instanceof String text && text.startsWith("event:")) {
+                    names.add(text.substring(6, text.indexOf('\n')));
+                } else if (part.getData() instanceof String text && text.startsWith(":")) {
+                    names.add("comment");
+                } else if (part.getData() instanceof List<?> list) {
+                    payloads.add(list.stream().map(item -> ((LivePositionDTO) item).getBusId()).toList());
+                }
+            }
+        }
+    }
+
+    @Test
+    void testSnapshotThenFilteredChanges() {
+        registry.update(position(1L, 33.59, 7L));
+        registry.update(position(2L, 33.59, 9L));
+        RecordingEmitter line7 = new RecordingEmitter();
+        hub.register(line7, Set.of(7L), null);
+
+        hub.publish(List.of(position(1L, 33.591, 7L), position(2L, 33.591, 9L), position(3L, 33.59, null)));
+        runSends();
+
+        assertThat(line7.names).containsExactly("snapshot", "positions");
+        assertThat(line7.payloads).containsExactly(List.of(1L), List.of(1L));
+    }
+
+    @Test
+    void testAreaAndUnfilteredStreams() {
+        RecordingEmitter centre = new RecordingEmitter();
+        RecordingEmitter all = new RecordingEmitter();
+        hub.register(centre, Set.of(), new Viewport(33.58, -7.63, 33.60, -7.60, Set.of()));
+        hub.register(all, Set.of(), null);
+
+        hub.publish(List.of(position(1L, 33.59, null), position(2L, 33.70, null)));
+        runSends();
+
+        assertThat(centre.payloads).containsExactly(List.of(), List.of(1L));
+        assertThat(all.payloads.get(1)).containsExactlyInAnyOrder(1L, 2L);
+    }
+
+    @Test
+    void testSlowClientKeepsOnlyNewestPositions() {
+        RecordingEmitter slow = new RecordingEmitter();
+        hub.register(slow, Set.of(), null);
+        runSends();
+
+        // Cinq ticks avant que le client ne soit servi, tampon de 3 positions
+        for (long busId = 1; busId <= 5; busId++) {
+            hub.publish(List.of(position(busId, 33.59, null)));
+        }
+        assertThat(queued).hasSize(1);
+        runSends();
+
+        assertThat(slow.payloads.get(1)).containsExactly(3L, 4L, 5L);
+        assertThat(meterRegistry.counter("geolocation.sse.dropped").count()).isEqualTo(2);
+    }
+
+    @Test
+    void testChangesDuringSnapshotFollowIt() {
+        RecordingEmitter emitter = new RecordingEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                super.send(builder);
+                if (names.size() == 1) {
+                    // Un tick arrive pendant l'envoi de l'état initial
+                    hub.publish(List.of(position(1L, 33.59, null)));
+                }
+            }
+        };
+        hub.register(emitter, Set.of(), null);
+        runSends();
+
+        assertThat(emitter.names).containsExactly("snapshot", "positions");
+    }
+
+    @Test
+    void testFailedSendClosesStream() {
+        RecordingEmitter gone = new RecordingEmitter();
+        hub.register(gone, Set.of(7L), null);
+        runSends();
+        gone.broken = true;
+
+        hub.publish(List.of(position(1L, 33.59, 7L)));
+        runSends();
+
+        assertThat(hub.size()).isZero();
+        hub.publish(List.of(position(1L, 33.59, 7L)));
+        assertThat(queued).isEmpty();
+    }
+
+    @Test
+    void testConnectionLimit() {
+        assertThat(hub.subscribe(Set.of(), null)).isNotNull();
+        assertThat(hub.subscribe(Set.of(), null)).isNotNull();
+        assertThat(hub.subscribe(Set.of(), null)).isNull();
+    }
+
+    @Test
+    void testHeartbeatOnlyForSilentStreams() throws Exception {
+        hub = new SsePositionHub(registry, meterRegistry, new ViewportSubscriptionRegistry(meterRegistry, "sse", 0.01, 100),
+                queued::add, 60_000, 3, 2, 0, 60_000);
+        RecordingEmitter idle = new RecordingEmitter();
+        hub.register(idle, Set.of(), null);
+        Thread.sleep(5);
+
+        hub.heartbeat();
+        runSends();
+
+        assertThat(idle.names).containsExactly("snapshot", "comment");
+    }
+
+    @Test
+    void testBlockedSendDoesNotHoldBackOtherStreams() throws Exception {
+        ThreadPoolExecutor pool = (ThreadPoolExecutor) Executors.newFixedThreadPool(1);
+        hub = new SsePositionHub(registry, meterRegistry, new ViewportSubscriptionRegistry(meterRegistry, "sse", 0.01, 100),
+                pool, 60_000, 3, 10, 15_000, 0);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch tcpWindow = new CountDownLatch(1);
+        CountDownLatch closed = new CountDownLatch(1);
+        RecordingEmitter stuck = new RecordingEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                super.send(builder);
+                if (names.size() == 2) {
+                    // Fenêtre TCP du client pleine : l'écriture bloque le seul thread du pool
+                    writing.countDown();
+                    try {
+                        tcpWindow.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+
+            @Override
+            public void complete() {
+                closed.countDown();
+            }
+        };
+        CountDownLatch healthyServed = new CountDownLatch(1);
+        RecordingEmitter healthy = new RecordingEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                super.send(builder);
+                if (names.size() == 2) {
+                    healthyServed.countDown();
+                }
+            }
+        };
+        try {
+            hub.register(stuck, Set.of(7L), null);
+            hub.register(healthy, Set.of(9L), null);
+
+            hub.publish(List.of(position(1L, 33.59, 7L)));
+            assertThat(writing.await(1, TimeUnit.SECONDS)).isTrue();
+
+            // Envoi en cours : les positions suivantes attendent dans le tampon, sans seconde tâche
+            hub.publish(List.of(position(2L, 33.59, 7L)));
+            assertThat(pool.getQueue()).isEmpty();
+
+            hub.detectStalls();
+            assertThat(hub.size()).isEqualTo(1);
+            assertThat(pool.getCorePoolSize()).isEqualTo(2);
+            assertThat(meterRegistry.counter("geolocation.sse.stalled").count()).isEqualTo(1);
+
+            hub.publish(List.of(position(3L, 33.59, 9L)));
+            assertThat(healthyServed.await(1, TimeUnit.SECONDS)).isTrue();
+
+            tcpWindow.countDown();
+            assertThat(closed.await(1, TimeUnit.SECONDS)).isTrue();
+            assertThat(pool.getCorePoolSize()).isEqualTo(1);
+        } finally {
+            tcpWindow.countDown();
+            pool.shutdownNow();
+        }
+    }
+}
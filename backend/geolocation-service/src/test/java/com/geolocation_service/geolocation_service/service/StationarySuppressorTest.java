@@ -0,0 +1,99 @@
+package com.geolocation_service.geolocation_service.service;
+
+import com.geolocation_service.geolocation_service.model.PositionBus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StationarySuppressorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private LatestPositionRegistry registry;
+    private StationarySuppressor suppressor;
+    private LocalDateTime start;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        registry = new LatestPositionRegistry(5);
+        suppressor = new StationarySuppressor(registry, meterRegistry, true, 15, 2, 60, 30);
+        start = LocalDateTime.now().minusMinutes(3);
+    }
+
+    private PositionBus position(double latitude, double vitesse, LocalDateTime timestamp) {
+        PositionBus position = new PositionBus();
+        position.setBusId(1L);
+        position.setLatitude(latitude);
+        position.setLongitude(-7.5898);
+        position.setVitesse(vitesse);
+        position.setTimestamp(timestamp);
+        return position;
+    }
+
+    private double suppressedCount() {
+        return meterRegistry.counter("geolocation.ingest.stationary.suppressed").count();
+    }
+
+    @Test
+    void testParkedBusWritesOneHeartbeatPerInterval() {
+        // Un point toutes les 5 secondes pendant 2 minutes, au même endroit
+        int written = 0;
+        for (int i = 0; i < 24; i++) {
+            PositionBus point = position(33.5731 + (i % 2) * 0.00002, 0.0, start.plusSeconds(5L * i));
+            if (!suppressor.suppress(point)) {
+                written++;
+                registry.update(point);
+            }
+        }
+
+        assertThat(written).isEqualTo(2);
+        assertThat(suppressedCount()).isEqualTo(22);
+    }
+
+    @Test
+    void testSuppressedPointOnlyRefreshesLastSeen() {
+        PositionBus anchor = position(33.5731, 0.0, start);
+        suppressor.suppress(anchor);
+        registry.update(anchor);
+        registry.drainChangedBusIds();
+
+        PositionBus parked = position(33.5731, 0.0, start.plusSeconds(30));
+        assertThat(suppressor.suppress(parked)).isTrue();
+
+        assertThat(registry.getLatest(1L)).containsSame(anchor);
+        assertThat(registry.lastSeen(anchor)).isEqualTo(parked.getTimestamp());
+        assertThat(registry.drainChangedBusIds()).isEmpty();
+    }
+
+    @Test
+    void testReleasedAnchorDoesNotSuppressNextPoint() {
+        // Écriture de l'ancre échouée : le point suivant doit être enregistré
+        PositionBus anchor = position(33.5731, 0.0, start);
+        suppressor.suppress(anchor);
+        suppressor.release(anchor);
+
+        assertThat(suppressor.suppress(position(33.5731, 0.0, start.plusSeconds(5)))).isFalse();
+    }
+
+    @Test
+    void testMovingBusIsNeverSuppressed() {
+        assertThat(suppressor.suppress(position(33.5731, 0.0, start))).isFalse();
+        // ~50 m plus loin
+        assertThat(suppressor.suppress(position(33.5736, 0.0, start.plusSeconds(5)))).isFalse();
+        // Sur place mais en mouvement d'après l'appareil (départ)
+        assertThat(suppressor.suppress(position(33.5736, 12.0, start.plusSeconds(10)))).isFalse();
+        assertThat(suppressedCount()).isZero();
+    }
+
+    @Test
+    void testDisabledSuppressorKeepsEveryPoint() {
+        suppressor = new StationarySuppressor(registry, meterRegistry, false, 15, 2, 60, 30);
+
+        assertThat(suppressor.suppress(position(33.5731, 0.0, start))).isFalse();
+        assertThat(suppressor.suppress(position(33.5731, 0.0, start.plusSeconds(5)))).isFalse();
+    }
+}
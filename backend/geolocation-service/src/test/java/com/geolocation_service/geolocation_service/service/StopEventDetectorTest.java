@@ -0,0 +1,126 @@
+package com.geolocation_service.geolocation_service.service;
+
+import com.geolocation_service.geolocation_service.event.BusArrivedAtStopEvent;
+import com.geolocation_service.geolocation_service.event.BusDepartedFromStopEvent;
+import com.geolocation_service.geolocation_service.event.producer.LocationEventProducer;
+import com.geolocation_service.geolocation_service.model.PositionBus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class StopEventDetectorTest {
+
+    // 0,0001 degré de latitude ~ 11 m
+    private static final double STOP_LAT = 33.5731;
+    private static final double STOP_LON = -7.5898;
+
+    @Mock
+    private StopNetworkService stopNetworkService;
+
+    @Mock
+    private LocationEventProducer locationEventProducer;
+
+    private StopEventDetector detector;
+    private LocalDateTime start;
+
+    @BeforeEach
+    void setUp() {
+        StopNetworkService.RouteDetails route = new StopNetworkService.RouteDetails();
+        route.setId(7L);
+        route.setRouteName("Ligne 7");
+        route.setStops(List.of(stopDetail(1L, "Place Nations Unies", STOP_LAT, 1),
+                stopDetail(2L, "Gare Casa Port", STOP_LAT + 0.01, 2)));
+        when(stopNetworkService.getStopIndex()).thenReturn(StopNetworkService.buildIndex(List.of(route), 200));
+
+        detector = new StopEventDetector(stopNetworkService, locationEventProducer, 30, 60, 10, 10);
+        start = LocalDateTime.of(2024, 5, 1, 8, 0);
+    }
+
+    private static StopNetworkService.RouteStopDetail stopDetail(Long id, String name, double latitude, int sequence) {
+        StopNetworkService.RouteStopDetail stop = new StopNetworkService.RouteStopDetail();
+        stop.setStopId(id);
+        stop.setStopName(name);
+        stop.setLatitude(BigDecimal.valueOf(latitude));
+        stop.setLongitude(BigDecimal.valueOf(STOP_LON));
+        stop.setSequenceNumber(sequence);
+        return stop;
+    }
+
+    private void feed(double latitude, double vitesse, int second) {
+        PositionBus position = new PositionBus();
+        position.setBusId(1L);
+        position.setLatitude(latitude);
+        position.setLongitude(STOP_LON);
+        position.setVitesse(vitesse);
+        position.setTimestamp(start.plusSeconds(second));
+        detector.onPosition(position);
+    }
+
+    @Test
+    void testArrivalAndDepartureEmittedOncePerVisit() {
+        feed(STOP_LAT - 0.0010, 30, 0);
+        feed(STOP_LAT - 0.0002, 15, 5);
+        feed(STOP_LAT, 2, 10);
+        feed(STOP_LAT, 0, 20);
+        feed(STOP_LAT + 0.0001, 8, 30);
+        feed(STOP_LAT + 0.0010, 30, 40);
+        feed(STOP_LAT + 0.0020, 30, 50);
+
+        ArgumentCaptor<BusArrivedAtStopEvent> arrived = ArgumentCaptor.forClass(BusArrivedAtStopEvent.class);
+        ArgumentCaptor<BusDepartedFromStopEvent> departed = ArgumentCaptor.forClass(BusDepartedFromStopEvent.class);
+        verify(locationEventProducer, times(1)).publishBusArrived(arrived.capture());
+        verify(locationEventProducer, times(1)).publishBusDeparted(departed.capture());
+
+        assertThat(arrived.getValue().getStopId()).isEqualTo("1");
+        assertThat(arrived.getValue().getRouteName()).isEqualTo("Ligne 7");
+        assertThat(arrived.getValue().getArrivedAt()).isEqualTo(start.plusSeconds(10));
+        assertThat(departed.getValue().getNextStopName()).isEqualTo("Gare Casa Port");
+        assertThat(departed.getValue().getDepartedAt()).isEqualTo(start.plusSeconds(40));
+    }
+
+    @Test
+    void testFastPassThroughEmitsNothing() {
+        feed(STOP_LAT - 0.0010, 45, 0);
+        feed(STOP_LAT, 45, 3);
+        feed(STOP_LAT + 0.0010, 45, 6);
+
+        verify(locationEventProducer, never()).publishBusArrived(any());
+        verify(locationEventProducer, never()).publishBusDeparted(any());
+    }
+
+    @Test
+    void testJitterBetweenRadiiDoesNotReemit() {
+        feed(STOP_LAT, 0, 0);
+        // Oscillations entre 30 et 60 m : toujours dans la même visite
+        feed(STOP_LAT + 0.0004, 3, 10);
+        feed(STOP_LAT, 0, 20);
+        feed(STOP_LAT + 0.0004, 3, 30);
+        feed(STOP_LAT + 0.0001, 0, 40);
+
+        verify(locationEventProducer, times(1)).publishBusArrived(any());
+        verify(locationEventProducer, never()).publishBusDeparted(any());
+    }
+
+    @Test
+    void testOutOfOrderPositionIsIgnored() {
+        feed(STOP_LAT + 0.0020, 30, 60);
+        feed(STOP_LAT, 0, 10);
+
+        verify(locationEventProducer, never()).publishBusArrived(any());
+    }
+}
@@ -0,0 +1,56 @@
+package com.geolocation_service.geolocation_service.service;
+
+import com.geolocation_service.geolocation_service.util.GeoUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StopIndexTest {
+
+    private static StopIndex.StopPoint stop(long id, double latitude, double longitude) {
+        return new StopIndex.StopPoint(id, "Stop " + id, latitude, longitude, List.of());
+    }
+
+    @Test
+    void testNearestMatchesBruteForce() {
+        Random random = new Random(42);
+        List<StopIndex.StopPoint> stops = new ArrayList<>();
+        for (long id = 1; id <= 500; id++) {
+            stops.add(stop(id, 33.55 + random.nextDouble() * 0.05, -7.62 + random.nextDouble() * 0.05));
+        }
+        StopIndex index = StopIndex.build(stops, 200);
+
+        for (int i = 0; i < 200; i++) {
+            double latitude = 33.55 + random.nextDouble() * 0.05;
+            double longitude = -7.62 + random.nextDouble() * 0.05;
+            StopIndex.StopPoint expected = stops.stream()
+                    .filter(s -> GeoUtils.approxDistanceMeters(latitude, longitude, s.latitude(), s.longitude()) <= 150)
+                    .min(Comparator.comparingDouble(s -> GeoUtils.approxDistanceMeters(latitude, longitude, s.latitude(), s.longitude())))
+                    .orElse(null);
+
+            assertThat(index.nearest(latitude, longitude, 150)).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void testNearestReturnsNullOutsideRadius() {
+        StopIndex index = StopIndex.build(List.of(stop(1, 33.5731, -7.5898)), 200);
+
+        // ~111 m au nord de l'arrêt
+        assertThat(index.nearest(33.5741, -7.5898, 30)).isNull();
+        assertThat(index.nearest(33.5741, -7.5898, 150)).isNotNull();
+    }
+
+    @Test
+    void testEmptyIndex() {
+        StopIndex index = StopIndex.build(List.of(), 200);
+
+        assertThat(index.isEmpty()).isTrue();
+        assertThat(index.nearest(33.5731, -7.5898, 30)).isNull();
+    }
+}
@@ -0,0 +1,197 @@
+package com.geolocation_service.geolocation_service.service;
+
+import com.geolocation_service.geolocation_service.model.HistoriquePosition;
+import com.geolocation_service.geolocation_service.model.PositionBus;
+import com.geolocation_service.geolocation_service.model.TrajetCompresse;
+import com.geolocation_service.geolocation_service.repository.HistoriquePositionRepository;
+import com.geolocation_service.geolocation_service.repository.TrajetCompresseRepository;
+import com.geolocation_service.geolocation_service.util.PolylineCodec;
+import com.mongodb.client.result.DeleteResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TrajectoryCompactionServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private HistoriquePositionRepository historiqueRepository;
+
+    @Mock
+    private TrajetCompresseRepository trajetCompresseRepository;
+
+    @Mock
+    private LeaderElection leaderElection;
+
+    private TrajectoryCompactionService compactionService;
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        compactionService = new TrajectoryCompactionService(mongoTemplate, historiqueRepository,
+                trajetCompresseRepository, leaderElection, true, 10, 24, 7, 30);
+        now = LocalDateTime.of(2024, 5, 10, 12, 0);
+    }
+
+    private List<PositionBus> trip(LocalDateTime start, int points) {
+        List<PositionBus> positions = new ArrayList<>();
+        for (int i = 0; i < points; i++) {
+            PositionBus position = new PositionBus();
+            position.setBusId(1L);
+            position.setLatitude(33.57 + i * 0.0001);
+            position.setLongitude(-7.5898);
+            position.setVitesse(30);
+            position.setTimestamp(start.plusSeconds(5L * i));
+            positions.add(position);
+        }
+        return positions;
+    }
+
+    private HistoriquePosition rollup(LocalDateTime dateDebut, LocalDateTime dateFin) {
+        HistoriquePosition historique = new HistoriquePosition();
+        historique.setIdHistorique("1_" + dateDebut);
+        historique.setBusId(1L);
+        historique.setDateDebut(dateDebut);
+        historique.setDateFin(dateFin);
+        return historique;
+    }
+
+    @Test
+    void testRollupsGetSimplifiedTrace() {
+        List<PositionBus> positions = trip(now.minusDays(2).withHour(8), 100);
+        HistoriquePosition historique = rollup(positions.get(0).getTimestamp(), positions.get(99).getTimestamp());
+        when(mongoTemplate.find(any(Query.class), eq(HistoriquePosition.class))).thenReturn(List.of(historique));
+        when(mongoTemplate.stream(any(Query.class), eq(PositionBus.class))).thenReturn(positions.stream());
+        when(trajetCompresseRepository.save(any(TrajetCompresse.class))).thenAnswer(invocation -> {
+            TrajetCompresse trace = invocation.getArgument(0);
+            trace.setId("trace-1");
+            return trace;
+        });
+
+        assertThat(compactionService.compact(now)).isEqualTo(1);
+
+        ArgumentCaptor<TrajetCompresse> trace = ArgumentCaptor.forClass(TrajetCompresse.class);
+        verify(trajetCompresseRepository).save(trace.capture());
+        assertThat(trace.getValue().getNombrePointsOriginaux()).isEqualTo(100);
+        assertThat(trace.getValue().getNombrePoints()).isEqualTo(2);
+        assertThat(PolylineCodec.decode(trace.getValue().getPolyline(), trace.getValue().getDateDebut())).hasSize(2);
+        verify(historiqueRepository).save(historique);
+        assertThat(historique.getTrajetCompresseId()).isEqualTo("trace-1");
+    }
+
+    @Test
+    void testRollupWithoutPositionsIsSkipped() {
+        when(mongoTemplate.find(any(Query.class), eq(HistoriquePosition.class)))
+                .thenReturn(List.of(rollup(now.minusDays(2), now.minusDays(2).plusMinutes(10))));
+        when(mongoTemplate.stream(any(Query.class), eq(PositionBus.class))).thenReturn(Stream.empty());
+
+        assertThat(compactionService.compact(now)).isZero();
+
+        verify(trajetCompresseRepository, never()).save(any());
+        verify(historiqueRepository, never()).save(any());
+    }
+
+    @Test
+    void testFullBatchesAreFollowedUntilExhausted() {
+        List<HistoriquePosition> fullBatch = new ArrayList<>();
+        for (int i = 0; i < TrajectoryCompactionService.BATCH_SIZE; i++) {
+            fullBatch.add(rollup(now.minusDays(3).plusMinutes(i), now.minusDays(3).plusMinutes(i + 1)));
+        }
+        when(mongoTemplate.find(any(Query.class), eq(HistoriquePosition.class)))
+                .thenReturn(fullBatch)
+                .thenReturn(List.of());
+        when(mongoTemplate.stream(any(Query.class), eq(PositionBus.class))).thenAnswer(invocation -> Stream.empty());
+
+        compactionService.compact(now);
+
+        verify(mongoTemplate, times(2)).find(any(Query.class), eq(HistoriquePosition.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testNextPageResumesAmongTripsEndingTogether() {
+        // Une page pleine de trajets terminés au même instant : la suite peut en contenir d'autres
+        LocalDateTime dateFin = now.minusDays(3);
+        List<HistoriquePosition> fullBatch = new ArrayList<>();
+        for (int i = 0; i < TrajectoryCompactionService.BATCH_SIZE; i++) {
+            HistoriquePosition historique = rollup(dateFin.minusMinutes(10), dateFin);
+            historique.setIdHistorique(String.format("%d_%s", i, dateFin.minusMinutes(10)));
+            fullBatch.add(historique);
+        }
+        when(mongoTemplate.find(any(Query.class), eq(HistoriquePosition.class)))
+                .thenReturn(fullBatch)
+                .thenReturn(List.of());
+        when(mongoTemplate.stream(any(Query.class), eq(PositionBus.class))).thenAnswer(invocation -> Stream.empty());
+
+        compactionService.compact(now);
+
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).find(queries.capture(), eq(HistoriquePosition.class));
+        Query next = queries.getAllValues().get(1);
+        assertThat(next.getSortObject()).containsOnlyKeys("dateFin", "idHistorique");
+        List<Document> and = (List<Document>) next.getQueryObject().get("$and");
+        List<Document> cursor = (List<Document>) and.get(1).get("$or");
+        assertThat(cursor.get(0).get("dateFin")).isEqualTo(new Document("$gt", dateFin));
+        assertThat(cursor.get(1).get("dateFin")).isEqualTo(dateFin);
+        assertThat(cursor.get(1).get("idHistorique"))
+                .isEqualTo(new Document("$gt", fullBatch.get(fullBatch.size() - 1).getIdHistorique()));
+    }
+
+    @Test
+    void testCompactedTripsLoseRawPositionsAfterPurgeDelay() {
+        HistoriquePosition historique = rollup(now.minusDays(40), now.minusDays(40).plusHours(1));
+        historique.setTrajetCompresseId("trace-1");
+        when(mongoTemplate.find(any(Query.class), eq(HistoriquePosition.class))).thenReturn(List.of(historique));
+        when(mongoTemplate.remove(any(Query.class), eq(PositionBus.class))).thenReturn(DeleteResult.acknowledged(720));
+
+        assertThat(compactionService.purgeRawPositions(now)).isEqualTo(1);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(HistoriquePosition.class));
+        assertThat(query.getValue().getQueryObject()).containsKeys("trajetCompresseId", "positionsBrutesSupprimees");
+        verify(historiqueRepository).save(historique);
+        assertThat(historique.isPositionsBrutesSupprimees()).isTrue();
+    }
+
+    @Test
+    void testRawPositionsAreKeptWhenPurgeIsDisabled() {
+        compactionService = new TrajectoryCompactionService(mongoTemplate, historiqueRepository,
+                trajetCompresseRepository, leaderElection, true, 10, 24, 7, 0);
+
+        assertThat(compactionService.purgeRawPositions(now)).isZero();
+
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void testScheduledCompactionRunsOnlyOnLeader() {
+        when(leaderElection.isLeader()).thenReturn(false);
+
+        compactionService.scheduledCompaction();
+
+        verifyNoInteractions(mongoTemplate);
+    }
+}
@@ -1,21 +1,24 @@
 package com.geolocation_service.geolocation_service.service;
 
+import com.geolocation_service.geolocation_service.dto.StopEtaDTO;
 import com.geolocation_service.geolocation_service.dto.TrajetInfoDTO;
 import com.geolocation_service.geolocation_service.model.Bus;
 import com.geolocation_service.geolocation_service.model.LigneBus;
 import com.geolocation_service.geolocation_service.model.Direction;
 import com.geolocation_service.geolocation_service.model.PositionBus;
 import com.geolocation_service.geolocation_service.repository.BusRepository;
+import com.geolocation_service.geolocation_service.repository.HistoriquePositionRepository;
 import com.geolocation_service.geolocation_service.repository.PositionBusRepository;
+import com.geolocation_service.geolocation_service.repository.TripCheckpointRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,6 +26,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,7 +38,15 @@ class TrajetInfoServiceTest {
     @Mock
     private PositionBusRepository positionBusRepository;
 
-    @InjectMocks
+    @Mock
+    private TripCheckpointRepository tripCheckpointRepository;
+
+    @Mock
+    private HistoriquePositionRepository historiquePositionRepository;
+
+    @Mock
+    private EtaService etaService;
+
     private TrajetInfoService trajetInfoService;
 
     private Bus testBus;
@@ -44,6 +56,10 @@ class TrajetInfoServiceTest {
 
     @BeforeEach
     void setUp() {
+        TripStatisticsService tripStatisticsService = new TripStatisticsService(
+                positionBusRepository, tripCheckpointRepository, historiquePositionRepository, 30, 5, 2, false);
+        trajetInfoService = new TrajetInfoService(busRepository, tripStatisticsService, etaService);
+
         // Setup ligne
         testLigne = new LigneBus();
         testLigne.setIdLigne("ligne-1");
@@ -87,12 +103,12 @@ class TrajetInfoServiceTest {
         // Given
         // Le service appelle busRepository.findById(busId) avec busId = "1"
         when(busRepository.findById("1")).thenReturn(Optional.of(testBus));
-        // Le service convertit String en Long, donc on mock avec Long
-        when(positionBusRepository.findByBusIdOrderByTimestampDesc(1L))
-                .thenReturn(testPositions);
+        // Le service convertit String en Long ; l'accumulateur est reconstruit depuis l'historique récent
+        List<PositionBus> ascending = new ArrayList<>(testPositions);
+        Collections.reverse(ascending);
         when(positionBusRepository.findByBusIdAndTimestampBetweenOrderByTimestampAsc(
-                any(Long.class), any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenReturn(testPositions);
+                eq(1L), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(ascending);
 
         // When
         TrajetInfoDTO result = trajetInfoService.getTrajetInfo("1"); // Passer "1" qui sera converti en 1L
@@ -105,7 +121,29 @@ class TrajetInfoServiceTest {
         assertThat(result.getLigne().getNumeroLigne()).isEqualTo("15");
         assertThat(result.getDirection()).isNotNull();
         assertThat(result.getLatitudeActuelle()).isEqualTo(33.5731);
-        assertThat(result.getDistanceParcourue()).isGreaterThanOrEqualTo(0);
+        assertThat(result.getDistanceParcourue()).isGreaterThan(0);
+        assertThat(result.getDureeTrajetMinutes()).isEqualTo(20);
+        assertThat(result.getHeureDepart()).isEqualTo(testPositions.get(4).getTimestamp());
+    }
+
+    @Test
+    void testGetTrajetInfoUsesNextStopEta() {
+        when(busRepository.findById("1")).thenReturn(Optional.of(testBus));
+        when(positionBusRepository.findByBusIdAndTimestampBetweenOrderByTimestampAsc(
+                eq(1L), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(List.of(testPositions.get(0)));
+        when(etaService.getNextStop(1L)).thenReturn(Optional.of(StopEtaDTO.builder()
+                .stopId(12L)
+                .stopName("Twin Center")
+                .secondsAway(150)
+                .build()));
+        when(etaService.getDistanceToNextStopMeters(1L)).thenReturn(850.0);
+
+        TrajetInfoDTO result = trajetInfoService.getTrajetInfo("1");
+
+        assertThat(result.getProchainArret()).isEqualTo("Twin Center");
+        assertThat(result.getDistanceProchainArret()).isEqualTo(0.85);
+        assertThat(result.getTempsEstimeProchainArret()).isEqualTo(3);
     }
 
     @Test
@@ -125,7 +163,8 @@ class TrajetInfoServiceTest {
         // Le service appelle busRepository.findById(busId) avec busId = "1"
         when(busRepository.findById("1")).thenReturn(Optional.of(testBus));
         // Le service convertit String en Long, donc on mock avec Long
-        when(positionBusRepository.findByBusIdOrderByTimestampDesc(1L))
+        when(positionBusRepository.findByBusIdAndTimestampBetweenOrderByTimestampAsc(
+                eq(1L), any(LocalDateTime.class), any(LocalDateTime.class)))
                 .thenReturn(new ArrayList<>());
 
         // When & Then
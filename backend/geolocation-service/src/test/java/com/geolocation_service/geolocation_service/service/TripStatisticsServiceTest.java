@@ -0,0 +1,290 @@
+package com.geolocation_service.geolocation_service.service;
+
+import com.geolocation_service.geolocation_service.model.HistoriquePosition;
+import com.geolocation_service.geolocation_service.model.PositionBus;
+import com.geolocation_service.geolocation_service.model.TripCheckpoint;
+import com.geolocation_service.geolocation_service.repository.HistoriquePositionRepository;
+import com.geolocation_service.geolocation_service.repository.PositionBusRepository;
+import com.geolocation_service.geolocation_service.repository.TripCheckpointRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TripStatisticsServiceTest {
+
+    @Mock
+    private PositionBusRepository positionBusRepository;
+
+    @Mock
+    private TripCheckpointRepository tripCheckpointRepository;
+
+    @Mock
+    private HistoriquePositionRepository historiquePositionRepository;
+
+    private TripStatisticsService tripStatisticsService;
+    private LocalDateTime start;
+
+    @BeforeEach
+    void setUp() {
+        tripStatisticsService = new TripStatisticsService(
+                positionBusRepository, tripCheckpointRepository, historiquePositionRepository, 30, 5, 2, true);
+        start = LocalDateTime.now().minusMinutes(20);
+    }
+
+    private PositionBus position(double latitude, double vitesse, LocalDateTime timestamp) {
+        PositionBus position = new PositionBus();
+        position.setBusId(1L);
+        position.setLatitude(latitude);
+        position.setLongitude(-7.5898);
+        position.setVitesse(vitesse);
+        position.setTimestamp(timestamp);
+        return position;
+    }
+
+    @Test
+    void testDistanceAndStopsAreAccumulated() {
+        // ~1,11 km par 0,01 degré de latitude
+        tripStatisticsService.onPosition(position(33.57, 40, start));
+        tripStatisticsService.onPosition(position(33.58, 2, start.plusMinutes(2)));
+        tripStatisticsService.onPosition(position(33.58, 0, start.plusMinutes(3)));
+        tripStatisticsService.onPosition(position(33.59, 35, start.plusMinutes(5)));
+        tripStatisticsService.onPosition(position(33.59, 1, start.plusMinutes(7)));
+
+        TripAccumulator.Snapshot trip = tripStatisticsService.getTrip(1L).orElseThrow();
+
+        assertThat(trip.distanceKm()).isCloseTo(2.22, within(0.01));
+        assertThat(trip.stopCount()).isEqualTo(2);
+        assertThat(trip.stopped()).isTrue();
+        assertThat(trip.tripStart()).isEqualTo(start);
+        assertThat(trip.tripDuration().toMinutes()).isEqualTo(7);
+        verify(positionBusRepository, never()).findByBusIdAndTimestampBetweenOrderByTimestampAsc(any(), any(), any());
+    }
+
+    @Test
+    void testMapMatchedPositionsUseRouteOffsets() {
+        // Zigzag latéral de ~55 m autour du tracé, 111 m d'avancement réel par point
+        for (int i = 0; i < 5; i++) {
+            PositionBus position = position(33.57 + i * 0.001, 40, start.plusSeconds(10L * i));
+            position.setLongitude(-7.5898 + (i % 2 == 0 ? 0.0003 : -0.0003));
+            position.setMatchedRouteId(7L);
+            position.setRouteOffsetMeters(111.2 * i);
+            tripStatisticsService.onPosition(position);
+        }
+
+        TripAccumulator.Snapshot trip = tripStatisticsService.getTrip(1L).orElseThrow();
+
+        assertThat(trip.distanceKm()).isCloseTo(0.445, within(0.001));
+    }
+
+    @Test
+    void testOutOfOrderPositionIsIgnored() {
+        tripStatisticsService.onPosition(position(33.57, 40, start.plusMinutes(1)));
+        tripStatisticsService.onPosition(position(33.60, 40, start));
+
+        TripAccumulator.Snapshot trip = tripStatisticsService.getTrip(1L).orElseThrow();
+
+        assertThat(trip.distanceKm()).isZero();
+        assertThat(trip.lastLatitude()).isEqualTo(33.57);
+    }
+
+    @Test
+    void testLongSilenceStartsNewTrip() {
+        tripStatisticsService.onPosition(position(33.57, 40, start.minusHours(1)));
+        tripStatisticsService.onPosition(position(33.58, 40, start.minusMinutes(50)));
+        tripStatisticsService.onPosition(position(33.60, 40, start));
+
+        TripAccumulator.Snapshot trip = tripStatisticsService.getTrip(1L).orElseThrow();
+
+        assertThat(trip.tripStart()).isEqualTo(start);
+        assertThat(trip.distanceKm()).isZero();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testTripEndedBySilenceIsRolledUpAtCheckpoint() {
+        tripStatisticsService.onPosition(position(33.57, 40, start.minusHours(1)));
+        tripStatisticsService.onPosition(position(33.58, 0, start.minusMinutes(50)));
+        tripStatisticsService.onPosition(position(33.60, 40, start));
+
+        tripStatisticsService.checkpoint();
+
+        ArgumentCaptor<List<HistoriquePosition>> saved = ArgumentCaptor.forClass(List.class);
+        verify(historiquePositionRepository).saveAll(saved.capture());
+        assertThat(saved.getValue()).singleElement().satisfies(rollup -> {
+            assertThat(rollup.getIdHistorique()).isEqualTo("1_" + start.minusHours(1));
+            assertThat(rollup.getBusId()).isEqualTo(1L);
+            assertThat(rollup.getDateDebut()).isEqualTo(start.minusHours(1));
+            assertThat(rollup.getDateFin()).isEqualTo(start.minusMinutes(50));
+            assertThat(rollup.getDureeTrajet()).isEqualTo(10);
+            assertThat(rollup.getDistanceParcourue()).isEqualTo(1.11);
+            assertThat(rollup.getNombreArrets()).isEqualTo(1);
+        });
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRouteChangeEndsTrip() {
+        PositionBus outbound = position(33.57, 40, start);
+        outbound.setMatchedRouteId(7L);
+        PositionBus outboundEnd = position(33.58, 40, start.plusMinutes(2));
+        outboundEnd.setMatchedRouteId(7L);
+        PositionBus inbound = position(33.58, 40, start.plusMinutes(3));
+        inbound.setMatchedRouteId(8L);
+        tripStatisticsService.onPosition(outbound);
+        tripStatisticsService.onPosition(outboundEnd);
+        tripStatisticsService.onPosition(inbound);
+
+        tripStatisticsService.checkpoint();
+
+        TripAccumulator.Snapshot trip = tripStatisticsService.getTrip(1L).orElseThrow();
+        assertThat(trip.tripStart()).isEqualTo(start.plusMinutes(3));
+        assertThat(trip.routeId()).isEqualTo(8L);
+        ArgumentCaptor<List<HistoriquePosition>> saved = ArgumentCaptor.forClass(List.class);
+        verify(historiquePositionRepository).saveAll(saved.capture());
+        assertThat(saved.getValue()).extracting(HistoriquePosition::getRouteId).containsExactly(7L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testIdleBusTripIsClosedOnce() {
+        tripStatisticsService.onPosition(position(33.57, 40, start.minusHours(1)));
+        tripStatisticsService.onPosition(position(33.58, 40, start.minusMinutes(55)));
+
+        tripStatisticsService.checkpoint();
+        tripStatisticsService.checkpoint();
+        // Le bus repart : le trajet déjà terminé n'est pas résumé une seconde fois
+        tripStatisticsService.onPosition(position(33.59, 40, start));
+        tripStatisticsService.checkpoint();
+
+        ArgumentCaptor<List<HistoriquePosition>> saved = ArgumentCaptor.forClass(List.class);
+        verify(historiquePositionRepository, times(1)).saveAll(saved.capture());
+        assertThat(saved.getValue()).extracting(HistoriquePosition::getDateDebut).containsExactly(start.minusHours(1));
+    }
+
+    @Test
+    void testFailedRollupIsRetriedBeforeCheckpoints() {
+        tripStatisticsService.onPosition(position(33.57, 40, start.minusHours(1)));
+        tripStatisticsService.onPosition(position(33.58, 40, start.minusMinutes(55)));
+        when(historiquePositionRepository.saveAll(anyList()))
+                .thenThrow(new RuntimeException("mongo down"))
+                .thenReturn(List.of());
+
+        assertThat(tripStatisticsService.checkpoint()).isZero();
+        verify(tripCheckpointRepository, never()).saveAll(anyList());
+
+        assertThat(tripStatisticsService.checkpoint()).isEqualTo(1);
+        verify(historiquePositionRepository, times(2)).saveAll(anyList());
+    }
+
+    @Test
+    void testUnknownBusIsRebuiltOnceFromRecentHistory() {
+        when(positionBusRepository.findByBusIdAndTimestampBetweenOrderByTimestampAsc(eq(1L), any(), any()))
+                .thenReturn(List.of(position(33.57, 40, start), position(33.58, 40, start.plusMinutes(2))));
+
+        tripStatisticsService.getTrip(1L);
+        TripAccumulator.Snapshot trip = tripStatisticsService.getTrip(1L).orElseThrow();
+
+        assertThat(trip.distanceKm()).isCloseTo(1.11, within(0.01));
+        verify(positionBusRepository, times(1)).findByBusIdAndTimestampBetweenOrderByTimestampAsc(eq(1L), any(), any());
+    }
+
+    @Test
+    void testRebuildStartingMidTripIsNeverRolledUp() {
+        LocalDateTime windowStart = LocalDateTime.now().minusMinutes(110);
+        // Le bus roulait déjà avant le début de la fenêtre : le vrai départ est inconnu
+        when(positionBusRepository.findFirstByBusIdAndTimestampBeforeOrderByTimestampDesc(1L, windowStart))
+                .thenReturn(Optional.of(position(33.56, 40, windowStart.minusMinutes(1))));
+        when(positionBusRepository.findByBusIdAndTimestampBetweenOrderByTimestampAsc(eq(1L), any(), any()))
+                .thenReturn(List.of(position(33.57, 40, windowStart), position(33.58, 40, windowStart.plusMinutes(2))));
+
+        tripStatisticsService.getTrip(1L);
+        tripStatisticsService.checkpoint();
+
+        verify(historiquePositionRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRebuildStartingAfterSilenceIsRolledUp() {
+        LocalDateTime windowStart = LocalDateTime.now().minusMinutes(110);
+        when(positionBusRepository.findFirstByBusIdAndTimestampBeforeOrderByTimestampDesc(1L, windowStart))
+                .thenReturn(Optional.of(position(33.56, 40, windowStart.minusHours(3))));
+        when(positionBusRepository.findByBusIdAndTimestampBetweenOrderByTimestampAsc(eq(1L), any(), any()))
+                .thenReturn(List.of(position(33.57, 40, windowStart), position(33.58, 40, windowStart.plusMinutes(2))));
+
+        tripStatisticsService.getTrip(1L);
+        tripStatisticsService.checkpoint();
+
+        ArgumentCaptor<List<HistoriquePosition>> saved = ArgumentCaptor.forClass(List.class);
+        verify(historiquePositionRepository).saveAll(saved.capture());
+        assertThat(saved.getValue()).extracting(HistoriquePosition::getIdHistorique).containsExactly("1_" + windowStart);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCheckpointOnlySavesChangedAccumulators() {
+        tripStatisticsService.onPosition(position(33.57, 40, start));
+
+        assertThat(tripStatisticsService.checkpoint()).isEqualTo(1);
+        assertThat(tripStatisticsService.checkpoint()).isZero();
+
+        ArgumentCaptor<List<TripCheckpoint>> saved = ArgumentCaptor.forClass(List.class);
+        verify(tripCheckpointRepository, times(1)).saveAll(saved.capture());
+        assertThat(saved.getValue()).extracting(TripCheckpoint::getBusId).containsExactly(1L);
+    }
+
+    @Test
+    void testFailedCheckpointIsRetried() {
+        tripStatisticsService.onPosition(position(33.57, 40, start));
+        when(tripCheckpointRepository.saveAll(anyList())).thenThrow(new RuntimeException("mongo down"));
+
+        assertThat(tripStatisticsService.checkpoint()).isZero();
+        assertThat(tripStatisticsService.checkpoint()).isZero();
+
+        verify(tripCheckpointRepository, times(2)).saveAll(anyList());
+    }
+
+    @Test
+    void testRestoreReplaysPositionsAfterCheckpoint() {
+        TripCheckpoint checkpoint = TripCheckpoint.builder()
+                .busId(1L)
+                .tripStart(start)
+                .distanceKm(3.0)
+                .stopCount(1)
+                .lastLatitude(33.57)
+                .lastLongitude(-7.5898)
+                .lastVitesse(40)
+                .lastTimestamp(start.plusMinutes(5))
+                .build();
+        when(tripCheckpointRepository.findByLastTimestampAfterOrTripClosedFalse(any())).thenReturn(List.of(checkpoint));
+        when(positionBusRepository.findByBusIdAndTimestampBetweenOrderByTimestampAsc(
+                eq(1L), eq(checkpoint.getLastTimestamp()), any()))
+                .thenReturn(List.of(position(33.58, 0, start.plusMinutes(6))));
+
+        tripStatisticsService.restore();
+        TripAccumulator.Snapshot trip = tripStatisticsService.getTrip(1L).orElseThrow();
+
+        assertThat(trip.tripStart()).isEqualTo(start);
+        assertThat(trip.distanceKm()).isCloseTo(4.11, within(0.01));
+        assertThat(trip.stopCount()).isEqualTo(2);
+        assertThat(trip.lastTimestamp()).isEqualTo(start.plusMinutes(6));
+    }
+}
@@ -0,0 +1,117 @@
+package com.geolocation_service.geolocation_service.service;
+
+import com.geolocation_service.geolocation_service.dto.ViewportRequest;
+import com.geolocation_service.geolocation_service.model.PositionBus;
+import com.geolocation_service.geolocation_service.service.ViewportSubscriptionRegistry.Viewport;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ViewportSubscriptionRegistryTest {
+
+    // Deux quartiers de Casablanca
+    private static final Viewport CENTRE = new Viewport(33.58, -7.63, 33.60, -7.60, Set.of());
+    private static final Viewport MAARIF = new Viewport(33.56, -7.65, 33.575, -7.63, Set.of());
+
+    private ViewportSubscriptionRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new ViewportSubscriptionRegistry(new SimpleMeterRegistry(), 0.01, 100);
+    }
+
+    private PositionBus position(Long busId, double latitude, double longitude, Long routeId) {
+        PositionBus position = new PositionBus();
+        position.setBusId(busId);
+        position.setLatitude(latitude);
+        position.setLongitude(longitude);
+        position.setMatchedRouteId(routeId);
+        position.setTimestamp(LocalDateTime.now());
+        return position;
+    }
+
+    @Test
+    void testChangesAreRoutedOnlyToViewportsContainingThem() {
+        registry.register("centre", CENTRE);
+        registry.register("maarif", MAARIF);
+
+        Map<String, List<PositionBus>> batches = registry.route(List.of(
+                position(1L, 33.59, -7.61, null),
+                position(2L, 33.57, -7.64, null),
+                position(3L, 33.70, -7.50, null)));
+
+        assertThat(batches).containsOnlyKeys("centre", "maarif");
+        assertThat(batches.get("centre")).extracting(PositionBus::getBusId).containsExactly(1L);
+        assertThat(batches.get("maarif")).extracting(PositionBus::getBusId).containsExactly(2L);
+    }
+
+    @Test
+    void testRouteFilterKeepsOnlyFollowedLines() {
+        registry.register("ligne7", new Viewport(33.58, -7.63, 33.60, -7.60, Set.of(7L)));
+
+        Map<String, List<PositionBus>> batches = registry.route(List.of(
+                position(1L, 33.59, -7.61, 7L),
+                position(2L, 33.59, -7.62, 9L),
+                position(3L, 33.59, -7.62, null)));
+
+        assertThat(batches.get("ligne7")).extracting(PositionBus::getBusId).containsExactly(1L);
+    }
+
+    @Test
+    void testBusLeavingViewportIsSentOnce() {
+        registry.register("centre", CENTRE);
+        registry.route(List.of(position(1L, 33.59, -7.61, null)));
+
+        Map<String, List<PositionBus>> leaving = registry.route(List.of(position(1L, 33.65, -7.55, null)));
+        Map<String, List<PositionBus>> away = registry.route(List.of(position(1L, 33.66, -7.54, null)));
+
+        assertThat(leaving).containsOnlyKeys("centre");
+        assertThat(away).isEmpty();
+    }
+
+    @Test
+    void testPanMovesSubscription() {
+        registry.register("client", CENTRE);
+        registry.register("client", MAARIF);
+
+        assertThat(registry.route(List.of(position(1L, 33.59, -7.61, null)))).isEmpty();
+        assertThat(registry.route(List.of(position(2L, 33.57, -7.64, null)))).containsOnlyKeys("client");
+        assertThat(registry.size()).isEqualTo(1);
+    }
+
+    @Test
+    void testWideViewportSeesWholeArea() {
+        // 40 x 40 cellules > max-cells : testé contre chaque position
+        registry.register("national", new Viewport(33.2, -8.0, 33.6, -7.6, Set.of()));
+
+        assertThat(registry.route(List.of(position(1L, 33.3, -7.9, null)))).containsOnlyKeys("national");
+    }
+
+    @Test
+    void testRemovedSessionGetsNothing() {
+        registry.register("centre", CENTRE);
+        registry.remove("centre");
+        registry.remove("centre");
+
+        assertThat(registry.route(List.of(position(1L, 33.59, -7.61, null)))).isEmpty();
+        assertThat(registry.size()).isZero();
+    }
+
+    @Test
+    void testValidate() {
+        assertThat(ViewportSubscriptionRegistry.validate(new ViewportRequest(33.58, -7.63, 33.60, -7.60, null))).isNull();
+        assertThat(ViewportSubscriptionRegistry.validate(new ViewportRequest(33.58, null, 33.60, -7.60, null)))
+                .isEqualTo("viewport incomplet");
+        assertThat(ViewportSubscriptionRegistry.validate(new ViewportRequest(33.60, -7.63, 33.58, -7.60, null)))
+                .isEqualTo("viewport inversé");
+        assertThat(ViewportSubscriptionRegistry.validate(new ViewportRequest(33.58, -7.63, 95.0, -7.60, null)))
+                .isEqualTo("viewport hors limites");
+    }
+}
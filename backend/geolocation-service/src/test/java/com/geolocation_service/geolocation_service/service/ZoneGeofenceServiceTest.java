@@ -0,0 +1,133 @@
+package com.geolocation_service.geolocation_service.service;
+
+import com.geolocation_service.geolocation_service.event.BusEnteredZoneEvent;
+import com.geolocation_service.geolocation_service.event.BusExitedZoneEvent;
+import com.geolocation_service.geolocation_service.event.producer.LocationEventProducer;
+import com.geolocation_service.geolocation_service.model.PositionBus;
+import com.geolocation_service.geolocation_service.model.ZoneGeographique;
+import com.geolocation_service.geolocation_service.repository.ZoneGeographiqueRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ZoneGeofenceServiceTest {
+
+    @Mock
+    private ZoneGeographiqueRepository zoneRepository;
+
+    @Mock
+    private LocationEventProducer locationEventProducer;
+
+    private LatestPositionRegistry latestPositionRegistry;
+    private ZoneGeofenceService geofenceService;
+    private LocalDateTime start;
+
+    @BeforeEach
+    void setUp() {
+        latestPositionRegistry = new LatestPositionRegistry(5);
+        geofenceService = new ZoneGeofenceService(zoneRepository, locationEventProducer, latestPositionRegistry);
+        start = LocalDateTime.now().minusMinutes(1);
+
+        ZoneGeographique centre = new ZoneGeographique("z1", "Centre", "Centre-ville", true, List.of(
+                List.of(-7.62, 33.58), List.of(-7.60, 33.58), List.of(-7.60, 33.60), List.of(-7.62, 33.60)));
+        ZoneGeographique inactive = new ZoneGeographique("z2", "Ancienne", null, false, List.of(
+                List.of(-7.62, 33.58), List.of(-7.60, 33.58), List.of(-7.60, 33.60)));
+        ZoneGeographique sansPolygone = new ZoneGeographique("z3", "Nom seul", null, true, null);
+        when(zoneRepository.findAll()).thenReturn(List.of(centre, inactive, sansPolygone));
+        geofenceService.reload();
+    }
+
+    private PositionBus position(double latitude, double longitude, LocalDateTime timestamp) {
+        PositionBus position = new PositionBus();
+        position.setBusId(1L);
+        position.setLatitude(latitude);
+        position.setLongitude(longitude);
+        position.setTimestamp(timestamp);
+        return position;
+    }
+
+    private void ingest(PositionBus position) {
+        geofenceService.tag(position);
+        latestPositionRegistry.update(position);
+        geofenceService.onPosition(position);
+    }
+
+    @Test
+    void testOnlyActiveZonesWithPolygonAreIndexed() {
+        assertThat(geofenceService.getZoneIndex().size()).isEqualTo(1);
+    }
+
+    @Test
+    void testPositionIsTaggedWithZone() {
+        PositionBus inside = position(33.59, -7.61, start);
+        PositionBus outside = position(33.50, -7.61, start);
+
+        geofenceService.tag(inside);
+        geofenceService.tag(outside);
+
+        assertThat(inside.getZoneId()).isEqualTo("z1");
+        assertThat(outside.getZoneId()).isNull();
+    }
+
+    @Test
+    void testEnterAndExitAreEmittedOnce() {
+        ingest(position(33.57, -7.61, start));
+        ingest(position(33.59, -7.61, start.plusSeconds(5)));
+        ingest(position(33.595, -7.61, start.plusSeconds(10)));
+
+        ArgumentCaptor<BusEnteredZoneEvent> entered = ArgumentCaptor.forClass(BusEnteredZoneEvent.class);
+        verify(locationEventProducer).publishBusEnteredZone(entered.capture());
+        assertThat(entered.getValue().getZoneId()).isEqualTo("z1");
+        assertThat(entered.getValue().getZoneName()).isEqualTo("Centre");
+        assertThat(entered.getValue().getEnteredAt()).isEqualTo(start.plusSeconds(5));
+        assertThat(geofenceService.getBusesInZone("z1")).extracting(PositionBus::getBusId).containsExactly(1L);
+
+        ingest(position(33.61, -7.61, start.plusSeconds(15)));
+
+        ArgumentCaptor<BusExitedZoneEvent> exited = ArgumentCaptor.forClass(BusExitedZoneEvent.class);
+        verify(locationEventProducer).publishBusExitedZone(exited.capture());
+        assertThat(exited.getValue().getExitedAt()).isEqualTo(start.plusSeconds(15));
+        assertThat(geofenceService.getBusesInZone("z1")).isEmpty();
+    }
+
+    @Test
+    void testOutOfOrderPositionIsIgnored() {
+        ingest(position(33.57, -7.61, start.plusSeconds(10)));
+        ingest(position(33.59, -7.61, start));
+
+        verify(locationEventProducer, never()).publishBusEnteredZone(any());
+    }
+
+    @Test
+    void testRemotePositionsCountInZoneWithoutEvents() {
+        PositionBus remote = position(33.59, -7.61, start);
+        latestPositionRegistry.update(remote);
+
+        geofenceService.track(remote);
+
+        assertThat(geofenceService.getBusesInZone("z1")).extracting(PositionBus::getBusId).containsExactly(1L);
+        verifyNoInteractions(locationEventProducer);
+    }
+
+    @Test
+    void testInvalidPolygonIsRejected() {
+        assertThat(ZoneGeofenceService.validatePolygon(List.of(List.of(-7.6, 33.5), List.of(-7.5, 33.5)))).isNotNull();
+        assertThat(ZoneGeofenceService.validatePolygon(List.of(
+                List.of(-7.6, 33.5), List.of(-7.5, 133.5), List.of(-7.5, 33.6)))).isNotNull();
+        assertThat(ZoneGeofenceService.validatePolygon(null)).isNull();
+    }
+}
@@ -0,0 +1,72 @@
+package com.geolocation_service.geolocation_service.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ZoneIndexTest {
+
+    private static ZoneIndex.Zone square(String id, double latitude, double longitude, double size) {
+        return ZoneIndex.Zone.of(id, "Zone " + id,
+                new double[]{latitude, latitude, latitude + size, latitude + size},
+                new double[]{longitude, longitude + size, longitude + size, longitude});
+    }
+
+    @Test
+    void testPointInConcavePolygon() {
+        // Forme en U : le creux n'appartient pas à la zone
+        ZoneIndex.Zone zone = ZoneIndex.Zone.of("u", "U",
+                new double[]{0, 0, 3, 3, 1, 1, 3, 3},
+                new double[]{0, 3, 3, 2, 2, 1, 1, 0});
+
+        assertThat(zone.contains(0.5, 1.5)).isTrue();
+        assertThat(zone.contains(2, 0.5)).isTrue();
+        assertThat(zone.contains(2, 1.5)).isFalse();
+        assertThat(zone.contains(4, 1.5)).isFalse();
+    }
+
+    @Test
+    void testSmallestOverlappingZoneIsPreferred() {
+        ZoneIndex index = ZoneIndex.build(List.of(
+                square("ville", 33.50, -7.70, 0.20),
+                square("centre", 33.58, -7.62, 0.03)));
+
+        assertThat(index.containing(33.59, -7.61)).extracting(ZoneIndex.Zone::zoneId)
+                .containsExactlyInAnyOrder("ville", "centre");
+        assertThat(index.smallestContaining(33.59, -7.61).zoneId()).isEqualTo("centre");
+        assertThat(index.smallestContaining(33.52, -7.68).zoneId()).isEqualTo("ville");
+        assertThat(index.smallestContaining(34.0, -7.0)).isNull();
+    }
+
+    @Test
+    void testTreeMatchesBruteForce() {
+        Random random = new Random(42);
+        List<ZoneIndex.Zone> zones = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            zones.add(square("z" + i, 33.4 + random.nextDouble() * 0.3, -7.8 + random.nextDouble() * 0.3,
+                    0.002 + random.nextDouble() * 0.02));
+        }
+        ZoneIndex index = ZoneIndex.build(zones);
+
+        for (int i = 0; i < 2000; i++) {
+            double latitude = 33.4 + random.nextDouble() * 0.32;
+            double longitude = -7.8 + random.nextDouble() * 0.32;
+            List<String> expected = zones.stream()
+                    .filter(zone -> zone.contains(latitude, longitude))
+                    .map(ZoneIndex.Zone::zoneId)
+                    .toList();
+            assertThat(index.containing(latitude, longitude)).extracting(ZoneIndex.Zone::zoneId)
+                    .containsExactlyInAnyOrderElementsOf(expected);
+        }
+        assertThat(index.size()).isEqualTo(500);
+    }
+
+    @Test
+    void testEmptyIndex() {
+        assertThat(ZoneIndex.build(List.of()).containing(33.5, -7.6)).isEmpty();
+    }
+}
@@ -0,0 +1,63 @@
+package com.geolocation_service.geolocation_service.util;
+
+import com.geolocation_service.geolocation_service.dto.TrackPointDTO;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class PolylineCodecTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 5, 1, 8, 0);
+
+    private static TrackPointDTO point(double latitude, double longitude, double vitesse, long seconds) {
+        return TrackPointDTO.builder()
+                .latitude(latitude)
+                .longitude(longitude)
+                .vitesse(vitesse)
+                .timestamp(START.plusSeconds(seconds))
+                .build();
+    }
+
+    @Test
+    void testRoundTrip() {
+        List<TrackPointDTO> points = List.of(
+                point(33.57312, -7.58981, 0, 0),
+                point(33.57401, -7.59120, 42, 15),
+                point(33.56999, -7.58000, 37, 75),
+                point(-33.9, 151.2, 120, 3600));
+
+        List<TrackPointDTO> decoded = PolylineCodec.decode(PolylineCodec.encode(points), START);
+
+        assertThat(decoded).hasSize(points.size());
+        for (int i = 0; i < points.size(); i++) {
+            assertThat(decoded.get(i).getLatitude()).isCloseTo(points.get(i).getLatitude(), within(1e-5));
+            assertThat(decoded.get(i).getLongitude()).isCloseTo(points.get(i).getLongitude(), within(1e-5));
+            assertThat(decoded.get(i).getVitesse()).isEqualTo(points.get(i).getVitesse());
+            assertThat(decoded.get(i).getTimestamp()).isEqualTo(points.get(i).getTimestamp());
+        }
+    }
+
+    @Test
+    void testEncodingIsCompact() {
+        List<TrackPointDTO> points = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            points.add(point(33.57 + i * 0.0001, -7.59 + i * 0.0001, 30, i * 5L));
+        }
+
+        String encoded = PolylineCodec.encode(points);
+
+        // Premier point complet, puis quelques caractères par point
+        assertThat(encoded.length()).isLessThan(points.size() * 6);
+    }
+
+    @Test
+    void testEmptyTrace() {
+        assertThat(PolylineCodec.encode(List.of())).isEmpty();
+        assertThat(PolylineCodec.decode("", START)).isEmpty();
+    }
+}
@@ -0,0 +1,69 @@
+package com.geolocation_service.geolocation_service.util;
+
+import com.geolocation_service.geolocation_service.model.PositionBus;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class PositionFrameCodecTest {
+
+    private PositionBus position(Long busId, double latitude, double longitude, double vitesse,
+                                 double direction, LocalDateTime timestamp) {
+        PositionBus position = new PositionBus();
+        position.setBusId(busId);
+        position.setLatitude(latitude);
+        position.setLongitude(longitude);
+        position.setVitesse(vitesse);
+        position.setDirection(direction);
+        position.setTimestamp(timestamp);
+        return position;
+    }
+
+    @Test
+    void testRoundTrip() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        List<PositionBus> positions = List.of(
+                position(1L, 33.5731, -7.5898, 45.3, 90.0, now),
+                position(300_000L, -33.86882, 151.20929, 0.0, 359.9, now.minusSeconds(4)));
+
+        byte[] frame = PositionFrameCodec.encode(positions, false);
+        List<PositionBus> decoded = PositionFrameCodec.decode(frame);
+
+        assertThat(PositionFrameCodec.isSnapshot(frame)).isFalse();
+        assertThat(decoded).hasSize(2);
+        assertThat(decoded.get(0).getBusId()).isEqualTo(1L);
+        assertThat(decoded.get(0).getLatitude()).isCloseTo(33.5731, within(1e-5));
+        assertThat(decoded.get(0).getLongitude()).isCloseTo(-7.5898, within(1e-5));
+        assertThat(decoded.get(0).getVitesse()).isCloseTo(45.3, within(0.05));
+        assertThat(decoded.get(0).getTimestamp()).isEqualTo(now);
+        assertThat(decoded.get(1).getBusId()).isEqualTo(300_000L);
+        assertThat(decoded.get(1).getDirection()).isCloseTo(359.9, within(0.05));
+        assertThat(decoded.get(1).getTimestamp()).isEqualTo(now.minusSeconds(4));
+    }
+
+    @Test
+    void testFrameIsCompact() {
+        LocalDateTime now = LocalDateTime.now();
+        List<PositionBus> positions = List.of(
+                position(12L, 33.5731, -7.5898, 45.0, 90.0, now),
+                position(13L, 33.5831, -7.5998, 30.0, 180.0, now.minusSeconds(2)));
+
+        byte[] frame = PositionFrameCodec.encode(positions, true);
+
+        assertThat(PositionFrameCodec.isSnapshot(frame)).isTrue();
+        // 11 octets d'en-tête + ~16 octets par bus
+        assertThat(frame.length).isLessThanOrEqualTo(11 + 2 * 16);
+    }
+
+    @Test
+    void testEmptyFrame() {
+        byte[] frame = PositionFrameCodec.encode(List.of(), true);
+
+        assertThat(PositionFrameCodec.decode(frame)).isEmpty();
+    }
+}
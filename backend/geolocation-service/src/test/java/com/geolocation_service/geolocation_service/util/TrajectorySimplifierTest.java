@@ -0,0 +1,92 @@
+package com.geolocation_service.geolocation_service.util;
+
+import com.geolocation_service.geolocation_service.dto.TrackPointDTO;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrajectorySimplifierTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 5, 1, 8, 0);
+
+    private static TrackPointDTO point(double latitude, long seconds) {
+        return TrackPointDTO.builder()
+                .latitude(latitude)
+                .longitude(-7.5898)
+                .timestamp(START.plusSeconds(seconds))
+                .build();
+    }
+
+    @Test
+    void testConstantSpeedStraightLineKeepsEndpoints() {
+        List<TrackPointDTO> points = new ArrayList<>();
+        for (int i = 0; i <= 100; i++) {
+            points.add(point(33.57 + i * 0.0001, i * 2L));
+        }
+
+        List<TrackPointDTO> simplified = TrajectorySimplifier.simplify(points, 10);
+
+        assertThat(simplified).containsExactly(points.get(0), points.get(100));
+    }
+
+    @Test
+    void testDwellOnStraightLineIsKept() {
+        List<TrackPointDTO> points = new ArrayList<>();
+        long t = 0;
+        for (int i = 0; i <= 50; i++) {
+            points.add(point(33.57 + i * 0.0001, t));
+            t += 2;
+        }
+        // Arrêt de 3 minutes au milieu du trajet
+        for (int i = 0; i < 18; i++) {
+            t += 10;
+            points.add(point(33.575, t));
+        }
+        for (int i = 51; i <= 100; i++) {
+            t += 2;
+            points.add(point(33.57 + i * 0.0001, t));
+        }
+
+        List<TrackPointDTO> simplified = TrajectorySimplifier.simplify(points, 10);
+
+        assertThat(simplified.size()).isGreaterThan(2).isLessThan(10);
+        assertThat(simplified).anyMatch(p -> p.getTimestamp().equals(START.plusSeconds(100)));
+    }
+
+    @Test
+    void testEveryDroppedPointIsWithinTolerance() {
+        List<TrackPointDTO> points = new ArrayList<>();
+        for (int i = 0; i <= 200; i++) {
+            // Zigzag d'environ 30 m
+            points.add(TrackPointDTO.builder()
+                    .latitude(33.57 + i * 0.0001)
+                    .longitude(-7.5898 + Math.sin(i / 5.0) * 0.0003)
+                    .timestamp(START.plusSeconds(i * 2L))
+                    .build());
+        }
+
+        List<TrackPointDTO> simplified = TrajectorySimplifier.simplify(points, 5);
+
+        assertThat(simplified.size()).isLessThan(points.size());
+        for (TrackPointDTO point : points) {
+            TrackPointDTO before = simplified.stream()
+                    .filter(p -> !p.getTimestamp().isAfter(point.getTimestamp()))
+                    .reduce((a, b) -> b).orElseThrow();
+            TrackPointDTO after = simplified.stream()
+                    .filter(p -> !p.getTimestamp().isBefore(point.getTimestamp()))
+                    .findFirst().orElseThrow();
+            double span = after.getTimestamp().compareTo(before.getTimestamp()) == 0 ? 1
+                    : Duration.between(before.getTimestamp(), after.getTimestamp()).toMillis();
+            double ratio = Duration.between(before.getTimestamp(), point.getTimestamp()).toMillis() / span;
+            double latitude = before.getLatitude() + ratio * (after.getLatitude() - before.getLatitude());
+            double longitude = before.getLongitude() + ratio * (after.getLongitude() - before.getLongitude());
+            assertThat(GeoUtils.approxDistanceMeters(point.getLatitude(), point.getLongitude(), latitude, longitude))
+                    .isLessThanOrEqualTo(5.0);
+        }
+    }
+}
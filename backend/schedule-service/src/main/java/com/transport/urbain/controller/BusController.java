@@ -85,6 +85,22 @@ public class BusController {
         return ResponseEntity.ok(busService.getBusByNumber(busNumber));
     }
 
+    /**
+     * Retrieves several buses by their identifiers in a single call.
+     * <p>
+     * Intended for services that enrich data for a whole fleet (e.g., live
+     * positions) and would otherwise issue one request per bus. Unknown IDs
+     * are silently skipped. Read-only: no role is required despite the POST verb.
+     *
+     * @param ids the unique identifiers of the buses
+     * @return ResponseEntity containing the existing buses
+     */
+    @PostMapping("/lookup")
+    @Operation(summary = "Get buses by IDs")
+    public ResponseEntity<List<BusResponse>> getBusesByIds(@RequestBody List<Long> ids) {
+        return ResponseEntity.ok(busService.getBusesByIds(ids));
+    }
+
     /**
      * Retrieves all buses in the system with pagination support.
      * <p>
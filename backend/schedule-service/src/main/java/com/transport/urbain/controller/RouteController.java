@@ -16,6 +16,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 /**
  * REST controller for managing bus routes in the Urban Transport System.
  * <p>
@@ -105,6 +107,21 @@ public class RouteController {
         return ResponseEntity.ok(routeService.getRouteDetails(id));
     }
 
+    /**
+     * Retrieves the details of every active route in a single call.
+     * <p>
+     * Returns each active route with its ordered stops and their coordinates.
+     * Used by services that need the whole stop network (e.g., stop arrival
+     * detection in geolocation-service) without one request per route.
+     *
+     * @return ResponseEntity containing the details of all active routes
+     */
+    @GetMapping("/details/active")
+    @Operation(summary = "Get details of all active routes with their stops")
+    public ResponseEntity<List<RouteDetailsResponse>> getActiveRouteDetails() {
+        return ResponseEntity.ok(routeService.getActiveRouteDetails());
+    }
+
     /**
      * Retrieves all routes in the system with pagination support.
      * <p>
@@ -0,0 +1,39 @@
+package com.transport.urbain.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Event representing a change to a bus of the fleet.
+ * <p>
+ * Published when a bus is updated, deleted, or its status changes.
+ * Consumers holding a local copy of bus metadata (e.g., the geolocation
+ * service enrichment cache) use it to invalidate their entry.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BusChangedEvent {
+    /**
+     * Unique identifier of the changed bus
+     */
+    private Long busId;
+
+    /**
+     * Bus number (e.g., "BUS-001")
+     */
+    private String busNumber;
+
+    /**
+     * Type of change: UPDATED, DELETED or STATUS_CHANGED
+     */
+    private String changeType;
+
+    /**
+     * Timestamp when the change occurred
+     */
+    private LocalDateTime timestamp;
+}
@@ -1,5 +1,6 @@
 package com.transport.urbain.event.producer;
 
+import com.transport.urbain.event.BusChangedEvent;
 import com.transport.urbain.event.RouteChangedEvent;
 import com.transport.urbain.event.ScheduleCreatedEvent;
 import com.transport.urbain.event.ScheduleUpdatedEvent;
@@ -35,6 +36,11 @@ public class ScheduleEventProducer {
      */
     private static final String ROUTE_CHANGED_TOPIC = "route-changed-events";
 
+    /**
+     * Kafka topic name for bus change events
+     */
+    private static final String BUS_CHANGED_TOPIC = "bus-changed-events";
+
     private final KafkaTemplate<String, Object> kafkaTemplate;
 
     /**
@@ -75,4 +81,17 @@ public class ScheduleEventProducer {
         log.info("Publishing route changed event: {}", event);
         kafkaTemplate.send(ROUTE_CHANGED_TOPIC, event.getRouteId().toString(), event);
     }
+
+    /**
+     * Publishes a bus change event to Kafka.
+     * <p>
+     * Sent when a bus is updated, deleted or changes status so that services
+     * caching bus metadata can drop their stale copy.
+     *
+     * @param event the bus changed event
+     */
+    public void publishBusChanged(BusChangedEvent event) {
+        log.info("Publishing bus changed event: {}", event);
+        kafkaTemplate.send(BUS_CHANGED_TOPIC, event.getBusId().toString(), event);
+    }
 }
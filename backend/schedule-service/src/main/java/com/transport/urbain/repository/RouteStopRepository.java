@@ -22,6 +22,13 @@ public interface RouteStopRepository extends JpaRepository<RouteStop, Long> {
 
     List<RouteStop> findByStopId(Long stopId);
 
+    /**
+     * All stops of all active routes in a single query, ordered by route then sequence
+     */
+    @Query("SELECT rs FROM RouteStop rs JOIN FETCH rs.route r JOIN FETCH rs.stop " +
+           "WHERE r.isActive = true ORDER BY r.id, rs.sequenceNumber")
+    List<RouteStop> findAllOfActiveRoutes();
+
     Optional<RouteStop> findByRouteIdAndStopId(Long routeId, Long stopId);
 
     @Query("SELECT rs FROM RouteStop rs WHERE rs.route.id = :routeId AND rs.sequenceNumber = :sequenceNumber")
@@ -6,6 +6,7 @@ import com.transport.urbain.model.BusStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -41,6 +42,16 @@ public interface BusService {
      */
     BusResponse getBusByNumber(String busNumber);
 
+    /**
+     * Retrieves several buses in a single lookup.
+     * <p>
+     * Unknown IDs are ignored; the result only contains existing buses.
+     *
+     * @param ids the bus IDs
+     * @return list of bus responses
+     */
+    List<BusResponse> getBusesByIds(Collection<Long> ids);
+
     /**
      * Retrieves all buses with pagination support.
      *
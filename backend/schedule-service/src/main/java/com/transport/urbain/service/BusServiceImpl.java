@@ -3,6 +3,8 @@ package com.transport.urbain.service;
 import com.transport.urbain.dto.mapper.BusMapper;
 import com.transport.urbain.dto.request.CreateBusRequest;
 import com.transport.urbain.dto.response.BusResponse;
+import com.transport.urbain.event.BusChangedEvent;
+import com.transport.urbain.event.producer.ScheduleEventProducer;
 import com.transport.urbain.exception.BusNotFoundException;
 import com.transport.urbain.exception.DuplicateBusException;
 import com.transport.urbain.model.Bus;
@@ -17,6 +19,8 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -42,6 +46,7 @@ public class BusServiceImpl implements BusService {
 
     private final BusRepository busRepository;
     private final BusMapper busMapper;
+    private final ScheduleEventProducer scheduleEventProducer;
 
     @Override
     @Transactional
@@ -95,6 +100,17 @@ public class BusServiceImpl implements BusService {
         return busMapper.toBusResponse(bus);
     }
 
+    @Override
+    public List<BusResponse> getBusesByIds(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        return busRepository.findAllById(ids)
+                .stream()
+                .map(busMapper::toBusResponse)
+                .collect(Collectors.toList());
+    }
+
     @Override
     public Page<BusResponse> getAllBuses(Pageable pageable) {
         return busRepository.findAll(pageable).map(busMapper::toBusResponse);
@@ -148,6 +164,7 @@ public class BusServiceImpl implements BusService {
 
         bus = busRepository.save(bus);
         log.info("Bus updated successfully: {}", bus.getBusNumber());
+        publishBusChanged(bus, "UPDATED");
         return busMapper.toBusResponse(bus);
     }
 
@@ -159,6 +176,7 @@ public class BusServiceImpl implements BusService {
                 .orElseThrow(() -> new BusNotFoundException("Bus not found with id: " + id));
         busRepository.delete(bus);
         log.info("Bus deleted successfully: {}", bus.getBusNumber());
+        publishBusChanged(bus, "DELETED");
     }
 
     @Override
@@ -170,5 +188,15 @@ public class BusServiceImpl implements BusService {
         bus.setStatus(status);
         busRepository.save(bus);
         log.info("Bus status updated: {} -> {}", bus.getBusNumber(), status);
+        publishBusChanged(bus, "STATUS_CHANGED");
+    }
+
+    private void publishBusChanged(Bus bus, String changeType) {
+        scheduleEventProducer.publishBusChanged(new BusChangedEvent(
+                bus.getId(),
+                bus.getBusNumber(),
+                changeType,
+                LocalDateTime.now()
+        ));
     }
 }
\ No newline at end of file
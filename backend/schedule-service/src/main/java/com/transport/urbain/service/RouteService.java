@@ -7,6 +7,8 @@ import com.transport.urbain.dto.response.RouteResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.List;
+
 /**
  * Service interface for route management operations.
  * <p>
@@ -24,6 +26,8 @@ public interface RouteService {
 
     RouteDetailsResponse getRouteDetails(Long id);
 
+    List<RouteDetailsResponse> getActiveRouteDetails();
+
     Page<RouteResponse> getAllRoutes(Pageable pageable);
 
     Page<RouteResponse> getActiveRoutes(Pageable pageable);
@@ -26,6 +26,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -108,7 +111,24 @@ public class RouteServiceImpl implements RouteService {
         Route route = routeRepository.findById(id)
                 .orElseThrow(() -> new RouteNotFoundException("Route not found with id: " + id));
 
-        var stops = routeStopRepository.findByRouteIdOrderBySequenceNumberAsc(id)
+        return toRouteDetails(route, routeStopRepository.findByRouteIdOrderBySequenceNumberAsc(id));
+    }
+
+    @Override
+    public List<RouteDetailsResponse> getActiveRouteDetails() {
+        // Grouped by id: Route's generated equals/hashCode walks its lazy collections
+        Map<Long, List<RouteStop>> stopsByRoute = routeStopRepository.findAllOfActiveRoutes()
+                .stream()
+                .collect(Collectors.groupingBy(rs -> rs.getRoute().getId(), LinkedHashMap::new, Collectors.toList()));
+
+        return stopsByRoute.values()
+                .stream()
+                .map(routeStops -> toRouteDetails(routeStops.get(0).getRoute(), routeStops))
+                .collect(Collectors.toList());
+    }
+
+    private RouteDetailsResponse toRouteDetails(Route route, List<RouteStop> routeStops) {
+        var stops = routeStops
                 .stream()
                 .map(rs -> RouteDetailsResponse.RouteStopDetail.builder()
                         .stopId(rs.getStop().getId())
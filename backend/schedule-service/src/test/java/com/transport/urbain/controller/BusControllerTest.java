@@ -103,6 +103,26 @@ class BusControllerTest {
         verify(busService, times(1)).getBusById(1L);
     }
 
+    /**
+     * Tests bulk retrieval of buses via POST lookup endpoint.
+     * Verifies that HTTP 200 status and the found buses are returned.
+     */
+    @Test
+    void testGetBusesByIds_Success() {
+        // Arrange
+        List<Long> ids = List.of(1L, 2L);
+        when(busService.getBusesByIds(ids)).thenReturn(List.of(busResponse));
+
+        // Act
+        ResponseEntity<List<BusResponse>> response = busController.getBusesByIds(ids);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(1, response.getBody().size());
+        verify(busService, times(1)).getBusesByIds(ids);
+    }
+
     /**
      * Tests retrieval of bus by bus number via GET endpoint.
      * Verifies that HTTP 200 status is returned.
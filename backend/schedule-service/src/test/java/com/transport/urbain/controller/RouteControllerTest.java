@@ -147,6 +147,25 @@ class RouteControllerTest {
         verify(routeService, times(1)).getRouteDetails(1L);
     }
 
+    /**
+     * Tests retrieval of all active route details via GET endpoint.
+     * Verifies that HTTP 200 status and the route list are returned.
+     */
+    @Test
+    void testGetActiveRouteDetails_Success() {
+        // Arrange
+        when(routeService.getActiveRouteDetails()).thenReturn(List.of(routeDetailsResponse));
+
+        // Act
+        ResponseEntity<List<RouteDetailsResponse>> response = routeController.getActiveRouteDetails();
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(1, response.getBody().size());
+        verify(routeService, times(1)).getActiveRouteDetails();
+    }
+
     /**
      * Tests retrieval of all routes via GET endpoint.
      * Verifies that HTTP 200 status is returned.
@@ -1,5 +1,6 @@
 package com.transport.urbain.event.producer;
 
+import com.transport.urbain.event.BusChangedEvent;
 import com.transport.urbain.event.RouteChangedEvent;
 import com.transport.urbain.event.ScheduleCreatedEvent;
 import com.transport.urbain.event.ScheduleUpdatedEvent;
@@ -27,6 +28,7 @@ import static org.mockito.Mockito.*;
  *     <li>Schedule created event publishing</li>
  *     <li>Schedule updated event publishing</li>
  *     <li>Route changed event publishing</li>
+ *     <li>Bus changed event publishing</li>
  *     <li>Kafka template interaction</li>
  *     <li>Event message sending</li>
  * </ul>
@@ -126,6 +128,25 @@ class ScheduleEventProducerTest {
                 .send(eq("route-changed-events"), eq("1"), any(RouteChangedEvent.class));
     }
 
+    /**
+     * Tests successful publishing of bus changed event.
+     * Verifies that the event is sent to the correct Kafka topic, keyed by bus ID.
+     */
+    @Test
+    void testPublishBusChanged_Success() {
+        // Arrange
+        BusChangedEvent event = new BusChangedEvent(7L, "BUS-007", "UPDATED", LocalDateTime.now());
+        when(kafkaTemplate.send(anyString(), anyString(), any(BusChangedEvent.class)))
+                .thenReturn(null);
+
+        // Act
+        assertDoesNotThrow(() -> scheduleEventProducer.publishBusChanged(event));
+
+        // Assert
+        verify(kafkaTemplate, times(1))
+                .send(eq("bus-changed-events"), eq("7"), any(BusChangedEvent.class));
+    }
+
     /**
      * Tests event publishing with null key.
      * Verifies that publishing handles null keys gracefully.
@@ -3,6 +3,8 @@ package com.transport.urbain.service;
 import com.transport.urbain.dto.mapper.BusMapper;
 import com.transport.urbain.dto.request.CreateBusRequest;
 import com.transport.urbain.dto.response.BusResponse;
+import com.transport.urbain.event.BusChangedEvent;
+import com.transport.urbain.event.producer.ScheduleEventProducer;
 import com.transport.urbain.exception.BusNotFoundException;
 import com.transport.urbain.exception.DuplicateBusException;
 import com.transport.urbain.model.Bus;
@@ -38,6 +40,7 @@ import static org.mockito.Mockito.*;
  *     <li>Bus update operations</li>
  *     <li>Bus deletion</li>
  *     <li>Bus status management</li>
+ *     <li>Bulk lookup and bus change events</li>
  *     <li>Exception handling</li>
  * </ul>
  *
@@ -52,6 +55,9 @@ class BusServiceImplTest {
     @Mock
     private BusMapper busMapper;
 
+    @Mock
+    private ScheduleEventProducer scheduleEventProducer;
+
     @InjectMocks
     private BusServiceImpl busService;
 
@@ -290,6 +296,7 @@ class BusServiceImplTest {
         assertNotNull(result);
         verify(busRepository, times(1)).findById(1L);
         verify(busRepository, times(1)).save(any(Bus.class));
+        verify(scheduleEventProducer, times(1)).publishBusChanged(any(BusChangedEvent.class));
     }
 
     /**
@@ -305,6 +312,7 @@ class BusServiceImplTest {
         assertThrows(BusNotFoundException.class, () -> busService.updateBus(999L, createBusRequest));
         verify(busRepository, times(1)).findById(999L);
         verify(busRepository, never()).save(any());
+        verify(scheduleEventProducer, never()).publishBusChanged(any());
     }
 
     /**
@@ -323,6 +331,7 @@ class BusServiceImplTest {
         // Assert
         verify(busRepository, times(1)).findById(1L);
         verify(busRepository, times(1)).delete(testBus);
+        verify(scheduleEventProducer, times(1)).publishBusChanged(any(BusChangedEvent.class));
     }
 
     /**
@@ -356,6 +365,42 @@ class BusServiceImplTest {
         // Assert
         verify(busRepository, times(1)).findById(1L);
         verify(busRepository, times(1)).save(any(Bus.class));
+        verify(scheduleEventProducer, times(1)).publishBusChanged(argThat(event ->
+                event.getBusId().equals(1L) && "STATUS_CHANGED".equals(event.getChangeType())));
+    }
+
+    /**
+     * Tests bulk retrieval of buses by IDs.
+     * Verifies that a single repository query is issued for all IDs.
+     */
+    @Test
+    void testGetBusesByIds_Success() {
+        // Arrange
+        List<Long> ids = List.of(1L, 999L);
+        when(busRepository.findAllById(ids)).thenReturn(List.of(testBus));
+        when(busMapper.toBusResponse(testBus)).thenReturn(busResponse);
+
+        // Act
+        List<BusResponse> result = busService.getBusesByIds(ids);
+
+        // Assert
+        assertEquals(1, result.size());
+        assertEquals("BUS-001", result.get(0).getBusNumber());
+        verify(busRepository, times(1)).findAllById(ids);
+    }
+
+    /**
+     * Tests bulk retrieval with an empty ID list.
+     * Verifies that the repository is not queried.
+     */
+    @Test
+    void testGetBusesByIds_EmptyIds() {
+        // Act
+        List<BusResponse> result = busService.getBusesByIds(List.of());
+
+        // Assert
+        assertTrue(result.isEmpty());
+        verify(busRepository, never()).findAllById(any());
     }
 
     /**
@@ -437,6 +437,35 @@ class RouteServiceImplTest {
         verify(routeRepository, times(1)).findById(1L);
     }
 
+    /**
+     * Tests retrieval of all active routes with their stops.
+     * Verifies that stops loaded in one query are grouped per route, in order.
+     */
+    @Test
+    void testGetActiveRouteDetails_Success() {
+        // Arrange
+        Route otherRoute = Route.builder().id(2L).routeNumber("R202").routeName("Coastal Line").isActive(true).build();
+        Stop central = Stop.builder().id(1L).stopCode("ST001").stopName("Central Station").build();
+        Stop market = Stop.builder().id(2L).stopCode("ST002").stopName("Market Square").build();
+
+        when(routeStopRepository.findAllOfActiveRoutes()).thenReturn(List.of(
+                RouteStop.builder().id(1L).route(testRoute).stop(central).sequenceNumber(1).build(),
+                RouteStop.builder().id(2L).route(testRoute).stop(market).sequenceNumber(2).build(),
+                RouteStop.builder().id(3L).route(otherRoute).stop(market).sequenceNumber(1).build()
+        ));
+
+        // Act
+        List<RouteDetailsResponse> result = routeService.getActiveRouteDetails();
+
+        // Assert
+        assertEquals(2, result.size());
+        assertEquals("R101", result.get(0).getRouteNumber());
+        assertEquals(List.of("Central Station", "Market Square"),
+                result.get(0).getStops().stream().map(RouteDetailsResponse.RouteStopDetail::getStopName).toList());
+        assertEquals(1, result.get(1).getStops().size());
+        verify(routeRepository, never()).findById(anyLong());
+    }
+
     /**
      * Tests route search functionality.
      * Verifies that routes matching the search keyword are returned.
@@ -4,15 +4,31 @@ import SockJS from 'sockjs-client'
 import { Client, IMessage } from '@stomp/stompjs'
 
 export interface BusPosition {
-  idPosition: string
+  busId: number
   latitude: number
   longitude: number
-  altitude: number
-  precision: number
   vitesse: number
   direction: number
   timestamp: string
-  busId: number
+}
+
+// Buses without any update for this long are dropped from the map (mirrors the server idle timeout)
+const STALE_AFTER_MS = 5 * 60 * 1000
+
+const mergePositions = (
+  current: Map<number, BusPosition>,
+  updates: BusPosition[]
+): Map<number, BusPosition> => {
+  const next = new Map(current)
+  updates.forEach((position) => next.set(position.busId, position))
+
+  const cutoff = Date.now() - STALE_AFTER_MS
+  next.forEach((position, busId) => {
+    if (new Date(position.timestamp).getTime() < cutoff) {
+      next.delete(busId)
+    }
+  })
+  return next
 }
 
 export const useBusTracking = (enabled = true) => {
@@ -20,10 +36,16 @@ export const useBusTracking = (enabled = true) => {
   const [isConnected, setIsConnected] = useState(false)
   const [error, setError] = useState<string | null>(null)
   const clientRef = useRef<Client | null>(null)
+  const positionsRef = useRef<Map<number, BusPosition>>(new Map())
 
   useEffect(() => {
     if (!enabled) return
 
+    const applyPositions = (updates: BusPosition[]) => {
+      positionsRef.current = mergePositions(positionsRef.current, updates)
+      setBusPositions(Array.from(positionsRef.current.values()))
+    }
+
     const socket = new SockJS('http://localhost:8083/ws')
     const stompClient = new Client({
       webSocketFactory: () => socket,
@@ -33,16 +55,27 @@ export const useBusTracking = (enabled = true) => {
         setIsConnected(true)
         setError(null)
 
-        // Subscribe to all active bus locations
+        // The server only broadcasts changed positions: subscribe to deltas first,
+        // then request the one-off snapshot of all active buses
         stompClient.subscribe('/topic/buses/all', (message: IMessage) => {
           try {
-            const positions: BusPosition[] = JSON.parse(message.body)
-            setBusPositions(positions)
+            const changes: BusPosition[] = JSON.parse(message.body)
+            applyPositions(changes)
           } catch (err) {
             console.error('Error parsing bus positions:', err)
             setError('Failed to parse bus positions')
           }
         })
+
+        stompClient.subscribe('/app/buses/snapshot', (message: IMessage) => {
+          try {
+            const snapshot: BusPosition[] = JSON.parse(message.body)
+            applyPositions(snapshot)
+          } catch (err) {
+            console.error('Error parsing bus snapshot:', err)
+            setError('Failed to parse bus positions')
+          }
+        })
       },
 
       onDisconnect: () => {
@@ -92,8 +125,7 @@ export const useSpecificBusTracking = (busId: number | null, enabled = true) =>
         setIsConnected(true)
         setError(null)
 
-        // Subscribe to specific bus location
-        stompClient.subscribe(`/topic/bus/${busId}`, (message: IMessage) => {
+        const handlePosition = (message: IMessage) => {
           try {
             const position: BusPosition = JSON.parse(message.body)
             setBusPosition(position)
@@ -101,7 +133,11 @@ export const useSpecificBusTracking = (busId: number | null, enabled = true) =>
             console.error('Error parsing bus position:', err)
             setError('Failed to parse bus position')
           }
-        })
+        }
+
+        // Subscribe to specific bus location changes, then fetch its current position once
+        stompClient.subscribe(`/topic/bus/${busId}`, handlePosition)
+        stompClient.subscribe(`/app/bus/${busId}`, handlePosition)
       },
 
       onDisconnect: () => {
@@ -0,0 +1,78 @@
+/**
+ * Decoder for the compact binary position frames served on `/ws-binary`
+ * (WebSocket sub-protocol `bus-positions.v1`).
+ *
+ * Frame layout (big-endian integers, varint = unsigned LEB128, zigzag for signed values):
+ *
+ *   header  u8 version (= 1) | u8 flags (bit 0 = full snapshot) | i64 baseTime (epoch ms) | varint count
+ *   entry   varint busId | i32 latitude x 1e5 | i32 longitude x 1e5
+ *           | u16 speed x 10 (km/h) | u16 heading x 10 (degrees)
+ *           | varint zigzag(timestamp - baseTime) in ms
+ *
+ * Usage:
+ *   const ws = new WebSocket('ws://localhost:8083/ws-binary', POSITION_FRAME_PROTOCOL)
+ *   ws.binaryType = 'arraybuffer'
+ *   ws.onmessage = (event) => { const frame = decodePositionFrame(event.data) }
+ *
+ * The first frame after connecting is a snapshot of all active buses;
+ * the following ones only contain buses whose position changed.
+ */
+
+export const POSITION_FRAME_PROTOCOL = 'bus-positions.v1'
+
+export interface FramePosition {
+  busId: number
+  latitude: number
+  longitude: number
+  vitesse: number
+  direction: number
+  timestamp: number // epoch milliseconds
+}
+
+export interface PositionFrame {
+  snapshot: boolean
+  positions: FramePosition[]
+}
+
+export const decodePositionFrame = (buffer: ArrayBuffer): PositionFrame => {
+  const view = new DataView(buffer)
+  let offset = 0
+
+  // Varints may exceed 32 bits (busId), so accumulate with multiplication rather than bit shifts
+  const readVarint = (): number => {
+    let result = 0
+    let multiplier = 1
+    let byte: number
+    do {
+      byte = view.getUint8(offset++)
+      result += (byte & 0x7f) * multiplier
+      multiplier *= 128
+    } while (byte & 0x80)
+    return result
+  }
+
+  const unzigzag = (value: number): number => (value % 2 === 0 ? value / 2 : -(value + 1) / 2)
+
+  const version = view.getUint8(offset++)
+  if (version !== 1) {
+    throw new Error(`Unsupported position frame version ${version}`)
+  }
+  const flags = view.getUint8(offset++)
+  const baseTime = Number(view.getBigInt64(offset))
+  offset += 8
+  const count = readVarint()
+
+  const positions: FramePosition[] = []
+  for (let i = 0; i < count; i++) {
+    const busId = readVarint()
+    const latitude = view.getInt32(offset) / 1e5
+    const longitude = view.getInt32(offset + 4) / 1e5
+    const vitesse = view.getUint16(offset + 8) / 10
+    const direction = view.getUint16(offset + 10) / 10
+    offset += 12
+    const timestamp = baseTime + unzigzag(readVarint())
+    positions.push({ busId, latitude, longitude, vitesse, direction, timestamp })
+  }
+
+  return { snapshot: (flags & 0x01) !== 0, positions }
+}